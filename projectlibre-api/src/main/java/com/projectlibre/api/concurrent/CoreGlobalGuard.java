@@ -0,0 +1,83 @@
+package com.projectlibre.api.concurrent;
+
+import com.projectlibre.api.observability.CoreLockEvent;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Narrow lock for the core singletons shared by all projects: CalendarService, UniqueIdPool and Configuration.
+ * 
+ * Project data is protected by ProjectLockRegistry; this guard only covers the short sections that create, load
+ * or reassign calendars and ids in the shared services. It is always taken last: code holding it must never ask
+ * for a project lock.
+ * 
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public final class CoreGlobalGuard {
+
+    private static final CoreGlobalGuard INSTANCE = new CoreGlobalGuard();
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final LockStatistics statistics = new LockStatistics();
+
+    private CoreGlobalGuard() {
+    }
+
+    public static CoreGlobalGuard getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Executes operation while holding the global lock.
+     * 
+     * @param operation operation to execute
+     * @param <T> return type
+     * @return operation result
+     */
+    public <T> T execute(Supplier<T> operation) {
+        if (lock.isHeldByCurrentThread()) {
+            return operation.get();
+        }
+        CoreLockEvent event = new CoreLockEvent();
+        event.begin();
+        int queueLength = lock.getQueueLength();
+        long requested = System.nanoTime();
+        lock.lock();
+        long acquired = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = operation.get();
+            failed = false;
+            return result;
+        } finally {
+            lock.unlock();
+            long released = System.nanoTime();
+            statistics.record(acquired - requested, released - acquired, failed);
+            if (event.shouldCommit()) {
+                event.mode = "global";
+                event.waitTime = acquired - requested;
+                event.holdTime = released - acquired;
+                event.queueLength = queueLength;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    public void execute(Runnable operation) {
+        execute(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    public boolean isHeldByCurrentThread() {
+        return lock.isHeldByCurrentThread();
+    }
+
+    public LockStatistics getStatistics() {
+        return statistics;
+    }
+}
@@ -0,0 +1,50 @@
+package com.projectlibre.api.concurrent;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wait and hold times accumulated by one kind of core lock acquisition.
+ * Kept as plain counters so that the guards do not depend on a meter registry; they are exported by CoreMetricsConfig.
+ * 
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public final class LockStatistics {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder holdNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder failures = new LongAdder();
+
+    void record(long waitTime, long holdTime, boolean failed) {
+        count.increment();
+        waitNanos.add(waitTime);
+        holdNanos.add(holdTime);
+        maxWaitNanos.accumulate(waitTime);
+        if (failed) {
+            failures.increment();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getWaitNanos() {
+        return waitNanos.sum();
+    }
+
+    public double getHoldNanos() {
+        return holdNanos.sum();
+    }
+
+    public double getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+}
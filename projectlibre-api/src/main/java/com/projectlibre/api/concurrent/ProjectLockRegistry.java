@@ -0,0 +1,197 @@
+package com.projectlibre.api.concurrent;
+
+import com.projectlibre.api.observability.CoreLockEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Per-project read/write locks over the ProjectLibre Core model, keyed by the CoreProjectBridge project id.
+ * 
+ * Legacy Core is not thread-safe inside a project, but separate projects share no task, resource or assignment.
+ * Readers such as DTO conversion take the shared lock and run together; sync, recalculation and save take the
+ * exclusive lock of their project only. State shared by all projects is protected by CoreGlobalGuard, which is
+ * always taken after the project lock.
+ * 
+ * Each project also has a write generation, incremented whenever an exclusive section ends, which tells readers
+ * such as ProjectSnapshotStore whether the project may have changed since they last looked at it.
+ * 
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Component
+public class ProjectLockRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectLockRegistry.class);
+
+    private final ConcurrentMap<Long, ProjectLock> locks = new ConcurrentHashMap<>();
+    private final LockStatistics readStatistics = new LockStatistics();
+    private final LockStatistics writeStatistics = new LockStatistics();
+    private final AtomicLong operationCounter = new AtomicLong();
+
+    /**
+     * Executes operation with the shared lock of the project.
+     * 
+     * @param projectId project id in CoreProjectBridge
+     * @param operation operation to execute
+     * @param <T> return type
+     * @return operation result
+     */
+    public <T> T executeWithReadLock(Long projectId, Supplier<T> operation) {
+        return execute(projectId, false, readStatistics, operation);
+    }
+
+    public void executeWithReadLock(Long projectId, Runnable operation) {
+        executeWithReadLock(projectId, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executes operation with the exclusive lock of the project.
+     * 
+     * @param projectId project id in CoreProjectBridge
+     * @param operation operation to execute
+     * @param <T> return type
+     * @return operation result
+     * @throws IllegalStateException if the current thread only holds the shared lock, which can't be upgraded
+     */
+    public <T> T executeWithWriteLock(Long projectId, Supplier<T> operation) {
+        return execute(projectId, true, writeStatistics, operation);
+    }
+
+    public void executeWithWriteLock(Long projectId, Runnable operation) {
+        executeWithWriteLock(projectId, () -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    /**
+     * Forgets the lock of a project that is no longer loaded. A lock held by any thread is kept.
+     * The removed lock is retired under its exclusive lock: a thread which got it from the map before the removal
+     * and was waiting for it takes the new lock of the project instead, so two threads never hold different locks
+     * of one project. The write generation of the new lock starts again at 0, so the snapshot of the project must
+     * be dropped first.
+     * 
+     * @return true if the lock was removed
+     */
+    public boolean remove(Long projectId) {
+        ProjectLock lock = locks.get(projectId);
+        if (lock == null || !lock.writeLock().tryLock()) {
+            return false;
+        }
+        try {
+            if (lock.getWriteHoldCount() > 1) {
+                return false; // the current thread is inside an exclusive section of the project
+            }
+            lock.retired = true;
+            return locks.remove(projectId, lock);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isWriteLocked(Long projectId) {
+        ProjectLock lock = locks.get(projectId);
+        return lock != null && lock.isWriteLocked();
+    }
+
+    /**
+     * @return number of exclusive sections completed on the project, 0 if it was never locked for writing
+     */
+    public long getWriteGeneration(Long projectId) {
+        ProjectLock lock = locks.get(projectId);
+        return lock != null ? lock.writeGeneration : 0;
+    }
+
+    public int getProjectCount() {
+        return locks.size();
+    }
+
+    public LockStatistics getReadStatistics() {
+        return readStatistics;
+    }
+
+    public LockStatistics getWriteStatistics() {
+        return writeStatistics;
+    }
+
+    private ProjectLock getLock(Long projectId) {
+        if (projectId == null) {
+            throw new IllegalArgumentException("Project id cannot be null");
+        }
+        return locks.computeIfAbsent(projectId, id -> new ProjectLock());
+    }
+
+    private <T> T execute(Long projectId, boolean write, LockStatistics statistics, Supplier<T> operation) {
+        long opId = operationCounter.incrementAndGet();
+        String mode = write ? "write" : "read";
+        CoreLockEvent event = new CoreLockEvent();
+        event.begin();
+        long requested = System.nanoTime();
+        ProjectLock rwLock;
+        Lock lock;
+        int queueLength;
+        while (true) {
+            rwLock = getLock(projectId);
+            if (write && rwLock.getReadHoldCount() > 0 && !rwLock.isWriteLockedByCurrentThread()) {
+                throw new IllegalStateException("Read lock of project " + projectId + " can't be upgraded to a write lock");
+            }
+            lock = write ? rwLock.writeLock() : rwLock.readLock();
+            queueLength = rwLock.getQueueLength();
+            if (rwLock.isWriteLocked() && !rwLock.isWriteLockedByCurrentThread()) {
+                log.debug("[ProjectLock] Op#{} {} lock of project {} held by a writer, queue={}",
+                    opId, mode, projectId, queueLength);
+            }
+            lock.lock();
+            if (!rwLock.retired) {
+                break;
+            }
+            lock.unlock(); // removed while we waited: the project has a new lock
+        }
+        long acquired = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = operation.get();
+            failed = false;
+            return result;
+        } finally {
+            if (write && rwLock.getWriteHoldCount() == 1) {
+                rwLock.writeGeneration++; // before unlocking, so a reader never sees the changes with the old generation
+            }
+            lock.unlock();
+            long released = System.nanoTime();
+            statistics.record(acquired - requested, released - acquired, failed);
+            if (event.shouldCommit()) {
+                event.operationId = opId;
+                event.projectId = projectId;
+                event.mode = mode;
+                event.waitTime = acquired - requested;
+                event.holdTime = released - acquired;
+                event.queueLength = queueLength;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private static final class ProjectLock extends ReentrantReadWriteLock {
+        private static final long serialVersionUID = 1L;
+
+        private volatile long writeGeneration = 0; // only changed by the writer
+        private volatile boolean retired = false; // removed from the registry, only set under the write lock
+
+        ProjectLock() {
+            super(true);
+        }
+    }
+}
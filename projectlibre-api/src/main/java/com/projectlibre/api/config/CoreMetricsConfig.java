@@ -0,0 +1,167 @@
+package com.projectlibre.api.config;
+
+import com.projectlibre.api.concurrent.CoreGlobalGuard;
+import com.projectlibre.api.concurrent.LockStatistics;
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
+import com.projectlibre.api.recalculation.RecalculationScheduler;
+import com.projectlibre.api.streaming.ChangeStreamHub;
+import com.projectlibre.api.streaming.DeltaTracker;
+import com.projectlibre1.pm.assignment.RollupCache;
+import com.projectlibre1.pm.calendar.CalendarMemo;
+import com.projectlibre1.pm.calendar.IntersectionCalendarCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports counters kept by the ProjectLibre core engine as Micrometer meters.
+ * The core has no Micrometer dependency, so its statistics are read through function counters and gauges.
+ * 
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Configuration
+public class CoreMetricsConfig {
+
+    @Bean
+    public MeterBinder calendarMemoMetrics() {
+        return registry -> {
+            CalendarMemo memo = CalendarMemo.getInstance();
+            FunctionCounter.builder("projectlibre.calendar.memo.hits", memo, CalendarMemo::getHitCount)
+                .description("Calendar date math answered from the memo")
+                .register(registry);
+            FunctionCounter.builder("projectlibre.calendar.memo.misses", memo, CalendarMemo::getMissCount)
+                .description("Calendar date math computed and stored in the memo")
+                .register(registry);
+            FunctionCounter.builder("projectlibre.calendar.memo.evictions", memo, CalendarMemo::getEvictionCount)
+                .register(registry);
+            Gauge.builder("projectlibre.calendar.memo.size", memo, CalendarMemo::getSize)
+                .register(registry);
+            Gauge.builder("projectlibre.calendar.memo.enabled", () -> CalendarMemo.isEnabled() ? 1 : 0)
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder intersectionCalendarMetrics() {
+        return registry -> {
+            IntersectionCalendarCache cache = IntersectionCalendarCache.getInstance();
+            FunctionCounter.builder("projectlibre.calendar.intersections.hits", cache, IntersectionCalendarCache::getHitCount)
+                .description("Assignment calendar intersections reused from the intern table")
+                .register(registry);
+            FunctionCounter.builder("projectlibre.calendar.intersections.misses", cache, IntersectionCalendarCache::getMissCount)
+                .description("Assignment calendar intersections computed")
+                .register(registry);
+            Gauge.builder("projectlibre.calendar.intersections.size", cache, IntersectionCalendarCache::getSize)
+                .register(registry);
+            Gauge.builder("projectlibre.calendar.intersections.hit.rate", cache, IntersectionCalendarCache::getHitRate)
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder rollupCacheMetrics() {
+        return registry -> {
+            FunctionCounter.builder("projectlibre.rollup.hits", RollupCache.class, c -> RollupCache.getHitCount())
+                .description("Task, resource and project totals answered from the rollup cache")
+                .register(registry);
+            FunctionCounter.builder("projectlibre.rollup.misses", RollupCache.class, c -> RollupCache.getMissCount())
+                .description("Task, resource and project totals consolidated from their children")
+                .register(registry);
+            Gauge.builder("projectlibre.rollup.hit.rate", RollupCache::getHitRate)
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder coreLockMetrics(ProjectLockRegistry projectLocks) {
+        return registry -> {
+            registerLock(registry, "read", projectLocks.getReadStatistics());
+            registerLock(registry, "write", projectLocks.getWriteStatistics());
+            registerLock(registry, "global", CoreGlobalGuard.getInstance().getStatistics());
+            Gauge.builder("projectlibre.core.lock.projects", projectLocks, ProjectLockRegistry::getProjectCount)
+                .description("Projects with a lock in the registry")
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder projectSnapshotMetrics(ProjectSnapshotStore snapshotStore) {
+        return registry -> {
+            FunctionCounter.builder("projectlibre.readmodel.hits", snapshotStore, ProjectSnapshotStore::getHitCount)
+                .description("Project data reads served from the published snapshot")
+                .register(registry);
+            FunctionCounter.builder("projectlibre.readmodel.publications", snapshotStore, ProjectSnapshotStore::getPublicationCount)
+                .description("Project snapshots converted and published")
+                .register(registry);
+            Gauge.builder("projectlibre.readmodel.size", snapshotStore, ProjectSnapshotStore::getSize)
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder recalculationMetrics(RecalculationScheduler scheduler) {
+        return registry -> {
+            FunctionCounter.builder("projectlibre.recalculation.requests", scheduler, RecalculationScheduler::getRequestCount)
+                .description("CPM recalculations requested")
+                .register(registry);
+            FunctionCounter.builder("projectlibre.recalculation.runs", scheduler, RecalculationScheduler::getRunCount)
+                .description("CPM recalculations executed after coalescing")
+                .register(registry);
+            FunctionCounter.builder("projectlibre.recalculation.failures", scheduler, RecalculationScheduler::getFailureCount)
+                .register(registry);
+            Gauge.builder("projectlibre.recalculation.queued", scheduler, RecalculationScheduler::getQueuedCount)
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder changeStreamMetrics(DeltaTracker deltaTracker, ChangeStreamHub streamHub) {
+        return registry -> {
+            Gauge.builder("projectlibre.changes.retained", deltaTracker, DeltaTracker::getRetainedChangeCount)
+                .description("Changes held by the project change logs")
+                .register(registry);
+            FunctionCounter.builder("projectlibre.changes.superseded", deltaTracker, DeltaTracker::getSupersededCount)
+                .description("Changes dropped from a change log for a later change of the same field")
+                .register(registry);
+            FunctionCounter.builder("projectlibre.changes.evicted", deltaTracker, DeltaTracker::getEvictedCount)
+                .description("Live changes evicted from a full change log")
+                .register(registry);
+            Gauge.builder("projectlibre.changes.subscribers", streamHub, ChangeStreamHub::getSubscriberCount)
+                .register(registry);
+            FunctionCounter.builder("projectlibre.changes.events", streamHub, ChangeStreamHub::getDeliveredEventCount)
+                .register(registry);
+            FunctionCounter.builder("projectlibre.changes.resyncs", streamHub, ChangeStreamHub::getResyncCount)
+                .description("Subscribers that fell out of the change log and had to reload the project")
+                .register(registry);
+        };
+    }
+
+    private static void registerLock(MeterRegistry registry, String mode, LockStatistics statistics) {
+        FunctionTimer.builder("projectlibre.core.lock.wait", statistics,
+                LockStatistics::getCount, LockStatistics::getWaitNanos, TimeUnit.NANOSECONDS)
+            .description("Time spent waiting for a core lock")
+            .tag("mode", mode)
+            .register(registry);
+        FunctionTimer.builder("projectlibre.core.lock.hold", statistics,
+                LockStatistics::getCount, LockStatistics::getHoldNanos, TimeUnit.NANOSECONDS)
+            .description("Time a core lock was held")
+            .tag("mode", mode)
+            .register(registry);
+        Gauge.builder("projectlibre.core.lock.wait.max", statistics, s -> s.getMaxWaitNanos() / 1e9)
+            .description("Longest wait for a core lock since start, in seconds")
+            .tag("mode", mode)
+            .register(registry);
+        FunctionCounter.builder("projectlibre.core.lock.failures", statistics, LockStatistics::getFailureCount)
+            .description("Operations under a core lock that threw")
+            .tag("mode", mode)
+            .register(registry);
+    }
+}
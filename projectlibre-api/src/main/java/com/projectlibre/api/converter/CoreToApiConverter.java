@@ -1,5 +1,6 @@
 package com.projectlibre.api.converter;
 
+import com.projectlibre.api.concurrent.CoreGlobalGuard;
 import com.projectlibre.api.dto.CalendarDataDto;
 import com.projectlibre.api.dto.ProjectDataDto;
 import com.projectlibre.api.dto.ProjectDataDto.TaskDataDto;
@@ -52,8 +53,11 @@ public class CoreToApiConverter {
         log.debug("[CoreToApiConverter] Converting: {}", coreProject.getName());
 
         List<TaskDataDto> tasks = taskConverter.convertTasks(coreProject);
-        List<ResourceDataDto> resources = resourceConverter.convertResources(coreProject);
-        List<CalendarDataDto> calendars = calendarConverter.extractCalendarsForProject(coreProject);
+        // resource calendar ids and the calendar list are read from the shared CalendarService
+        List<ResourceDataDto> resources = CoreGlobalGuard.getInstance().execute(() ->
+            resourceConverter.convertResources(coreProject));
+        List<CalendarDataDto> calendars = CoreGlobalGuard.getInstance().execute(() ->
+            calendarConverter.extractCalendarsForProject(coreProject));
 
         int criticalCount = 0;
         for (TaskDataDto t : tasks) {
@@ -23,6 +23,7 @@ public class ProjectDataDto {
     private String loadedFrom;
     private Long imposedFinishDate; // VB.1: Жёсткий дедлайн (миллисекунды), null = автоматический режим
     private Boolean isForward; // VB.12: Режим планирования (true = Schedule from Start, false = Schedule from End)
+    private Long scheduleVersion; // версия опубликованного снимка, растёт с каждым изменением
     
     public ProjectDataDto() {
         this.tasks = new ArrayList<>();
@@ -98,6 +99,13 @@ public class ProjectDataDto {
      */
     public void setIsForward(Boolean isForward) { this.isForward = isForward; }
     
+    /**
+     * Версия расписания, присвоенная снимку при публикации (ProjectSnapshotStore).
+     * null, если DTO не был опубликован.
+     */
+    public Long getScheduleVersion() { return scheduleVersion; }
+    public void setScheduleVersion(Long scheduleVersion) { this.scheduleVersion = scheduleVersion; }
+    
     public int getTaskCount() { return tasks != null ? tasks.size() : 0; }
     public int getResourceCount() { return resources != null ? resources.size() : 0; }
     public int getCalendarCount() { return calendars != null ? calendars.size() : 0; }
@@ -0,0 +1,177 @@
+package com.projectlibre.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.projectlibre.api.dto.TaskSyncRequestDto.FrontendTaskDto;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO дельта-синхронизации проекта: только созданные, изменённые и удалённые задачи, связи, назначения и ресурсы.
+ *
+ * Задачи адресуются стабильным Frontend ID (customText(0) в Core), ресурсы — Core ID (или временным ID при создании).
+ * Каждое изменение несёт baseVersion — scheduleVersion снимка, на котором клиент его сделал; если не указана,
+ * берётся baseVersion запроса. Изменение сущности, изменённой после этой версии, отклоняется целиком вместе с запросом.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProjectDeltaSyncRequestDto {
+
+    public enum ChangeOperation { CREATE, UPDATE, DELETE }
+
+    @NotNull(message = "Project ID is required")
+    private Long projectId;
+
+    private Long baseVersion;
+    /** Поставить пересчёт CPM в очередь после применения (RecalculationScheduler). */
+    private boolean recalculate;
+
+    private List<TaskChangeDto> tasks;
+    private List<DependencyChangeDto> dependencies;
+    private List<AssignmentChangeDto> assignments;
+    private List<ResourceChangeDto> resources;
+
+    public ProjectDeltaSyncRequestDto() {
+        this.tasks = new ArrayList<>();
+        this.dependencies = new ArrayList<>();
+        this.assignments = new ArrayList<>();
+        this.resources = new ArrayList<>();
+    }
+
+    public Long getProjectId() { return projectId; }
+    public void setProjectId(Long projectId) { this.projectId = projectId; }
+
+    public Long getBaseVersion() { return baseVersion; }
+    public void setBaseVersion(Long baseVersion) { this.baseVersion = baseVersion; }
+
+    public boolean isRecalculate() { return recalculate; }
+    public void setRecalculate(boolean recalculate) { this.recalculate = recalculate; }
+
+    public List<TaskChangeDto> getTasks() { return tasks; }
+    public void setTasks(List<TaskChangeDto> tasks) {
+        this.tasks = tasks != null ? tasks : new ArrayList<>();
+    }
+
+    public List<DependencyChangeDto> getDependencies() { return dependencies; }
+    public void setDependencies(List<DependencyChangeDto> dependencies) {
+        this.dependencies = dependencies != null ? dependencies : new ArrayList<>();
+    }
+
+    public List<AssignmentChangeDto> getAssignments() { return assignments; }
+    public void setAssignments(List<AssignmentChangeDto> assignments) {
+        this.assignments = assignments != null ? assignments : new ArrayList<>();
+    }
+
+    public List<ResourceChangeDto> getResources() { return resources; }
+    public void setResources(List<ResourceChangeDto> resources) {
+        this.resources = resources != null ? resources : new ArrayList<>();
+    }
+
+    public int getChangeCount() {
+        return tasks.size() + dependencies.size() + assignments.size() + resources.size();
+    }
+
+    /**
+     * Изменение задачи. Для CREATE/UPDATE task содержит полную строку задачи, как в полной синхронизации.
+     * parentId: null — родитель не меняется, "" — задача верхнего уровня, иначе ID новой родительской задачи.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class TaskChangeDto {
+        private ChangeOperation op;
+        private String id;
+        private Long baseVersion;
+        private String parentId;
+        private FrontendTaskDto task;
+
+        public ChangeOperation getOp() { return op; }
+        public void setOp(ChangeOperation op) { this.op = op; }
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public Long getBaseVersion() { return baseVersion; }
+        public void setBaseVersion(Long baseVersion) { this.baseVersion = baseVersion; }
+
+        public String getParentId() { return parentId; }
+        public void setParentId(String parentId) { this.parentId = parentId; }
+
+        public FrontendTaskDto getTask() { return task; }
+        public void setTask(FrontendTaskDto task) { this.task = task; }
+    }
+
+    /**
+     * Создание или удаление связи FS. Версия проверяется по задаче-последователю, которой связь принадлежит.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class DependencyChangeDto {
+        private ChangeOperation op;
+        private String predecessorId;
+        private String successorId;
+        private Long baseVersion;
+
+        public ChangeOperation getOp() { return op; }
+        public void setOp(ChangeOperation op) { this.op = op; }
+
+        public String getPredecessorId() { return predecessorId; }
+        public void setPredecessorId(String predecessorId) { this.predecessorId = predecessorId; }
+
+        public String getSuccessorId() { return successorId; }
+        public void setSuccessorId(String successorId) { this.successorId = successorId; }
+
+        public Long getBaseVersion() { return baseVersion; }
+        public void setBaseVersion(Long baseVersion) { this.baseVersion = baseVersion; }
+    }
+
+    /**
+     * Назначение ресурса на задачу (units: 1.0 = 100%). Версия проверяется по задаче.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class AssignmentChangeDto {
+        private ChangeOperation op;
+        private String taskId;
+        private String resourceId;
+        private Double units;
+        private Long baseVersion;
+
+        public ChangeOperation getOp() { return op; }
+        public void setOp(ChangeOperation op) { this.op = op; }
+
+        public String getTaskId() { return taskId; }
+        public void setTaskId(String taskId) { this.taskId = taskId; }
+
+        public String getResourceId() { return resourceId; }
+        public void setResourceId(String resourceId) { this.resourceId = resourceId; }
+
+        public Double getUnits() { return units; }
+        public void setUnits(Double units) { this.units = units; }
+
+        public Long getBaseVersion() { return baseVersion; }
+        public void setBaseVersion(Long baseVersion) { this.baseVersion = baseVersion; }
+    }
+
+    /**
+     * Изменение ресурса. id — Core ID для UPDATE/DELETE; при CREATE новый Core ID возвращается в resourceIdMapping.
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ResourceChangeDto {
+        private ChangeOperation op;
+        private String id;
+        private Long baseVersion;
+        private FrontendResourceDto resource;
+
+        public ChangeOperation getOp() { return op; }
+        public void setOp(ChangeOperation op) { this.op = op; }
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+
+        public Long getBaseVersion() { return baseVersion; }
+        public void setBaseVersion(Long baseVersion) { this.baseVersion = baseVersion; }
+
+        public FrontendResourceDto getResource() { return resource; }
+        public void setResource(FrontendResourceDto resource) { this.resource = resource; }
+    }
+}
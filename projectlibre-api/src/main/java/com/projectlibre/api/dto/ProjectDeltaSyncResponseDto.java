@@ -0,0 +1,80 @@
+package com.projectlibre.api.dto;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO ответа дельта-синхронизации.
+ * При успехе содержит новую scheduleVersion (базу для следующих изменений), при конфликте — устаревшие изменения.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public class ProjectDeltaSyncResponseDto {
+
+    private boolean success;
+    private Long scheduleVersion;
+    private int appliedCount;
+    private Long recalculationSequence;
+    private Map<String, String> resourceIdMapping;
+    private List<ConflictDto> conflicts;
+
+    private ProjectDeltaSyncResponseDto() {}
+
+    public static ProjectDeltaSyncResponseDto applied(int appliedCount, long scheduleVersion,
+                                                      Map<String, String> resourceIdMapping,
+                                                      Long recalculationSequence) {
+        ProjectDeltaSyncResponseDto dto = new ProjectDeltaSyncResponseDto();
+        dto.success = true;
+        dto.appliedCount = appliedCount;
+        dto.scheduleVersion = scheduleVersion;
+        dto.recalculationSequence = recalculationSequence;
+        dto.resourceIdMapping = resourceIdMapping != null
+            ? Collections.unmodifiableMap(resourceIdMapping)
+            : Collections.emptyMap();
+        dto.conflicts = Collections.emptyList();
+        return dto;
+    }
+
+    public static ProjectDeltaSyncResponseDto rejected(List<ConflictDto> conflicts) {
+        ProjectDeltaSyncResponseDto dto = new ProjectDeltaSyncResponseDto();
+        dto.success = false;
+        dto.resourceIdMapping = Collections.emptyMap();
+        dto.conflicts = Collections.unmodifiableList(conflicts);
+        return dto;
+    }
+
+    public boolean isSuccess() { return success; }
+    public Long getScheduleVersion() { return scheduleVersion; }
+    public int getAppliedCount() { return appliedCount; }
+    public Long getRecalculationSequence() { return recalculationSequence; }
+    public Map<String, String> getResourceIdMapping() { return resourceIdMapping; }
+    public List<ConflictDto> getConflicts() { return conflicts; }
+
+    /**
+     * Отклонённое изменение: сущность изменена (или удалена, или уже существует) после baseVersion.
+     * currentVersion == null, пока изменение другого запроса ещё не опубликовано.
+     */
+    public static class ConflictDto {
+        private final String entity;
+        private final String id;
+        private final Long baseVersion;
+        private final Long currentVersion;
+        private final String reason;
+
+        public ConflictDto(String entity, String id, Long baseVersion, Long currentVersion, String reason) {
+            this.entity = entity;
+            this.id = id;
+            this.baseVersion = baseVersion;
+            this.currentVersion = currentVersion;
+            this.reason = reason;
+        }
+
+        public String getEntity() { return entity; }
+        public String getId() { return id; }
+        public Long getBaseVersion() { return baseVersion; }
+        public Long getCurrentVersion() { return currentVersion; }
+        public String getReason() { return reason; }
+    }
+}
@@ -0,0 +1,48 @@
+package com.projectlibre.api.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one operation run under a project lock or the global core lock.
+ * The event duration covers both waiting for the lock and holding it.
+ * 
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Name("com.projectlibre.CoreLock")
+@Label("Core Lock")
+@Category({"ProjectLibre", "API"})
+@Description("Wait and hold time of an operation run under ProjectLockRegistry or CoreGlobalGuard")
+public final class CoreLockEvent extends Event {
+
+    @Label("Operation Id")
+    public long operationId;
+
+    @Label("Project Id")
+    @Description("Project whose lock was taken, 0 for the global lock")
+    public long projectId;
+
+    @Label("Mode")
+    @Description("read, write or global")
+    public String mode;
+
+    @Label("Wait Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long waitTime;
+
+    @Label("Hold Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long holdTime;
+
+    @Label("Queue Length")
+    @Description("Threads waiting for the lock when this operation asked for it")
+    public int queueLength;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,35 @@
+package com.projectlibre.api.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for writing a project to a POD file.
+ * 
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Name("com.projectlibre.PodWrite")
+@Label("POD Write")
+@Category({"ProjectLibre", "Persistence"})
+@Description("PodFormatWriter.write: binary DocumentData section and MS Project XML backup")
+public final class PodWriteEvent extends Event {
+
+    @Label("Project")
+    public String project;
+
+    @Label("Task Count")
+    public int taskCount;
+
+    @Label("Binary Section Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long binarySectionTime;
+
+    @Label("XML Section Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long xmlSectionTime;
+}
@@ -0,0 +1,51 @@
+package com.projectlibre.api.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for one phase of ApiToCoreTaskSynchronizer.synchronize.
+ * 
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Name("com.projectlibre.SyncPhase")
+@Label("Task Sync Phase")
+@Category({"ProjectLibre", "API"})
+@Description("One phase of the frontend to core task synchronization")
+public final class SyncPhaseEvent extends Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Project")
+    public String project;
+
+    @Label("Task Count")
+    @Description("Number of tasks in the request")
+    public int taskCount;
+
+    /**
+     * Starts timing a phase.
+     */
+    public static SyncPhaseEvent start() {
+        SyncPhaseEvent event = new SyncPhaseEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Records the phase if a recording has this event enabled.
+     */
+    public void finish(String phase, String project, int taskCount) {
+        if (shouldCommit()) {
+            this.phase = phase;
+            this.project = project;
+            this.taskCount = taskCount;
+            commit();
+        }
+    }
+}
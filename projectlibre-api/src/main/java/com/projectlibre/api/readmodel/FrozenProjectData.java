@@ -0,0 +1,273 @@
+package com.projectlibre.api.readmodel;
+
+import com.projectlibre.api.dto.CalendarDataDto;
+import com.projectlibre.api.dto.ProjectDataDto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only copies of converted project data, shared by all readers of a snapshot.
+ *
+ * Each DTO is copied into a subclass whose setters throw and whose lists, maps and arrays cannot be changed through
+ * the getters, so a reader cannot alter what other readers and the change feed see. The copies serialize exactly
+ * like the DTOs they were made from.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+final class FrozenProjectData {
+
+    private FrozenProjectData() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Copies converted data into read-only DTOs.
+     *
+     * @param data data converted from the core project, not used afterwards
+     * @param scheduleVersion version of the snapshot the data is published in
+     * @return read-only copy
+     */
+    static ProjectDataDto freeze(ProjectDataDto data, long scheduleVersion) {
+        return new Project(data, scheduleVersion);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Published snapshot data is read-only");
+    }
+
+    private static <T> List<T> copy(List<T> list) {
+        return list == null ? null : Collections.unmodifiableList(new ArrayList<>(list));
+    }
+
+    private static <K, V> Map<K, V> copy(Map<K, V> map) {
+        return map == null ? null : Collections.unmodifiableMap(new LinkedHashMap<>(map));
+    }
+
+    static final class Project extends ProjectDataDto {
+
+        Project(ProjectDataDto source, long scheduleVersion) {
+            super.setProjectId(source.getProjectId());
+            super.setProjectName(source.getProjectName());
+            super.setLoadedFrom(source.getLoadedFrom());
+            super.setImposedFinishDate(source.getImposedFinishDate());
+            super.setIsForward(source.getIsForward());
+            super.setScheduleVersion(scheduleVersion);
+            List<TaskDataDto> tasks = new ArrayList<>(source.getTaskCount());
+            if (source.getTasks() != null) {
+                for (TaskDataDto task : source.getTasks()) {
+                    tasks.add(task == null ? null : new Task(task));
+                }
+            }
+            super.setTasks(Collections.unmodifiableList(tasks));
+            List<ResourceDataDto> resources = new ArrayList<>(source.getResourceCount());
+            if (source.getResources() != null) {
+                for (ResourceDataDto resource : source.getResources()) {
+                    resources.add(resource == null ? null : new Resource(resource));
+                }
+            }
+            super.setResources(Collections.unmodifiableList(resources));
+            List<CalendarDataDto> calendars = new ArrayList<>(source.getCalendarCount());
+            if (source.getCalendars() != null) {
+                for (CalendarDataDto calendar : source.getCalendars()) {
+                    calendars.add(calendar == null ? null : new Calendar(calendar));
+                }
+            }
+            super.setCalendars(Collections.unmodifiableList(calendars));
+        }
+
+        @Override public void setProjectId(Long projectId) { throw readOnly(); }
+        @Override public void setProjectName(String projectName) { throw readOnly(); }
+        @Override public void setTasks(List<TaskDataDto> tasks) { throw readOnly(); }
+        @Override public void setResources(List<ResourceDataDto> resources) { throw readOnly(); }
+        @Override public void setLoadedFrom(String loadedFrom) { throw readOnly(); }
+        @Override public void setCalendars(List<CalendarDataDto> calendars) { throw readOnly(); }
+        @Override public void setImposedFinishDate(Long imposedFinishDate) { throw readOnly(); }
+        @Override public void setIsForward(Boolean isForward) { throw readOnly(); }
+        @Override public void setScheduleVersion(Long scheduleVersion) { throw readOnly(); }
+    }
+
+    static final class Task extends ProjectDataDto.TaskDataDto {
+
+        Task(ProjectDataDto.TaskDataDto source) {
+            super.setId(source.getId());
+            super.setName(source.getName());
+            super.setStartDate(source.getStartDate());
+            super.setEndDate(source.getEndDate());
+            super.setCalculatedStartDate(source.getCalculatedStartDate());
+            super.setCalculatedEndDate(source.getCalculatedEndDate());
+            super.setEarlyStart(source.getEarlyStart());
+            super.setEarlyFinish(source.getEarlyFinish());
+            super.setLateStart(source.getLateStart());
+            super.setLateFinish(source.getLateFinish());
+            super.setProgress(source.getProgress());
+            super.setColor(source.getColor());
+            super.setLevel(source.getLevel());
+            super.setSummary(source.isSummary());
+            super.setType(source.getType());
+            super.setSchedulingType(source.getSchedulingType());
+            super.setChildren(copy(source.getChildren()));
+            super.setPredecessors(copy(source.getPredecessors()));
+            super.setResourceIds(copy(source.getResourceIds()));
+            super.setResourceAssignments(copyAssignments(source.getResourceAssignments()));
+            super.setCritical(source.isCritical());
+            super.setMilestone(source.isMilestone());
+            super.setEstimated(source.isEstimated());
+            super.setNotes(source.getNotes());
+            super.setWbs(source.getWbs());
+            super.setDuration(source.getDuration());
+            super.setTotalSlack(source.getTotalSlack());
+            super.setContainsCriticalChildren(source.getContainsCriticalChildren());
+            super.setMinChildSlack(source.getMinChildSlack());
+            super.setAcknowledgedConflicts(copy(source.getAcknowledgedConflicts()));
+        }
+
+        private static List<Map<String, Object>> copyAssignments(List<Map<String, Object>> assignments) {
+            if (assignments == null) {
+                return null;
+            }
+            List<Map<String, Object>> copies = new ArrayList<>(assignments.size());
+            for (Map<String, Object> assignment : assignments) {
+                copies.add(copy(assignment));
+            }
+            return Collections.unmodifiableList(copies);
+        }
+
+        @Override public void setId(String id) { throw readOnly(); }
+        @Override public void setName(String name) { throw readOnly(); }
+        @Override public void setStartDate(String startDate) { throw readOnly(); }
+        @Override public void setEndDate(String endDate) { throw readOnly(); }
+        @Override public void setCalculatedStartDate(String calculatedStartDate) { throw readOnly(); }
+        @Override public void setCalculatedEndDate(String calculatedEndDate) { throw readOnly(); }
+        @Override public void setEarlyStart(String earlyStart) { throw readOnly(); }
+        @Override public void setEarlyFinish(String earlyFinish) { throw readOnly(); }
+        @Override public void setLateStart(String lateStart) { throw readOnly(); }
+        @Override public void setLateFinish(String lateFinish) { throw readOnly(); }
+        @Override public void setProgress(double progress) { throw readOnly(); }
+        @Override public void setColor(String color) { throw readOnly(); }
+        @Override public void setLevel(int level) { throw readOnly(); }
+        @Override public void setSummary(boolean summary) { throw readOnly(); }
+        @Override public void setType(String type) { throw readOnly(); }
+        @Override public void setSchedulingType(String schedulingType) { throw readOnly(); }
+        @Override public void setChildren(List<String> children) { throw readOnly(); }
+        @Override public void setPredecessors(List<String> predecessors) { throw readOnly(); }
+        @Override public void setResourceIds(List<String> resourceIds) { throw readOnly(); }
+        @Override public void setResourceAssignments(List<Map<String, Object>> resourceAssignments) { throw readOnly(); }
+        @Override public void setCritical(boolean critical) { throw readOnly(); }
+        @Override public void setMilestone(boolean milestone) { throw readOnly(); }
+        @Override public void setEstimated(boolean estimated) { throw readOnly(); }
+        @Override public void setNotes(String notes) { throw readOnly(); }
+        @Override public void setWbs(String wbs) { throw readOnly(); }
+        @Override public void setDuration(Double duration) { throw readOnly(); }
+        @Override public void setTotalSlack(Double totalSlack) { throw readOnly(); }
+        @Override public void setContainsCriticalChildren(Boolean containsCriticalChildren) { throw readOnly(); }
+        @Override public void setMinChildSlack(Double minChildSlack) { throw readOnly(); }
+        @Override public void setAcknowledgedConflicts(Map<String, Boolean> acknowledgedConflicts) { throw readOnly(); }
+    }
+
+    static final class Resource extends ProjectDataDto.ResourceDataDto {
+
+        Resource(ProjectDataDto.ResourceDataDto source) {
+            super.setId(source.getId());
+            super.setName(source.getName());
+            super.setType(source.getType());
+            super.setMaxUnits(source.getMaxUnits());
+            super.setStandardRate(source.getStandardRate());
+            super.setOvertimeRate(source.getOvertimeRate());
+            super.setCostPerUse(source.getCostPerUse());
+            super.setEmail(source.getEmail());
+            super.setGroup(source.getGroup());
+            super.setCalendarId(source.getCalendarId());
+            super.setAvailable(source.isAvailable());
+        }
+
+        @Override public void setId(String id) { throw readOnly(); }
+        @Override public void setName(String name) { throw readOnly(); }
+        @Override public void setType(String type) { throw readOnly(); }
+        @Override public void setMaxUnits(double maxUnits) { throw readOnly(); }
+        @Override public void setStandardRate(double standardRate) { throw readOnly(); }
+        @Override public void setOvertimeRate(double overtimeRate) { throw readOnly(); }
+        @Override public void setCostPerUse(double costPerUse) { throw readOnly(); }
+        @Override public void setEmail(String email) { throw readOnly(); }
+        @Override public void setGroup(String group) { throw readOnly(); }
+        @Override public void setCalendarId(String calendarId) { throw readOnly(); }
+        @Override public void setAvailable(boolean available) { throw readOnly(); }
+    }
+
+    static final class Calendar extends CalendarDataDto {
+
+        Calendar(CalendarDataDto source) {
+            super.setId(source.getId());
+            super.setName(source.getName());
+            super.setDescription(source.getDescription());
+            super.setType(source.getType());
+            super.setWorkingDays(source.getWorkingDays() == null ? null : source.getWorkingDays().clone());
+            super.setHoursPerDay(source.getHoursPerDay());
+            List<WorkingHoursDto> workingHours = null;
+            if (source.getWorkingHours() != null) {
+                workingHours = new ArrayList<>(source.getWorkingHours().size());
+                for (WorkingHoursDto hours : source.getWorkingHours()) {
+                    workingHours.add(hours == null ? null : new WorkingHours(hours));
+                }
+                workingHours = Collections.unmodifiableList(workingHours);
+            }
+            super.setWorkingHours(workingHours);
+            List<CalendarExceptionDto> exceptions = null;
+            if (source.getExceptions() != null) {
+                exceptions = new ArrayList<>(source.getExceptions().size());
+                for (CalendarExceptionDto exception : source.getExceptions()) {
+                    exceptions.add(exception == null ? null : new CalendarException(exception));
+                }
+                exceptions = Collections.unmodifiableList(exceptions);
+            }
+            super.setExceptions(exceptions);
+        }
+
+        /** The array would be writable by any reader, so each call gets its own copy. */
+        @Override
+        public boolean[] getWorkingDays() {
+            boolean[] workingDays = super.getWorkingDays();
+            return workingDays == null ? null : workingDays.clone();
+        }
+
+        @Override public void setId(String id) { throw readOnly(); }
+        @Override public void setName(String name) { throw readOnly(); }
+        @Override public void setDescription(String description) { throw readOnly(); }
+        @Override public void setType(String type) { throw readOnly(); }
+        @Override public void setWorkingDays(boolean[] workingDays) { throw readOnly(); }
+        @Override public void setWorkingHours(List<WorkingHoursDto> workingHours) { throw readOnly(); }
+        @Override public void setExceptions(List<CalendarExceptionDto> exceptions) { throw readOnly(); }
+        @Override public void setHoursPerDay(int hoursPerDay) { throw readOnly(); }
+    }
+
+    static final class WorkingHours extends CalendarDataDto.WorkingHoursDto {
+
+        WorkingHours(CalendarDataDto.WorkingHoursDto source) {
+            super(source.getFrom(), source.getTo());
+        }
+
+        @Override public void setFrom(int from) { throw readOnly(); }
+        @Override public void setTo(int to) { throw readOnly(); }
+    }
+
+    static final class CalendarException extends CalendarDataDto.CalendarExceptionDto {
+
+        CalendarException(CalendarDataDto.CalendarExceptionDto source) {
+            super.setDate(source.getDate());
+            super.setWorking(source.isWorking());
+            super.setFrom(source.getFrom());
+            super.setTo(source.getTo());
+            super.setName(source.getName());
+        }
+
+        @Override public void setDate(String date) { throw readOnly(); }
+        @Override public void setWorking(boolean working) { throw readOnly(); }
+        @Override public void setFrom(Integer from) { throw readOnly(); }
+        @Override public void setTo(Integer to) { throw readOnly(); }
+        @Override public void setName(String name) { throw readOnly(); }
+    }
+}
@@ -0,0 +1,54 @@
+package com.projectlibre.api.readmodel;
+
+import com.projectlibre.api.dto.ProjectDataDto;
+
+/**
+ * Converted state of a core project, published after a change and shared by all readers.
+ * The data is never modified once published: it is a read-only copy (FrozenProjectData) and the snapshot is
+ * replaced, not updated.
+ * 
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public final class ProjectSnapshot {
+
+    private final Long projectId;
+    private final long scheduleVersion;
+    private final long writeGeneration;
+    private final long publishedAt;
+    private final ProjectDataDto data;
+
+    ProjectSnapshot(Long projectId, long scheduleVersion, long writeGeneration, ProjectDataDto data) {
+        this.projectId = projectId;
+        this.scheduleVersion = scheduleVersion;
+        this.writeGeneration = writeGeneration;
+        this.publishedAt = System.currentTimeMillis();
+        this.data = data;
+    }
+
+    public Long getProjectId() {
+        return projectId;
+    }
+
+    /**
+     * @return version of the schedule, increasing with each snapshot published for any project
+     */
+    public long getScheduleVersion() {
+        return scheduleVersion;
+    }
+
+    /**
+     * @return write generation of the project lock when the snapshot was converted
+     */
+    long getWriteGeneration() {
+        return writeGeneration;
+    }
+
+    public long getPublishedAt() {
+        return publishedAt;
+    }
+
+    public ProjectDataDto getData() {
+        return data;
+    }
+}
@@ -0,0 +1,204 @@
+package com.projectlibre.api.readmodel;
+
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.converter.CoreToApiConverter;
+import com.projectlibre.api.dto.ProjectDataDto;
+import com.projectlibre1.pm.task.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read model of the loaded projects: the latest converted ProjectDataDto of each project, swapped in atomically.
+ * 
+ * Writers publish a snapshot after a successful sync or recalculation, so the conversion is paid once per change.
+ * Readers get the latest snapshot without any lock. A snapshot is current as long as no exclusive section of
+ * ProjectLockRegistry ended on its project since it was converted; otherwise the next reader publishes a new one.
+ * Readers arriving while a project is being converted wait for that conversion instead of starting their own, and
+ * the published data is a read-only copy (FrozenProjectData), so sharing it between readers is safe.
+ * 
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Component
+public class ProjectSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectSnapshotStore.class);
+
+    /**
+     * Notified after a new snapshot is published, on the publishing thread, outside the project lock.
+     * Snapshots of one project may be delivered out of order by concurrent publishers.
+     */
+    public interface Listener {
+        void published(ProjectSnapshot snapshot);
+    }
+
+    private final ProjectLockRegistry projectLocks;
+    private final CoreToApiConverter converter;
+    private final ConcurrentMap<Long, ProjectSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Conversion> conversions = new ConcurrentHashMap<>();
+    private final AtomicLong versionCounter = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder publications = new LongAdder();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public ProjectSnapshotStore(ProjectLockRegistry projectLocks) {
+        this.projectLocks = projectLocks;
+        this.converter = new CoreToApiConverter();
+    }
+
+    /**
+     * Returns the current snapshot of the project, publishing one first if the project changed since the last one.
+     * While a writer holds the project, the last published snapshot is returned without waiting for it.
+     * 
+     * @param projectId project id in CoreProjectBridge
+     * @param project core project
+     * @return current snapshot
+     */
+    public ProjectSnapshot get(Long projectId, Project project) {
+        ProjectSnapshot current = snapshots.get(projectId);
+        if (current != null && (current.getWriteGeneration() == projectLocks.getWriteGeneration(projectId)
+                || projectLocks.isWriteLocked(projectId))) {
+            hits.increment();
+            return current;
+        }
+        return publish(projectId, project);
+    }
+
+    /**
+     * Converts the project under its read lock and makes the result the current snapshot.
+     * Nothing is converted if the current snapshot already reflects the last change.
+     * 
+     * @param projectId project id in CoreProjectBridge
+     * @param project core project
+     * @return the snapshot now current
+     */
+    public ProjectSnapshot publish(Long projectId, Project project) {
+        boolean[] converted = new boolean[1];
+        ProjectSnapshot snapshot = projectLocks.executeWithReadLock(projectId, () -> {
+            long generation = projectLocks.getWriteGeneration(projectId);
+            ProjectSnapshot current = snapshots.get(projectId);
+            if (current != null && current.getWriteGeneration() == generation) {
+                return current;
+            }
+            // The generation cannot change while the read lock is held, so a running conversion is of this generation
+            Conversion conversion = new Conversion();
+            Conversion running = conversions.putIfAbsent(projectId, conversion);
+            if (running != null) {
+                return running.await();
+            }
+            try {
+                ProjectSnapshot published = convert(projectId, project, generation, conversion);
+                converted[0] = true;
+                conversion.result.complete(published);
+                return published;
+            } catch (RuntimeException | Error e) {
+                conversion.result.completeExceptionally(e);
+                throw e;
+            } finally {
+                conversions.remove(projectId, conversion);
+            }
+        });
+        if (converted[0]) {
+            for (Listener listener : listeners) {
+                try {
+                    listener.published(snapshot);
+                } catch (RuntimeException e) {
+                    log.warn("[ReadModel] Listener failed for project {}: {}", projectId, e.getMessage());
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private ProjectSnapshot convert(Long projectId, Project project, long generation, Conversion conversion) {
+        ProjectDataDto converted = converter.convert(project);
+        long version = versionCounter.incrementAndGet();
+        ProjectSnapshot published = new ProjectSnapshot(projectId, version, generation,
+            FrozenProjectData.freeze(converted, version));
+        if (conversions.get(projectId) != conversion) {
+            // the project was removed meanwhile: the waiting readers get the result, but it is not kept
+            log.debug("[ReadModel] Project {} removed during conversion, version {} not kept", projectId, version);
+            return published;
+        }
+        snapshots.put(projectId, published);
+        publications.increment();
+        log.debug("[ReadModel] Published project {} version {} ({} tasks)",
+            projectId, version, published.getData().getTaskCount());
+        return published;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public Optional<ProjectSnapshot> getLatest(Long projectId) {
+        return Optional.ofNullable(snapshots.get(projectId));
+    }
+
+    /**
+     * @return lowest scheduleVersion a snapshot converted from now on can get; every snapshot converted before has a
+     * lower one
+     */
+    public long getNextVersion() {
+        return versionCounter.get() + 1;
+    }
+
+    /**
+     * Forgets the snapshot of a project that is no longer loaded.
+     * Takes the exclusive lock of the project, so a conversion in progress can't publish again after the removal.
+     * 
+     * @param projectId project id in CoreProjectBridge
+     */
+    public void remove(Long projectId) {
+        projectLocks.executeWithWriteLock(projectId, () -> {
+            conversions.remove(projectId);
+            snapshots.remove(projectId);
+        });
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getPublicationCount() {
+        return publications.sum();
+    }
+
+    public int getSize() {
+        return snapshots.size();
+    }
+
+    /** Conversion of one project in progress, awaited by the readers arriving meanwhile */
+    private static final class Conversion {
+        private final CompletableFuture<ProjectSnapshot> result = new CompletableFuture<>();
+
+        ProjectSnapshot await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.projectlibre.api.recalculation;
+
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshot;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
+import com.projectlibre.api.scheduling.SchedulingEngineAdapter;
+import com.projectlibre.api.storage.CoreProjectBridge;
+import com.projectlibre1.pm.task.Project;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-project scheduler of CPM recalculations.
+ *
+ * A request marks the project dirty and returns its recalculation sequence at once. Requests arriving within the
+ * coalescing window, or while a recalculation of the project is running, are served by the same next run, so a
+ * project has at most one recalculation in flight and one pending, however fast the edits come. Runs execute on a
+ * bounded pool under the write lock of their project and publish a new snapshot, whose schedule version is handed
+ * to everyone waiting for a sequence the run covered.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Component
+public class RecalculationScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(RecalculationScheduler.class);
+
+    /**
+     * Notified after every successful run, on the scheduler thread that ran it.
+     */
+    public interface Listener {
+        void recalculated(Long projectId, long sequence, ProjectSnapshot snapshot);
+    }
+
+    private final ProjectLockRegistry projectLocks;
+    private final ProjectSnapshotStore snapshotStore;
+    private final SchedulingEngineAdapter schedulingEngine;
+    private final ScheduledThreadPoolExecutor executor;
+    private final long coalesceWindowMs;
+    private final ConcurrentMap<Long, ProjectQueue> queues = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public RecalculationScheduler(ProjectLockRegistry projectLocks, ProjectSnapshotStore snapshotStore,
+                                  @Value("${projectlibre.recalculation.threads:2}") int threads,
+                                  @Value("${projectlibre.recalculation.coalesce-window-ms:40}") long coalesceWindowMs) {
+        this.projectLocks = projectLocks;
+        this.snapshotStore = snapshotStore;
+        this.schedulingEngine = SchedulingEngineAdapter.getInstance();
+        this.coalesceWindowMs = Math.max(0, coalesceWindowMs);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "cpm-recalculation-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Requests a recalculation of the project.
+     *
+     * @param projectId project id in CoreProjectBridge
+     * @return recalculation sequence to pass to {@link #await(Long, long)}
+     */
+    public long request(Long projectId) {
+        if (projectId == null) {
+            throw new IllegalArgumentException("Project ID cannot be null");
+        }
+        schedulingEngine.markForRecalculation(projectId);
+        requests.increment();
+        ProjectQueue queue = queues.computeIfAbsent(projectId, id -> new ProjectQueue());
+        synchronized (queue) {
+            long sequence = ++queue.requested;
+            if (!queue.scheduled && !queue.running) {
+                schedule(projectId, queue);
+            }
+            return sequence;
+        }
+    }
+
+    /**
+     * Waits for the run covering the given sequence. Completes at once if it already finished.
+     *
+     * @param projectId project id in CoreProjectBridge
+     * @param sequence sequence returned by {@link #request(Long)}
+     * @return snapshot published by the run, failed with its exception if the run failed
+     */
+    public CompletableFuture<ProjectSnapshot> await(Long projectId, long sequence) {
+        ProjectQueue queue = queues.get(projectId);
+        if (queue == null) {
+            return CompletableFuture.failedFuture(
+                new IllegalArgumentException("No recalculation requested for project " + projectId));
+        }
+        synchronized (queue) {
+            if (sequence > queue.requested) {
+                return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "Recalculation " + sequence + " of project " + projectId + " was never requested"));
+            }
+            if (sequence <= queue.completed) {
+                return queue.lastFailure != null
+                    ? CompletableFuture.failedFuture(queue.lastFailure)
+                    : CompletableFuture.completedFuture(queue.lastSnapshot);
+            }
+            Waiter waiter = new Waiter(sequence);
+            queue.waiters.add(waiter);
+            return waiter.future;
+        }
+    }
+
+    /**
+     * Requests a recalculation of the project and waits for it.
+     */
+    public CompletableFuture<ProjectSnapshot> recalculate(Long projectId) {
+        return await(projectId, request(projectId));
+    }
+
+    public long getCompletedSequence(Long projectId) {
+        ProjectQueue queue = queues.get(projectId);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.completed;
+        }
+    }
+
+    /**
+     * Forgets the recalculation state of an unloaded project. A run already scheduled for it still completes its
+     * waiters, with a failure since the project is not found any more.
+     */
+    public void forget(Long projectId) {
+        queues.remove(projectId);
+        schedulingEngine.clearProject(projectId);
+    }
+
+    public int getProjectCount() {
+        return queues.size();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    public long getRunCount() {
+        return runs.sum();
+    }
+
+    public long getFailureCount() {
+        return failures.sum();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(Long projectId, ProjectQueue queue) {
+        executor.schedule(() -> run(projectId, queue), coalesceWindowMs, TimeUnit.MILLISECONDS);
+        queue.scheduled = true; // only once accepted, a rejected run must not block later requests
+    }
+
+    private void run(Long projectId, ProjectQueue queue) {
+        long covered;
+        synchronized (queue) {
+            queue.scheduled = false;
+            queue.running = true;
+            covered = queue.requested;
+        }
+        ProjectSnapshot snapshot = null;
+        Throwable failure = null;
+        long start = System.nanoTime();
+        try {
+            Project project = CoreProjectBridge.getInstance().findById(projectId)
+                .orElseThrow(() -> new IllegalArgumentException("Project not found in CoreProjectBridge: " + projectId));
+            projectLocks.executeWithWriteLock(projectId, () -> new CpmRecalculationRunner().run(project));
+            snapshot = snapshotStore.publish(projectId, project);
+            runs.increment();
+            log.debug("[Recalculation] Project {} recalculated up to sequence {} in {} ms, version {}",
+                projectId, covered, (System.nanoTime() - start) / 1_000_000, snapshot.getScheduleVersion());
+        } catch (Throwable e) {
+            failure = e;
+            failures.increment();
+            log.error("[Recalculation] Project {} failed up to sequence {}: {}", projectId, covered, e.getMessage(), e);
+        } finally {
+            finish(projectId, queue, covered, snapshot, failure);
+        }
+        if (snapshot != null) {
+            for (Listener listener : listeners) {
+                try {
+                    listener.recalculated(projectId, covered, snapshot);
+                } catch (RuntimeException e) {
+                    log.warn("[Recalculation] Listener failed for project {}: {}", projectId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends a run whatever happened in it: the queue is released, the next run is scheduled if requests arrived
+     * meanwhile and every waiter the run covered is completed. If the next run cannot be scheduled any more
+     * (shutdown), its waiters are failed instead of being left hanging.
+     */
+    private void finish(Long projectId, ProjectQueue queue, long covered, ProjectSnapshot snapshot, Throwable failure) {
+        List<Waiter> done = new ArrayList<>();
+        List<Waiter> rejected = new ArrayList<>();
+        RejectedExecutionException rejection = null;
+        synchronized (queue) {
+            queue.running = false;
+            queue.completed = covered;
+            queue.lastSnapshot = snapshot;
+            queue.lastFailure = failure;
+            for (Iterator<Waiter> it = queue.waiters.iterator(); it.hasNext(); ) {
+                Waiter waiter = it.next();
+                if (waiter.sequence <= covered) {
+                    done.add(waiter);
+                    it.remove();
+                }
+            }
+            if (queue.requested > covered) {
+                try {
+                    schedule(projectId, queue);
+                } catch (RejectedExecutionException e) {
+                    rejection = e;
+                    rejected.addAll(queue.waiters);
+                    queue.waiters.clear();
+                }
+            } else if (failure == null) {
+                schedulingEngine.markRecalculated(projectId);
+            }
+        }
+        for (Waiter waiter : done) {
+            if (failure != null) {
+                waiter.future.completeExceptionally(failure);
+            } else {
+                waiter.future.complete(snapshot);
+            }
+        }
+        for (Waiter waiter : rejected) {
+            waiter.future.completeExceptionally(rejection);
+        }
+    }
+
+    /** Recalculation state of one project, guarded by its own monitor. */
+    private static final class ProjectQueue {
+        private long requested;
+        private long completed;
+        private boolean scheduled;
+        private boolean running;
+        private ProjectSnapshot lastSnapshot;
+        private Throwable lastFailure;
+        private final List<Waiter> waiters = new ArrayList<>();
+    }
+
+    private static final class Waiter {
+        private final long sequence;
+        private final CompletableFuture<ProjectSnapshot> future = new CompletableFuture<>();
+
+        private Waiter(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
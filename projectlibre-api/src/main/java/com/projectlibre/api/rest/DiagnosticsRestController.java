@@ -0,0 +1,126 @@
+package com.projectlibre.api.rest;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JVM memory diagnostics for scale tests.
+ * Exposes heap usage, the heap high-water mark since the last reset and the
+ * bytes allocated in the heap since the server started, so that an external
+ * harness can attribute heap growth and allocations to individual API calls.
+ *
+ * All figures are for the whole heap, taken from the garbage collection
+ * notifications. Heap usage only grows between two collections, so the
+ * high-water mark is the highest usage seen just before a collection or now.
+ * The allocated bytes are the current usage plus everything the collections
+ * have freed. Both are as precise as the usage the collectors report, and a
+ * collection is only counted once its notification has arrived.
+ *
+ * Only registered with the "diagnostics" profile, so a normal server does not expose it.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@RestController
+@RequestMapping("/api/diagnostics")
+@Profile("diagnostics")
+public class DiagnosticsRestController {
+
+    private final Set<String> heapPools = new HashSet<>();
+    private final List<NotificationEmitter> collectors = new ArrayList<>();
+    private final NotificationListener collectionListener = this::collected;
+    private final AtomicLong freedBytes = new AtomicLong();
+    private final AtomicLong peakBeforeCollection = new AtomicLong();
+
+    public DiagnosticsRestController() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool.getName());
+            }
+        }
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(collectionListener, null, null);
+                collectors.add(emitter);
+            }
+        }
+    }
+
+    @GetMapping("/memory")
+    public ResponseEntity<Map<String, Object>> memory() {
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        Map<String, Object> response = new HashMap<>();
+        response.put("heapUsed", heapUsed);
+        response.put("heapPeak", Math.max(peakBeforeCollection.get(), heapUsed));
+        response.put("allocatedBytes", collectors.isEmpty() ? -1 : heapUsed + freedBytes.get());
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Starts a new high-water mark window: the peak restarts from current usage.
+     */
+    @PostMapping("/memory/reset-peak")
+    public ResponseEntity<Map<String, Object>> resetPeak() {
+        peakBeforeCollection.set(0);
+        return memory();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (NotificationEmitter emitter : collectors) {
+            try {
+                emitter.removeNotificationListener(collectionListener);
+            } catch (ListenerNotFoundException e) {
+                // already removed
+            }
+        }
+        collectors.clear();
+    }
+
+    private void collected(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GcInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData()).getGcInfo();
+        long before = heapUsed(info.getMemoryUsageBeforeGc());
+        long after = heapUsed(info.getMemoryUsageAfterGc());
+        peakBeforeCollection.accumulateAndGet(before, Math::max);
+        if (before > after) {
+            freedBytes.addAndGet(before - after);
+        }
+    }
+
+    private long heapUsed(Map<String, MemoryUsage> usageByPool) {
+        long used = 0;
+        for (Map.Entry<String, MemoryUsage> entry : usageByPool.entrySet()) {
+            if (heapPools.contains(entry.getKey())) {
+                used += entry.getValue().getUsed();
+            }
+        }
+        return used;
+    }
+}
@@ -8,8 +8,10 @@ import com.projectlibre.api.service.SaveResult;
 import com.projectlibre.api.storage.CoreProjectBridge;
 import com.projectlibre.api.adapter.CoreProjectFactory;
 import com.projectlibre.api.session.GlobalSessionManager;
-import com.projectlibre.api.concurrent.CoreAccessGuard;
-import com.projectlibre.api.converter.CoreToApiConverter;
+import com.projectlibre.api.concurrent.CoreGlobalGuard;
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshot;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
 import com.projectlibre.api.recalculation.CpmRecalculationRunner;
 import com.projectlibre1.pm.task.Project;
 import com.projectlibre1.session.Session;
@@ -25,7 +27,8 @@ import java.util.List;
 /**
  * REST controller for native .pod file operations.
  * Uses GlobalSessionManager for thread-safe Core integration.
- * CoreAccessGuard protects from race conditions in concurrent requests.
+ * ProjectLockRegistry protects each project from race conditions in concurrent requests,
+ * CoreGlobalGuard the core singletons touched by create, load and save.
  * 
  * @version 4.0.0
  */
@@ -35,21 +38,24 @@ public class FileRestController {
     
     private final NativeStorageService storageService;
     private final GlobalSessionManager sessionManager;
-    private final CoreAccessGuard coreAccessGuard;
+    private final ProjectLockRegistry projectLocks;
+    private final CoreGlobalGuard globalGuard;
     private final CoreProjectBridge projectBridge;
     private final ProjectService projectService;
     private final CoreProjectFactory coreFactory;
-    private final CoreToApiConverter converter;
+    private final ProjectSnapshotStore snapshotStore;
     
     @Autowired
     public FileRestController(GlobalSessionManager sessionManager, 
-                              CoreAccessGuard coreAccessGuard) {
+                              ProjectLockRegistry projectLocks,
+                              ProjectSnapshotStore snapshotStore) {
         this.sessionManager = sessionManager;
-        this.coreAccessGuard = coreAccessGuard;
+        this.projectLocks = projectLocks;
+        this.snapshotStore = snapshotStore;
+        this.globalGuard = CoreGlobalGuard.getInstance();
         this.projectBridge = CoreProjectBridge.getInstance();
         this.projectService = new ProjectService();
         this.coreFactory = CoreProjectFactory.getInstance();
-        this.converter = new CoreToApiConverter();
         
         Session session = sessionManager.getSession();
         this.storageService = new NativeStorageService(session);
@@ -67,12 +73,13 @@ public class FileRestController {
             
             String filePath = determineFilePath(request, project);
             
-            // ✅ FIX: Обновить имя проекта на основе имени файла, если текущее имя дефолтное
-            updateProjectNameFromFilePath(project, filePath);
-            
-            SaveResult result = coreAccessGuard.executeWithLock(() -> 
-                storageService.saveProject(project, filePath, request.isCreateBackup())
-            );
+            // calendars are written from the shared CalendarService, so the global guard is taken inside the project lock
+            SaveResult result = projectLocks.executeWithWriteLock(project.getUniqueId(), () -> {
+                // ✅ FIX: Обновить имя проекта на основе имени файла, если текущее имя дефолтное
+                updateProjectNameFromFilePath(project, filePath);
+                return globalGuard.execute(() ->
+                    storageService.saveProject(project, filePath, request.isCreateBackup()));
+            });
             
             if (result.isSuccess()) {
                 FileSaveResponseDto data = FileSaveResponseDto.success(
@@ -92,7 +99,7 @@ public class FileRestController {
             System.out.println("[FileRestController] Load: " + request.getFilePath());
             logBridgeState("BEFORE");
             
-            LoadResult result = coreAccessGuard.executeWithLock(() -> 
+            LoadResult result = globalGuard.execute(() -> 
                 storageService.loadProject(request.getFilePath())
             );
             
@@ -101,7 +108,8 @@ public class FileRestController {
                 if (project != null) {
                     projectBridge.registerProject(project);
                     logBridgeState("AFTER");
-                    coreAccessGuard.executeWithLock(() -> new CpmRecalculationRunner().run(project));
+                    projectLocks.executeWithWriteLock(project.getUniqueId(), () -> new CpmRecalculationRunner().run(project));
+                    snapshotStore.publish(project.getUniqueId(), project);
                 }
                 FileLoadResponseDto data = FileLoadResponseDto.success(
                     result.getFilePath(),
@@ -153,12 +161,11 @@ public class FileRestController {
             
             System.out.println("[FileRestController] ✅ Found project: " + coreProject.getName());
             
-            // Конвертируем Core модель в DTO для frontend
-            ProjectDataDto data = coreAccessGuard.executeWithLock(() -> 
-                converter.convert(coreProject)
-            );
+            // Снимок публикуется после каждого изменения: чтение не конвертирует проект и не ждёт блокировку записи
+            ProjectSnapshot snapshot = snapshotStore.get(projectId, coreProject);
+            ProjectDataDto data = snapshot.getData();
             
-            System.out.println("[FileRestController] ✅ Converted: " + 
+            System.out.println("[FileRestController] ✅ Snapshot v" + snapshot.getScheduleVersion() + ": " + 
                 data.getTaskCount() + " tasks, " + data.getResourceCount() + " resources, " +
                 data.getCalendarCount() + " calendars");
             
@@ -177,7 +184,7 @@ public class FileRestController {
             com.projectlibre.api.model.Project apiProject = projectService.getProjectById(projectId);
             if (apiProject != null) {
                 Session session = sessionManager.getSession();
-                project = coreAccessGuard.executeWithLock(() -> 
+                project = globalGuard.execute(() -> 
                     coreFactory.createCoreProject(apiProject, session)
                 );
                 projectBridge.registerProject(project);
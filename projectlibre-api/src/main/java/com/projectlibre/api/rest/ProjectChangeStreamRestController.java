@@ -0,0 +1,91 @@
+package com.projectlibre.api.rest;
+
+import com.projectlibre.api.dto.ApiResponseDto;
+import com.projectlibre.api.storage.CoreProjectBridge;
+import com.projectlibre.api.streaming.ChangeBatch;
+import com.projectlibre.api.streaming.ChangeStreamHub;
+import com.projectlibre.api.streaming.DeltaUpdatePort;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST controller для потока изменений проекта.
+ *
+ * Клиент загружает проект через /api/files/project/{id}/data, затем подписывается на изменения
+ * начиная с scheduleVersion загруженных данных (или с последней полученной sequence) и применяет их к своей копии.
+ * Если журнал изменений уже не содержит нужных sequence, приходит событие resync: проект нужно перезагрузить.
+ *
+ * Clean Architecture: Interface Adapter (Interface Adapters Layer).
+ * SOLID: Single Responsibility - HTTP endpoints для потока изменений.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@RestController
+@RequestMapping("/api/projects")
+public class ProjectChangeStreamRestController {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectChangeStreamRestController.class);
+
+    private final ChangeStreamHub streamHub;
+    private final DeltaUpdatePort changeLog;
+    private final CoreProjectBridge projectBridge;
+    private final int maxBatch;
+
+    @Autowired
+    public ProjectChangeStreamRestController(ChangeStreamHub streamHub, DeltaUpdatePort changeLog,
+                                             @Value("${projectlibre.streaming.max-batch:500}") int maxBatch) {
+        this.streamHub = streamHub;
+        this.changeLog = changeLog;
+        this.projectBridge = CoreProjectBridge.getInstance();
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    /**
+     * Поток изменений проекта (server-sent events): события "changes" с ChangeBatch и "resync".
+     * Позиция: fromSequence, иначе заголовок Last-Event-ID (переподключение EventSource),
+     * иначе fromVersion (scheduleVersion загруженных данных), иначе последнее изменение.
+     */
+    @GetMapping(value = "/{projectId}/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @PathVariable Long projectId,
+            @RequestParam(required = false) Long fromSequence,
+            @RequestParam(required = false) Long fromVersion,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (projectBridge.findById(projectId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long sequence = fromSequence != null ? fromSequence : lastEventId;
+        long cursor = streamHub.resolveCursor(projectId, sequence, fromVersion);
+        try {
+            return ResponseEntity.ok(streamHub.subscribe(projectId, cursor));
+        } catch (IllegalStateException e) {
+            log.warn("[ChangeStream] Subscription to project {} rejected: {}", projectId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Изменения проекта после sequence, для клиентов без server-sent events.
+     */
+    @GetMapping("/{projectId}/changes")
+    public ResponseEntity<ApiResponseDto<ChangeBatch>> getChanges(
+            @PathVariable Long projectId,
+            @RequestParam(defaultValue = "0") long fromSequence,
+            @RequestParam(required = false) Integer limit) {
+        if (projectBridge.findById(projectId).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        int maxChanges = limit != null ? Math.max(1, Math.min(limit, maxBatch)) : maxBatch;
+        ChangeBatch batch = changeLog.getChangesSince(projectId, fromSequence, maxChanges);
+        String message = batch.isResyncRequired() ? "Resync required" : "Changes retrieved";
+        return ResponseEntity.ok(ApiResponseDto.success(message, batch));
+    }
+}
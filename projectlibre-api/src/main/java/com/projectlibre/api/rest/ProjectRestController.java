@@ -6,7 +6,7 @@ import com.projectlibre.api.service.ProjectService;
 import com.projectlibre.api.storage.CoreProjectBridge;
 import com.projectlibre.api.adapter.CoreProjectFactory;
 import com.projectlibre.api.session.GlobalSessionManager;
-import com.projectlibre.api.concurrent.CoreAccessGuard;
+import com.projectlibre.api.concurrent.CoreGlobalGuard;
 import com.projectlibre1.session.Session;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,7 +19,7 @@ import java.util.List;
 /**
  * Modern Spring Boot REST controller for projects.
  * Uses GlobalSessionManager for thread-safe Core integration.
- * CoreAccessGuard protects from race conditions in concurrent requests.
+ * CoreGlobalGuard protects the core singletons touched when a core project is created.
  * 
  * @version 4.0.0
  */
@@ -30,17 +30,14 @@ public class ProjectRestController {
     
     private final ProjectService projectService;
     private final GlobalSessionManager sessionManager;
-    private final CoreAccessGuard coreAccessGuard;
     private final CoreProjectBridge projectBridge;
     private final CoreProjectFactory coreFactory;
     
     @Autowired
     public ProjectRestController(ProjectService projectService, 
-                                  GlobalSessionManager sessionManager,
-                                  CoreAccessGuard coreAccessGuard) {
+                                  GlobalSessionManager sessionManager) {
         this.projectService = projectService;
         this.sessionManager = sessionManager;
-        this.coreAccessGuard = coreAccessGuard;
         this.projectBridge = CoreProjectBridge.getInstance();
         this.coreFactory = CoreProjectFactory.getInstance();
     }
@@ -66,7 +63,7 @@ public class ProjectRestController {
             
             try {
                 Session session = sessionManager.getSession();
-                com.projectlibre1.pm.task.Project coreProject = coreAccessGuard.executeWithLock(() -> 
+                com.projectlibre1.pm.task.Project coreProject = CoreGlobalGuard.getInstance().execute(() -> 
                     coreFactory.createCoreProject(created, session)
                 );
                 
@@ -1,10 +1,19 @@
 package com.projectlibre.api.rest;
 
 import com.projectlibre.api.dto.ApiResponseDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncResponseDto;
 import com.projectlibre.api.dto.ProjectSyncRequestDto;
 import com.projectlibre.api.dto.TaskSyncResponseDto;
 import com.projectlibre.api.storage.CoreProjectBridge;
-import com.projectlibre.api.concurrent.CoreAccessGuard;
+import com.projectlibre.api.concurrent.CoreGlobalGuard;
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshot;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
+import com.projectlibre.api.recalculation.RecalculationScheduler;
+import com.projectlibre.api.sync.ChangeVersionRegistry;
+import com.projectlibre.api.sync.DeltaSyncResult;
+import com.projectlibre.api.sync.DeltaSyncService;
 import com.projectlibre.api.sync.ProjectCalendarSyncService;
 import com.projectlibre.api.sync.ProjectSyncResult;
 import com.projectlibre.api.sync.ProjectSyncService;
@@ -14,6 +23,7 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -32,16 +42,22 @@ public class ProjectSyncRestController {
     
     private static final Logger log = LoggerFactory.getLogger(ProjectSyncRestController.class);
     
-    private final CoreAccessGuard coreAccessGuard;
+    private final ProjectLockRegistry projectLocks;
+    private final ProjectSnapshotStore snapshotStore;
+    private final ChangeVersionRegistry changeVersions;
+    private final RecalculationScheduler recalculationScheduler;
     private final CoreProjectBridge projectBridge;
-    private final ProjectSyncService projectSyncService;
     private final ProjectCalendarSyncService projectCalendarSyncService;
 
     @Autowired
-    public ProjectSyncRestController(CoreAccessGuard coreAccessGuard) {
-        this.coreAccessGuard = coreAccessGuard;
+    public ProjectSyncRestController(ProjectLockRegistry projectLocks, ProjectSnapshotStore snapshotStore,
+                                     ChangeVersionRegistry changeVersions,
+                                     RecalculationScheduler recalculationScheduler) {
+        this.projectLocks = projectLocks;
+        this.snapshotStore = snapshotStore;
+        this.changeVersions = changeVersions;
+        this.recalculationScheduler = recalculationScheduler;
         this.projectBridge = CoreProjectBridge.getInstance();
-        this.projectSyncService = new ProjectSyncService();
         this.projectCalendarSyncService = new ProjectCalendarSyncService();
     }
     
@@ -59,25 +75,36 @@ public class ProjectSyncRestController {
                     .body(ApiResponseDto.error("Project not found: " + request.getProjectId()));
             }
 
-            ProjectSyncResult syncResult = coreAccessGuard.executeWithLock(() ->
-                projectSyncService.sync(project, request));
-            if (!syncResult.isSuccess()) {
-                log.error("[ProjectSync] ❌ Sync failed: {}", syncResult.getErrorMessage());
-                return ResponseEntity.badRequest()
-                    .body(ApiResponseDto.error(syncResult.getErrorMessage()));
-            }
+            // the synchronizers keep per-sync state, so each request gets its own: syncs of different projects run in parallel
+            ChangeVersionRegistry.Ticket[] ticket = new ChangeVersionRegistry.Ticket[1];
+            try {
+                ProjectSyncResult syncResult = projectLocks.executeWithWriteLock(project.getUniqueId(), () -> {
+                    ticket[0] = changeVersions.markAllChanged(project.getUniqueId());
+                    return new ProjectSyncService().sync(project, request);
+                });
+                if (!syncResult.isSuccess()) {
+                    log.error("[ProjectSync] ❌ Sync failed: {}", syncResult.getErrorMessage());
+                    publish(project, ticket[0]);
+                    return ResponseEntity.badRequest()
+                        .body(ApiResponseDto.error(syncResult.getErrorMessage()));
+                }
 
-            if (request.getProjectCalendars() != null) {
-                coreAccessGuard.executeWithLock(() ->
-                    projectCalendarSyncService.applyProjectCalendars(project, request.getProjectCalendars()));
-            }
+                if (request.getProjectCalendars() != null) {
+                    projectLocks.executeWithWriteLock(project.getUniqueId(), () ->
+                        CoreGlobalGuard.getInstance().execute(() ->
+                            projectCalendarSyncService.applyProjectCalendars(project, request.getProjectCalendars())));
+                }
+                publish(project, ticket[0]);
 
-            TaskSyncResponseDto data = TaskSyncResponseDto.success(
-                syncResult.getTotalSynced(), syncResult.getTotalSkipped(), syncResult.getResourceIdMapping());
-            log.info("[ProjectSync] ✅ Sync completed: synced={}, skipped={}, mappingSize={}",
-                syncResult.getTotalSynced(), syncResult.getTotalSkipped(),
-                syncResult.getResourceIdMapping() != null ? syncResult.getResourceIdMapping().size() : 0);
-            return ResponseEntity.ok(ApiResponseDto.success("Project synced", data));
+                TaskSyncResponseDto data = TaskSyncResponseDto.success(
+                    syncResult.getTotalSynced(), syncResult.getTotalSkipped(), syncResult.getResourceIdMapping());
+                log.info("[ProjectSync] ✅ Sync completed: synced={}, skipped={}, mappingSize={}",
+                    syncResult.getTotalSynced(), syncResult.getTotalSkipped(),
+                    syncResult.getResourceIdMapping() != null ? syncResult.getResourceIdMapping().size() : 0);
+                return ResponseEntity.ok(ApiResponseDto.success("Project synced", data));
+            } finally {
+                release(ticket[0]);
+            }
             
         } catch (Throwable t) {
             log.error("[ProjectSync] ❌ CRITICAL SYNC ERROR");
@@ -100,4 +127,87 @@ public class ProjectSyncRestController {
         }
     }
     
+    /**
+     * Applies only the changed tasks, dependencies, assignments and resources of a project.
+     * Changes based on a stale scheduleVersion are rejected with 409 and nothing applied;
+     * on success the response carries the scheduleVersion to base the next changes on.
+     */
+    @PostMapping("/sync-delta")
+    public ResponseEntity<ApiResponseDto<ProjectDeltaSyncResponseDto>> syncDelta(
+            @Valid @RequestBody ProjectDeltaSyncRequestDto request) {
+        try {
+            log.debug("[ProjectSync] Delta sync request: projectId={}, baseVersion={}, changes={}",
+                request.getProjectId(), request.getBaseVersion(), request.getChangeCount());
+            
+            Project project = projectBridge.findById(request.getProjectId()).orElse(null);
+            if (project == null) {
+                log.error("[ProjectSync] ❌ Project not found: {}", request.getProjectId());
+                return ResponseEntity.badRequest()
+                    .body(ApiResponseDto.error("Project not found: " + request.getProjectId()));
+            }
+
+            DeltaSyncResult result;
+            try {
+                result = projectLocks.executeWithWriteLock(project.getUniqueId(), () ->
+                    new DeltaSyncService(changeVersions).apply(project.getUniqueId(), project, request));
+            } catch (RuntimeException | Error e) {
+                // the changes applied before the failure are not known: the whole project counts as changed
+                release(projectLocks.executeWithWriteLock(project.getUniqueId(), () ->
+                    changeVersions.markAllChanged(project.getUniqueId())));
+                throw e;
+            }
+            ProjectSnapshot snapshot;
+            try {
+                snapshot = result.getTicket() != null ? publish(project, result.getTicket()) : null;
+            } finally {
+                release(result.getTicket());
+            }
+            if (result.isRejected()) {
+                log.info("[ProjectSync] Delta sync rejected: {} conflicts", result.getConflicts().size());
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ApiResponseDto<>(false, result.getErrorMessage(),
+                        ProjectDeltaSyncResponseDto.rejected(result.getConflicts())));
+            }
+            if (!result.isSuccess()) {
+                log.error("[ProjectSync] ❌ Delta sync failed: {}", result.getErrorMessage());
+                return ResponseEntity.badRequest()
+                    .body(ApiResponseDto.error(result.getErrorMessage()));
+            }
+
+            Long recalculationSequence = request.isRecalculate()
+                ? recalculationScheduler.request(project.getUniqueId())
+                : null;
+            ProjectDeltaSyncResponseDto data = ProjectDeltaSyncResponseDto.applied(result.getAppliedCount(),
+                snapshot.getScheduleVersion(), result.getResourceIdMapping(), recalculationSequence);
+            return ResponseEntity.ok(ApiResponseDto.success("Project changes applied", data));
+            
+        } catch (Throwable t) {
+            log.error("[ProjectSync] ❌ Delta sync error", t);
+            return ResponseEntity.internalServerError()
+                .body(ApiResponseDto.error("Internal server error: " + t.getClass().getSimpleName() 
+                    + ": " + t.getMessage()));
+        }
+    }
+    
+    /**
+     * Publishes the project snapshot and gives the changes of the ticket its scheduleVersion.
+     */
+    private ProjectSnapshot publish(Project project, ChangeVersionRegistry.Ticket ticket) {
+        ProjectSnapshot snapshot = snapshotStore.publish(project.getUniqueId(), project);
+        if (ticket != null) {
+            changeVersions.commit(ticket, snapshot.getScheduleVersion());
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Commits a ticket left pending by a failed write or publication: its changes count as those of the next
+     * snapshot, instead of making every later delta change a conflict.
+     */
+    private void release(ChangeVersionRegistry.Ticket ticket) {
+        if (ticket != null) {
+            changeVersions.commit(ticket, snapshotStore.getNextVersion());
+        }
+    }
+    
 }
@@ -10,12 +10,16 @@ import com.projectlibre.api.service.TaskService;
 import com.projectlibre.api.service.ResourceService;
 import com.projectlibre.api.service.PreferenceService;
 import com.projectlibre.api.undo.CoreUndoRedoAdapter;
-import com.projectlibre.api.concurrent.CoreAccessGuard;
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
 import com.projectlibre.api.storage.CoreProjectBridge;
+import com.projectlibre.api.sync.ChangeVersionRegistry;
 import com.projectlibre.api.sync.ProjectSyncResult;
 import com.projectlibre.api.sync.ProjectSyncService;
 import com.projectlibre.api.converter.CoreToApiConverter;
 import com.projectlibre.api.service.CriticalPathRecalculationService;
+import com.projectlibre.api.service.EarnedValueReportService;
+import com.projectlibre.api.service.ResourceLevelingService;
 import com.projectlibre1.pm.task.Project;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.ResponseEntity;
@@ -41,26 +45,35 @@ public class RpcRestController {
     private final ResourceService resourceService;
     private final PreferenceService preferenceService;
     private final CoreUndoRedoAdapter undoRedoAdapter;
-    private final CoreAccessGuard coreAccessGuard;
+    private final ProjectLockRegistry projectLocks;
+    private final ProjectSnapshotStore snapshotStore;
+    private final ChangeVersionRegistry changeVersions;
     private final CoreProjectBridge projectBridge;
-    private final ProjectSyncService projectSyncService;
     private final CoreToApiConverter coreConverter;
     private final ObjectMapper objectMapper;
     private final CriticalPathRecalculationService criticalPathRecalculationService;
+    private final ResourceLevelingService resourceLevelingService;
+    private final EarnedValueReportService earnedValueReportService;
 
     public RpcRestController(ProjectService projectService, TaskService taskService,
                              ResourceService resourceService, PreferenceService preferenceService,
-                             CoreAccessGuard coreAccessGuard,
-                             CriticalPathRecalculationService criticalPathRecalculationService) {
+                             ProjectLockRegistry projectLocks, ProjectSnapshotStore snapshotStore,
+                             ChangeVersionRegistry changeVersions,
+                             CriticalPathRecalculationService criticalPathRecalculationService,
+                             ResourceLevelingService resourceLevelingService,
+                             EarnedValueReportService earnedValueReportService) {
         this.projectService = projectService;
         this.taskService = taskService;
         this.resourceService = resourceService;
         this.preferenceService = preferenceService;
-        this.coreAccessGuard = coreAccessGuard;
+        this.projectLocks = projectLocks;
+        this.snapshotStore = snapshotStore;
+        this.changeVersions = changeVersions;
         this.criticalPathRecalculationService = criticalPathRecalculationService;
+        this.resourceLevelingService = resourceLevelingService;
+        this.earnedValueReportService = earnedValueReportService;
         this.undoRedoAdapter = CoreUndoRedoAdapter.getInstance();
         this.projectBridge = CoreProjectBridge.getInstance();
-        this.projectSyncService = new ProjectSyncService();
         this.coreConverter = new CoreToApiConverter();
         this.objectMapper = new ObjectMapper();
     }
@@ -89,6 +102,13 @@ public class RpcRestController {
             case "project.delete": return projectService.deleteProject(asLong(args[0]));
             case "project.update": return syncProject(args);
             case "project.recalculate": return criticalPathRecalculationService.recalculate(asLong(args[0]));
+            case "project.requestRecalculation": return criticalPathRecalculationService.requestRecalculation(asLong(args[0]));
+            case "project.awaitRecalculation":
+                return criticalPathRecalculationService.awaitRecalculation(asLong(args[0]), asLong(args[1]));
+            case "project.levelResources":
+                return resourceLevelingService.level(asLong(args[0]), args.length > 1 && Boolean.TRUE.equals(args[1]));
+            case "project.earnedValue":
+                return earnedValueReportService.report(asLong(args[0]), args.length > 1 ? asLong(args[1]) : null);
             case "task.list": return taskService.getAllTasks();
             case "resource.list": return resourceService.getAllResources();
             case "undo.perform": return performUndo(args);
@@ -131,8 +151,17 @@ public class RpcRestController {
             syncRequest.setResources(resources);
         }
         
-        ProjectSyncResult syncResult = coreAccessGuard.executeWithLock(() ->
-            projectSyncService.sync(project, syncRequest));
+        ChangeVersionRegistry.Ticket[] ticket = new ChangeVersionRegistry.Ticket[1];
+        ProjectSyncResult syncResult;
+        try {
+            syncResult = projectLocks.executeWithWriteLock(project.getUniqueId(), () -> {
+                ticket[0] = changeVersions.markAllChanged(project.getUniqueId());
+                return new ProjectSyncService().sync(project, syncRequest);
+            });
+            changeVersions.commit(ticket[0], snapshotStore.publish(project.getUniqueId(), project).getScheduleVersion());
+        } finally {
+            release(ticket[0]);
+        }
         if (!syncResult.isSuccess()) {
             throw new RuntimeException("Sync failed: " + syncResult.getErrorMessage());
         }
@@ -155,17 +184,49 @@ public class RpcRestController {
         return Long.parseLong(val.toString());
     }
     private Object performUndo(Object[] args) {
-        if (args.length > 0 && args[0] != null) undoRedoAdapter.setActiveProject(asLong(args[0]));
-        undoRedoAdapter.undo();
+        modifyActiveProject(args, undoRedoAdapter::undo);
         return getUndoState(args);
     }
     
     private Object performRedo(Object[] args) {
-        if (args.length > 0 && args[0] != null) undoRedoAdapter.setActiveProject(asLong(args[0]));
-        undoRedoAdapter.redo();
+        modifyActiveProject(args, undoRedoAdapter::redo);
         return getUndoState(args);
     }
     
+    /**
+     * Undo and redo change the core project: under its write lock, so that its published snapshot is renewed.
+     * They may touch any entity, so every delta change based on an earlier version is rejected afterwards.
+     */
+    private void modifyActiveProject(Object[] args, Runnable operation) {
+        Long projectId = args.length > 0 && args[0] != null ? asLong(args[0]) : null;
+        if (projectId == null) {
+            operation.run();
+            return;
+        }
+        ChangeVersionRegistry.Ticket[] ticket = new ChangeVersionRegistry.Ticket[1];
+        try {
+            projectLocks.executeWithWriteLock(projectId, () -> {
+                ticket[0] = changeVersions.markAllChanged(projectId);
+                undoRedoAdapter.setActiveProject(projectId);
+                operation.run();
+            });
+            projectBridge.findById(projectId).ifPresent(project ->
+                changeVersions.commit(ticket[0], snapshotStore.publish(projectId, project).getScheduleVersion()));
+        } finally {
+            release(ticket[0]);
+        }
+    }
+    
+    /**
+     * Commits a ticket left pending by a failed write or publication: its changes count as those of the next
+     * snapshot, instead of making every later delta change a conflict.
+     */
+    private void release(ChangeVersionRegistry.Ticket ticket) {
+        if (ticket != null) {
+            changeVersions.commit(ticket, snapshotStore.getNextVersion());
+        }
+    }
+    
     private Object getUndoState(Object[] args) {
         if (args.length > 0 && args[0] != null) {
             undoRedoAdapter.setActiveProject(asLong(args[0]));
@@ -4,8 +4,10 @@ import com.projectlibre.api.dto.ApiResponseDto;
 import com.projectlibre.api.dto.TaskSyncRequestDto;
 import com.projectlibre.api.dto.TaskSyncResponseDto;
 import com.projectlibre.api.storage.CoreProjectBridge;
-import com.projectlibre.api.concurrent.CoreAccessGuard;
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
 import com.projectlibre.api.sync.ApiToCoreTaskSynchronizer;
+import com.projectlibre.api.sync.ChangeVersionRegistry;
 import com.projectlibre.api.sync.SyncResult;
 import com.projectlibre1.pm.task.Project;
 
@@ -27,15 +29,18 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/files")
 public class TaskSyncRestController {
     
-    private final CoreAccessGuard coreAccessGuard;
+    private final ProjectLockRegistry projectLocks;
+    private final ProjectSnapshotStore snapshotStore;
+    private final ChangeVersionRegistry changeVersions;
     private final CoreProjectBridge projectBridge;
-    private final ApiToCoreTaskSynchronizer synchronizer;
     
     @Autowired
-    public TaskSyncRestController(CoreAccessGuard coreAccessGuard) {
-        this.coreAccessGuard = coreAccessGuard;
+    public TaskSyncRestController(ProjectLockRegistry projectLocks, ProjectSnapshotStore snapshotStore,
+                                  ChangeVersionRegistry changeVersions) {
+        this.projectLocks = projectLocks;
+        this.snapshotStore = snapshotStore;
+        this.changeVersions = changeVersions;
         this.projectBridge = CoreProjectBridge.getInstance();
-        this.synchronizer = new ApiToCoreTaskSynchronizer();
     }
     
     /**
@@ -62,9 +67,22 @@ public class TaskSyncRestController {
             }
             
             // Выполняем синхронизацию с блокировкой
-            SyncResult result = coreAccessGuard.executeWithLock(() -> 
-                synchronizer.synchronize(project, request)
-            );
+            // the synchronizer keeps counters, so each request gets its own: syncs of different projects run in parallel
+            ChangeVersionRegistry.Ticket[] ticket = new ChangeVersionRegistry.Ticket[1];
+            SyncResult result;
+            try {
+                result = projectLocks.executeWithWriteLock(project.getUniqueId(), () -> {
+                    ticket[0] = changeVersions.markAllChanged(project.getUniqueId());
+                    return new ApiToCoreTaskSynchronizer().synchronize(project, request);
+                });
+                changeVersions.commit(ticket[0],
+                    snapshotStore.publish(project.getUniqueId(), project).getScheduleVersion());
+            } finally {
+                // a failed sync or publication must not leave the ticket pending, which would reject every delta change
+                if (ticket[0] != null) {
+                    changeVersions.commit(ticket[0], snapshotStore.getNextVersion());
+                }
+            }
             
             if (result.isSuccess()) {
                 TaskSyncResponseDto data = TaskSyncResponseDto.success(
@@ -140,4 +140,22 @@ public class SchedulingEngineAdapter implements SchedulingEnginePort {
             state.setNeedsRecalculation(true);
         });
     }
+    
+    /**
+     * Отметить проект как пересчитанный вне адаптера (RecalculationScheduler)
+     */
+    public void markRecalculated(Long projectId) {
+        syncManager.executeSynchronized("scheduling_" + projectId, () -> {
+            ProjectScheduleState state = getOrCreateState(projectId);
+            state.setLastRecalculatedAt(LocalDateTime.now());
+            state.setNeedsRecalculation(false);
+        });
+    }
+    
+    /**
+     * Забыть состояние выгруженного проекта
+     */
+    public void clearProject(Long projectId) {
+        projectStates.remove(projectId);
+    }
 }
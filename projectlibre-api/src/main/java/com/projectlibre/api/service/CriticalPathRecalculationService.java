@@ -1,33 +1,44 @@
 package com.projectlibre.api.service;
 
-import com.projectlibre.api.converter.CoreToApiConverter;
+import com.projectlibre.api.readmodel.ProjectSnapshot;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
 import com.projectlibre.api.dto.ProjectDataDto;
-import com.projectlibre.api.recalculation.CpmRecalculationRunner;
+import com.projectlibre.api.recalculation.RecalculationScheduler;
 import com.projectlibre.api.storage.CoreProjectBridge;
-import com.projectlibre.api.concurrent.CoreAccessGuard;
-import com.projectlibre1.pm.task.Project;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Сервис перерасчёта критического пути через Core ProjectLibre (CPM).
  * Устанавливает границы проекта (setEnd/setEndConstraint) перед recalculate().
+ * Перерасчёты выполняет RecalculationScheduler: запросы, пришедшие почти одновременно, обслуживает один прогон CPM.
+ * Ожидание прогона ограничено projectlibre.recalculation.await-timeout-ms, поток запроса не блокируется бессрочно.
  */
 @Service
 public class CriticalPathRecalculationService {
 
     private static final Logger log = LoggerFactory.getLogger("CriticalPathTrace");
 
-    private final CoreAccessGuard coreAccessGuard;
-    private final CoreToApiConverter coreConverter;
+    private final RecalculationScheduler scheduler;
+    private final ProjectSnapshotStore snapshotStore;
+    private final long awaitTimeoutMs;
 
-    public CriticalPathRecalculationService(CoreAccessGuard coreAccessGuard) {
-        this.coreAccessGuard = coreAccessGuard;
-        this.coreConverter = new CoreToApiConverter();
+    public CriticalPathRecalculationService(RecalculationScheduler scheduler, ProjectSnapshotStore snapshotStore,
+                                            @Value("${projectlibre.recalculation.await-timeout-ms:60000}") long awaitTimeoutMs) {
+        this.scheduler = scheduler;
+        this.snapshotStore = snapshotStore;
+        this.awaitTimeoutMs = awaitTimeoutMs;
     }
 
     /**
@@ -36,18 +47,14 @@ public class CriticalPathRecalculationService {
      * @param projectId ID проекта в CoreProjectBridge
      * @return ProjectDataDto с актуальными флагами critical
      * @throws IllegalArgumentException если проект не найден
+     * @throws IllegalStateException если перерасчёт не завершился за await-timeout-ms
      * @throws RuntimeException при ошибке перерасчёта
      */
     public ProjectDataDto recalculate(Long projectId) {
         log.info("[CriticalPathTrace] layer=api request projectId={}", projectId);
 
-        Project coreProject = CoreProjectBridge.getInstance()
-                .findById(projectId)
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "Project not found in CoreProjectBridge: " + projectId
-                                + ". Make sure project is loaded via FileRestController first."));
-        coreAccessGuard.executeWithLock(() -> new CpmRecalculationRunner().run(coreProject));
-        ProjectDataDto result = coreConverter.convert(coreProject);
+        requireLoaded(projectId);
+        ProjectDataDto result = await(projectId, scheduler.recalculate(projectId).thenApply(ProjectSnapshot::getData));
 
         int taskCount = result.getTasks() != null ? result.getTasks().size() : 0;
         int criticalCount = 0;
@@ -65,4 +72,63 @@ public class CriticalPathRecalculationService {
 
         return result;
     }
+
+    /**
+     * Ставит перерасчёт в очередь и сразу возвращает его номер вместе с текущей версией расписания.
+     *
+     * @param projectId ID проекта в CoreProjectBridge
+     * @return projectId, sequence (номер для awaitRecalculation) и scheduleVersion последнего опубликованного снимка
+     */
+    public Map<String, Object> requestRecalculation(Long projectId) {
+        requireLoaded(projectId);
+        long sequence = scheduler.request(projectId);
+        Map<String, Object> ticket = new LinkedHashMap<>();
+        ticket.put("projectId", projectId);
+        ticket.put("sequence", sequence);
+        ticket.put("scheduleVersion", snapshotStore.getLatest(projectId)
+                .map(ProjectSnapshot::getScheduleVersion).orElse(null));
+        return ticket;
+    }
+
+    /**
+     * Ждёт перерасчёт с указанным номером (или более поздний, покрывший его).
+     *
+     * @return данные проекта с scheduleVersion прогона
+     * @throws IllegalStateException если перерасчёт не завершился за await-timeout-ms
+     */
+    public ProjectDataDto awaitRecalculation(Long projectId, long sequence) {
+        return await(projectId, scheduler.await(projectId, sequence).thenApply(ProjectSnapshot::getData));
+    }
+
+    private static void requireLoaded(Long projectId) {
+        if (!CoreProjectBridge.getInstance().findById(projectId).isPresent()) {
+            throw new IllegalArgumentException("Project not found in CoreProjectBridge: " + projectId
+                    + ". Make sure project is loaded via FileRestController first.");
+        }
+    }
+
+    /**
+     * Ждёт прогон не дольше awaitTimeoutMs. Сам прогон по таймауту не отменяется, его результат
+     * можно получить позже через awaitRecalculation.
+     */
+    private <T> T await(Long projectId, CompletableFuture<T> future) {
+        try {
+            return future.get(awaitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Recalculation of project " + projectId
+                    + " did not finish within " + awaitTimeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for recalculation of project " + projectId, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Recalculation of project " + projectId + " failed", cause);
+        }
+    }
 }
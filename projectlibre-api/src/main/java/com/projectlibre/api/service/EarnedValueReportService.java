@@ -0,0 +1,81 @@
+package com.projectlibre.api.service;
+
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.storage.CoreProjectBridge;
+import com.projectlibre1.pm.costing.EarnedValueBatch;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.Task;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис отчёта по освоенному объёму (EVM) через Core EarnedValueBatch.
+ * Все показатели всех задач и проекта считаются одним проходом под блокировкой чтения проекта.
+ */
+@Service
+public class EarnedValueReportService {
+
+    private final ProjectLockRegistry projectLocks;
+
+    public EarnedValueReportService(ProjectLockRegistry projectLocks) {
+        this.projectLocks = projectLocks;
+    }
+
+    /**
+     * Считает освоенный объём задач и проекта на дату отчёта.
+     *
+     * @param projectId ID проекта в CoreProjectBridge
+     * @param statusDate дата отчёта (мс), null — дата отчёта проекта
+     * @return projectId, statusDate, итоги проекта (project) и строки задач (tasks) в порядке проекта
+     * @throws IllegalArgumentException если проект не найден
+     */
+    public Map<String, Object> report(Long projectId, Long statusDate) {
+        Project project = CoreProjectBridge.getInstance().findById(projectId).orElseThrow(() ->
+            new IllegalArgumentException("Project not found in CoreProjectBridge: " + projectId));
+        EarnedValueBatch batch = projectLocks.executeWithReadLock(projectId, () -> statusDate == null
+            ? EarnedValueBatch.evaluate(project)
+            : EarnedValueBatch.evaluate(project, statusDate));
+
+        double[][] columns = {batch.getBcws(), batch.getBcwp(), batch.getAcwp(), batch.getBac(), batch.getEac(),
+            batch.getCv(), batch.getSv(), batch.getCpi(), batch.getSpi(), batch.getVac(), batch.getTcpi()};
+        List<Map<String, Object>> tasks = new ArrayList<>();
+        for (int row = 0; row < batch.getProjectRow(); row++) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("taskId", taskId(batch.getTask(row)));
+            putValues(values, columns, row);
+            tasks.add(values);
+        }
+        Map<String, Object> projectValues = new LinkedHashMap<>();
+        putValues(projectValues, columns, batch.getProjectRow());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("projectId", projectId);
+        response.put("statusDate", batch.getStatusDate());
+        response.put("project", projectValues);
+        response.put("tasks", tasks);
+        return response;
+    }
+
+    private static void putValues(Map<String, Object> values, double[][] columns, int row) {
+        values.put("bcws", columns[0][row]);
+        values.put("bcwp", columns[1][row]);
+        values.put("acwp", columns[2][row]);
+        values.put("bac", columns[3][row]);
+        values.put("eac", columns[4][row]);
+        values.put("cv", columns[5][row]);
+        values.put("sv", columns[6][row]);
+        values.put("cpi", columns[7][row]);
+        values.put("spi", columns[8][row]);
+        values.put("vac", columns[9][row]);
+        values.put("tcpi", columns[10][row]);
+    }
+
+    private static String taskId(Task task) {
+        String id = task.getCustomText(0);
+        return id != null && !id.trim().isEmpty() ? id : String.valueOf(task.getUniqueId());
+    }
+}
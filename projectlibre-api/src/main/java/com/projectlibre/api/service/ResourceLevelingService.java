@@ -0,0 +1,96 @@
+package com.projectlibre.api.service;
+
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshot;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
+import com.projectlibre.api.storage.CoreProjectBridge;
+import com.projectlibre.api.sync.ChangeVersionRegistry;
+import com.projectlibre1.pm.scheduling.LevelingEngine;
+import com.projectlibre1.pm.scheduling.LevelingOptions;
+import com.projectlibre1.pm.scheduling.LevelingResult;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис выравнивания ресурсов через Core LevelingEngine.
+ * Задержки выравнивания задаются под блокировкой записи проекта, затем публикуется новый снимок.
+ * Выравнивание может сдвинуть любую задачу, поэтому все сущности проекта помечаются изменёнными.
+ */
+@Service
+public class ResourceLevelingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ResourceLevelingService.class);
+
+    private final ProjectLockRegistry projectLocks;
+    private final ProjectSnapshotStore snapshotStore;
+    private final ChangeVersionRegistry changeVersions;
+
+    public ResourceLevelingService(ProjectLockRegistry projectLocks, ProjectSnapshotStore snapshotStore,
+                                   ChangeVersionRegistry changeVersions) {
+        this.projectLocks = projectLocks;
+        this.snapshotStore = snapshotStore;
+        this.changeVersions = changeVersions;
+    }
+
+    /**
+     * Выравнивает все рабочие ресурсы проекта.
+     *
+     * @param projectId ID проекта в CoreProjectBridge
+     * @param withinSlack задерживать задачи только в пределах резерва, не сдвигая окончание проекта
+     * @return итоги выравнивания и scheduleVersion опубликованного снимка
+     * @throws IllegalArgumentException если проект не найден
+     */
+    public Map<String, Object> level(Long projectId, boolean withinSlack) {
+        Project project = CoreProjectBridge.getInstance().findById(projectId).orElseThrow(() ->
+            new IllegalArgumentException("Project not found in CoreProjectBridge: " + projectId));
+        LevelingOptions options = new LevelingOptions();
+        options.setWithinSlack(withinSlack);
+
+        ChangeVersionRegistry.Ticket[] ticket = new ChangeVersionRegistry.Ticket[1];
+        LevelingResult result;
+        ProjectSnapshot snapshot;
+        try {
+            result = projectLocks.executeWithWriteLock(projectId, () -> {
+                ticket[0] = changeVersions.markAllChanged(projectId);
+                return LevelingEngine.level(project, options);
+            });
+        } finally {
+            try {
+                snapshot = snapshotStore.publish(projectId, project);
+                if (ticket[0] != null) {
+                    changeVersions.commit(ticket[0], snapshot.getScheduleVersion());
+                }
+            } finally {
+                // a failed publication must not leave the ticket pending, which would reject every delta change
+                if (ticket[0] != null) {
+                    changeVersions.commit(ticket[0], snapshotStore.getNextVersion());
+                }
+            }
+        }
+        log.info("[Leveling] Project {}: {} tasks delayed, {} unresolved, {} CPM runs, {} resources still overallocated",
+            projectId, result.getDelayedTaskCount(), result.getUnresolvedTasks().size(), result.getCpmRunCount(),
+            result.getOverallocatedResourceCount());
+
+        List<String> unresolvedTaskIds = new ArrayList<>();
+        for (NormalTask task : result.getUnresolvedTasks()) {
+            String id = task.getCustomText(0);
+            unresolvedTaskIds.add(id != null && !id.trim().isEmpty() ? id : String.valueOf(task.getUniqueId()));
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("projectId", projectId);
+        response.put("delayedTaskCount", result.getDelayedTaskCount());
+        response.put("unresolvedTaskIds", unresolvedTaskIds);
+        response.put("cpmRunCount", result.getCpmRunCount());
+        response.put("overallocatedResourceCount", result.getOverallocatedResourceCount());
+        response.put("scheduleVersion", snapshot.getScheduleVersion());
+        return response;
+    }
+}
@@ -1,8 +1,12 @@
 package com.projectlibre.api.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.projectlibre.api.dto.ProjectDto;
 import com.projectlibre.api.dto.TaskDto;
 import com.projectlibre.api.streaming.*;
+import org.springframework.stereotype.Service;
+
 import java.io.OutputStream;
 import java.util.*;
 import java.util.function.Consumer;
@@ -12,30 +16,17 @@ import java.util.function.Consumer;
  * Provides API layer access to streaming capabilities
  * Enables instant UI response for 1000+ tasks
  */
+@Service
 public class StreamingService {
     
-    private static volatile StreamingService instance;
-    private static final Object LOCK = new Object();
-    
     private final StreamingSerializerPort serializer;
     private final DeltaUpdatePort deltaTracker;
+    private final ObjectMapper objectMapper;
     
-    private StreamingService() {
+    public StreamingService(DeltaUpdatePort deltaTracker, ObjectMapper objectMapper) {
         this.serializer = StreamingJsonSerializer.getInstance();
-        this.deltaTracker = DeltaTracker.getInstance();
-    }
-    
-    public static StreamingService getInstance() {
-        StreamingService result = instance;
-        if (result == null) {
-            synchronized (LOCK) {
-                result = instance;
-                if (result == null) {
-                    instance = result = new StreamingService();
-                }
-            }
-        }
-        return result;
+        this.deltaTracker = deltaTracker;
+        this.objectMapper = objectMapper;
     }
     
     /**
@@ -76,45 +67,56 @@ public class StreamingService {
     
     /**
      * Track task field change
+     * @return sequence of the change
      */
-    public void trackTaskChange(Long taskId, String field, Object oldValue, Object newValue) {
-        deltaTracker.trackChange("task", taskId, field, oldValue, newValue);
+    public long trackTaskChange(Long projectId, String taskId, String field, Object oldValue, Object newValue) {
+        return deltaTracker.trackChange(projectId, "task", taskId, field, oldValue, newValue);
     }
     
     /**
      * Track project field change
+     * @return sequence of the change
      */
-    public void trackProjectChange(Long projectId, String field, Object oldValue, Object newValue) {
-        deltaTracker.trackChange("project", projectId, field, oldValue, newValue);
+    public long trackProjectChange(Long projectId, String field, Object oldValue, Object newValue) {
+        return deltaTracker.trackChange(projectId, "project", String.valueOf(projectId), field, oldValue, newValue);
     }
     
     /**
      * Track resource field change
+     * @return sequence of the change
      */
-    public void trackResourceChange(Long resourceId, String field, Object oldValue, Object newValue) {
-        deltaTracker.trackChange("resource", resourceId, field, oldValue, newValue);
+    public long trackResourceChange(Long projectId, String resourceId, String field, Object oldValue, Object newValue) {
+        return deltaTracker.trackChange(projectId, "resource", resourceId, field, oldValue, newValue);
     }
     
     /**
-     * Get pending delta updates as JSON
+     * Get delta updates after a sequence as JSON
+     * @return compact changes by entity type and id, or null if the client has to reload the project
      */
-    public String getDeltaUpdatesJson() {
-        Map<String, Map<Long, Map<String, Object>>> compact = deltaTracker.getCompactChanges();
-        return serializeCompactChanges(compact);
+    public String getDeltaUpdatesJson(Long projectId, long afterSequence) {
+        Map<String, Map<String, Map<String, Object>>> compact = deltaTracker.getCompactChanges(projectId, afterSequence);
+        if (compact == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(compact);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize delta updates of project " + projectId, e);
+        }
     }
     
     /**
-     * Check for pending changes
+     * Check for changes after a sequence
      */
-    public boolean hasPendingChanges() {
-        return deltaTracker.hasPendingChanges();
+    public boolean hasChangesSince(Long projectId, long afterSequence) {
+        return deltaTracker.getLatestSequence(projectId) > afterSequence;
     }
     
     /**
-     * Clear pending changes after sync
+     * Drop tracked changes of a closed project
      */
-    public void clearPendingChanges() {
-        deltaTracker.clearPendingChanges();
+    public void clearProjectChanges(Long projectId) {
+        deltaTracker.clearProject(projectId);
     }
     
     /**
@@ -130,44 +132,4 @@ public class StreamingService {
     public long estimateResponseSize(int itemCount) {
         return serializer.estimateSize(itemCount, 500);
     }
-    
-    private String serializeCompactChanges(Map<String, Map<Long, Map<String, Object>>> changes) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{");
-        boolean first = true;
-        
-        for (Map.Entry<String, Map<Long, Map<String, Object>>> typeEntry : changes.entrySet()) {
-            if (!first) sb.append(",");
-            first = false;
-            sb.append("\"").append(typeEntry.getKey()).append("\":{");
-            
-            boolean firstEntity = true;
-            for (Map.Entry<Long, Map<String, Object>> entityEntry : typeEntry.getValue().entrySet()) {
-                if (!firstEntity) sb.append(",");
-                firstEntity = false;
-                sb.append("\"").append(entityEntry.getKey()).append("\":");
-                sb.append(serializeFieldMap(entityEntry.getValue()));
-            }
-            sb.append("}");
-        }
-        sb.append("}");
-        return sb.toString();
-    }
-    
-    private String serializeFieldMap(Map<String, Object> fields) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{");
-        boolean first = true;
-        for (Map.Entry<String, Object> entry : fields.entrySet()) {
-            if (!first) sb.append(",");
-            first = false;
-            sb.append("\"").append(entry.getKey()).append("\":");
-            Object val = entry.getValue();
-            if (val == null) sb.append("null");
-            else if (val instanceof String) sb.append("\"").append(val).append("\"");
-            else sb.append(val);
-        }
-        sb.append("}");
-        return sb.toString();
-    }
 }
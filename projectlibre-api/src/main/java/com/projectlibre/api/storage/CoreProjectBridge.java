@@ -1,10 +1,13 @@
 package com.projectlibre.api.storage;
 
 import com.projectlibre1.pm.task.Project;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Bridge between API layer and ProjectLibre Core Project model.
@@ -20,6 +23,14 @@ public class CoreProjectBridge {
     private static final Object LOCK = new Object();
     
     private final ConcurrentMap<Long, Project> loadedProjects;
+    private final List<UnregisterListener> unregisterListeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Notified after a project is unregistered, so that state kept per project elsewhere can be dropped.
+     */
+    public interface UnregisterListener {
+        void projectUnregistered(Long projectId);
+    }
     
     private CoreProjectBridge() {
         this.loadedProjects = new ConcurrentHashMap<>();
@@ -47,11 +58,25 @@ public class CoreProjectBridge {
     }
     
     public void unregisterProject(Long projectId) {
-        if (projectId != null) {
-            loadedProjects.remove(projectId);
+        if (projectId != null && loadedProjects.remove(projectId) != null) {
+            for (UnregisterListener listener : unregisterListeners) {
+                try {
+                    listener.projectUnregistered(projectId);
+                } catch (RuntimeException e) {
+                    System.err.println("[CoreProjectBridge] Unregister listener failed for ID=" + projectId + ": " + e.getMessage());
+                }
+            }
         }
     }
     
+    public void addUnregisterListener(UnregisterListener listener) {
+        unregisterListeners.add(listener);
+    }
+    
+    public void removeUnregisterListener(UnregisterListener listener) {
+        unregisterListeners.remove(listener);
+    }
+    
     public Optional<Project> findById(Long projectId) {
         if (projectId == null) {
             return Optional.empty();
@@ -76,6 +101,8 @@ public class CoreProjectBridge {
     }
     
     public void clearAll() {
-        loadedProjects.clear();
+        for (Long projectId : new ArrayList<>(loadedProjects.keySet())) {
+            unregisterProject(projectId);
+        }
     }
 }
@@ -1,5 +1,6 @@
 package com.projectlibre.api.storage;
 
+import com.projectlibre.api.observability.PodWriteEvent;
 import com.projectlibre1.pm.task.Project;
 import com.projectlibre1.server.data.DataUtil;
 import com.projectlibre1.server.data.DocumentData;
@@ -43,8 +44,19 @@ public class PodFormatWriter {
             throw new IllegalArgumentException("Output stream cannot be null");
         }
         
+        PodWriteEvent event = new PodWriteEvent();
+        event.begin();
+        long start = System.nanoTime();
         writeBinarySection(project, output);
+        long binaryWritten = System.nanoTime();
         writeXmlSection(project, output);
+        if (event.shouldCommit()) {
+            event.project = project.getName();
+            event.taskCount = project.getTasks().size();
+            event.binarySectionTime = binaryWritten - start;
+            event.xmlSectionTime = System.nanoTime() - binaryWritten;
+            event.commit();
+        }
     }
     
     /**
@@ -0,0 +1,63 @@
+package com.projectlibre.api.storage;
+
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
+import com.projectlibre.api.recalculation.RecalculationScheduler;
+import com.projectlibre.api.streaming.ChangeStreamHub;
+import com.projectlibre.api.streaming.ProjectChangeFeed;
+import com.projectlibre.api.sync.ChangeVersionRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops the state kept per project by the API services once the project is unregistered from CoreProjectBridge,
+ * so that an unloaded project keeps neither its converted data nor its bookkeeping in memory.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Component
+public class ProjectStateCleanup implements CoreProjectBridge.UnregisterListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectStateCleanup.class);
+
+    private final ProjectLockRegistry projectLocks;
+    private final ProjectSnapshotStore snapshotStore;
+    private final RecalculationScheduler recalculationScheduler;
+    private final ChangeVersionRegistry changeVersions;
+    private final ProjectChangeFeed changeFeed;
+    private final ChangeStreamHub changeStreams;
+
+    public ProjectStateCleanup(ProjectLockRegistry projectLocks, ProjectSnapshotStore snapshotStore,
+                               RecalculationScheduler recalculationScheduler, ChangeVersionRegistry changeVersions,
+                               ProjectChangeFeed changeFeed, ChangeStreamHub changeStreams) {
+        this.projectLocks = projectLocks;
+        this.snapshotStore = snapshotStore;
+        this.recalculationScheduler = recalculationScheduler;
+        this.changeVersions = changeVersions;
+        this.changeFeed = changeFeed;
+        this.changeStreams = changeStreams;
+        CoreProjectBridge.getInstance().addUnregisterListener(this);
+    }
+
+    @Override
+    public void projectUnregistered(Long projectId) {
+        snapshotStore.remove(projectId);
+        recalculationScheduler.forget(projectId);
+        changeVersions.remove(projectId);
+        changeStreams.closeProject(projectId);
+        changeFeed.clearProject(projectId);
+        // last, as the snapshot removal takes the lock; one still in use is kept, which is harmless
+        if (!projectLocks.remove(projectId)) {
+            log.debug("[ProjectState] Lock of unregistered project {} still in use, kept", projectId);
+        }
+        log.debug("[ProjectState] Dropped state of unregistered project {}", projectId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        CoreProjectBridge.getInstance().removeUnregisterListener(this);
+    }
+}
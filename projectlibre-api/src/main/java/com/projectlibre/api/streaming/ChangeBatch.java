@@ -0,0 +1,54 @@
+package com.projectlibre.api.streaming;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Changes of a project after a sequence, read from its change log
+ * When the log no longer holds all changes after that sequence, the batch is empty and
+ * resyncRequired is set: the client has to reload the project and resume from latestSequence
+ */
+public final class ChangeBatch {
+
+    private final Long projectId;
+    private final long fromSequence;
+    private final long toSequence;
+    private final long latestSequence;
+    private final boolean resyncRequired;
+    private final List<ChangeLogEntry> changes;
+
+    private ChangeBatch(Long projectId, long fromSequence, long toSequence, long latestSequence,
+                        boolean resyncRequired, List<ChangeLogEntry> changes) {
+        this.projectId = projectId;
+        this.fromSequence = fromSequence;
+        this.toSequence = toSequence;
+        this.latestSequence = latestSequence;
+        this.resyncRequired = resyncRequired;
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    static ChangeBatch of(Long projectId, long fromSequence, long toSequence, long latestSequence,
+                          List<ChangeLogEntry> changes) {
+        return new ChangeBatch(projectId, fromSequence, toSequence, latestSequence, false, changes);
+    }
+
+    static ChangeBatch resync(Long projectId, long fromSequence, long latestSequence) {
+        return new ChangeBatch(projectId, fromSequence, latestSequence, latestSequence, true,
+                Collections.emptyList());
+    }
+
+    public Long getProjectId() { return projectId; }
+
+    /** Sequence the batch was read after */
+    public long getFromSequence() { return fromSequence; }
+
+    /** Sequence to resume after; may be past the last change when superseded changes were skipped */
+    public long getToSequence() { return toSequence; }
+
+    public long getLatestSequence() { return latestSequence; }
+    public boolean isResyncRequired() { return resyncRequired; }
+    public List<ChangeLogEntry> getChanges() { return changes; }
+
+    /** True if changes after toSequence are left for the next read */
+    public boolean hasMore() { return !resyncRequired && toSequence < latestSequence; }
+}
@@ -0,0 +1,33 @@
+package com.projectlibre.api.streaming;
+
+/**
+ * Delta update recorded in a project change log
+ * The sequence orders all changes of one project; the schedule version is the snapshot that contains the change
+ */
+public final class ChangeLogEntry {
+
+    private final long sequence;
+    private final Long scheduleVersion;
+    private final DeltaUpdate update;
+
+    ChangeLogEntry(long sequence, Long scheduleVersion, DeltaUpdate update) {
+        this.sequence = sequence;
+        this.scheduleVersion = scheduleVersion;
+        this.update = update;
+    }
+
+    public long getSequence() { return sequence; }
+    public Long getScheduleVersion() { return scheduleVersion; }
+    public String getEntityType() { return update.getEntityType(); }
+    public String getEntityId() { return update.getEntityId(); }
+    public String getField() { return update.getField(); }
+    public Object getValue() { return update.getNewValue(); }
+    public DeltaUpdate.ChangeOperation getOperation() { return update.getOperation(); }
+
+    DeltaUpdate update() { return update; }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + update;
+    }
+}
@@ -0,0 +1,308 @@
+package com.projectlibre.api.streaming;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes the change log of each project to its subscribers as server-sent events.
+ *
+ * A subscriber is only a cursor into the change log: nothing is buffered per subscriber, so a slow client costs
+ * no memory. When changes are appended, each subscriber of the project gets at most one drain scheduled on a
+ * pool, which sends everything after its cursor in batches ("changes" events, id = sequence to resume
+ * after). A subscriber whose cursor fell out of the log gets a "resync" event and its stream is completed;
+ * the client reloads the project and subscribes again from the schedule version it loaded.
+ *
+ * A send blocks while the client doesn't read, until the container's write timeout. Appends skip a subscriber
+ * still sending, and its next drain sends the resync if its cursor fell out of the log meanwhile. The pool keeps
+ * the configured threads and only adds one while a drain is blocked beyond them, so a stalled client never holds
+ * up the others. Streams of an unloaded project are completed on the pool too, as completing waits for a send.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Component
+public class ChangeStreamHub implements DeltaUpdatePort.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamHub.class);
+
+    static final String CHANGES_EVENT = "changes";
+    static final String RESYNC_EVENT = "resync";
+
+    private final DeltaUpdatePort changeLog;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor heartbeats;
+    private final int maxSubscribers;
+    private final int maxBatch;
+    private final long emitterTimeoutMs;
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final LongAdder deliveredEvents = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+
+    public ChangeStreamHub(DeltaUpdatePort changeLog,
+                           @Value("${projectlibre.streaming.threads:2}") int threads,
+                           @Value("${projectlibre.streaming.max-subscribers:256}") int maxSubscribers,
+                           @Value("${projectlibre.streaming.max-batch:500}") int maxBatch,
+                           @Value("${projectlibre.streaming.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                           @Value("${projectlibre.streaming.heartbeat-ms:15000}") long heartbeatMs) {
+        this.changeLog = changeLog;
+        this.maxSubscribers = maxSubscribers;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "change-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        int coreThreads = Math.max(1, threads);
+        // a subscriber has at most one drain, so the threads beyond the core ones are those of blocked sends
+        this.executor = new ThreadPoolExecutor(coreThreads, coreThreads + Math.max(1, maxSubscribers),
+            60, TimeUnit.SECONDS, new SynchronousQueue<>(), threadFactory);
+        this.heartbeats = new ScheduledThreadPoolExecutor(1, threadFactory);
+        if (heartbeatMs > 0) {
+            heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        }
+        changeLog.addListener(this);
+    }
+
+    /**
+     * Opens a stream of the project's changes after a sequence.
+     *
+     * @param projectId project id in CoreProjectBridge
+     * @param afterSequence last sequence the client has, -1 to make it resync at once
+     * @return emitter to return from the controller
+     * @throws IllegalStateException if the subscriber limit is reached
+     */
+    public SseEmitter subscribe(Long projectId, long afterSequence) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many change stream subscribers: " + maxSubscribers);
+        }
+        SseEmitter emitter = createEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(projectId, emitter, afterSequence);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        // added inside compute, so that remove() can't drop the set of the project between its lookup and the add
+        subscribers.compute(projectId, (id, projectSubscribers) -> {
+            Set<Subscriber> result = projectSubscribers != null ? projectSubscribers : ConcurrentHashMap.newKeySet();
+            if (!subscriber.closed) {
+                result.add(subscriber);
+            }
+            return result.isEmpty() ? null : result;
+        });
+        subscriber.heartbeatDue = true;
+        schedule(subscriber);
+        log.debug("[ChangeStream] Subscribed to project {} after sequence {}", projectId, afterSequence);
+        return emitter;
+    }
+
+    /**
+     * Sequence a new subscriber starts after: the given sequence, else the last change contained in the
+     * given schedule version, else the latest change
+     */
+    public long resolveCursor(Long projectId, Long fromSequence, Long fromVersion) {
+        if (fromSequence != null) {
+            return fromSequence;
+        }
+        if (fromVersion != null) {
+            return changeLog.getSequenceAtVersion(projectId, fromVersion);
+        }
+        return changeLog.getLatestSequence(projectId);
+    }
+
+    @Override
+    public void changesAppended(Long projectId, long latestSequence) {
+        Set<Subscriber> projectSubscribers = subscribers.get(projectId);
+        if (projectSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : projectSubscribers) {
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Completes the streams of an unloaded project; its change log is gone, so they could only wait forever
+     */
+    public void closeProject(Long projectId) {
+        Set<Subscriber> projectSubscribers = subscribers.get(projectId);
+        if (projectSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : projectSubscribers) {
+            remove(subscriber);
+            try {
+                executor.execute(subscriber.emitter::complete);
+            } catch (RejectedExecutionException e) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public long getDeliveredEventCount() {
+        return deliveredEvents.sum();
+    }
+
+    public long getResyncCount() {
+        return resyncs.sum();
+    }
+
+    /**
+     * @return number of drains running, including those blocked in a send to a client that doesn't read
+     */
+    public int getActiveDrainCount() {
+        return executor.getActiveCount();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        changeLog.removeListener(this);
+        heartbeats.shutdownNow();
+        executor.shutdownNow();
+        for (Set<Subscriber> projectSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : projectSubscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void heartbeat() {
+        for (Set<Subscriber> projectSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : projectSubscribers) {
+                subscriber.heartbeatDue = true;
+                schedule(subscriber);
+            }
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        synchronized (subscriber) {
+            if (subscriber.scheduled || subscriber.closed) {
+                return;
+            }
+            subscriber.scheduled = true;
+        }
+        try {
+            executor.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // shut down, or more blocked drains than subscribers: the emitter is left to its timeout
+            log.warn("[ChangeStream] Subscriber of project {} dropped, no drain thread", subscriber.projectId);
+            remove(subscriber);
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            boolean sent = false;
+            while (!subscriber.closed) {
+                ChangeBatch batch = changeLog.getChangesSince(subscriber.projectId, subscriber.cursor, maxBatch);
+                if (batch.isResyncRequired()) {
+                    resync(subscriber, batch);
+                    return;
+                }
+                if (!batch.getChanges().isEmpty()) {
+                    subscriber.emitter.send(SseEmitter.event()
+                        .name(CHANGES_EVENT)
+                        .id(Long.toString(batch.getToSequence()))
+                        .data(batch, MediaType.APPLICATION_JSON));
+                    deliveredEvents.increment();
+                    sent = true;
+                }
+                subscriber.cursor = batch.getToSequence();
+                if (!batch.hasMore()) {
+                    break;
+                }
+            }
+            if (!sent && subscriber.heartbeatDue) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            subscriber.heartbeatDue = false;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("[ChangeStream] Subscriber of project {} dropped: {}", subscriber.projectId, e.getMessage());
+            close(subscriber);
+            return;
+        } finally {
+            synchronized (subscriber) {
+                subscriber.scheduled = false;
+            }
+        }
+        if (changeLog.getLatestSequence(subscriber.projectId) > subscriber.cursor) {
+            schedule(subscriber); // appended while the last batch was being sent
+        }
+    }
+
+    private void resync(Subscriber subscriber, ChangeBatch batch) throws IOException {
+        resyncs.increment();
+        log.debug("[ChangeStream] Subscriber of project {} fell behind sequence {}, resync required",
+            subscriber.projectId, batch.getLatestSequence());
+        subscriber.emitter.send(SseEmitter.event()
+            .name(RESYNC_EVENT)
+            .id(Long.toString(batch.getLatestSequence()))
+            .data(batch, MediaType.APPLICATION_JSON));
+        close(subscriber);
+    }
+
+    private void close(Subscriber subscriber) {
+        remove(subscriber);
+        subscriber.emitter.complete();
+    }
+
+    private void remove(Subscriber subscriber) {
+        synchronized (subscriber) {
+            if (subscriber.closed) {
+                return;
+            }
+            subscriber.closed = true;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.projectId, (id, projectSubscribers) -> {
+            projectSubscribers.remove(subscriber);
+            return projectSubscribers.isEmpty() ? null : projectSubscribers;
+        });
+    }
+
+    /** Emitter of a new subscriber, replaced by tests to simulate slow clients */
+    SseEmitter createEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    /** Open stream of one project; the cursor is only moved by its single scheduled drain */
+    private static final class Subscriber {
+        final Long projectId;
+        final SseEmitter emitter;
+        volatile long cursor;
+        volatile boolean heartbeatDue;
+        boolean scheduled;
+        volatile boolean closed;
+
+        Subscriber(Long projectId, SseEmitter emitter, long cursor) {
+            this.projectId = projectId;
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+    }
+}
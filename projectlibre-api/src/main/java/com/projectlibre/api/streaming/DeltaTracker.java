@@ -1,133 +1,142 @@
 package com.projectlibre.api.streaming;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Thread-safe delta tracker for change management
  * Tracks entity changes for efficient UI updates
+ *
+ * Keeps one bounded ProjectChangeLog per project, so memory stays bounded however far behind
+ * a client is: a client that falls out of the log is told to resync instead
  */
+@Component
 public class DeltaTracker implements DeltaUpdatePort {
-    
-    private static volatile DeltaTracker instance;
-    private static final Object LOCK = new Object();
-    
-    private final Queue<DeltaUpdate> pendingChanges = new ConcurrentLinkedQueue<>();
-    private final Map<String, List<DeltaUpdate>> transactionChanges = new ConcurrentHashMap<>();
-    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
-    
-    private DeltaTracker() {}
-    
-    public static DeltaTracker getInstance() {
-        DeltaTracker result = instance;
-        if (result == null) {
-            synchronized (LOCK) {
-                result = instance;
-                if (result == null) {
-                    instance = result = new DeltaTracker();
-                }
-            }
-        }
-        return result;
+
+    private static final Logger log = LoggerFactory.getLogger(DeltaTracker.class);
+
+    private final int capacity;
+    private final ConcurrentMap<Long, ProjectChangeLog> logs = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public DeltaTracker(@Value("${projectlibre.streaming.change-log-capacity:10000}") int capacity) {
+        this.capacity = capacity;
     }
-    
+
     @Override
-    public void trackChange(String entityType, Long entityId, String field, Object oldValue, Object newValue) {
-        if (Objects.equals(oldValue, newValue)) return;
-        
-        DeltaUpdate update = new DeltaUpdate(entityType, entityId, field, oldValue, newValue);
-        pendingChanges.add(update);
+    public long trackChange(Long projectId, String entityType, String entityId, String field,
+                            Object oldValue, Object newValue) {
+        if (Objects.equals(oldValue, newValue)) return getLatestSequence(projectId);
+
+        return append(projectId,
+                Collections.singletonList(new DeltaUpdate(entityType, entityId, field, oldValue, newValue)), null);
     }
-    
-    @Override
-    public List<DeltaUpdate> getPendingChanges() {
-        rwLock.readLock().lock();
-        try {
-            return new ArrayList<>(pendingChanges);
-        } finally {
-            rwLock.readLock().unlock();
-        }
+
+    public long trackInsert(Long projectId, String entityType, String entityId, Object entity) {
+        return append(projectId, Collections.singletonList(DeltaUpdate.createInsert(entityType, entityId, entity)), null);
     }
-    
-    @Override
-    public List<DeltaUpdate> getChangesForEntity(String entityType, Long entityId) {
-        return pendingChanges.stream()
-                .filter(u -> entityType.equals(u.getEntityType()) && entityId.equals(u.getEntityId()))
-                .collect(Collectors.toList());
+
+    public long trackDelete(Long projectId, String entityType, String entityId) {
+        return append(projectId, Collections.singletonList(DeltaUpdate.createDelete(entityType, entityId)), null);
     }
-    
+
     @Override
-    public void clearPendingChanges() {
-        rwLock.writeLock().lock();
-        try {
-            pendingChanges.clear();
-        } finally {
-            rwLock.writeLock().unlock();
+    public long append(Long projectId, List<DeltaUpdate> updates, Long scheduleVersion) {
+        ProjectChangeLog changeLog = logs.computeIfAbsent(projectId, id -> new ProjectChangeLog(id, capacity));
+        if (updates.isEmpty()) {
+            return changeLog.getLatestSequence();
         }
+        long latest = changeLog.append(updates, scheduleVersion);
+        for (Listener listener : listeners) {
+            try {
+                listener.changesAppended(projectId, latest);
+            } catch (RuntimeException e) {
+                log.warn("[DeltaTracker] Listener failed for project {}: {}", projectId, e.getMessage());
+            }
+        }
+        return latest;
     }
-    
+
     @Override
-    public void clearChangesForEntity(String entityType, Long entityId) {
-        rwLock.writeLock().lock();
-        try {
-            pendingChanges.removeIf(u -> 
-                entityType.equals(u.getEntityType()) && entityId.equals(u.getEntityId()));
-        } finally {
-            rwLock.writeLock().unlock();
+    public ChangeBatch getChangesSince(Long projectId, long afterSequence, int maxChanges) {
+        ProjectChangeLog changeLog = logs.get(projectId);
+        if (changeLog == null) {
+            return afterSequence == 0
+                    ? ChangeBatch.of(projectId, 0, 0, 0, Collections.emptyList())
+                    : ChangeBatch.resync(projectId, afterSequence, 0);
         }
+        return changeLog.readSince(afterSequence, Math.max(1, maxChanges));
     }
-    
+
     @Override
-    public Map<String, Map<Long, Map<String, Object>>> getCompactChanges() {
-        Map<String, Map<Long, Map<String, Object>>> result = new HashMap<>();
-        
-        for (DeltaUpdate update : pendingChanges) {
-            if (!update.isFieldUpdate()) continue;
-            
-            result.computeIfAbsent(update.getEntityType(), k -> new HashMap<>())
-                  .computeIfAbsent(update.getEntityId(), k -> new HashMap<>())
-                  .put(update.getField(), update.getNewValue());
+    public Map<String, Map<String, Map<String, Object>>> getCompactChanges(Long projectId, long afterSequence) {
+        ProjectChangeLog changeLog = logs.get(projectId);
+        if (changeLog == null) {
+            return afterSequence == 0 ? new HashMap<>() : null;
         }
-        return result;
+        return changeLog.compactSince(afterSequence);
     }
-    
-    @Override
-    public boolean hasPendingChanges() { return !pendingChanges.isEmpty(); }
-    
+
     @Override
-    public int getPendingChangeCount() { return pendingChanges.size(); }
-    
+    public long getLatestSequence(Long projectId) {
+        ProjectChangeLog changeLog = logs.get(projectId);
+        return changeLog != null ? changeLog.getLatestSequence() : 0;
+    }
+
     @Override
-    public void applyUpdate(DeltaUpdate update) {
-        pendingChanges.add(update);
+    public long getSequenceAtVersion(Long projectId, long scheduleVersion) {
+        ProjectChangeLog changeLog = logs.get(projectId);
+        return changeLog != null ? changeLog.sequenceAtVersion(scheduleVersion) : 0;
     }
-    
+
     @Override
-    public void beginTransaction(String transactionId) {
-        transactionChanges.put(transactionId, new ArrayList<>());
+    public void clearProject(Long projectId) {
+        logs.remove(projectId);
     }
-    
+
     @Override
-    public void commitTransaction(String transactionId) {
-        List<DeltaUpdate> changes = transactionChanges.remove(transactionId);
-        if (changes != null) {
-            pendingChanges.addAll(changes);
-        }
+    public void addListener(Listener listener) {
+        listeners.add(listener);
     }
-    
+
     @Override
-    public void rollbackTransaction(String transactionId) {
-        transactionChanges.remove(transactionId);
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
     }
-    
-    public void trackInsert(String entityType, Long entityId) {
-        pendingChanges.add(DeltaUpdate.createInsert(entityType, entityId));
+
+    public int getProjectCount() { return logs.size(); }
+
+    public int getCapacity() { return capacity; }
+
+    /** Live changes held by all logs */
+    public long getRetainedChangeCount() {
+        long count = 0;
+        for (ProjectChangeLog changeLog : logs.values()) {
+            count += changeLog.getSize();
+        }
+        return count;
+    }
+
+    public long getSupersededCount() {
+        long count = 0;
+        for (ProjectChangeLog changeLog : logs.values()) {
+            count += changeLog.getSupersededCount();
+        }
+        return count;
     }
-    
-    public void trackDelete(String entityType, Long entityId) {
-        pendingChanges.add(DeltaUpdate.createDelete(entityType, entityId));
+
+    public long getEvictedCount() {
+        long count = 0;
+        for (ProjectChangeLog changeLog : logs.values()) {
+            count += changeLog.getEvictedCount();
+        }
+        return count;
     }
 }
@@ -6,11 +6,12 @@ import java.util.Objects;
 /**
  * Represents a single delta update for an entity field
  * Minimizes data transfer by sending only changes
+ * Entity ids are the ids the client knows: task ids (customText(0)) and resource ids as strings
  */
 public class DeltaUpdate {
     
     private final String entityType;
-    private final Long entityId;
+    private final String entityId;
     private final String field;
     private final Object oldValue;
     private final Object newValue;
@@ -18,11 +19,11 @@ public class DeltaUpdate {
     private final String transactionId;
     private final ChangeOperation operation;
     
-    public DeltaUpdate(String entityType, Long entityId, String field, Object oldValue, Object newValue) {
+    public DeltaUpdate(String entityType, String entityId, String field, Object oldValue, Object newValue) {
         this(entityType, entityId, field, oldValue, newValue, ChangeOperation.UPDATE, null);
     }
     
-    public DeltaUpdate(String entityType, Long entityId, String field, Object oldValue, 
+    public DeltaUpdate(String entityType, String entityId, String field, Object oldValue, 
                        Object newValue, ChangeOperation operation, String transactionId) {
         this.entityType = entityType;
         this.entityId = entityId;
@@ -34,16 +35,23 @@ public class DeltaUpdate {
         this.transactionId = transactionId;
     }
     
-    public static DeltaUpdate createInsert(String entityType, Long entityId) {
-        return new DeltaUpdate(entityType, entityId, null, null, null, ChangeOperation.INSERT, null);
+    public static DeltaUpdate createInsert(String entityType, String entityId) {
+        return createInsert(entityType, entityId, null);
     }
     
-    public static DeltaUpdate createDelete(String entityType, Long entityId) {
+    /**
+     * Insert carrying the whole new entity, so that a client can add it without a reload
+     */
+    public static DeltaUpdate createInsert(String entityType, String entityId, Object entity) {
+        return new DeltaUpdate(entityType, entityId, null, null, entity, ChangeOperation.INSERT, null);
+    }
+    
+    public static DeltaUpdate createDelete(String entityType, String entityId) {
         return new DeltaUpdate(entityType, entityId, null, null, null, ChangeOperation.DELETE, null);
     }
     
     public String getEntityType() { return entityType; }
-    public Long getEntityId() { return entityId; }
+    public String getEntityId() { return entityId; }
     public String getField() { return field; }
     public Object getOldValue() { return oldValue; }
     public Object getNewValue() { return newValue; }
@@ -73,7 +81,7 @@ public class DeltaUpdate {
     
     @Override
     public String toString() {
-        return String.format("DeltaUpdate{%s.%s[%d].%s: %s -> %s}",
+        return String.format("DeltaUpdate{%s.%s[%s].%s: %s -> %s}",
                 entityType, operation, entityId, field, oldValue, newValue);
     }
     
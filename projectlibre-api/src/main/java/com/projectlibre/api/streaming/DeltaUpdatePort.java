@@ -7,84 +7,79 @@ import java.util.Map;
  * Port for delta update operations
  * Enables sending only changes instead of full data
  * Critical for UI responsiveness on large projects
+ *
+ * Changes are kept per project in a bounded log with increasing sequence numbers:
+ * a client reads the changes after the last sequence it has and resumes from there
  */
 public interface DeltaUpdatePort {
-    
+
+    /**
+     * Notified after changes are appended, on the appending thread
+     */
+    interface Listener {
+        void changesAppended(Long projectId, long latestSequence);
+    }
+
     /**
      * Track changes to an entity
+     * @param projectId project the entity belongs to
      * @param entityType type of entity (task, resource, project)
      * @param entityId entity identifier
      * @param field field name
      * @param oldValue old value
      * @param newValue new value
+     * @return sequence of the change, or the latest sequence if the value didn't change
      */
-    void trackChange(String entityType, Long entityId, String field, Object oldValue, Object newValue);
-    
-    /**
-     * Get pending changes since last sync
-     * @return list of delta updates
-     */
-    List<DeltaUpdate> getPendingChanges();
-    
-    /**
-     * Get changes for specific entity
-     * @param entityType entity type
-     * @param entityId entity id
-     * @return changes for entity
-     */
-    List<DeltaUpdate> getChangesForEntity(String entityType, Long entityId);
-    
-    /**
-     * Clear pending changes after successful sync
-     */
-    void clearPendingChanges();
-    
-    /**
-     * Clear changes for specific entity
-     * @param entityType entity type
-     * @param entityId entity id
-     */
-    void clearChangesForEntity(String entityType, Long entityId);
-    
-    /**
-     * Get changes as compact batch update
-     * @return map of entity type to entity changes
-     */
-    Map<String, Map<Long, Map<String, Object>>> getCompactChanges();
-    
+    long trackChange(Long projectId, String entityType, String entityId, String field, Object oldValue, Object newValue);
+
     /**
-     * Check if there are pending changes
-     * @return true if changes exist
+     * Append changes of one project atomically: readers see all of them or none
+     * @param projectId project identifier
+     * @param updates changes in order
+     * @param scheduleVersion version of the published snapshot containing the changes, null if unknown
+     * @return sequence of the last change
      */
-    boolean hasPendingChanges();
-    
+    long append(Long projectId, List<DeltaUpdate> updates, Long scheduleVersion);
+
     /**
-     * Get count of pending changes
-     * @return number of changes
+     * Get changes after a sequence
+     * @param projectId project identifier
+     * @param afterSequence last sequence the client has
+     * @param maxChanges maximum number of changes to return
+     * @return changes, or a batch requiring a resync if the log no longer holds them
      */
-    int getPendingChangeCount();
-    
+    ChangeBatch getChangesSince(Long projectId, long afterSequence, int maxChanges);
+
     /**
-     * Apply delta update from external source
-     * @param update delta update to apply
+     * Get changes after a sequence as compact batch update
+     * @param projectId project identifier
+     * @param afterSequence last sequence the client has
+     * @return map of entity type to entity id to changed fields, null if a resync is required
      */
-    void applyUpdate(DeltaUpdate update);
-    
+    Map<String, Map<String, Map<String, Object>>> getCompactChanges(Long projectId, long afterSequence);
+
     /**
-     * Begin a transaction (group changes)
-     * @param transactionId transaction identifier
+     * Get the sequence of the latest change of a project
+     * @param projectId project identifier
+     * @return latest sequence, 0 if the project has no changes
      */
-    void beginTransaction(String transactionId);
-    
+    long getLatestSequence(Long projectId);
+
     /**
-     * Commit transaction
-     * @param transactionId transaction identifier
+     * Get the sequence to resume after for a client holding the project snapshot of a schedule version
+     * @param projectId project identifier
+     * @param scheduleVersion version of the snapshot the client loaded
+     * @return sequence of the last change the snapshot contains, -1 if a resync is required
      */
-    void commitTransaction(String transactionId);
-    
+    long getSequenceAtVersion(Long projectId, long scheduleVersion);
+
     /**
-     * Rollback transaction
-     * @param transactionId transaction identifier
+     * Drop the change log of a project
+     * @param projectId project identifier
      */
-    void rollbackTransaction(String transactionId);
+    void clearProject(Long projectId);
+
+    void addListener(Listener listener);
+
+    void removeListener(Listener listener);
 }
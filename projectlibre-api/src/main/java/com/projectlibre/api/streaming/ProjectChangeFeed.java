@@ -0,0 +1,75 @@
+package com.projectlibre.api.streaming;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlibre.api.readmodel.ProjectSnapshot;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Feeds the change log from the read model: each snapshot published for a project is diffed against
+ * the previous one and the differences are appended with the snapshot's schedule version.
+ *
+ * Every write path already ends with a published snapshot (sync, recalculation, GET after a change),
+ * so no write path has to report its changes itself. The first snapshot of a project is only the baseline,
+ * and a snapshot older than the baseline (published concurrently) is skipped. A snapshot is diffed without
+ * holding the baseline; if another snapshot replaced the baseline meanwhile, it is diffed again against that one,
+ * so changes are still appended in version order.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Component
+public class ProjectChangeFeed implements ProjectSnapshotStore.Listener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectChangeFeed.class);
+
+    private final DeltaUpdatePort changeLog;
+    private final SnapshotDiffer differ;
+    private final ConcurrentMap<Long, ProjectSnapshot> baselines = new ConcurrentHashMap<>();
+
+    public ProjectChangeFeed(ProjectSnapshotStore snapshotStore, DeltaUpdatePort changeLog, ObjectMapper mapper) {
+        this.changeLog = changeLog;
+        this.differ = new SnapshotDiffer(mapper);
+        snapshotStore.addListener(this);
+    }
+
+    @Override
+    public void published(ProjectSnapshot snapshot) {
+        Long projectId = snapshot.getProjectId();
+        ProjectSnapshot baseline = baselines.putIfAbsent(projectId, snapshot);
+        while (baseline != null && baseline.getScheduleVersion() < snapshot.getScheduleVersion()) {
+            // the diff runs outside the map lock; the baseline only moves on if no other snapshot moved it meanwhile
+            List<DeltaUpdate> updates = differ.diff(baseline.getData(), snapshot.getData());
+            ProjectSnapshot expected = baseline;
+            baseline = baselines.computeIfPresent(projectId, (id, current) -> {
+                if (current != expected) {
+                    return current;
+                }
+                if (!updates.isEmpty()) {
+                    long latest = changeLog.append(id, updates, snapshot.getScheduleVersion());
+                    log.debug("[ChangeFeed] Project {} version {}: {} changes, latest sequence {}",
+                        id, snapshot.getScheduleVersion(), updates.size(), latest);
+                }
+                return snapshot;
+            });
+        }
+    }
+
+    /**
+     * Forgets the baseline and the change log of a closed project
+     */
+    public void clearProject(Long projectId) {
+        baselines.remove(projectId);
+        changeLog.clearProject(projectId);
+    }
+
+    public int getProjectCount() {
+        return baselines.size();
+    }
+}
@@ -0,0 +1,271 @@
+package com.projectlibre.api.streaming;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded change log of one project: a ring buffer of delta updates with increasing sequence numbers
+ *
+ * An update supersedes the earlier update of the same entity field, and an insert or delete supersedes
+ * everything before it on the entity. Superseded entries are skipped by readers and dropped when the
+ * buffer is full, before any live entry is evicted. Once a live entry is evicted, readers behind it
+ * can't be brought up to date from the log and get a resync instead.
+ * Guarded by its own monitor.
+ */
+final class ProjectChangeLog {
+
+    /** Field key of inserts and deletes in the live index */
+    private static final String LIFECYCLE = "";
+
+    private final Long projectId;
+    private final int capacity;
+    private final long[] sequences;
+    /** Schedule versions by slot, kept for superseded entries too */
+    private final long[] versions;
+    /** Entries by slot; null for a superseded entry still holding its slot */
+    private final ChangeLogEntry[] entries;
+    /** Live entries by entity and field, to find the entry an update supersedes */
+    private final Map<String, Map<String, Long>> live = new HashMap<>();
+
+    private int head;
+    private int size;
+    private int holes;
+    private long nextSequence = 1;
+    /** Highest sequence of an evicted live entry, and its schedule version */
+    private long truncatedThrough;
+    private long truncatedVersion;
+    private long lastVersion;
+    private long supersededCount;
+    private long evictedCount;
+
+    ProjectChangeLog(Long projectId, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Change log capacity must be at least 2: " + capacity);
+        }
+        this.projectId = projectId;
+        this.capacity = capacity;
+        this.sequences = new long[capacity];
+        this.versions = new long[capacity];
+        this.entries = new ChangeLogEntry[capacity];
+    }
+
+    /**
+     * Appends updates with consecutive sequences
+     * @return sequence of the last update, or the latest sequence if there were none
+     */
+    synchronized long append(List<DeltaUpdate> updates, Long scheduleVersion) {
+        if (scheduleVersion != null && scheduleVersion > lastVersion) {
+            lastVersion = scheduleVersion;
+        }
+        for (DeltaUpdate update : updates) {
+            supersede(update);
+            if (size == capacity) {
+                makeRoom();
+            }
+            long sequence = nextSequence++;
+            int slot = (head + size) % capacity;
+            sequences[slot] = sequence;
+            versions[slot] = lastVersion;
+            entries[slot] = new ChangeLogEntry(sequence, scheduleVersion, update);
+            size++;
+            live.computeIfAbsent(entityKey(update), k -> new HashMap<>(4)).put(fieldKey(update), sequence);
+        }
+        return nextSequence - 1;
+    }
+
+    /**
+     * Reads live changes after a sequence
+     * @param afterSequence last sequence the reader has, 0 for everything the log holds
+     * @param maxChanges maximum number of changes to return
+     */
+    synchronized ChangeBatch readSince(long afterSequence, int maxChanges) {
+        long latest = nextSequence - 1;
+        if (afterSequence < truncatedThrough || afterSequence > latest) {
+            return ChangeBatch.resync(projectId, afterSequence, latest);
+        }
+        List<ChangeLogEntry> changes = new ArrayList<>(Math.min(maxChanges, size));
+        long toSequence = latest;
+        for (int i = firstIndexAfter(afterSequence); i < size; i++) {
+            ChangeLogEntry entry = entries[(head + i) % capacity];
+            if (entry == null) {
+                continue;
+            }
+            if (changes.size() == maxChanges) {
+                toSequence = changes.get(changes.size() - 1).getSequence();
+                break;
+            }
+            changes.add(entry);
+        }
+        return ChangeBatch.of(projectId, afterSequence, toSequence, latest, changes);
+    }
+
+    /**
+     * Sequence to read after for a client holding the snapshot of a schedule version:
+     * the last change contained in that snapshot
+     * @return the sequence, or -1 if changes after the version are no longer held
+     */
+    synchronized long sequenceAtVersion(long scheduleVersion) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (versions[(head + mid) % capacity] <= scheduleVersion) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low > 0) {
+            return sequences[(head + low - 1) % capacity];
+        }
+        return truncatedThrough == 0 || truncatedVersion <= scheduleVersion ? truncatedThrough : -1;
+    }
+
+    /**
+     * Latest value of each changed field after a sequence, by entity type and id
+     * @return null if the log no longer holds all changes after the sequence
+     */
+    synchronized Map<String, Map<String, Map<String, Object>>> compactSince(long afterSequence) {
+        if (afterSequence < truncatedThrough) {
+            return null;
+        }
+        Map<String, Map<String, Map<String, Object>>> result = new LinkedHashMap<>();
+        for (int i = firstIndexAfter(afterSequence); i < size; i++) {
+            ChangeLogEntry entry = entries[(head + i) % capacity];
+            if (entry != null && entry.update().isFieldUpdate()) {
+                result.computeIfAbsent(entry.getEntityType(), k -> new LinkedHashMap<>())
+                        .computeIfAbsent(entry.getEntityId(), k -> new LinkedHashMap<>())
+                        .put(entry.getField(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    synchronized long getLatestSequence() { return nextSequence - 1; }
+    synchronized long getTruncatedThrough() { return truncatedThrough; }
+    synchronized int getSize() { return size - holes; }
+    synchronized long getSupersededCount() { return supersededCount; }
+    synchronized long getEvictedCount() { return evictedCount; }
+    int getCapacity() { return capacity; }
+
+    private void supersede(DeltaUpdate update) {
+        Map<String, Long> fields = live.get(entityKey(update));
+        if (fields == null) {
+            return;
+        }
+        if (update.getOperation() == DeltaUpdate.ChangeOperation.UPDATE) {
+            Long previous = fields.remove(fieldKey(update));
+            if (previous != null) {
+                clear(previous);
+            }
+        } else {
+            for (Long previous : fields.values()) {
+                clear(previous);
+            }
+            fields.clear();
+        }
+        if (fields.isEmpty()) {
+            live.remove(entityKey(update));
+        }
+    }
+
+    private void clear(long sequence) {
+        int index = indexOf(sequence);
+        if (index >= 0) {
+            entries[(head + index) % capacity] = null;
+            holes++;
+            supersededCount++;
+        }
+    }
+
+    /**
+     * Frees at least one slot: drops superseded entries, compacting when they make up a good part
+     * of the buffer, and evicts the oldest live entry otherwise
+     */
+    private void makeRoom() {
+        dropLeadingHoles();
+        if (size < capacity) {
+            return;
+        }
+        if (holes > 0 && holes >= capacity / 8) {
+            compact();
+            return;
+        }
+        ChangeLogEntry oldest = entries[head];
+        Map<String, Long> fields = live.get(entityKey(oldest.update()));
+        if (fields != null) {
+            fields.remove(fieldKey(oldest.update()), oldest.getSequence());
+            if (fields.isEmpty()) {
+                live.remove(entityKey(oldest.update()));
+            }
+        }
+        truncatedThrough = oldest.getSequence();
+        truncatedVersion = versions[head];
+        evictedCount++;
+        entries[head] = null;
+        head = (head + 1) % capacity;
+        size--;
+        dropLeadingHoles();
+    }
+
+    private void dropLeadingHoles() {
+        while (size > 0 && entries[head] == null) {
+            head = (head + 1) % capacity;
+            size--;
+            holes--;
+        }
+    }
+
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int from = (head + i) % capacity;
+            ChangeLogEntry entry = entries[from];
+            if (entry != null) {
+                int to = (head + kept) % capacity;
+                sequences[to] = sequences[from];
+                versions[to] = versions[from];
+                entries[to] = entry;
+                kept++;
+            }
+        }
+        for (int i = kept; i < size; i++) {
+            entries[(head + i) % capacity] = null;
+        }
+        size = kept;
+        holes = 0;
+    }
+
+    /** Index (from head) of the first slot with a sequence greater than the given one */
+    private int firstIndexAfter(long sequence) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sequences[(head + mid) % capacity] <= sequence) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int indexOf(long sequence) {
+        int index = firstIndexAfter(sequence - 1);
+        return index < size && sequences[(head + index) % capacity] == sequence ? index : -1;
+    }
+
+    private static String entityKey(DeltaUpdate update) {
+        return update.getEntityType() + ':' + update.getEntityId();
+    }
+
+    private static String fieldKey(DeltaUpdate update) {
+        return update.getOperation() == DeltaUpdate.ChangeOperation.UPDATE && update.getField() != null
+                ? update.getField()
+                : LIFECYCLE;
+    }
+}
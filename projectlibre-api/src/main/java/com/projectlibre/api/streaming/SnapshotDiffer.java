@@ -0,0 +1,150 @@
+package com.projectlibre.api.streaming;
+
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.projectlibre.api.dto.CalendarDataDto;
+import com.projectlibre.api.dto.ProjectDataDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Delta updates between two snapshots of a project, by the ids the client knows
+ *
+ * Fields are the JSON properties of the DTOs the client loaded, so a change carries the field name and value
+ * exactly as in the full project data. Plain values are compared directly, nested ones by their JSON tree.
+ */
+final class SnapshotDiffer {
+
+    static final String TASK = "task";
+    static final String RESOURCE = "resource";
+    static final String CALENDAR = "calendar";
+    static final String PROJECT = "project";
+
+    private final ObjectMapper mapper;
+    private final List<Property> taskFields;
+    private final List<Property> resourceFields;
+    private final List<Property> calendarFields;
+
+    SnapshotDiffer(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.taskFields = properties(ProjectDataDto.TaskDataDto.class);
+        this.resourceFields = properties(ProjectDataDto.ResourceDataDto.class);
+        this.calendarFields = properties(CalendarDataDto.class);
+    }
+
+    /**
+     * Changes turning the previous snapshot data into the current one: field updates of the project,
+     * then inserts, field updates and deletes of tasks, resources and calendars
+     */
+    List<DeltaUpdate> diff(ProjectDataDto previous, ProjectDataDto current) {
+        List<DeltaUpdate> updates = new ArrayList<>();
+        String projectId = String.valueOf(current.getProjectId());
+        compare(updates, PROJECT, projectId, "projectName", previous.getProjectName(), current.getProjectName());
+        compare(updates, PROJECT, projectId, "imposedFinishDate",
+                previous.getImposedFinishDate(), current.getImposedFinishDate());
+        compare(updates, PROJECT, projectId, "isForward", previous.getIsForward(), current.getIsForward());
+        diffEntities(updates, TASK, previous.getTasks(), current.getTasks(),
+                ProjectDataDto.TaskDataDto::getId, taskFields);
+        diffEntities(updates, RESOURCE, previous.getResources(), current.getResources(),
+                ProjectDataDto.ResourceDataDto::getId, resourceFields);
+        diffEntities(updates, CALENDAR, previous.getCalendars(), current.getCalendars(),
+                CalendarDataDto::getId, calendarFields);
+        return updates;
+    }
+
+    private <T> void diffEntities(List<DeltaUpdate> updates, String type, List<T> previous, List<T> current,
+                                  Function<T, String> id, List<Property> fields) {
+        Map<String, T> remaining = index(previous, id);
+        if (current != null) {
+            for (T entity : current) {
+                String entityId = id.apply(entity);
+                if (entityId == null) {
+                    continue;
+                }
+                T before = remaining.remove(entityId);
+                if (before == null) {
+                    updates.add(DeltaUpdate.createInsert(type, entityId, entity));
+                    continue;
+                }
+                for (Property field : fields) {
+                    compare(updates, type, entityId, field.name, field.accessor.getValue(before),
+                            field.accessor.getValue(entity));
+                }
+            }
+        }
+        for (String entityId : remaining.keySet()) {
+            updates.add(DeltaUpdate.createDelete(type, entityId));
+        }
+    }
+
+    private void compare(List<DeltaUpdate> updates, String type, String id, String field,
+                         Object oldValue, Object newValue) {
+        if (!sameValue(oldValue, newValue)) {
+            updates.add(new DeltaUpdate(type, id, field, oldValue, newValue));
+        }
+    }
+
+    private boolean sameValue(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (isPlain(a) || isPlain(b)) {
+            return a.equals(b);
+        }
+        return Objects.equals(mapper.valueToTree(a), mapper.valueToTree(b));
+    }
+
+    private static boolean isPlain(Object value) {
+        return value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof Character || value instanceof Enum;
+    }
+
+    private static <T> Map<String, T> index(List<T> entities, Function<T, String> id) {
+        if (entities == null || entities.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<String, T> byId = new LinkedHashMap<>(entities.size() * 4 / 3 + 1);
+        for (T entity : entities) {
+            String entityId = id.apply(entity);
+            if (entityId != null) {
+                byId.put(entityId, entity);
+            }
+        }
+        return byId;
+    }
+
+    private List<Property> properties(Class<?> type) {
+        BeanDescription description = mapper.getSerializationConfig().introspect(mapper.constructType(type));
+        List<Property> properties = new ArrayList<>();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            AnnotatedMember accessor = property.getAccessor();
+            if (accessor != null && !"id".equals(property.getName())) {
+                accessor.fixAccess(true);
+                properties.add(new Property(property.getName(), accessor));
+            }
+        }
+        return properties;
+    }
+
+    /** JSON property of a DTO and the getter reading it */
+    private static final class Property {
+        final String name;
+        final AnnotatedMember accessor;
+
+        Property(String name, AnnotatedMember accessor) {
+            this.name = name;
+            this.accessor = accessor;
+        }
+    }
+}
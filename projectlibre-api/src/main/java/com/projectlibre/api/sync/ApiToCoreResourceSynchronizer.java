@@ -3,6 +3,8 @@ package com.projectlibre.api.sync;
 import com.projectlibre.api.converter.CustomCalendarFactory;
 import com.projectlibre.api.dto.CalendarSyncDto;
 import com.projectlibre.api.dto.FrontendResourceDto;
+import com.projectlibre1.pm.assignment.Assignment;
+import com.projectlibre1.pm.assignment.AssignmentService;
 import com.projectlibre1.pm.calendar.CalendarService;
 import com.projectlibre1.pm.calendar.WorkCalendar;
 import com.projectlibre1.pm.calendar.WorkingCalendar;
@@ -13,8 +15,10 @@ import com.projectlibre1.pm.task.Project;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -95,19 +99,7 @@ public class ApiToCoreResourceSynchronizer {
                     frontendResource, existingResourcesByName, usedResources);
                 
                 if (coreResource == null) {
-                    coreResource = resourcePool.createScriptedResource();
-                    if (coreResource instanceof ResourceImpl) {
-                        long uniqueId = System.currentTimeMillis() + syncedCount;
-                        ((ResourceImpl) coreResource).getGlobalResource().setUniqueId(uniqueId);
-                        
-                        String frontendId = getFrontendId(frontendResource);
-                        if (frontendId != null && !frontendId.isEmpty()) {
-                            String coreId = String.valueOf(uniqueId);
-                            idMapping.put(frontendId, coreId);
-                            log.info("[ResSync] ID Mapping: {} -> {}", frontendId, coreId);
-                        }
-                    }
-                    log.debug("[ResSync] Created new resource for: {}", frontendResource.getName());
+                    coreResource = createResource(resourcePool, frontendResource);
                 } else {
                     String frontendId = getFrontendId(frontendResource);
                     if (frontendId != null && !frontendId.isEmpty() && coreResource instanceof ResourceImpl) {
@@ -136,6 +128,103 @@ public class ApiToCoreResourceSynchronizer {
         }
     }
     
+    /**
+     * Создаёт, обновляет или удаляет один ресурс (дельта-синхронизация по ID).
+     * Вызывать под CoreGlobalGuard: календари ресурсов переназначаются в общем CalendarService.
+     * 
+     * @param project Core Project
+     * @param frontendResource данные ресурса (null для удаления)
+     * @param existing ресурс Core (null для создания)
+     * @param delete удалить existing вместе с его назначениями
+     * @return результат; для нового ресурса — маппинг его Frontend ID на Core ID
+     */
+    public SyncResult synchronizeResource(Project project, FrontendResourceDto frontendResource,
+                                          Resource existing, boolean delete) {
+        if (project == null || project.getResourcePool() == null) return SyncResult.error("ResourcePool is null");
+        lastCalendarError = null;
+        lastCalendarErrorCode = null;
+        idMapping.clear();
+        try {
+            if (delete) {
+                removeResource(project.getResourcePool(), existing);
+                return SyncResult.success(1, 0);
+            }
+            Resource coreResource = existing != null
+                ? existing
+                : createResource(project.getResourcePool(), frontendResource);
+            updateResourceProperties(coreResource, frontendResource);
+            syncedCount++;
+            if (lastCalendarErrorCode != null) {
+                return SyncResult.error(lastCalendarError, lastCalendarErrorCode);
+            }
+            return SyncResult.successWithIdMapping(1, 0, idMapping);
+        } catch (Exception e) {
+            log.error("[ResSync] ❌ Resource change failed", e);
+            return SyncResult.error(e.getMessage());
+        }
+    }
+    
+    /**
+     * Проверяет календарь ресурса до изменения проекта: находит его так же, как synchronizeResource,
+     * и проверяет CalendarSafetyValidator. Календарь с calendarData создаётся или обновляется по имени,
+     * поэтому последующий synchronizeResource получит тот же календарь.
+     *
+     * @return сообщение об ошибке или null, если календарь можно назначить
+     */
+    public String checkCalendar(FrontendResourceDto frontendResource) {
+        if (frontendResource == null
+                || (isBlank(frontendResource.getCalendarId()) && frontendResource.getCalendarData() == null)) {
+            return null;
+        }
+        try {
+            WorkCalendar calendar = frontendResource.hasCalendarData()
+                ? synchronizeWithCalendarData(frontendResource, frontendResource.getCalendarData())
+                : synchronizeWithCalendarId(frontendResource, frontendResource.getCalendarId());
+            if (calendar == null) {
+                return null;
+            }
+            var validation = safetyValidator.validateReplacement(null, calendar);
+            return validation.isValid() ? null : messageBuilder.buildUserFriendlyMessage(validation.getErrorCode());
+        } catch (Throwable t) {
+            // synchronizeCalendar skips a calendar it can't resolve in the same way
+            log.warn("[ResSync] Calendar check failed for '{}': {}", frontendResource.getName(), t.getClass().getSimpleName());
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private Resource createResource(ResourcePool resourcePool, FrontendResourceDto frontendResource) {
+        Resource coreResource = resourcePool.createScriptedResource();
+        if (coreResource instanceof ResourceImpl) {
+            long uniqueId = System.currentTimeMillis() + syncedCount;
+            ((ResourceImpl) coreResource).getGlobalResource().setUniqueId(uniqueId);
+            
+            String frontendId = getFrontendId(frontendResource);
+            if (frontendId != null && !frontendId.isEmpty()) {
+                String coreId = String.valueOf(uniqueId);
+                idMapping.put(frontendId, coreId);
+                log.info("[ResSync] ID Mapping: {} -> {}", frontendId, coreId);
+            }
+        }
+        log.debug("[ResSync] Created new resource for: {}", frontendResource.getName());
+        return coreResource;
+    }
+    
+    private void removeResource(ResourcePool resourcePool, Resource resource) {
+        List<Assignment> assignments = new ArrayList<>();
+        for (Iterator<?> it = resource.getAssignments().iterator(); it.hasNext(); ) {
+            assignments.add((Assignment) it.next());
+        }
+        if (!assignments.isEmpty()) {
+            AssignmentService.getInstance().remove(assignments, null, false);
+        }
+        resourcePool.remove(resource, null, true, false, true);
+        log.info("[ResSync] Removed resource '{}' with {} assignments", resource.getName(), assignments.size());
+    }
+    
     /**
      * Находит соответствующий Core-ресурс для Frontend-ресурса.
      * Сначала пытается найти по имени, но только если ресурс ещё не был использован.
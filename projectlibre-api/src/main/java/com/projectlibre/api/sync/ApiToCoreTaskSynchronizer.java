@@ -3,6 +3,7 @@ package com.projectlibre.api.sync;
 import com.projectlibre.api.dto.TaskSyncRequestDto;
 import com.projectlibre.api.dto.TaskSyncRequestDto.FrontendTaskDto;
 import com.projectlibre.api.converter.DateTimeMapper;
+import com.projectlibre.api.observability.SyncPhaseEvent;
 import com.projectlibre.api.validator.MilestoneProgressValidator;
 import com.projectlibre1.datatype.Duration;
 import com.projectlibre1.pm.scheduling.ConstraintType;
@@ -70,11 +71,14 @@ public class ApiToCoreTaskSynchronizer {
         // Приостанавливаем внутренние calculate() в CriticalPath до конца синхронизации,
         // чтобы избежать частичных пересчётов по каждому ObjectEvent (гонка с CpmRecalculationRunner).
         int transactionId = project.fireMultipleTransaction(0, true);
+        String projectName = project.getName();
+        int requestSize = request.getTasks().size();
         
         try {
             List<FrontendTaskDto> frontendTasks = request.getTasks();
             
             // ФАЗА 1: Структурная синхронизация (Discovery, WBS, Links)
+            SyncPhaseEvent phase = SyncPhaseEvent.start();
             
             // 1.1 Собираем карту существующих задач в Core
             Map<String, NormalTask> existingTasks = new HashMap<>();
@@ -96,18 +100,26 @@ public class ApiToCoreTaskSynchronizer {
                 }
                 taskMap.put(frontendTask.getId(), coreTask);
             }
+            phase.finish("discovery", projectName, requestSize);
             
             // 1.3 Удаляем лишние задачи
+            phase = SyncPhaseEvent.start();
             removeObsoleteTasks(project, frontendTasks);
+            phase.finish("removeObsolete", projectName, requestSize);
             
             // 1.4 Восстанавливаем иерархию (WBS)
             // Это ДОЛЖНО быть до обновления свойств, чтобы Core знал структуру
+            phase = SyncPhaseEvent.start();
             wbsSynchronizer.synchronize(project, frontendTasks, taskMap);
+            phase.finish("wbs", projectName, requestSize);
             
             // 1.5 Восстанавливаем зависимости (Links)
+            phase = SyncPhaseEvent.start();
             dependencySynchronizer.synchronize(frontendTasks, taskMap);
+            phase.finish("dependencies", projectName, requestSize);
             
             // ФАЗА 2: Информационная синхронизация (Dates, Progress, Notes)
+            phase = SyncPhaseEvent.start();
             for (FrontendTaskDto frontendTask : frontendTasks) {
                 NormalTask coreTask = taskMap.get(frontendTask.getId());
                 if (coreTask != null) {
@@ -115,9 +127,12 @@ public class ApiToCoreTaskSynchronizer {
                     syncedCount++;
                 }
             }
+            phase.finish("properties", projectName, requestSize);
 
             // ФАЗА 3: Назначения ресурсов (resourceIds уже подставлены контроллером по mapping)
+            phase = SyncPhaseEvent.start();
             resourceSynchronizer.synchronize(project, frontendTasks, taskMap);
+            phase.finish("assignments", projectName, requestSize);
 
             return SyncResult.success(syncedCount, skippedCount);
             
@@ -134,7 +149,51 @@ public class ApiToCoreTaskSynchronizer {
             
             return SyncResult.error(e.getClass().getSimpleName() + ": " + e.getMessage());
         } finally {
+            // closing the transaction runs the deferred critical path calculation
+            SyncPhaseEvent phase = SyncPhaseEvent.start();
             project.fireMultipleTransaction(transactionId, false);
+            phase.finish("endTransaction", projectName, requestSize);
+        }
+    }
+    
+    /**
+     * Обновляет свойства одной задачи (дельта-синхронизация по ID) по тем же правилам, что и {@link #synchronize}.
+     * 
+     * @param project проект для доступа к рабочему календарю
+     * @param coreTask задача Core
+     * @param frontendTask полная строка задачи из Frontend
+     */
+    public void synchronizeTaskProperties(Project project, NormalTask coreTask, FrontendTaskDto frontendTask) {
+        updateTaskProperties(project, coreTask, frontendTask);
+    }
+    
+    /**
+     * Пересматривает constraint задачи после изменения её связей без изменения самой задачи:
+     * ASAP при наличии predecessors, иначе SNET на текущую дату начала (как в {@link #applyStartDateConstraint}).
+     */
+    public void refreshStartConstraint(NormalTask coreTask) {
+        if (coreTask.isSummary()) {
+            return;
+        }
+        if (!coreTask.getPredecessorList().isEmpty()) {
+            coreTask.setScheduleConstraint(ConstraintType.ASAP, 0);
+        } else if (coreTask.getConstraintType() == ConstraintType.ASAP) {
+            coreTask.setScheduleConstraint(ConstraintType.SNET, coreTask.getStart());
+        }
+    }
+    
+    /**
+     * Удаляет задачу вместе с подзадачами и её связями, без записи в Undo.
+     * 
+     * @return false если Core отказал в удалении
+     */
+    public boolean removeTask(Project project, Task task) {
+        try {
+            project.remove(task, null, true, false, true);
+            return true;
+        } catch (Exception e) {
+            System.err.println("[ApiToCoreSync] Failed to remove task: " + task.getName());
+            return false;
         }
     }
     
@@ -438,11 +497,7 @@ public class ApiToCoreTaskSynchronizer {
         }
 
         for (Task t : toRemove) {
-            try {
-                project.remove(t, null, true, false, true);
-            } catch (Exception e) {
-                System.err.println("[ApiToCoreSync] Failed to remove task: " + t.getName());
-            }
+            removeTask(project, t);
         }
     }
 
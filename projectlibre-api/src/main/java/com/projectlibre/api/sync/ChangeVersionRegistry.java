@@ -0,0 +1,168 @@
+package com.projectlibre.api.sync;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions of the entities of each loaded project, used to reject stale delta changes.
+ *
+ * The version of an entity is the scheduleVersion of the first snapshot published after its last change.
+ * A writer marks what it changes inside the project write lock, which gives it a ticket, and commits the ticket
+ * with the version it published. Until then the marked entities count as newer than any version, so a change
+ * based on a snapshot that can't contain the write is rejected. Full syncs and undo/redo mark the whole project.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@Component
+public class ChangeVersionRegistry {
+
+    private final ConcurrentMap<Long, ProjectVersions> projects = new ConcurrentHashMap<>();
+    private final AtomicLong ticketCounter = new AtomicLong();
+
+    /**
+     * Marks entities of a project as changed by a write that hasn't been published yet.
+     *
+     * @param projectId project id in CoreProjectBridge
+     * @param keys entity keys, see {@link #taskKey(String)} and {@link #resourceKey(String)}
+     * @return ticket to commit once the write is published
+     */
+    public Ticket markChanged(Long projectId, Collection<String> keys) {
+        Ticket ticket = new Ticket(projectId, ticketCounter.incrementAndGet(), keys);
+        ProjectVersions versions = getVersions(projectId);
+        synchronized (versions) {
+            for (String key : keys) {
+                versions.entries.put(key, -ticket.token);
+            }
+        }
+        return ticket;
+    }
+
+    /**
+     * Marks every entity of a project as changed, for writes that don't say what they change.
+     */
+    public Ticket markAllChanged(Long projectId) {
+        Ticket ticket = new Ticket(projectId, ticketCounter.incrementAndGet(), null);
+        ProjectVersions versions = getVersions(projectId);
+        synchronized (versions) {
+            versions.floor = -ticket.token;
+            versions.entries.clear();
+            versions.taskIndex = new TaskIdIndex();
+        }
+        return ticket;
+    }
+
+    /**
+     * Gives the entities of the ticket the published version, unless a later write marked them again.
+     * Committing a ticket again changes nothing, so a write whose publication failed can commit its ticket in a
+     * finally block with {@link com.projectlibre.api.readmodel.ProjectSnapshotStore#getNextVersion()}.
+     */
+    public void commit(Ticket ticket, long version) {
+        ProjectVersions versions = projects.get(ticket.projectId);
+        if (versions == null) {
+            return;
+        }
+        synchronized (versions) {
+            if (ticket.keys == null) {
+                if (versions.floor == -ticket.token) {
+                    versions.floor = version;
+                }
+                return;
+            }
+            for (String key : ticket.keys) {
+                Long current = versions.entries.get(key);
+                if (current != null && current == -ticket.token) {
+                    versions.entries.put(key, version);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return version of the entity; Long.MAX_VALUE while a change to it is not published yet
+     */
+    public long getVersion(Long projectId, String key) {
+        ProjectVersions versions = projects.get(projectId);
+        if (versions == null) {
+            return 0;
+        }
+        synchronized (versions) {
+            if (versions.floor < 0) {
+                return Long.MAX_VALUE;
+            }
+            Long entry = versions.entries.get(key);
+            if (entry == null) {
+                return versions.floor;
+            }
+            return entry < 0 ? Long.MAX_VALUE : Math.max(entry, versions.floor);
+        }
+    }
+
+    public void remove(Long projectId) {
+        projects.remove(projectId);
+    }
+
+    public int getProjectCount() {
+        return projects.size();
+    }
+
+    /**
+     * Index of the project tasks by Frontend id. Only used under the project write lock.
+     */
+    TaskIdIndex getTaskIndex(Long projectId) {
+        ProjectVersions versions = getVersions(projectId);
+        synchronized (versions) {
+            return versions.taskIndex;
+        }
+    }
+
+    public static String taskKey(String taskId) {
+        return "task:" + taskId;
+    }
+
+    public static String resourceKey(String resourceId) {
+        return "resource:" + resourceId;
+    }
+
+    private ProjectVersions getVersions(Long projectId) {
+        return projects.computeIfAbsent(projectId, id -> new ProjectVersions());
+    }
+
+    /**
+     * Unpublished change of a project, returned by the mark methods.
+     */
+    public static final class Ticket {
+        private final Long projectId;
+        private final long token;
+        private final List<String> keys;
+
+        private Ticket(Long projectId, long token, Collection<String> keys) {
+            this.projectId = projectId;
+            this.token = token;
+            this.keys = keys != null ? List.copyOf(keys) : null;
+        }
+
+        public Long getProjectId() {
+            return projectId;
+        }
+
+        public List<String> getKeys() {
+            return keys != null ? keys : Collections.emptyList();
+        }
+    }
+
+    /** Versions of one project, guarded by its own monitor. Negative values are pending ticket tokens. */
+    private static final class ProjectVersions {
+        private long floor;
+        private final Map<String, Long> entries = new HashMap<>();
+        private TaskIdIndex taskIndex = new TaskIdIndex();
+    }
+}
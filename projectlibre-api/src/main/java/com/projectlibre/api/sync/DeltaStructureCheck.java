@@ -0,0 +1,155 @@
+package com.projectlibre.api.sync;
+
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.ChangeOperation;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.DependencyChangeDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.TaskChangeDto;
+import com.projectlibre1.pm.dependency.Dependency;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replays the parent moves and link changes of a delta request on a copy of the project structure, so that a
+ * change Core would refuse is found before anything in the project is modified.
+ *
+ * Applies the same rules as WbsHierarchyEngine.moveUnder and Dependency.testValid: no task under itself or its
+ * descendant, no link between a summary task and its subtask, no circular link as Task.dependsOn defines it.
+ * Not thread-safe: used once, under the project write lock.
+ */
+final class DeltaStructureCheck {
+
+    private final Project project;
+    private final TaskIdIndex index;
+    private final Map<Object, Node> nodes = new HashMap<>();
+
+    DeltaStructureCheck(Project project, TaskIdIndex index) {
+        this.project = project;
+        this.index = index;
+        for (Object task : project.getTasks()) {
+            node((Task) task);
+        }
+    }
+
+    /**
+     * @return reason why the request can't be applied, or null
+     */
+    String check(ProjectDeltaSyncRequestDto request) {
+        for (TaskChangeDto change : request.getTasks()) {
+            if (change.getOp() == ChangeOperation.CREATE) {
+                nodes.put(change.getId(), new Node());
+            }
+        }
+        for (TaskChangeDto change : request.getTasks()) {
+            if (change.getOp() == ChangeOperation.DELETE || change.getParentId() == null) {
+                continue;
+            }
+            Node task = find(change.getId());
+            Node parent = change.getParentId().isEmpty() ? null : find(change.getParentId());
+            if (parent != null && (parent == task || parent.descendantOf(task))) {
+                return "Task " + change.getId() + " can't be moved under " + change.getParentId();
+            }
+            task.moveUnder(parent);
+        }
+        for (DependencyChangeDto change : request.getDependencies()) {
+            Node predecessor = find(change.getPredecessorId());
+            Node successor = find(change.getSuccessorId());
+            if (change.getOp() != ChangeOperation.CREATE) {
+                successor.predecessors.remove(predecessor);
+            } else if (!successor.predecessors.contains(predecessor)) {
+                if (predecessor == successor || predecessor.descendantOf(successor) || successor.descendantOf(predecessor)
+                        || predecessor.dependsOn(successor, new HashSet<>())) {
+                    return "Dependency " + change.getPredecessorId() + "->" + change.getSuccessorId()
+                        + " can't be created";
+                }
+                successor.predecessors.add(predecessor);
+            }
+        }
+        return null;
+    }
+
+    private Node find(String id) {
+        Node created = nodes.get(id);
+        return created != null ? created : node(index.find(project, id));
+    }
+
+    private Node node(Task task) {
+        Node node = nodes.get(task);
+        if (node != null) {
+            return node;
+        }
+        node = new Node();
+        nodes.put(task, node);
+        Task parent = task.getWbsParentTask();
+        if (parent != null) {
+            node.moveUnder(node(parent));
+        }
+        for (Iterator<?> i = task.getPredecessorList().iterator(); i.hasNext(); ) {
+            Dependency dependency = (Dependency) i.next();
+            if (!dependency.isDisabled() && dependency.getPredecessor() instanceof Task) {
+                node.predecessors.add(node((Task) dependency.getPredecessor()));
+            }
+        }
+        return node;
+    }
+
+    /** Task with its parent, subtasks and enabled predecessors. */
+    private static final class Node {
+        Node parent;
+        final List<Node> children = new ArrayList<>();
+        final Set<Node> predecessors = new LinkedHashSet<>();
+
+        void moveUnder(Node newParent) {
+            if (parent != null) {
+                parent.children.remove(this);
+            }
+            parent = newParent;
+            if (newParent != null) {
+                newParent.children.add(this);
+            }
+        }
+
+        boolean descendantOf(Node ancestor) {
+            for (Node current = parent; current != null; current = current.parent) {
+                if (current == ancestor) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /** Task.dependsOn: predecessors, the parent unless it is shared with other, predecessors of subtasks. */
+        boolean dependsOn(Node other, Set<Node> visited) {
+            if (!visited.add(this)) {
+                return false;
+            }
+            if (this == other) {
+                return true;
+            }
+            for (Node predecessor : predecessors) {
+                if (predecessor.dependsOn(other, visited)) {
+                    return true;
+                }
+            }
+            if (other.parent != parent && parent != null && parent.dependsOn(other, visited)) {
+                return true;
+            }
+            for (Node child : children) {
+                for (Node predecessor : child.predecessors) {
+                    if (!predecessor.descendantOf(this) && predecessor.dependsOn(other, visited)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.projectlibre.api.sync;
+
+import com.projectlibre.api.dto.ProjectDeltaSyncResponseDto.ConflictDto;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Результат дельта-синхронизации.
+ * Ticket не null, если в проекте что-то изменено: его нужно зафиксировать версией опубликованного снимка.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public class DeltaSyncResult {
+
+    private final boolean success;
+    private final int appliedCount;
+    private final String errorMessage;
+    private final List<ConflictDto> conflicts;
+    private final Map<String, String> resourceIdMapping;
+    private final ChangeVersionRegistry.Ticket ticket;
+
+    private DeltaSyncResult(boolean success, int appliedCount, String errorMessage, List<ConflictDto> conflicts,
+                            Map<String, String> resourceIdMapping, ChangeVersionRegistry.Ticket ticket) {
+        this.success = success;
+        this.appliedCount = appliedCount;
+        this.errorMessage = errorMessage;
+        this.conflicts = conflicts != null ? Collections.unmodifiableList(conflicts) : Collections.emptyList();
+        this.resourceIdMapping = resourceIdMapping != null
+            ? Collections.unmodifiableMap(new HashMap<>(resourceIdMapping))
+            : Collections.emptyMap();
+        this.ticket = ticket;
+    }
+
+    public static DeltaSyncResult success(int appliedCount, Map<String, String> resourceIdMapping,
+                                          ChangeVersionRegistry.Ticket ticket) {
+        return new DeltaSyncResult(true, appliedCount, null, null, resourceIdMapping, ticket);
+    }
+
+    /** Ничего не применено: изменения основаны на устаревших версиях. */
+    public static DeltaSyncResult rejected(List<ConflictDto> conflicts) {
+        return new DeltaSyncResult(false, 0, "Stale changes rejected", conflicts, null, null);
+    }
+
+    public static DeltaSyncResult error(String errorMessage) {
+        return error(errorMessage, null);
+    }
+
+    /** Ошибка после начала применения: часть изменений могла попасть в проект. */
+    public static DeltaSyncResult error(String errorMessage, ChangeVersionRegistry.Ticket ticket) {
+        return new DeltaSyncResult(false, 0, errorMessage, null, null, ticket);
+    }
+
+    public boolean isSuccess() { return success; }
+    public boolean isRejected() { return !conflicts.isEmpty(); }
+    public int getAppliedCount() { return appliedCount; }
+    public String getErrorMessage() { return errorMessage; }
+    public List<ConflictDto> getConflicts() { return conflicts; }
+    public Map<String, String> getResourceIdMapping() { return resourceIdMapping; }
+    public ChangeVersionRegistry.Ticket getTicket() { return ticket; }
+}
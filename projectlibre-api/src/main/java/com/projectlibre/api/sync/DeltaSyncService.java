@@ -0,0 +1,499 @@
+package com.projectlibre.api.sync;
+
+import com.projectlibre.api.concurrent.CoreGlobalGuard;
+import com.projectlibre.api.dto.FrontendResourceDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.AssignmentChangeDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.ChangeOperation;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.DependencyChangeDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.ResourceChangeDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.TaskChangeDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncResponseDto.ConflictDto;
+import com.projectlibre.api.dto.TaskSyncRequestDto.FrontendTaskDto;
+import com.projectlibre1.pm.resource.Resource;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.Task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Дельта-синхронизация проекта: применяет только изменённые задачи, связи, назначения и ресурсы,
+ * адресуя их по ID, вместо полного сравнения проекта, как ProjectSyncService.
+ *
+ * Сначала все изменения проверяются по версиям ChangeVersionRegistry: если хотя бы одно основано на устаревшей
+ * версии, запрос отклоняется без изменений в проекте. Так же, до любых изменений, отклоняется запрос, который
+ * Core не сможет применить целиком: перемещение задачи под её потомка, циклическая связь, небезопасный календарь.
+ * Затем изменения применяются в одной транзакции Core в порядке: ресурсы → новые задачи → родители → связи →
+ * свойства задач → назначения → удаления. Если Core всё же откажет на середине, проект остаётся частично
+ * изменённым и все его сущности помечаются изменёнными, чтобы клиенты перечитали проект целиком.
+ * Вызывать внутри ProjectLockRegistry.executeWithWriteLock() проекта.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public final class DeltaSyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(DeltaSyncService.class);
+
+    private final ChangeVersionRegistry versions;
+    private final ApiToCoreResourceSynchronizer resourceSynchronizer;
+    private final ApiToCoreTaskSynchronizer taskSynchronizer;
+    private final WbsHierarchySynchronizer wbsSynchronizer;
+    private final DependencySynchronizer dependencySynchronizer;
+    private final ResourceAssignmentSynchronizer assignmentSynchronizer;
+
+    public DeltaSyncService(ChangeVersionRegistry versions) {
+        this.versions = versions;
+        this.resourceSynchronizer = new ApiToCoreResourceSynchronizer();
+        this.taskSynchronizer = new ApiToCoreTaskSynchronizer();
+        this.wbsSynchronizer = new WbsHierarchySynchronizer();
+        this.dependencySynchronizer = new DependencySynchronizer();
+        this.assignmentSynchronizer = new ResourceAssignmentSynchronizer();
+    }
+
+    /**
+     * Проверяет и применяет изменения.
+     *
+     * @param projectId ID проекта в CoreProjectBridge
+     * @param project Core Project
+     * @param request изменения
+     * @return результат; ticket результата нужно зафиксировать версией опубликованного после записи снимка
+     */
+    public DeltaSyncResult apply(Long projectId, Project project, ProjectDeltaSyncRequestDto request) {
+        if (project == null) {
+            return DeltaSyncResult.error("Project is null");
+        }
+        if (request == null) {
+            return DeltaSyncResult.error("Request is null");
+        }
+        String invalid = validate(request);
+        if (invalid != null) {
+            return DeltaSyncResult.error(invalid);
+        }
+
+        TaskIdIndex index = versions.getTaskIndex(projectId);
+        List<ConflictDto> conflicts = findConflicts(projectId, project, index, request);
+        if (!conflicts.isEmpty()) {
+            log.info("[DeltaSync] Rejected {} changes of project {}: {} conflicts",
+                request.getChangeCount(), projectId, conflicts.size());
+            return DeltaSyncResult.rejected(conflicts);
+        }
+        String inapplicable = checkApplicable(project, index, request);
+        if (inapplicable != null) {
+            log.info("[DeltaSync] Rejected {} changes of project {}: {}", request.getChangeCount(), projectId, inapplicable);
+            return DeltaSyncResult.error(inapplicable);
+        }
+
+        ChangeVersionRegistry.Ticket ticket = versions.markChanged(projectId, changedKeys(request));
+        int transactionId = project.fireMultipleTransaction(0, true);
+        try {
+            Map<String, String> resourceIdMapping = applyResources(project, request.getResources());
+            Map<String, NormalTask> createdTasks = createTasks(project, index, request.getTasks());
+            applyParents(project, index, request.getTasks());
+            applyDependencies(project, index, request.getDependencies());
+            applyTaskProperties(project, index, request);
+            applyAssignments(project, index, request.getAssignments(), resourceIdMapping);
+            applyTaskDeletes(project, index, request.getTasks());
+
+            log.debug("[DeltaSync] Applied {} changes to project {} ({} new tasks)",
+                request.getChangeCount(), projectId, createdTasks.size());
+            return DeltaSyncResult.success(request.getChangeCount(), resourceIdMapping, ticket);
+        } catch (DeltaSyncException e) {
+            log.error("[DeltaSync] Delta sync of project {} failed after its check: {}", projectId, e.getMessage());
+            return DeltaSyncResult.error(e.getMessage(), versions.markAllChanged(projectId));
+        } catch (Exception e) {
+            log.error("[DeltaSync] Delta sync of project {} failed", projectId, e);
+            return DeltaSyncResult.error(e.getClass().getSimpleName() + ": " + e.getMessage(),
+                versions.markAllChanged(projectId));
+        } finally {
+            // closing the transaction runs the deferred critical path calculation
+            project.fireMultipleTransaction(transactionId, false);
+        }
+    }
+
+    private String validate(ProjectDeltaSyncRequestDto request) {
+        Set<String> createdTaskIds = createdTaskIds(request);
+        for (TaskChangeDto change : request.getTasks()) {
+            if (change == null || change.getOp() == null || isBlank(change.getId())) {
+                return "Task change requires op and id";
+            }
+            if (change.getOp() != ChangeOperation.DELETE && change.getTask() == null) {
+                return "Task change " + change.getId() + " requires task";
+            }
+            if (change.getOp() != ChangeOperation.CREATE && baseVersion(change.getBaseVersion(), request) == null) {
+                return "Task change " + change.getId() + " requires baseVersion";
+            }
+        }
+        for (DependencyChangeDto change : request.getDependencies()) {
+            if (change == null || change.getOp() == null || change.getOp() == ChangeOperation.UPDATE
+                    || isBlank(change.getPredecessorId()) || isBlank(change.getSuccessorId())) {
+                return "Dependency change requires CREATE or DELETE op, predecessorId and successorId";
+            }
+            if (!createdTaskIds.contains(change.getSuccessorId())
+                    && baseVersion(change.getBaseVersion(), request) == null) {
+                return "Dependency change " + change.getPredecessorId() + "->" + change.getSuccessorId()
+                    + " requires baseVersion";
+            }
+        }
+        for (AssignmentChangeDto change : request.getAssignments()) {
+            if (change == null || change.getOp() == null || isBlank(change.getTaskId())
+                    || isBlank(change.getResourceId())) {
+                return "Assignment change requires op, taskId and resourceId";
+            }
+            if (!createdTaskIds.contains(change.getTaskId())
+                    && baseVersion(change.getBaseVersion(), request) == null) {
+                return "Assignment change " + change.getTaskId() + "/" + change.getResourceId()
+                    + " requires baseVersion";
+            }
+        }
+        for (ResourceChangeDto change : request.getResources()) {
+            if (change == null || change.getOp() == null) {
+                return "Resource change requires op";
+            }
+            if (change.getOp() != ChangeOperation.CREATE) {
+                if (parseResourceId(change.getId()) == null) {
+                    return "Resource change requires numeric Core id";
+                }
+                if (baseVersion(change.getBaseVersion(), request) == null) {
+                    return "Resource change " + change.getId() + " requires baseVersion";
+                }
+            }
+            if (change.getOp() != ChangeOperation.DELETE && change.getResource() == null) {
+                return "Resource change " + change.getId() + " requires resource";
+            }
+        }
+        return null;
+    }
+
+    private List<ConflictDto> findConflicts(Long projectId, Project project, TaskIdIndex index,
+                                            ProjectDeltaSyncRequestDto request) {
+        List<ConflictDto> conflicts = new ArrayList<>();
+        Set<String> createdTaskIds = createdTaskIds(request);
+        Set<String> createdResourceIds = new HashSet<>();
+
+        for (TaskChangeDto change : request.getTasks()) {
+            String id = change.getId();
+            NormalTask task = index.find(project, id);
+            if (change.getOp() == ChangeOperation.CREATE) {
+                if (task != null) {
+                    conflicts.add(conflict(projectId, "task", id, change.getBaseVersion(), "already exists"));
+                }
+            } else if (task == null) {
+                conflicts.add(new ConflictDto("task", id, baseVersion(change.getBaseVersion(), request), null,
+                    "not found"));
+            } else {
+                checkVersion(projectId, "task", id, baseVersion(change.getBaseVersion(), request), conflicts);
+            }
+            String parentId = change.getParentId();
+            if (!isBlank(parentId) && !createdTaskIds.contains(parentId) && index.find(project, parentId) == null) {
+                conflicts.add(new ConflictDto("task", parentId, null, null, "parent not found"));
+            }
+        }
+
+        for (DependencyChangeDto change : request.getDependencies()) {
+            checkTaskExists(project, index, change.getPredecessorId(), createdTaskIds, conflicts);
+            if (checkTaskExists(project, index, change.getSuccessorId(), createdTaskIds, conflicts)
+                    && !createdTaskIds.contains(change.getSuccessorId())) {
+                checkVersion(projectId, "task", change.getSuccessorId(),
+                    baseVersion(change.getBaseVersion(), request), conflicts);
+            }
+        }
+
+        for (ResourceChangeDto change : request.getResources()) {
+            if (change.getOp() == ChangeOperation.CREATE) {
+                if (!isBlank(change.getId())) {
+                    createdResourceIds.add(change.getId());
+                }
+                continue;
+            }
+            Long base = baseVersion(change.getBaseVersion(), request);
+            if (findResource(project, change.getId()) == null) {
+                conflicts.add(new ConflictDto("resource", change.getId(), base, null, "not found"));
+            } else {
+                checkVersion(projectId, "resource", change.getId(), base, conflicts);
+            }
+        }
+
+        for (AssignmentChangeDto change : request.getAssignments()) {
+            if (checkTaskExists(project, index, change.getTaskId(), createdTaskIds, conflicts)
+                    && !createdTaskIds.contains(change.getTaskId())) {
+                checkVersion(projectId, "task", change.getTaskId(),
+                    baseVersion(change.getBaseVersion(), request), conflicts);
+            }
+            if (change.getOp() != ChangeOperation.DELETE && !createdResourceIds.contains(change.getResourceId())
+                    && findResource(project, change.getResourceId()) == null) {
+                conflicts.add(new ConflictDto("resource", change.getResourceId(), null, null, "not found"));
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Проверяет до изменения проекта то, что Core может отказаться применить: календари ресурсов, перемещения
+     * задач и новые связи (DeltaStructureCheck), назначения ресурсов, удаляемых этим же запросом.
+     */
+    private String checkApplicable(Project project, TaskIdIndex index, ProjectDeltaSyncRequestDto request) {
+        Set<String> deletedResourceIds = new HashSet<>();
+        for (ResourceChangeDto change : request.getResources()) {
+            if (change.getOp() == ChangeOperation.DELETE) {
+                deletedResourceIds.add(change.getId());
+                continue;
+            }
+            // resource calendars are resolved in the shared CalendarService
+            String calendarError = CoreGlobalGuard.getInstance().execute(() ->
+                resourceSynchronizer.checkCalendar(change.getResource()));
+            if (calendarError != null) {
+                return "Resource change " + change.getId() + " failed: " + calendarError;
+            }
+        }
+        for (AssignmentChangeDto change : request.getAssignments()) {
+            if (change.getOp() != ChangeOperation.DELETE && deletedResourceIds.contains(change.getResourceId())) {
+                return "Resource " + change.getResourceId() + " can't be assigned to task " + change.getTaskId()
+                    + ": it is deleted by the same request";
+            }
+        }
+        return new DeltaStructureCheck(project, index).check(request);
+    }
+
+    private Map<String, String> applyResources(Project project, List<ResourceChangeDto> changes) {
+        Map<String, String> mapping = new HashMap<>();
+        for (ResourceChangeDto change : changes) {
+            FrontendResourceDto dto = change.getResource();
+            if (dto != null && change.getOp() == ChangeOperation.CREATE && isBlank(dto.getTemporaryId())) {
+                dto.setTemporaryId(change.getId());
+            }
+            Resource existing = change.getOp() == ChangeOperation.CREATE ? null : findResource(project, change.getId());
+            boolean delete = change.getOp() == ChangeOperation.DELETE;
+            // resource calendars are reassigned in the shared CalendarService
+            SyncResult result = CoreGlobalGuard.getInstance().execute(() ->
+                resourceSynchronizer.synchronizeResource(project, dto, existing, delete));
+            if (!result.isSuccess()) {
+                throw new DeltaSyncException("Resource change " + change.getId() + " failed: " + result.getError());
+            }
+            if (result.getResourceIdMapping() != null) {
+                mapping.putAll(result.getResourceIdMapping());
+            }
+        }
+        return mapping;
+    }
+
+    private Map<String, NormalTask> createTasks(Project project, TaskIdIndex index, List<TaskChangeDto> changes) {
+        Map<String, NormalTask> created = new HashMap<>();
+        for (TaskChangeDto change : changes) {
+            if (change.getOp() == ChangeOperation.CREATE) {
+                NormalTask task = project.createScriptedTask();
+                task.setName(change.getTask().getName() != null ? change.getTask().getName() : change.getId());
+                task.setCustomText(0, change.getId());
+                index.put(change.getId(), task);
+                created.put(change.getId(), task);
+            }
+        }
+        return created;
+    }
+
+    private void applyParents(Project project, TaskIdIndex index, List<TaskChangeDto> changes) {
+        for (TaskChangeDto change : changes) {
+            if (change.getOp() == ChangeOperation.DELETE || change.getParentId() == null) {
+                continue;
+            }
+            NormalTask task = index.find(project, change.getId());
+            NormalTask parent = change.getParentId().isEmpty() ? null : index.find(project, change.getParentId());
+            if (!wbsSynchronizer.synchronizeParent(project, task, parent)) {
+                throw new DeltaSyncException("Task " + change.getId() + " can't be moved under " + change.getParentId());
+            }
+        }
+    }
+
+    private void applyDependencies(Project project, TaskIdIndex index, List<DependencyChangeDto> changes) {
+        for (DependencyChangeDto change : changes) {
+            NormalTask predecessor = index.find(project, change.getPredecessorId());
+            NormalTask successor = index.find(project, change.getSuccessorId());
+            if (change.getOp() == ChangeOperation.CREATE) {
+                if (!dependencySynchronizer.addDependency(predecessor, successor)) {
+                    throw new DeltaSyncException("Dependency " + change.getPredecessorId() + "->"
+                        + change.getSuccessorId() + " can't be created");
+                }
+            } else {
+                dependencySynchronizer.removeDependency(predecessor, successor);
+            }
+        }
+    }
+
+    /**
+     * Обновляет свойства созданных и изменённых задач. Predecessors строки берутся из Core, где связи
+     * уже применены, чтобы constraint задачи выбирался так же, как при полной синхронизации.
+     * Последователям изменённых связей без изменения строки constraint пересматривается отдельно.
+     */
+    private void applyTaskProperties(Project project, TaskIdIndex index, ProjectDeltaSyncRequestDto request) {
+        Set<String> updatedTaskIds = new HashSet<>();
+        for (TaskChangeDto change : request.getTasks()) {
+            if (change.getOp() == ChangeOperation.DELETE) {
+                continue;
+            }
+            NormalTask task = index.find(project, change.getId());
+            FrontendTaskDto row = new FrontendTaskDto(change.getTask());
+            row.setId(change.getId());
+            if (row.getName() == null) {
+                row.setName(task.getName());
+            }
+            row.setPredecessors(new ArrayList<>(dependencySynchronizer.getPredecessorIds(task)));
+            taskSynchronizer.synchronizeTaskProperties(project, task, row);
+            updatedTaskIds.add(change.getId());
+        }
+        for (DependencyChangeDto change : request.getDependencies()) {
+            if (updatedTaskIds.add(change.getSuccessorId())) {
+                taskSynchronizer.refreshStartConstraint(index.find(project, change.getSuccessorId()));
+            }
+        }
+    }
+
+    private void applyAssignments(Project project, TaskIdIndex index, List<AssignmentChangeDto> changes,
+                                  Map<String, String> resourceIdMapping) {
+        for (AssignmentChangeDto change : changes) {
+            NormalTask task = index.find(project, change.getTaskId());
+            String resourceId = resourceIdMapping.getOrDefault(change.getResourceId(), change.getResourceId());
+            if (change.getOp() == ChangeOperation.DELETE) {
+                assignmentSynchronizer.unassign(task, resourceId);
+                continue;
+            }
+            double units = change.getUnits() != null && change.getUnits() > 0 ? change.getUnits() : 1.0;
+            if (!assignmentSynchronizer.assign(project, task, resourceId, units)) {
+                throw new DeltaSyncException("Resource " + resourceId + " can't be assigned to task "
+                    + change.getTaskId());
+            }
+        }
+    }
+
+    private void applyTaskDeletes(Project project, TaskIdIndex index, List<TaskChangeDto> changes) {
+        for (TaskChangeDto change : changes) {
+            if (change.getOp() != ChangeOperation.DELETE) {
+                continue;
+            }
+            NormalTask task = index.find(project, change.getId());
+            if (task == null) {
+                continue; // removed with a deleted parent earlier in this request
+            }
+            // Core removes a single task, as the full sync does for each row that is gone: subtasks go first
+            List<Task> subtree = new ArrayList<>();
+            collectSubtree(task, subtree);
+            for (Task removed : subtree) {
+                if (!taskSynchronizer.removeTask(project, removed)) {
+                    throw new DeltaSyncException("Task " + removed.getCustomText(0) + " can't be removed");
+                }
+                index.remove(removed.getCustomText(0));
+            }
+        }
+    }
+
+    /** Задача и все её подзадачи, подзадачи раньше родителя. */
+    private void collectSubtree(Task task, List<Task> subtree) {
+        List<?> children = task.getWbsChildrenTasks();
+        if (children != null) {
+            for (Object child : new ArrayList<>(children)) {
+                collectSubtree((Task) child, subtree);
+            }
+        }
+        subtree.add(task);
+    }
+
+    /**
+     * Сущности, версии которых меняет запрос. Связи и назначения принадлежат задаче-последователю и задаче.
+     */
+    private Set<String> changedKeys(ProjectDeltaSyncRequestDto request) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (TaskChangeDto change : request.getTasks()) {
+            keys.add(ChangeVersionRegistry.taskKey(change.getId()));
+        }
+        for (DependencyChangeDto change : request.getDependencies()) {
+            keys.add(ChangeVersionRegistry.taskKey(change.getSuccessorId()));
+        }
+        for (AssignmentChangeDto change : request.getAssignments()) {
+            keys.add(ChangeVersionRegistry.taskKey(change.getTaskId()));
+        }
+        for (ResourceChangeDto change : request.getResources()) {
+            if (change.getOp() != ChangeOperation.CREATE) {
+                keys.add(ChangeVersionRegistry.resourceKey(change.getId()));
+            }
+        }
+        return keys;
+    }
+
+    private boolean checkTaskExists(Project project, TaskIdIndex index, String id, Set<String> createdTaskIds,
+                                    List<ConflictDto> conflicts) {
+        if (createdTaskIds.contains(id) || index.find(project, id) != null) {
+            return true;
+        }
+        conflicts.add(new ConflictDto("task", id, null, null, "not found"));
+        return false;
+    }
+
+    private void checkVersion(Long projectId, String entity, String id, Long base, List<ConflictDto> conflicts) {
+        String key = "task".equals(entity) ? ChangeVersionRegistry.taskKey(id) : ChangeVersionRegistry.resourceKey(id);
+        long current = versions.getVersion(projectId, key);
+        if (current > base) {
+            conflicts.add(new ConflictDto(entity, id, base, current == Long.MAX_VALUE ? null : current,
+                "changed after baseVersion"));
+        }
+    }
+
+    private ConflictDto conflict(Long projectId, String entity, String id, Long base, String reason) {
+        long current = versions.getVersion(projectId, ChangeVersionRegistry.taskKey(id));
+        return new ConflictDto(entity, id, base, current == Long.MAX_VALUE ? null : current, reason);
+    }
+
+    private static Set<String> createdTaskIds(ProjectDeltaSyncRequestDto request) {
+        Set<String> ids = new HashSet<>();
+        for (TaskChangeDto change : request.getTasks()) {
+            if (change != null && change.getOp() == ChangeOperation.CREATE) {
+                ids.add(change.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static Resource findResource(Project project, String id) {
+        Long uniqueId = parseResourceId(id);
+        if (uniqueId == null || project.getResourcePool() == null) {
+            return null;
+        }
+        return project.getResourcePool().findById(uniqueId);
+    }
+
+    private static Long parseResourceId(String id) {
+        if (isBlank(id)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long baseVersion(Long changeBase, ProjectDeltaSyncRequestDto request) {
+        return changeBase != null ? changeBase : request.getBaseVersion();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /** Изменение, которое Core не смог применить, хотя checkApplicable его пропустил. */
+    private static final class DeltaSyncException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        DeltaSyncException(String message) {
+            super(message);
+        }
+    }
+}
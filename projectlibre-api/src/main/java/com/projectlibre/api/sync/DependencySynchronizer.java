@@ -8,6 +8,7 @@ import com.projectlibre1.pm.task.NormalTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -62,6 +63,50 @@ public class DependencySynchronizer {
                 skippedExistingCount, skippedSummarySubtaskCount);
     }
 
+    /**
+     * Создаёт одну связь FS (дельта-синхронизация по ID) с теми же проверками, что и полная синхронизация.
+     * 
+     * @return true если связь создана или уже существовала
+     */
+    public boolean addDependency(NormalTask predecessor, NormalTask successor) {
+        if (predecessor == null || successor == null) {
+            return false;
+        }
+        if (isDependencyExists(predecessor, successor)) {
+            skippedExistingCount++;
+            return true;
+        }
+        if (isSummarySubtaskLink(predecessor, successor)) {
+            skippedSummarySubtaskCount++;
+            return false;
+        }
+        int before = createdCount;
+        createDependency(DependencyService.getInstance(), predecessor, successor);
+        return createdCount > before;
+    }
+
+    /**
+     * Удаляет одну связь (дельта-синхронизация по ID).
+     * 
+     * @return true если связь была и удалена
+     */
+    public boolean removeDependency(NormalTask predecessor, NormalTask successor) {
+        if (predecessor == null || successor == null) {
+            return false;
+        }
+        int before = removalService.getRemovedCount();
+        removalService.removeObsoleteDependencies(successor,
+                Collections.singleton(removalService.extractTaskId(predecessor)));
+        return removalService.getRemovedCount() > before;
+    }
+
+    /**
+     * ID текущих предшественников задачи в Core (customText(0), name как fallback).
+     */
+    public Set<String> getPredecessorIds(NormalTask task) {
+        return removalService.getCurrentPredecessorIds(task);
+    }
+
     private void resetCounters() {
         createdCount = 0;
         skippedCount = 0;
@@ -1,5 +1,6 @@
 package com.projectlibre.api.sync;
 
+import com.projectlibre.api.concurrent.CoreGlobalGuard;
 import com.projectlibre.api.dto.ProjectSyncRequestDto;
 import com.projectlibre.api.dto.TaskSyncRequestDto;
 import com.projectlibre.api.dto.TaskSyncRequestDto.FrontendTaskDto;
@@ -33,7 +34,7 @@ public final class ProjectSyncService {
 
     /**
      * Выполняет синхронизацию: сначала ресурсы (и маппинг ID), затем задачи с подставленными Core ID.
-     * Вызывать внутри CoreAccessGuard.executeWithLock().
+     * Вызывать внутри ProjectLockRegistry.executeWithWriteLock() проекта.
      *
      * @param project Core Project
      * @param request запрос с задачами и ресурсами
@@ -52,7 +53,9 @@ public final class ProjectSyncService {
         Map<String, String> resourceIdMapping = null;
 
         if (request.getResources() != null && !request.getResources().isEmpty()) {
-            SyncResult resourceResult = resourceSynchronizer.synchronize(project, request.getResources());
+            // resource calendars are reassigned in the shared CalendarService
+            SyncResult resourceResult = CoreGlobalGuard.getInstance().execute(() ->
+                resourceSynchronizer.synchronize(project, request.getResources()));
             if (!resourceResult.isSuccess()) {
                 log.warn("[ProjectSyncService] Resource sync failed: {}", resourceResult.getError());
                 return ProjectSyncResult.error("Resource sync failed: " + resourceResult.getError());
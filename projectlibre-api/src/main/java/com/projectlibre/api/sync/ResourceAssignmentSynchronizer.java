@@ -81,6 +81,43 @@ public class ResourceAssignmentSynchronizer {
         System.out.println("[ResSync] ✅ Completed: created=" + createdCount + ", removed=" + removedCount + ", skipped=" + skippedCount);
     }
 
+    /**
+     * Назначает ресурс на задачу или меняет units существующего назначения (дельта-синхронизация по ID).
+     *
+     * @return true если назначение создано
+     */
+    public boolean assign(Project project, NormalTask coreTask, String resourceId, double units) {
+        if (project == null || coreTask == null || project.getResourcePool() == null) {
+            return false;
+        }
+        unassign(coreTask, resourceId);
+        int before = createdCount;
+        createAssignment(coreTask, project.getResourcePool(), resourceId, units);
+        return createdCount > before;
+    }
+
+    /**
+     * Снимает назначение ресурса с задачи (дельта-синхронизация по ID).
+     *
+     * @return true если назначение было и удалено
+     */
+    public boolean unassign(NormalTask coreTask, String resourceId) {
+        long resId = parseResourceId(resourceId);
+        List<Assignment> toRemove = new ArrayList<>();
+        for (Iterator<?> it = coreTask.getAssignments().iterator(); it.hasNext(); ) {
+            Assignment a = (Assignment) it.next();
+            if (!a.isDefault() && a.getResource() != null && a.getResource().getUniqueId() == resId) {
+                toRemove.add(a);
+            }
+        }
+        if (toRemove.isEmpty()) {
+            return false;
+        }
+        AssignmentService.getInstance().remove(toRemove, null, false);
+        removedCount += toRemove.size();
+        return true;
+    }
+
     /**
      * Удаляет все не-default назначения задачи в текущем snapshot.
      * Копия списка перед итерацией избегает CME при удалении через AssignmentService.
@@ -115,6 +152,7 @@ public class ResourceAssignmentSynchronizer {
             Assignment assignment = Assignment.getInstance(task, resource, safeUnits, 0);
             if (assignment != null) {
                 task.addAssignment(assignment);
+                resource.addAssignment(assignment);
                 createdCount++;
                 System.out.println("[ResSync] Assigned: " + resource.getName() + " -> " + task.getName() + " units=" + safeUnits);
             }
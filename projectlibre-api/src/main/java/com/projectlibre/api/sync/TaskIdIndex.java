@@ -0,0 +1,58 @@
+package com.projectlibre.api.sync;
+
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.Task;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Index of the tasks of a project by their Frontend id (customText(0)), so that delta changes don't scan the project.
+ *
+ * Built on first use and kept up to date by the delta sync itself; ChangeVersionRegistry drops it whenever a full
+ * sync or undo/redo may have changed the task set. An entry whose task no longer carries its id rebuilds the index.
+ * Not thread-safe: used under the project write lock.
+ */
+final class TaskIdIndex {
+
+    private final Map<String, NormalTask> tasks = new HashMap<>();
+    private boolean built;
+
+    NormalTask find(Project project, String id) {
+        if (id == null || id.isEmpty()) {
+            return null;
+        }
+        if (!built) {
+            rebuild(project);
+        }
+        NormalTask task = tasks.get(id);
+        if (task != null && !id.equals(task.getCustomText(0))) {
+            rebuild(project);
+            task = tasks.get(id);
+        }
+        return task;
+    }
+
+    void put(String id, NormalTask task) {
+        tasks.put(id, task);
+    }
+
+    void remove(String id) {
+        tasks.remove(id);
+    }
+
+    private void rebuild(Project project) {
+        tasks.clear();
+        Iterator<Task> iterator = project.getTaskOutlineIterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            String id = task.getCustomText(0);
+            if (task instanceof NormalTask && !task.isExternal() && id != null && !id.isEmpty()) {
+                tasks.put(id, (NormalTask) task);
+            }
+        }
+        built = true;
+    }
+}
@@ -126,6 +126,58 @@ public class WbsHierarchyEngine {
         }
     }
     
+    /**
+     * Переносит задачу в конец детей нового родителя (дельта-синхронизация).
+     * Как и indent(), переставляет узел NodeModel напрямую, но обновляет кэш wbsChildrenNodes
+     * только у старого и нового родителя вместо {@link #rebuildWbsChildrenCache(Project)}.
+     * 
+     * @param project проект (должен быть инициализирован)
+     * @param child переносимая задача
+     * @param parent новый родитель (null = корневая задача)
+     * @return false если узлы не найдены или parent является потомком child
+     */
+    public boolean moveUnder(Project project, Task child, Task parent) {
+        if (child == null || project.getTaskOutlines() == null) {
+            return false;
+        }
+        NodeModel taskModel = project.getTaskOutlines().getDefaultOutline();
+        if (taskModel == null) {
+            return false;
+        }
+        if (parent != null && (parent == child || parent.wbsDescendentOf(child))) {
+            log.warn("Task '{}' can't be moved under its own descendant '{}'", child.getName(), parent.getName());
+            return false;
+        }
+        Node childNode = taskModel.search(child);
+        Node parentNode = parent == null ? (Node) taskModel.getRoot() : taskModel.search(parent);
+        if (childNode == null || parentNode == null) {
+            log.error("Node not found in NodeModel for task '{}' or its new parent", child.getName());
+            return false;
+        }
+        Node oldParentNode = (Node) childNode.getParent();
+        if (oldParentNode == parentNode) {
+            return true;
+        }
+        
+        try (HierarchyOperationGuard childGuard = new HierarchyOperationGuard(child)) {
+            parentNode.add(childNode);
+            child.setWbsParent(parent);
+        }
+        refreshChildrenCache(taskModel, oldParentNode);
+        refreshChildrenCache(taskModel, parentNode);
+        log.debug("Task '{}' moved under '{}'", child.getName(), parent != null ? parent.getName() : "root");
+        return true;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void refreshChildrenCache(NodeModel taskModel, Node node) {
+        if (node != null && node.getImpl() instanceof Task) {
+            List<?> children = taskModel.getChildren(node);
+            ((Task) node.getImpl()).setWbsChildrenNodes(
+                children != null && !children.isEmpty() ? (Collection<Node>) children : null);
+        }
+    }
+    
     /**
      * Fallback метод - простое присваивание без интеграции в Hierarchy.
      * Используется когда canonical метод недоступен.
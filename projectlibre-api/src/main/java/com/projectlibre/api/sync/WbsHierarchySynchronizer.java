@@ -118,6 +118,30 @@ public class WbsHierarchySynchronizer {
         verifyHierarchyIntegrity(taskMap);
     }
     
+    /**
+     * Переносит одну задачу под нового родителя (дельта-синхронизация по ID).
+     * В отличие от {@link #synchronize}, не перестраивает иерархию и кэш всего проекта.
+     * 
+     * @param project Core Project
+     * @param task задача
+     * @param parent новый родитель (null = задача верхнего уровня)
+     * @return true если задача находится под parent
+     */
+    public boolean synchronizeParent(Project project, NormalTask task, NormalTask parent) {
+        if (project == null || task == null) {
+            return false;
+        }
+        engine.ensureProjectInitialized(project);
+        if (!engine.moveUnder(project, task, parent)) {
+            return false;
+        }
+        validator.validateAfterSync(task);
+        if (parent != null) {
+            validator.validateAfterSync(parent);
+        }
+        return true;
+    }
+    
     /**
      * Строит карту родителей на основе уровней задач.
      * Родитель - ближайшая предыдущая задача с уровнем на 1 меньше.
@@ -0,0 +1,182 @@
+package com.projectlibre.api.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для ProjectLockRegistry.
+ * Проверяют, что блокировки изолированы по проектам и читатели одного проекта не сериализуются.
+ */
+public class ProjectLockRegistryTest {
+
+    /**
+     * Запись в один проект не блокирует чтение другого.
+     */
+    @Test
+    public void testWriterDoesNotBlockOtherProject() throws Exception {
+        ProjectLockRegistry registry = new ProjectLockRegistry();
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> writer = executor.submit(() -> registry.executeWithWriteLock(1L, () -> {
+                writing.countDown();
+                await(release);
+            }));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            Future<String> reader = executor.submit(() -> registry.executeWithReadLock(2L, () -> "read"));
+            assertEquals("read", reader.get(5, TimeUnit.SECONDS), "Project 2 should be readable while project 1 is written");
+            assertTrue(registry.isWriteLocked(1L));
+            release.countDown();
+            writer.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Несколько читателей одного проекта работают одновременно.
+     */
+    @Test
+    public void testReadersOfSameProjectRunTogether() throws Exception {
+        ProjectLockRegistry registry = new ProjectLockRegistry();
+        int readers = 4;
+        CountDownLatch allInside = new CountDownLatch(readers);
+        AtomicInteger completed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            for (int i = 0; i < readers; i++) {
+                executor.submit(() -> registry.executeWithReadLock(1L, () -> {
+                    allInside.countDown();
+                    await(allInside);
+                    completed.incrementAndGet();
+                }));
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS), "Readers should not wait for each other");
+            assertEquals(readers, completed.get());
+            assertEquals(readers, registry.getReadStatistics().getCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Повышение блокировки чтения до записи запрещено, так как привело бы к взаимоблокировке.
+     */
+    @Test
+    public void testReadLockCannotBeUpgraded() {
+        ProjectLockRegistry registry = new ProjectLockRegistry();
+        assertThrows(IllegalStateException.class, () ->
+            registry.executeWithReadLock(1L, () -> registry.executeWithWriteLock(1L, () -> { })));
+        assertEquals("nested", registry.executeWithWriteLock(1L, () ->
+            registry.executeWithReadLock(1L, () -> "nested")), "A writer may read its own project");
+        assertTrue(registry.remove(1L));
+        assertEquals(0, registry.getProjectCount());
+        assertEquals(1, registry.getReadStatistics().getFailureCount());
+    }
+
+    /**
+     * Поколение записи растёт один раз на внешнюю секцию записи и не меняется при чтении.
+     */
+    @Test
+    public void testWriteGenerationCountsOutermostWrites() {
+        ProjectLockRegistry registry = new ProjectLockRegistry();
+        assertEquals(0, registry.getWriteGeneration(1L));
+        registry.executeWithWriteLock(1L, () -> registry.executeWithWriteLock(1L, () -> { }));
+        assertEquals(1, registry.getWriteGeneration(1L), "A nested write belongs to the outer one");
+        registry.executeWithReadLock(1L, () -> { });
+        assertEquals(1, registry.getWriteGeneration(1L));
+        assertEquals(0, registry.getWriteGeneration(2L));
+    }
+
+    /**
+     * Блокировка, которую держит любой поток, не удаляется, в том числе изнутри собственной секции.
+     */
+    @Test
+    public void testHeldLockIsKept() throws Exception {
+        ProjectLockRegistry registry = new ProjectLockRegistry();
+        assertFalse(registry.executeWithWriteLock(1L, () -> registry.remove(1L)), "Removed inside its own write");
+        assertFalse(registry.executeWithReadLock(1L, () -> registry.remove(1L)), "Removed inside a read");
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> registry.executeWithWriteLock(1L, () -> {
+                writing.countDown();
+                await(release);
+            }));
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+            assertFalse(registry.remove(1L), "Removed while another thread writes");
+            release.countDown();
+            writer.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+        assertEquals(1, registry.getProjectCount());
+        assertTrue(registry.remove(1L));
+        assertFalse(registry.remove(1L));
+    }
+
+    /**
+     * Удаление блокировки во время работы писателей не пускает двух писателей в проект одновременно.
+     */
+    @Test
+    public void testRemovalKeepsWritersExclusive() throws Exception {
+        ProjectLockRegistry registry = new ProjectLockRegistry();
+        int writers = 4;
+        int rounds = 2000;
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        try {
+            for (int i = 0; i < writers; i++) {
+                executor.submit(() -> {
+                    for (int round = 0; round < rounds; round++) {
+                        registry.executeWithWriteLock(1L, () -> {
+                            if (inside.incrementAndGet() > 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            Thread.yield();
+                            inside.decrementAndGet();
+                        });
+                    }
+                });
+            }
+            executor.submit(() -> {
+                for (int round = 0; round < rounds; round++) {
+                    if (registry.remove(1L)) {
+                        removed.incrementAndGet();
+                    }
+                    Thread.yield();
+                }
+            });
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            assertEquals(0, overlaps.get(), "Writers held different locks of the project");
+            assertTrue(removed.get() > 0, "The lock was never free to remove");
+            assertEquals(writers * rounds, registry.getWriteStatistics().getCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.projectlibre.api.readmodel;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.converter.CoreToApiConverter;
+import com.projectlibre.api.dto.ProjectDataDto;
+import com.projectlibre.api.session.GlobalSessionManager;
+import com.projectlibre.api.storage.CoreProjectBridge;
+import com.projectlibre.api.sync.ProjectSyncService;
+import com.projectlibre.api.test.scale.LargeProjectGenerator;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.ProjectFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для ProjectSnapshotStore.
+ * Проверяют, что опубликованные данные нельзя изменить, что одновременные читатели делят одну конвертацию
+ * и что удаление проекта не обгоняет идущую публикацию.
+ */
+public class ProjectSnapshotStoreTest {
+
+    private ProjectLockRegistry projectLocks;
+    private ProjectSnapshotStore store;
+    private Project project;
+    private Long projectId;
+
+    @BeforeEach
+    public void setUp() {
+        GlobalSessionManager sessionManager = new GlobalSessionManager();
+        if (!sessionManager.isInitialized()) {
+            sessionManager.initialize();
+        }
+        projectLocks = new ProjectLockRegistry();
+        store = new ProjectSnapshotStore(projectLocks);
+        project = ProjectFactory.getInstance().createProject();
+        project.setStart(LargeProjectGenerator.PROJECT_START);
+        LargeProjectGenerator generator = new LargeProjectGenerator(
+            new LargeProjectGenerator.Options().taskCount(200).resourceCount(5));
+        new ProjectSyncService().sync(project, generator.generateSyncRequest(1L));
+        CoreProjectBridge.getInstance().registerProject(project);
+        projectId = project.getUniqueId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        CoreProjectBridge.getInstance().unregisterProject(projectId);
+    }
+
+    /**
+     * Опубликованные данные только для чтения и сериализуются так же, как результат конвертера.
+     */
+    @Test
+    public void testPublishedDataIsReadOnlyCopy() throws Exception {
+        ProjectSnapshot snapshot = store.publish(projectId, project);
+        ProjectDataDto data = snapshot.getData();
+        ProjectDataDto.TaskDataDto task = data.getTasks().get(0);
+
+        assertThrows(UnsupportedOperationException.class, () -> data.setScheduleVersion(0L));
+        assertThrows(UnsupportedOperationException.class, () -> data.getTasks().clear());
+        assertThrows(UnsupportedOperationException.class, () -> task.setName("changed"));
+        assertThrows(UnsupportedOperationException.class, () -> task.getPredecessors().add("x"));
+        assertThrows(UnsupportedOperationException.class, () -> data.getResources().get(0).setMaxUnits(5));
+        if (!data.getCalendars().isEmpty()) {
+            boolean[] workingDays = data.getCalendars().get(0).getWorkingDays();
+            workingDays[0] = !workingDays[0];
+            assertNotEquals(workingDays[0], data.getCalendars().get(0).getWorkingDays()[0]);
+        }
+        assertEquals(snapshot.getScheduleVersion(), data.getScheduleVersion());
+
+        ProjectDataDto expected = new CoreToApiConverter().convert(project);
+        expected.setScheduleVersion(snapshot.getScheduleVersion());
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(data));
+    }
+
+    /**
+     * Читатели, пришедшие во время конвертации, получают её результат, а не запускают свою.
+     */
+    @Test
+    public void testConcurrentReadersShareOneConversion() throws Exception {
+        ProjectSnapshot first = store.publish(projectId, project);
+        projectLocks.executeWithWriteLock(projectId, () -> project.setName("Renamed"));
+
+        int readers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(readers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<ProjectSnapshot>> results = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return store.get(projectId, project);
+                }));
+            }
+            start.countDown();
+            ProjectSnapshot shared = results.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<ProjectSnapshot> result : results) {
+                assertSame(shared, result.get(30, TimeUnit.SECONDS));
+            }
+            assertTrue(shared.getScheduleVersion() > first.getScheduleVersion());
+            assertEquals("Renamed", shared.getData().getProjectName());
+            assertEquals(2, store.getPublicationCount(), "One conversion per change");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Публикация, идущая под блокировкой чтения во время удаления, не возвращает снимок удалённого проекта.
+     */
+    @Test
+    public void testRemoveWaitsForPublicationInProgress() throws Exception {
+        store.publish(projectId, project);
+        projectLocks.executeWithWriteLock(projectId, () -> project.setName("Renamed"));
+
+        Thread remover = new Thread(() -> store.remove(projectId), "snapshot-remover");
+        ProjectSnapshot published = projectLocks.executeWithReadLock(projectId, () -> {
+            remover.start();
+            // wait until the removal either blocks on the project lock or has already run
+            while (remover.getState() != Thread.State.WAITING && remover.getState() != Thread.State.TERMINATED) {
+                Thread.onSpinWait();
+            }
+            return store.publish(projectId, project);
+        });
+        remover.join(30000);
+
+        assertFalse(remover.isAlive());
+        assertEquals("Renamed", published.getData().getProjectName());
+        assertTrue(store.getLatest(projectId).isEmpty(), "Snapshot published again after remove");
+        assertEquals(0, store.getSize());
+    }
+}
@@ -0,0 +1,166 @@
+package com.projectlibre.api.recalculation;
+
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshot;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
+import com.projectlibre.api.session.GlobalSessionManager;
+import com.projectlibre.api.storage.CoreProjectBridge;
+import com.projectlibre.api.sync.ProjectSyncService;
+import com.projectlibre.api.test.scale.LargeProjectGenerator;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.ProjectFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для RecalculationScheduler.
+ * Проверяют слияние частых запросов и ограничение "один прогон в работе + один в очереди".
+ */
+public class RecalculationSchedulerTest {
+
+    private ProjectLockRegistry projectLocks;
+    private ProjectSnapshotStore snapshotStore;
+    private RecalculationScheduler scheduler;
+    private Long projectId;
+
+    @BeforeEach
+    public void setUp() {
+        GlobalSessionManager sessionManager = new GlobalSessionManager();
+        if (!sessionManager.isInitialized()) {
+            sessionManager.initialize();
+        }
+        projectLocks = new ProjectLockRegistry();
+        snapshotStore = new ProjectSnapshotStore(projectLocks);
+        Project project = ProjectFactory.getInstance().createProject();
+        project.setStart(LargeProjectGenerator.PROJECT_START);
+        LargeProjectGenerator generator = new LargeProjectGenerator(
+            new LargeProjectGenerator.Options().taskCount(100).resourceCount(5));
+        new ProjectSyncService().sync(project, generator.generateSyncRequest(1L));
+        CoreProjectBridge.getInstance().registerProject(project);
+        projectId = project.getUniqueId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdown();
+        CoreProjectBridge.getInstance().unregisterProject(projectId);
+    }
+
+    /**
+     * Серия запросов внутри окна обслуживается одним прогоном CPM.
+     */
+    @Test
+    public void testBurstIsCoalescedIntoOneRun() throws Exception {
+        scheduler = new RecalculationScheduler(projectLocks, snapshotStore, 2, 200);
+        long first = scheduler.request(projectId);
+        long last = first;
+        for (int i = 0; i < 19; i++) {
+            last = scheduler.request(projectId);
+        }
+        ProjectSnapshot lastSnapshot = scheduler.await(projectId, last).get(30, TimeUnit.SECONDS);
+        ProjectSnapshot firstSnapshot = scheduler.await(projectId, first).get(30, TimeUnit.SECONDS);
+
+        assertEquals(20, scheduler.getRequestCount());
+        assertEquals(1, scheduler.getRunCount(), "Burst should be served by one run");
+        assertSame(lastSnapshot, firstSnapshot);
+        assertEquals(lastSnapshot.getScheduleVersion(), lastSnapshot.getData().getScheduleVersion());
+        assertEquals(last, scheduler.getCompletedSequence(projectId));
+    }
+
+    /**
+     * Запросы, пришедшие во время прогона, копятся в один следующий прогон.
+     */
+    @Test
+    public void testRequestsDuringRunShareOnePendingRun() throws Exception {
+        scheduler = new RecalculationScheduler(projectLocks, snapshotStore, 2, 0);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService editor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> edit = editor.submit(() -> projectLocks.executeWithWriteLock(projectId, () -> {
+                locked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            long inFlight = scheduler.request(projectId);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (scheduler.getQueuedCount() > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            long pending = inFlight;
+            for (int i = 0; i < 10; i++) {
+                pending = scheduler.request(projectId);
+            }
+            CompletableFuture<ProjectSnapshot> inFlightResult = scheduler.await(projectId, inFlight);
+            CompletableFuture<ProjectSnapshot> pendingResult = scheduler.await(projectId, pending);
+            release.countDown();
+            edit.get(5, TimeUnit.SECONDS);
+
+            ProjectSnapshot second = pendingResult.get(30, TimeUnit.SECONDS);
+            ProjectSnapshot first = inFlightResult.get(30, TimeUnit.SECONDS);
+            assertEquals(2, scheduler.getRunCount(), "One run in flight and one pending");
+            assertTrue(second.getScheduleVersion() > first.getScheduleVersion());
+        } finally {
+            release.countDown();
+            editor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ошибка прогона передаётся ожидающим, неизвестный номер отклоняется.
+     */
+    @Test
+    public void testFailuresReachWaiters() throws Exception {
+        scheduler = new RecalculationScheduler(projectLocks, snapshotStore, 1, 0);
+        long sequence = scheduler.request(-1L);
+        ExecutionException failure = assertThrows(ExecutionException.class,
+            () -> scheduler.await(-1L, sequence).get(30, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalArgumentException);
+        assertEquals(1, scheduler.getFailureCount());
+        assertTrue(scheduler.await(-1L, sequence + 1).isCompletedExceptionally());
+    }
+
+    /**
+     * Error внутри прогона (не RuntimeException) тоже завершает ожидающих и не блокирует следующие прогоны.
+     */
+    @Test
+    public void testErrorInRunReleasesQueue() throws Exception {
+        AtomicBoolean failNext = new AtomicBoolean(true);
+        ProjectSnapshotStore failingStore = new ProjectSnapshotStore(projectLocks) {
+            @Override
+            public ProjectSnapshot publish(Long id, Project project) {
+                if (failNext.getAndSet(false)) {
+                    throw new AssertionError("publish failed");
+                }
+                return super.publish(id, project);
+            }
+        };
+        scheduler = new RecalculationScheduler(projectLocks, failingStore, 1, 0);
+
+        ExecutionException failure = assertThrows(ExecutionException.class,
+            () -> scheduler.recalculate(projectId).get(30, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof AssertionError);
+        assertEquals(1, scheduler.getFailureCount());
+
+        ProjectSnapshot snapshot = scheduler.recalculate(projectId).get(30, TimeUnit.SECONDS);
+        assertNotNull(snapshot);
+        assertEquals(1, scheduler.getRunCount());
+    }
+}
@@ -0,0 +1,96 @@
+package com.projectlibre.api.rest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для DiagnosticsRestController.
+ * Проверяют, что пик кучи и выделенные байты считаются по всей куче, в том числе через сборки мусора.
+ */
+public class DiagnosticsRestControllerTest {
+
+    private static final int CHUNK = 1024 * 1024;
+    private static final int CHUNKS = 64;
+
+    private final DiagnosticsRestController controller = new DiagnosticsRestController();
+
+    @AfterEach
+    public void tearDown() {
+        controller.shutdown();
+    }
+
+    /**
+     * Выделенные байты растут на объём выделенных объектов, даже если сборка мусора их уже освободила.
+     */
+    @Test
+    public void testAllocatedBytesCountFreedObjects() throws Exception {
+        long before = sample().get("allocatedBytes");
+        assertTrue(before > 0, "Collection notifications are not available");
+        long allocated = allocateGarbage();
+        System.gc();
+        long expected = before + allocated / 2; // the usage the collectors report is coarser than the arrays
+        long after = awaitAtLeast("allocatedBytes", expected);
+        assertTrue(after >= expected, "Allocated " + allocated + " bytes, counted " + (after - before));
+    }
+
+    /**
+     * Пик кучи не меньше текущего использования и после сброса начинается с него.
+     */
+    @Test
+    public void testPeakCoversUsageBeforeCollection() throws Exception {
+        Map<String, Long> reset = toLongs(controller.resetPeak().getBody());
+        assertTrue(reset.get("heapPeak") >= reset.get("heapUsed"));
+        byte[][] held = new byte[CHUNKS][];
+        for (int i = 0; i < CHUNKS; i++) {
+            held[i] = new byte[CHUNK];
+        }
+        long heldBytes = (long) CHUNKS * CHUNK;
+        long expected = reset.get("heapUsed") + heldBytes / 2;
+        Map<String, Long> withHeld = sample();
+        assertTrue(withHeld.get("heapPeak") >= withHeld.get("heapUsed"));
+        held = null;
+        System.gc();
+        assertTrue(awaitAtLeast("heapPeak", expected) >= expected, "Peak lost the released arrays");
+    }
+
+    private long allocateGarbage() {
+        long total = 0;
+        for (int i = 0; i < CHUNKS; i++) {
+            byte[] garbage = new byte[CHUNK];
+            garbage[i] = 1;
+            total += garbage.length;
+        }
+        return total;
+    }
+
+    /**
+     * Collection notifications arrive on their own thread, so the figure may lag a little behind
+     */
+    private long awaitAtLeast(String figure, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        long value = sample().get(figure);
+        while (value < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            value = sample().get(figure);
+        }
+        return value;
+    }
+
+    private Map<String, Long> sample() {
+        return toLongs(controller.memory().getBody());
+    }
+
+    private static Map<String, Long> toLongs(Map<String, Object> body) {
+        assertNotNull(body);
+        Map<String, Long> values = new HashMap<>();
+        for (Map.Entry<String, Object> entry : body.entrySet()) {
+            values.put(entry.getKey(), ((Number) entry.getValue()).longValue());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,103 @@
+package com.projectlibre.api.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlibre.api.concurrent.ProjectLockRegistry;
+import com.projectlibre.api.readmodel.ProjectSnapshotStore;
+import com.projectlibre.api.recalculation.RecalculationScheduler;
+import com.projectlibre.api.session.GlobalSessionManager;
+import com.projectlibre.api.streaming.ChangeStreamHub;
+import com.projectlibre.api.streaming.DeltaTracker;
+import com.projectlibre.api.streaming.ProjectChangeFeed;
+import com.projectlibre.api.sync.ChangeVersionRegistry;
+import com.projectlibre.api.sync.ProjectSyncService;
+import com.projectlibre.api.test.scale.LargeProjectGenerator;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.ProjectFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для ProjectStateCleanup.
+ * Проверяют, что после unregisterProject сервисы не держат состояние выгруженного проекта.
+ */
+public class ProjectStateCleanupTest {
+
+    private ProjectLockRegistry projectLocks;
+    private ProjectSnapshotStore snapshotStore;
+    private RecalculationScheduler scheduler;
+    private ChangeVersionRegistry changeVersions;
+    private DeltaTracker changeLog;
+    private ProjectChangeFeed changeFeed;
+    private ChangeStreamHub changeStreams;
+    private ProjectStateCleanup cleanup;
+    private Project project;
+    private Long projectId;
+
+    @BeforeEach
+    public void setUp() {
+        GlobalSessionManager sessionManager = new GlobalSessionManager();
+        if (!sessionManager.isInitialized()) {
+            sessionManager.initialize();
+        }
+        projectLocks = new ProjectLockRegistry();
+        snapshotStore = new ProjectSnapshotStore(projectLocks);
+        scheduler = new RecalculationScheduler(projectLocks, snapshotStore, 1, 0);
+        changeVersions = new ChangeVersionRegistry();
+        changeLog = new DeltaTracker(100);
+        changeFeed = new ProjectChangeFeed(snapshotStore, changeLog, new ObjectMapper());
+        changeStreams = new ChangeStreamHub(changeLog, 1, 4, 100, 60000, 0);
+        cleanup = new ProjectStateCleanup(projectLocks, snapshotStore, scheduler, changeVersions, changeFeed, changeStreams);
+        project = ProjectFactory.getInstance().createProject();
+        project.setStart(LargeProjectGenerator.PROJECT_START);
+        LargeProjectGenerator generator = new LargeProjectGenerator(
+            new LargeProjectGenerator.Options().taskCount(50).resourceCount(3));
+        new ProjectSyncService().sync(project, generator.generateSyncRequest(1L));
+        CoreProjectBridge.getInstance().registerProject(project);
+        projectId = project.getUniqueId();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cleanup.shutdown();
+        scheduler.shutdown();
+        changeStreams.shutdown();
+        CoreProjectBridge.getInstance().unregisterProject(projectId);
+    }
+
+    /**
+     * Снимок, очередь пересчёта, версии сущностей, журнал изменений, подписки и блокировка выгруженного проекта удаляются.
+     */
+    @Test
+    public void testUnregisterDropsProjectState() throws Exception {
+        snapshotStore.publish(projectId, project);
+        scheduler.recalculate(projectId).get(30, TimeUnit.SECONDS);
+        changeVersions.markAllChanged(projectId);
+        assertEquals(1, changeVersions.getProjectCount());
+        projectLocks.executeWithWriteLock(projectId, () -> project.setName("Renamed"));
+        snapshotStore.publish(projectId, project);
+        changeStreams.subscribe(projectId, changeLog.getLatestSequence(projectId));
+        assertEquals(1, changeFeed.getProjectCount());
+        assertEquals(1, changeLog.getProjectCount());
+        assertEquals(1, changeStreams.getSubscriberCount());
+        assertTrue(snapshotStore.getLatest(projectId).isPresent());
+        assertEquals(1, scheduler.getProjectCount());
+        assertEquals(1, projectLocks.getProjectCount());
+
+        CoreProjectBridge.getInstance().unregisterProject(projectId);
+
+        assertFalse(snapshotStore.getLatest(projectId).isPresent());
+        assertEquals(0, snapshotStore.getSize());
+        assertEquals(0, scheduler.getProjectCount());
+        assertEquals(0, scheduler.getCompletedSequence(projectId));
+        assertEquals(0, changeVersions.getProjectCount());
+        assertEquals(0, changeFeed.getProjectCount());
+        assertEquals(0, changeLog.getProjectCount());
+        assertEquals(0, changeStreams.getSubscriberCount());
+        assertEquals(0, projectLocks.getProjectCount());
+    }
+}
@@ -0,0 +1,119 @@
+package com.projectlibre.api.streaming;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для ChangeStreamHub.
+ * Проверяют, что клиент, который не читает поток, не задерживает остальных подписчиков.
+ */
+public class ChangeStreamHubTest {
+
+    private static final Long STALLED_PROJECT = 1L;
+    private static final Long LIVE_PROJECT = 2L;
+
+    private final DeltaTracker changeLog = new DeltaTracker(4);
+    private final CountDownLatch stalled = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final BlockingQueue<String> stalledEvents = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> liveEvents = new LinkedBlockingQueue<>();
+    private final AtomicInteger emitters = new AtomicInteger();
+
+    /** One drain thread; the first subscriber's sends block until released, as those of a client that doesn't read */
+    private final ChangeStreamHub hub = new ChangeStreamHub(changeLog, 1, 4, 100, 60000, 0) {
+        @Override
+        SseEmitter createEmitter(long timeoutMs) {
+            boolean first = emitters.getAndIncrement() == 0;
+            return new SseEmitter(timeoutMs) {
+                @Override
+                public synchronized void send(SseEventBuilder builder) { // held like the real send
+                    if (first) {
+                        stalled.countDown();
+                        await(release);
+                    }
+                    (first ? stalledEvents : liveEvents).add(text(builder));
+                }
+            };
+        }
+    };
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        hub.shutdown();
+    }
+
+    /**
+     * Изменения доставляются подписчику, пока отправка другому подписчику заблокирована,
+     * а отставший подписчик после разблокировки получает resync.
+     */
+    @Test
+    public void testStalledSubscriberDoesNotBlockOthers() throws Exception {
+        hub.subscribe(STALLED_PROJECT, changeLog.getLatestSequence(STALLED_PROJECT));
+        assertTrue(stalled.await(5, TimeUnit.SECONDS), "The first heartbeat should block");
+
+        hub.subscribe(LIVE_PROJECT, changeLog.getLatestSequence(LIVE_PROJECT));
+        assertTrue(poll(liveEvents).contains("heartbeat"));
+        changeLog.trackChange(LIVE_PROJECT, "task", "T1", "name", "Old", "New");
+        assertTrue(poll(liveEvents).contains("event:" + ChangeStreamHub.CHANGES_EVENT),
+            "Changes should be sent while another subscriber is stalled");
+
+        for (int i = 0; i < 6; i++) {
+            changeLog.trackChange(STALLED_PROJECT, "task", "T" + i, "name", "Old", "New");
+        }
+        assertTrue(hub.getActiveDrainCount() >= 1, "The stalled drain holds its own thread");
+        release.countDown();
+        assertTrue(poll(stalledEvents).contains("heartbeat"));
+        assertTrue(poll(stalledEvents).contains("event:" + ChangeStreamHub.RESYNC_EVENT),
+            "The stalled subscriber fell out of the log");
+        assertEquals(1, hub.getResyncCount());
+    }
+
+    /**
+     * Закрытие потоков выгруженного проекта не ждёт заблокированной отправки.
+     */
+    @Test
+    public void testClosingStalledProjectDoesNotWait() throws Exception {
+        hub.subscribe(STALLED_PROJECT, changeLog.getLatestSequence(STALLED_PROJECT));
+        assertTrue(stalled.await(5, TimeUnit.SECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> hub.closeProject(STALLED_PROJECT));
+        assertEquals(0, hub.getSubscriberCount());
+    }
+
+    private static String poll(BlockingQueue<String> events) throws InterruptedException {
+        String event = events.poll(5, TimeUnit.SECONDS);
+        assertNotNull(event, "No event sent");
+        return event;
+    }
+
+    private static String text(SseEmitter.SseEventBuilder builder) {
+        StringBuilder text = new StringBuilder();
+        for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+            if (part.getMediaType() == null || MediaType.TEXT_PLAIN.includes(part.getMediaType())) {
+                text.append(part.getData());
+            }
+        }
+        return text.toString();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS); // far longer than the checks wait; tearDown releases it
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
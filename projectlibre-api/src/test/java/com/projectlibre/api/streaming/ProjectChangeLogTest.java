@@ -0,0 +1,197 @@
+package com.projectlibre.api.streaming;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit тесты для ProjectChangeLog.
+ *
+ * Проверяют нумерацию изменений, вытеснение устаревших изменений поля,
+ * ограничение размера журнала с требованием resync и поиск sequence по scheduleVersion.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@DisplayName("ProjectChangeLog Tests")
+class ProjectChangeLogTest {
+
+    private static final Long PROJECT_ID = 1L;
+
+    private static DeltaUpdate update(String taskId, String field, Object value) {
+        return new DeltaUpdate("task", taskId, field, null, value);
+    }
+
+    private static void append(ProjectChangeLog changeLog, long version, DeltaUpdate... updates) {
+        changeLog.append(Arrays.asList(updates), version);
+    }
+
+    @Nested
+    @DisplayName("Чтение после sequence")
+    class ReadTests {
+
+        @Test
+        @DisplayName("Изменения нумеруются подряд и читаются после последней полученной sequence")
+        void shouldReadChangesAfterSequence() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 16);
+            append(changeLog, 1, update("T1", "name", "A"), update("T2", "name", "B"));
+            append(changeLog, 2, update("T3", "name", "C"));
+
+            ChangeBatch batch = changeLog.readSince(1, 10);
+
+            assertFalse(batch.isResyncRequired());
+            assertEquals(2, batch.getChanges().size());
+            assertEquals(2, batch.getChanges().get(0).getSequence());
+            assertEquals(3, batch.getToSequence());
+            assertFalse(batch.hasMore());
+        }
+
+        @Test
+        @DisplayName("Ограничение limit оставляет остаток для следующего чтения")
+        void shouldSplitIntoBatches() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 16);
+            for (int i = 0; i < 5; i++) {
+                append(changeLog, 1, update("T" + i, "name", "N" + i));
+            }
+
+            ChangeBatch first = changeLog.readSince(0, 2);
+            ChangeBatch rest = changeLog.readSince(first.getToSequence(), 10);
+
+            assertEquals(2, first.getToSequence());
+            assertTrue(first.hasMore());
+            assertEquals(3, rest.getChanges().size());
+            assertEquals(5, rest.getToSequence());
+        }
+
+        @Test
+        @DisplayName("Sequence из будущего требует resync")
+        void shouldRequireResyncForUnknownSequence() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 16);
+            append(changeLog, 1, update("T1", "name", "A"));
+
+            assertTrue(changeLog.readSince(5, 10).isResyncRequired());
+        }
+    }
+
+    @Nested
+    @DisplayName("Вытеснение изменений")
+    class SupersedeTests {
+
+        @Test
+        @DisplayName("Новое значение поля вытесняет предыдущее")
+        void shouldKeepOnlyLatestValueOfField() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 16);
+            append(changeLog, 1, update("T1", "progress", 10.0), update("T1", "name", "A"));
+            append(changeLog, 2, update("T1", "progress", 20.0));
+
+            ChangeBatch batch = changeLog.readSince(0, 10);
+
+            assertEquals(2, batch.getChanges().size());
+            assertEquals("name", batch.getChanges().get(0).getField());
+            assertEquals(20.0, batch.getChanges().get(1).getValue());
+            assertEquals(1, changeLog.getSupersededCount());
+        }
+
+        @Test
+        @DisplayName("Удаление вытесняет все изменения сущности")
+        void shouldDropChangesOfDeletedEntity() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 16);
+            changeLog.append(Collections.singletonList(DeltaUpdate.createInsert("task", "T1", "dto")), 1L);
+            append(changeLog, 2, update("T1", "name", "A"));
+            changeLog.append(Collections.singletonList(DeltaUpdate.createDelete("task", "T1")), 3L);
+
+            ChangeBatch batch = changeLog.readSince(0, 10);
+
+            assertEquals(1, batch.getChanges().size());
+            assertEquals(DeltaUpdate.ChangeOperation.DELETE, batch.getChanges().get(0).getOperation());
+        }
+
+        @Test
+        @DisplayName("Повторные изменения одного поля не переполняют журнал")
+        void shouldNotEvictWhileOnlyFieldsRepeat() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 8);
+            for (int i = 0; i < 100; i++) {
+                append(changeLog, i, update("T1", "progress", (double) i), update("T2", "progress", (double) i));
+            }
+
+            assertEquals(0, changeLog.getEvictedCount());
+            assertEquals(2, changeLog.getSize());
+            assertFalse(changeLog.readSince(0, 10).isResyncRequired());
+        }
+
+        @Test
+        @DisplayName("Компактные изменения содержат последнее значение каждого поля")
+        void shouldCompactChanges() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 16);
+            append(changeLog, 1, update("T1", "name", "A"), update("T2", "name", "B"));
+            append(changeLog, 2, update("T1", "name", "C"));
+
+            Map<String, Map<String, Map<String, Object>>> compact = changeLog.compactSince(0);
+
+            assertEquals("C", compact.get("task").get("T1").get("name"));
+            assertEquals("B", compact.get("task").get("T2").get("name"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Ограничение размера")
+    class EvictionTests {
+
+        @Test
+        @DisplayName("Отставший клиент получает resync, догнавший продолжает чтение")
+        void shouldRequireResyncAfterEviction() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 4);
+            for (int i = 0; i < 10; i++) {
+                append(changeLog, i + 1, update("T" + i, "name", "N" + i));
+            }
+
+            assertEquals(4, changeLog.getSize());
+            assertEquals(6, changeLog.getEvictedCount());
+            assertEquals(6, changeLog.getTruncatedThrough());
+            assertTrue(changeLog.readSince(3, 10).isResyncRequired());
+            assertTrue(changeLog.compactSince(3) == null);
+
+            ChangeBatch batch = changeLog.readSince(6, 10);
+            assertFalse(batch.isResyncRequired());
+            assertEquals(4, batch.getChanges().size());
+            assertEquals(10, batch.getLatestSequence());
+        }
+    }
+
+    @Nested
+    @DisplayName("Поиск по scheduleVersion")
+    class VersionTests {
+
+        @Test
+        @DisplayName("Клиент со снимком версии продолжает с последнего изменения этой версии")
+        void shouldResolveSequenceAtVersion() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 16);
+            append(changeLog, 5, update("T1", "name", "A"), update("T2", "name", "B"));
+            append(changeLog, 8, update("T3", "name", "C"));
+
+            assertEquals(0, changeLog.sequenceAtVersion(3));
+            assertEquals(2, changeLog.sequenceAtVersion(5));
+            assertEquals(2, changeLog.sequenceAtVersion(7));
+            assertEquals(3, changeLog.sequenceAtVersion(9));
+        }
+
+        @Test
+        @DisplayName("Версия старше журнала требует resync")
+        void shouldRequireResyncForEvictedVersion() {
+            ProjectChangeLog changeLog = new ProjectChangeLog(PROJECT_ID, 2);
+            append(changeLog, 1, update("T1", "name", "A"));
+            append(changeLog, 2, update("T2", "name", "B"));
+            append(changeLog, 3, update("T3", "name", "C"));
+
+            assertEquals(-1, changeLog.sequenceAtVersion(0));
+            assertEquals(1, changeLog.sequenceAtVersion(1));
+            assertEquals(3, changeLog.sequenceAtVersion(3));
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.projectlibre.api.sync;
+
+import com.projectlibre.api.dto.FrontendResourceDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.AssignmentChangeDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.ChangeOperation;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.DependencyChangeDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.ResourceChangeDto;
+import com.projectlibre.api.dto.ProjectDeltaSyncRequestDto.TaskChangeDto;
+import com.projectlibre.api.dto.TaskSyncRequestDto.FrontendTaskDto;
+import com.projectlibre.api.session.GlobalSessionManager;
+import com.projectlibre.api.test.scale.LargeProjectGenerator;
+import com.projectlibre1.pm.assignment.Assignment;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.ProjectFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты для DeltaSyncService.
+ * Проверяют применение изменений по ID и отклонение изменений, основанных на устаревшей версии.
+ */
+public class DeltaSyncServiceTest {
+
+    private static final long DAY = 24L * 60 * 60 * 1000;
+
+    private ChangeVersionRegistry versions;
+    private Project project;
+    private Long projectId;
+
+    @BeforeEach
+    public void setUp() {
+        GlobalSessionManager sessionManager = new GlobalSessionManager();
+        if (!sessionManager.isInitialized()) {
+            sessionManager.initialize();
+        }
+        versions = new ChangeVersionRegistry();
+        project = ProjectFactory.getInstance().createProject();
+        project.setStart(LargeProjectGenerator.PROJECT_START);
+        LargeProjectGenerator generator = new LargeProjectGenerator(new LargeProjectGenerator.Options()
+            .taskCount(20).wbsDepth(1).dependencyDensity(0).resourceCount(2).assignmentsPerTask(0));
+        new ProjectSyncService().sync(project, generator.generateSyncRequest(1L));
+        projectId = project.getUniqueId();
+        versions.commit(versions.markAllChanged(projectId), 1);
+    }
+
+    /**
+     * Новая задача под новым родителем, связь на неё и назначение нового ресурса применяются одним запросом.
+     */
+    @Test
+    public void appliesCreatedTasksDependenciesAndAssignments() {
+        ProjectDeltaSyncRequestDto request = request(1L);
+        request.getTasks().add(taskChange(ChangeOperation.CREATE, "PHASE", null, row("Phase", 1)));
+        request.getTasks().add(taskChange(ChangeOperation.CREATE, "NEW-1", "PHASE", row("New 1", 3)));
+        request.getTasks().add(taskChange(ChangeOperation.UPDATE, "TASK-2", null, row("Renamed 2", 2)));
+        request.getDependencies().add(dependencyChange(ChangeOperation.CREATE, "TASK-1", "NEW-1"));
+
+        ResourceChangeDto resource = new ResourceChangeDto();
+        resource.setOp(ChangeOperation.CREATE);
+        resource.setId("RES-NEW");
+        FrontendResourceDto resourceRow = new FrontendResourceDto();
+        resourceRow.setName("New resource");
+        resourceRow.setType("WORK");
+        resourceRow.setMaxUnits(1.0);
+        resource.setResource(resourceRow);
+        request.getResources().add(resource);
+        AssignmentChangeDto assignment = new AssignmentChangeDto();
+        assignment.setOp(ChangeOperation.CREATE);
+        assignment.setTaskId("NEW-1");
+        assignment.setResourceId("RES-NEW");
+        request.getAssignments().add(assignment);
+
+        DeltaSyncResult result = new DeltaSyncService(versions).apply(projectId, project, request);
+
+        assertTrue(result.isSuccess(), result.getErrorMessage());
+        assertEquals(6, result.getAppliedCount());
+        NormalTask phase = find("PHASE");
+        NormalTask created = find("NEW-1");
+        assertNotNull(created);
+        assertSame(phase, created.getWbsParentTask());
+        assertTrue(phase.isSummary());
+        assertEquals("Renamed 2", find("TASK-2").getName());
+        assertNotNull(created.getPredecessorList().findLeft(find("TASK-1")));
+
+        String coreResourceId = result.getResourceIdMapping().get("RES-NEW");
+        assertNotNull(coreResourceId);
+        boolean assigned = false;
+        for (Iterator<?> it = created.getAssignments().iterator(); it.hasNext(); ) {
+            Assignment a = (Assignment) it.next();
+            assigned |= !a.isDefault() && String.valueOf(a.getResource().getUniqueId()).equals(coreResourceId);
+        }
+        assertTrue(assigned);
+        assertEquals(Long.MAX_VALUE, versions.getVersion(projectId, ChangeVersionRegistry.taskKey("NEW-1")));
+    }
+
+    /**
+     * Изменение задачи, изменённой после baseVersion, отклоняет весь запрос без изменений в проекте.
+     */
+    @Test
+    public void rejectsStaleChangesWithoutApplyingAny() {
+        versions.commit(versions.markChanged(projectId,
+            Collections.singletonList(ChangeVersionRegistry.taskKey("TASK-3"))), 5);
+
+        ProjectDeltaSyncRequestDto request = request(4L);
+        request.getTasks().add(taskChange(ChangeOperation.UPDATE, "TASK-4", null, row("Renamed 4", 2)));
+        request.getTasks().add(taskChange(ChangeOperation.UPDATE, "TASK-3", null, row("Renamed 3", 2)));
+        request.getTasks().add(taskChange(ChangeOperation.DELETE, "MISSING", null, null));
+
+        DeltaSyncResult result = new DeltaSyncService(versions).apply(projectId, project, request);
+
+        assertFalse(result.isSuccess());
+        assertNull(result.getTicket());
+        assertEquals(2, result.getConflicts().size());
+        assertEquals("TASK-3", result.getConflicts().get(0).getId());
+        assertEquals(Long.valueOf(5), result.getConflicts().get(0).getCurrentVersion());
+        assertEquals("MISSING", result.getConflicts().get(1).getId());
+        assertEquals("Task 4", find("TASK-4").getName());
+
+        request.setBaseVersion(5L);
+        request.getTasks().remove(2);
+        assertTrue(new DeltaSyncService(versions).apply(projectId, project, request).isSuccess());
+        assertEquals("Renamed 4", find("TASK-4").getName());
+    }
+
+    /**
+     * Тикет, оставшийся после сбоя записи, фиксируется следующей версией: он больше не отклоняет изменения.
+     */
+    @Test
+    public void pendingTicketCommittedAfterFailureStopsRejecting() {
+        ChangeVersionRegistry.Ticket failed = versions.markAllChanged(projectId);
+        ProjectDeltaSyncRequestDto request = request(4L);
+        request.getTasks().add(taskChange(ChangeOperation.UPDATE, "TASK-4", null, row("Renamed 4", 2)));
+        assertFalse(new DeltaSyncService(versions).apply(projectId, project, request).isSuccess());
+
+        versions.commit(failed, 5);
+        versions.commit(failed, 9); // committed already: nothing changes
+        assertEquals(5, versions.getVersion(projectId, ChangeVersionRegistry.taskKey("TASK-4")));
+        assertFalse(new DeltaSyncService(versions).apply(projectId, project, request).isSuccess());
+        request.setBaseVersion(5L);
+        assertTrue(new DeltaSyncService(versions).apply(projectId, project, request).isSuccess());
+        assertEquals("Renamed 4", find("TASK-4").getName());
+    }
+
+    /**
+     * Запрос, последнее изменение которого Core не примет (циклическая связь), отклоняется до изменения проекта.
+     */
+    @Test
+    public void rejectsInapplicableChangesWithoutApplyingAny() {
+        int taskCount = project.getTasks().size();
+        ProjectDeltaSyncRequestDto request = request(1L);
+        request.getTasks().add(taskChange(ChangeOperation.CREATE, "NEW-1", null, row("New 1", 1)));
+        request.getTasks().add(taskChange(ChangeOperation.UPDATE, "TASK-2", null, row("Renamed 2", 2)));
+        request.getDependencies().add(dependencyChange(ChangeOperation.CREATE, "TASK-1", "TASK-2"));
+        request.getDependencies().add(dependencyChange(ChangeOperation.CREATE, "TASK-2", "NEW-1"));
+        request.getDependencies().add(dependencyChange(ChangeOperation.CREATE, "NEW-1", "TASK-1"));
+
+        DeltaSyncResult result = new DeltaSyncService(versions).apply(projectId, project, request);
+
+        assertFalse(result.isSuccess());
+        assertNull(result.getTicket());
+        assertTrue(result.getErrorMessage().contains("NEW-1->TASK-1"), result.getErrorMessage());
+        assertEquals(taskCount, project.getTasks().size());
+        assertNull(find("NEW-1"));
+        assertEquals("Task 2", find("TASK-2").getName());
+        assertTrue(find("TASK-2").getPredecessorList().isEmpty());
+        assertEquals(1L, versions.getVersion(projectId, ChangeVersionRegistry.taskKey("TASK-2")));
+
+        request.getDependencies().remove(2);
+        DeltaSyncResult applied = new DeltaSyncService(versions).apply(projectId, project, request);
+        assertTrue(applied.isSuccess(), applied.getErrorMessage());
+        assertNotNull(find("NEW-1").getPredecessorList().findLeft(find("TASK-2")));
+    }
+
+    /**
+     * Удаление родителя удаляет подзадачи; их ID больше не находятся, связи с ними удаляются.
+     */
+    @Test
+    public void deletesTaskWithSubtasks() {
+        ProjectDeltaSyncRequestDto create = request(1L);
+        create.getTasks().add(taskChange(ChangeOperation.CREATE, "PHASE", null, row("Phase", 1)));
+        create.getTasks().add(taskChange(ChangeOperation.CREATE, "CHILD", "PHASE", row("Child", 1)));
+        create.getDependencies().add(dependencyChange(ChangeOperation.CREATE, "CHILD", "TASK-5"));
+        DeltaSyncResult created = new DeltaSyncService(versions).apply(projectId, project, create);
+        assertTrue(created.isSuccess(), created.getErrorMessage());
+        versions.commit(created.getTicket(), 2);
+
+        ProjectDeltaSyncRequestDto delete = request(2L);
+        delete.getTasks().add(taskChange(ChangeOperation.DELETE, "PHASE", null, null));
+        DeltaSyncResult deleted = new DeltaSyncService(versions).apply(projectId, project, delete);
+
+        assertTrue(deleted.isSuccess(), deleted.getErrorMessage());
+        assertNull(find("PHASE"));
+        assertNull(find("CHILD"));
+        assertTrue(find("TASK-5").getPredecessorList().isEmpty());
+    }
+
+    private NormalTask find(String id) {
+        return versions.getTaskIndex(projectId).find(project, id);
+    }
+
+    private ProjectDeltaSyncRequestDto request(Long baseVersion) {
+        ProjectDeltaSyncRequestDto request = new ProjectDeltaSyncRequestDto();
+        request.setProjectId(projectId);
+        request.setBaseVersion(baseVersion);
+        return request;
+    }
+
+    private static TaskChangeDto taskChange(ChangeOperation op, String id, String parentId, FrontendTaskDto row) {
+        TaskChangeDto change = new TaskChangeDto();
+        change.setOp(op);
+        change.setId(id);
+        change.setParentId(parentId);
+        change.setTask(row);
+        return change;
+    }
+
+    private static DependencyChangeDto dependencyChange(ChangeOperation op, String predecessorId,
+                                                        String successorId) {
+        DependencyChangeDto change = new DependencyChangeDto();
+        change.setOp(op);
+        change.setPredecessorId(predecessorId);
+        change.setSuccessorId(successorId);
+        return change;
+    }
+
+    private static FrontendTaskDto row(String name, int days) {
+        FrontendTaskDto row = new FrontendTaskDto();
+        row.setName(name);
+        row.setType("TASK");
+        row.setStartDate(Instant.ofEpochMilli(LargeProjectGenerator.PROJECT_START).toString());
+        row.setEndDate(Instant.ofEpochMilli(LargeProjectGenerator.PROJECT_START + days * DAY - 1).toString());
+        row.setDuration((double) days);
+        return row;
+    }
+}
@@ -24,7 +24,8 @@ public class HttpClientTestFramework {
     private static final String TASKS_BASE_URL = BASE_URL;
     private static final String RESOURCES_BASE_URL = BASE_URL;
     private static final String HEALTH_BASE_URL = BASE_URL;
-    private static final int TIMEOUT_MS = 10000;
+    /** Scale tests with large payloads raise it with -Dprojectlibre.test.timeoutMs. */
+    private static final int TIMEOUT_MS = Integer.getInteger("projectlibre.test.timeoutMs", 10000);
     
     /**
      * HTTP response wrapper
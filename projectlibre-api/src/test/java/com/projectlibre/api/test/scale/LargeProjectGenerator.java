@@ -0,0 +1,320 @@
+package com.projectlibre.api.test.scale;
+
+import com.projectlibre.api.dto.CalendarSyncDto;
+import com.projectlibre.api.dto.CalendarSyncDto.WorkingHoursRangeDto;
+import com.projectlibre.api.dto.FrontendResourceDto;
+import com.projectlibre.api.dto.ProjectSyncRequestDto;
+import com.projectlibre.api.dto.ResourceAssignmentItemDto;
+import com.projectlibre.api.dto.TaskSyncRequestDto.FrontendTaskDto;
+import com.projectlibre.api.sync.ProjectCalendarSyncService;
+import com.projectlibre.api.sync.ProjectSyncResult;
+import com.projectlibre.api.sync.ProjectSyncService;
+import com.projectlibre1.pm.calendar.WorkCalendar;
+import com.projectlibre1.pm.calendar.WorkDay;
+import com.projectlibre1.pm.calendar.WorkingCalendar;
+import com.projectlibre1.pm.calendar.WorkingHours;
+import com.projectlibre1.pm.resource.Resource;
+import com.projectlibre1.pm.snapshot.Snapshottable;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.ProjectFactory;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic generator of large projects for scale tests.
+ * The same Options (including the seed) always produce the same
+ * ProjectSyncRequestDto payload, and toCoreProject() builds the equivalent
+ * Core Project through the same sync services the API uses.
+ *
+ * Calendar exceptions and baselines have no counterpart in the sync payload:
+ * they are applied to the Core project only.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public class LargeProjectGenerator {
+
+    /** Monday 2026-01-05 08:00 UTC. */
+    public static final long PROJECT_START = 1767600000000L;
+    private static final long DAY = 86400000L;
+    private static final int DEPENDENCY_WINDOW = 64;
+    private static final String CALENDAR_NAME_PREFIX = "Scale calendar ";
+
+    /**
+     * Generation parameters. Defaults describe a mid-sized realistic plan.
+     */
+    public static class Options {
+        private int taskCount = 1000;
+        private int wbsDepth = 4;
+        private double dependencyDensity = 1.2;
+        private int resourceCount = 50;
+        private int assignmentsPerTask = 1;
+        private int calendarCount = 3;
+        private int exceptionsPerCalendar = 20;
+        private boolean baseline = true;
+        private long seed = 42L;
+
+        public int getTaskCount() { return taskCount; }
+        public Options taskCount(int taskCount) { this.taskCount = taskCount; return this; }
+
+        public int getWbsDepth() { return wbsDepth; }
+        public Options wbsDepth(int wbsDepth) { this.wbsDepth = Math.max(1, wbsDepth); return this; }
+
+        /** Average number of predecessors per leaf task. */
+        public double getDependencyDensity() { return dependencyDensity; }
+        public Options dependencyDensity(double dependencyDensity) { this.dependencyDensity = dependencyDensity; return this; }
+
+        public int getResourceCount() { return resourceCount; }
+        public Options resourceCount(int resourceCount) { this.resourceCount = resourceCount; return this; }
+
+        public int getAssignmentsPerTask() { return assignmentsPerTask; }
+        public Options assignmentsPerTask(int assignmentsPerTask) { this.assignmentsPerTask = assignmentsPerTask; return this; }
+
+        public int getCalendarCount() { return calendarCount; }
+        public Options calendarCount(int calendarCount) { this.calendarCount = calendarCount; return this; }
+
+        public int getExceptionsPerCalendar() { return exceptionsPerCalendar; }
+        public Options exceptionsPerCalendar(int exceptionsPerCalendar) { this.exceptionsPerCalendar = exceptionsPerCalendar; return this; }
+
+        public boolean isBaseline() { return baseline; }
+        public Options baseline(boolean baseline) { this.baseline = baseline; return this; }
+
+        public long getSeed() { return seed; }
+        public Options seed(long seed) { this.seed = seed; return this; }
+    }
+
+    private final Options options;
+
+    public LargeProjectGenerator(Options options) {
+        this.options = options;
+    }
+
+    /**
+     * Builds the sync payload for the given API project id.
+     */
+    public ProjectSyncRequestDto generateSyncRequest(Long projectId) {
+        Random random = new Random(options.getSeed());
+        ProjectSyncRequestDto request = new ProjectSyncRequestDto();
+        request.setProjectId(projectId);
+
+        List<CalendarSyncDto> calendars = generateCalendars(random);
+        request.setProjectCalendars(calendars);
+        request.setResources(generateResources(random, calendars));
+        request.setTasks(generateTasks(random));
+        return request;
+    }
+
+    /**
+     * Builds the equivalent Core project. Requires an initialized Core session
+     * (see GlobalSessionManager).
+     */
+    public Project toCoreProject(String name) {
+        Project project = ProjectFactory.getInstance().createProject();
+        project.setName(name);
+        project.setStart(PROJECT_START);
+        ProjectSyncRequestDto request = generateSyncRequest(project.getUniqueId());
+
+        ProjectSyncResult result = new ProjectSyncService().sync(project, request);
+        if (!result.isSuccess()) {
+            throw new IllegalStateException("Generated project failed to sync: " + result.getErrorMessage());
+        }
+        new ProjectCalendarSyncService().applyProjectCalendars(project, request.getProjectCalendars());
+
+        applyCalendarExceptions(project, new Random(options.getSeed() ^ 0x5DEECE66DL));
+        if (options.isBaseline()) {
+            project.saveCurrentToSnapshot(Snapshottable.BASELINE, true, null, false);
+        }
+        return project;
+    }
+
+    /**
+     * Deterministic edit for replay cycles: changes the duration of a few
+     * leaf tasks so that every sync carries a real scheduling change.
+     */
+    public void mutate(ProjectSyncRequestDto request, int cycle) {
+        Random random = new Random(options.getSeed() * 31 + cycle);
+        List<FrontendTaskDto> tasks = request.getTasks();
+        int edits = Math.max(1, tasks.size() / 100);
+        for (int i = 0; i < edits; i++) {
+            FrontendTaskDto task = tasks.get(random.nextInt(tasks.size()));
+            if (!task.isSummary()) {
+                setDuration(task, 1 + random.nextInt(10));
+            }
+        }
+    }
+
+    private List<CalendarSyncDto> generateCalendars(Random random) {
+        List<CalendarSyncDto> calendars = new ArrayList<>();
+        for (int i = 0; i < options.getCalendarCount(); i++) {
+            CalendarSyncDto calendar = new CalendarSyncDto();
+            calendar.setId("custom_" + (9000 + i) + "_Scale_calendar_" + (i + 1));
+            calendar.setName(CALENDAR_NAME_PREFIX + (i + 1));
+            boolean[] workingDays = new boolean[7];
+            int workingDaysCount = 4 + random.nextInt(3);
+            for (int d = 1; d <= workingDaysCount; d++) {
+                workingDays[d] = true;
+            }
+            calendar.setWorkingDays(workingDays);
+            int from = 7 + random.nextInt(3);
+            int hours = 6 + random.nextInt(4);
+            calendar.setWorkingHours(new ArrayList<>(Arrays.asList(
+                new WorkingHoursRangeDto(from, from + hours / 2),
+                new WorkingHoursRangeDto(from + hours / 2 + 1, from + hours + 1))));
+            calendar.setHoursPerDay(hours);
+            calendars.add(calendar);
+        }
+        return calendars;
+    }
+
+    private List<FrontendResourceDto> generateResources(Random random, List<CalendarSyncDto> calendars) {
+        List<FrontendResourceDto> resources = new ArrayList<>();
+        for (int i = 0; i < options.getResourceCount(); i++) {
+            FrontendResourceDto resource = new FrontendResourceDto();
+            resource.setId("RES-" + (i + 1));
+            resource.setName("Resource " + (i + 1));
+            resource.setType("WORK");
+            resource.setMaxUnits(random.nextInt(4) == 0 ? 0.5 : 1.0);
+            resource.setStandardRate(20 + random.nextInt(80));
+            resource.setOvertimeRate(resource.getStandardRate() * 1.5);
+            resource.setAvailable(Boolean.TRUE);
+            if (!calendars.isEmpty() && random.nextInt(3) == 0) {
+                CalendarSyncDto calendar = calendars.get(random.nextInt(calendars.size()));
+                resource.setCalendarId(calendar.getId());
+                resource.setCalendarData(calendar);
+            }
+            resources.add(resource);
+        }
+        return resources;
+    }
+
+    private List<FrontendTaskDto> generateTasks(Random random) {
+        int count = options.getTaskCount();
+        int[] levels = generateLevels(random, count);
+        List<FrontendTaskDto> tasks = new ArrayList<>(count);
+        List<String> leafIds = new ArrayList<>();
+        String start = Instant.ofEpochMilli(PROJECT_START).toString();
+
+        for (int i = 0; i < count; i++) {
+            FrontendTaskDto task = new FrontendTaskDto();
+            task.setId("TASK-" + (i + 1));
+            task.setName("Task " + (i + 1));
+            task.setLevel(levels[i]);
+            task.setType("TASK");
+            task.setStartDate(start);
+            boolean summary = i + 1 < count && levels[i + 1] > levels[i];
+            task.setSummary(summary);
+            if (!summary) {
+                setDuration(task, 1 + random.nextInt(10));
+                task.setProgress(random.nextInt(5) == 0 ? random.nextInt(101) / 100.0 : 0);
+                task.setPredecessors(pickPredecessors(random, leafIds));
+                task.setResourceAssignments(pickAssignments(random));
+                leafIds.add(task.getId());
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * Duration plus the matching end date, as the client sends them: the end
+     * is the last millisecond of the last day.
+     */
+    private static void setDuration(FrontendTaskDto task, int days) {
+        task.setDuration((double) days);
+        task.setEndDate(Instant.ofEpochMilli(PROJECT_START + days * DAY - 1).toString());
+    }
+
+    /**
+     * Outline levels: a random walk that opens a sub-level, stays, or closes
+     * levels, bounded by the WBS depth.
+     */
+    private int[] generateLevels(Random random, int count) {
+        int[] levels = new int[count];
+        int level = 0;
+        for (int i = 0; i < count; i++) {
+            levels[i] = level;
+            int roll = random.nextInt(10);
+            if (roll < 2 && level + 1 < options.getWbsDepth()) {
+                level++;
+            } else if (roll == 9 && level > 0) {
+                level = random.nextInt(level);
+            }
+        }
+        return levels;
+    }
+
+    private List<String> pickPredecessors(Random random, List<String> leafIds) {
+        List<String> predecessors = new ArrayList<>();
+        if (leafIds.isEmpty()) {
+            return predecessors;
+        }
+        double density = options.getDependencyDensity();
+        int links = (int) density + (random.nextDouble() < density - (int) density ? 1 : 0);
+        int window = Math.min(DEPENDENCY_WINDOW, leafIds.size());
+        for (int j = 0; j < links; j++) {
+            String id = leafIds.get(leafIds.size() - 1 - random.nextInt(window));
+            if (!predecessors.contains(id)) {
+                predecessors.add(id);
+            }
+        }
+        return predecessors;
+    }
+
+    private List<ResourceAssignmentItemDto> pickAssignments(Random random) {
+        List<ResourceAssignmentItemDto> assignments = new ArrayList<>();
+        int resources = options.getResourceCount();
+        for (int j = 0; j < options.getAssignmentsPerTask() && resources > 0; j++) {
+            String resourceId = "RES-" + (1 + random.nextInt(resources));
+            boolean duplicate = assignments.stream().anyMatch(a -> a.getResourceId().equals(resourceId));
+            if (!duplicate) {
+                ResourceAssignmentItemDto assignment = new ResourceAssignmentItemDto();
+                assignment.setResourceId(resourceId);
+                assignment.setUnits(random.nextBoolean() ? 1.0 : 0.5);
+                assignments.add(assignment);
+            }
+        }
+        return assignments;
+    }
+
+    private void applyCalendarExceptions(Project project, Random random) {
+        Map<WorkingCalendar, Boolean> calendars = new IdentityHashMap<>();
+        addIfWorking(calendars, project.getWorkCalendar());
+        Iterator<?> resources = project.getResourcePool().getResourceList().iterator();
+        while (resources.hasNext()) {
+            addIfWorking(calendars, ((Resource) resources.next()).getWorkCalendar());
+        }
+        for (WorkingCalendar calendar : calendars.keySet()) {
+            for (int i = 0; i < options.getExceptionsPerCalendar(); i++) {
+                long day = PROJECT_START - PROJECT_START % DAY + random.nextInt(3 * 365) * DAY;
+                WorkDay exception = new WorkDay(day, day);
+                WorkingHours hours = new WorkingHours();
+                hours.setNonWorking();
+                exception.setWorkingHours(hours);
+                calendar.addOrReplaceException(exception);
+            }
+            calendar.invalidate();
+        }
+    }
+
+    /**
+     * Only generated calendars and per-resource derived calendars are edited:
+     * shared system base calendars (Standard, 24 Hours...) must stay untouched.
+     */
+    private static void addIfWorking(Map<WorkingCalendar, Boolean> calendars, WorkCalendar calendar) {
+        if (!(calendar instanceof WorkingCalendar) || calendar == WorkingCalendar.INVALID_INTERSECTION_CALENDAR) {
+            return;
+        }
+        WorkingCalendar workingCalendar = (WorkingCalendar) calendar;
+        String name = workingCalendar.getName();
+        if (!workingCalendar.isBaseCalendar() || (name != null && name.startsWith(CALENDAR_NAME_PREFIX))) {
+            calendars.put(workingCalendar, Boolean.TRUE);
+        }
+    }
+}
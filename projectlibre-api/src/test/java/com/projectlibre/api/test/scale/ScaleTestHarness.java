@@ -0,0 +1,220 @@
+package com.projectlibre.api.test.scale;
+
+import static com.projectlibre.api.test.framework.HttpClientTestFramework.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectlibre.api.dto.ProjectSyncRequestDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API scale-test harness.
+ * Replays the desktop client cycle (sync-project, recalculate, project data)
+ * against a running server on generated projects of growing size and reports,
+ * per operation, latency percentiles, the server heap high-water mark and the
+ * bytes allocated on the server.
+ *
+ * Server-side memory figures come from /api/diagnostics/memory, which the server
+ * only exposes when started with the "diagnostics" profile
+ * (--spring.profiles.active=diagnostics); the harness is sequential so that
+ * allocations can be attributed to the measured call.
+ * Both figures are for the whole heap and come from the collection notifications:
+ * the high-water mark is exact at collections, and the allocations of a call also
+ * include whatever the server's background threads allocated meanwhile.
+ *
+ * It is run by hand, not by surefire, and reports through the logger.
+ *
+ * Usage: ScaleTestHarness [taskCount...]
+ *   -Dscale.cycles=5                  cycles per size (first one is the initial import)
+ *   -Dprojectlibre.test.timeoutMs=... HTTP timeout for the large sizes
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public class ScaleTestHarness {
+
+    private static final Logger log = LoggerFactory.getLogger(ScaleTestHarness.class);
+
+    private static final String API_URL = "http://localhost:8080/api";
+    private static final int[] DEFAULT_SIZES = {1000, 10000, 50000, 100000};
+    private static final String[] OPERATIONS = {"sync-project", "recalculate", "project-data"};
+    private static final double MB = 1024.0 * 1024.0;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Measurements of one operation at one project size.
+     */
+    static class OperationStats {
+        final List<Double> latenciesMs = new ArrayList<>();
+        long heapHighWater;
+        long allocatedBytes;
+        long failures;
+
+        void record(double latencyMs, long heapPeak, long allocated) {
+            latenciesMs.add(latencyMs);
+            heapHighWater = Math.max(heapHighWater, heapPeak);
+            if (allocated > 0) {
+                allocatedBytes += allocated;
+            }
+        }
+
+        double percentile(double p) {
+            if (latenciesMs.isEmpty()) {
+                return 0;
+            }
+            List<Double> sorted = new ArrayList<>(latenciesMs);
+            Collections.sort(sorted);
+            return sorted.get(Math.min(sorted.size() - 1, (int) (sorted.size() * p)));
+        }
+
+        double totalSeconds() {
+            return latenciesMs.stream().mapToDouble(Double::doubleValue).sum() / 1000.0;
+        }
+    }
+
+    /**
+     * Server memory sample; allocatedBytes is -1 when the server cannot report it.
+     */
+    static class MemorySample {
+        final long heapPeak;
+        final long allocatedBytes;
+
+        MemorySample(long heapPeak, long allocatedBytes) {
+            this.heapPeak = heapPeak;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    @FunctionalInterface
+    interface Operation {
+        HttpResponse call() throws IOException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? parseSizes(args) : DEFAULT_SIZES;
+        int cycles = Integer.getInteger("scale.cycles", 5);
+
+        log.info("[ScaleTest] API scale test harness, sizes={}, cycles={}", Arrays.toString(sizes), cycles);
+
+        if (!getHealth().isSuccess()) {
+            log.error("[ScaleTest] Server is not available at {}", API_URL);
+            System.exit(1);
+        }
+
+        Map<Integer, Map<String, OperationStats>> results = new LinkedHashMap<>();
+        for (int size : sizes) {
+            log.info("[ScaleTest] {} tasks, {} cycles", size, cycles);
+            results.put(size, runSize(size, cycles));
+        }
+        printReport(results);
+    }
+
+    private static Map<String, OperationStats> runSize(int size, int cycles) throws IOException {
+        Map<String, OperationStats> stats = new LinkedHashMap<>();
+        for (String operation : OPERATIONS) {
+            stats.put(operation, new OperationStats());
+        }
+
+        LargeProjectGenerator generator = new LargeProjectGenerator(new LargeProjectGenerator.Options()
+            .taskCount(size)
+            .resourceCount(Math.max(10, size / 20)));
+        long projectId = createProject("Scale " + size);
+        ProjectSyncRequestDto request = generator.generateSyncRequest(projectId);
+
+        for (int cycle = 0; cycle < cycles; cycle++) {
+            if (cycle > 0) {
+                generator.mutate(request, cycle);
+            }
+            String body = mapper.writeValueAsString(request);
+            measure(stats.get("sync-project"), () -> post(API_URL, "/files/sync-project", body));
+            measure(stats.get("recalculate"), () ->
+                post(API_URL, "/project.recalculate",
+                    "{\"command\":\"project.recalculate\",\"args\":[" + projectId + "]}"));
+            measure(stats.get("project-data"), () -> get(API_URL, "/files/project/" + projectId + "/data"));
+            log.info("[ScaleTest] {} tasks: cycle {} done", size, cycle + 1);
+        }
+        return stats;
+    }
+
+    private static long createProject(String name) throws IOException {
+        String json = "{\"name\":\"" + name + "\",\"startDate\":\"2026-01-05T08:00:00\"}";
+        HttpResponse response = post(API_URL, "/projects", json);
+        if (!response.isSuccess()) {
+            throw new IllegalStateException("Project creation failed: " + response.getBody());
+        }
+        return mapper.readTree(response.getBody()).path("data").path("id").asLong();
+    }
+
+    private static void measure(OperationStats stats, Operation operation) throws IOException {
+        MemorySample before = resetPeak();
+        long start = System.nanoTime();
+        HttpResponse response = operation.call();
+        double latencyMs = (System.nanoTime() - start) / 1_000_000.0;
+        MemorySample after = sampleMemory();
+
+        if (!response.isSuccess() || response.getBody().contains("\"success\":false")) {
+            stats.failures++;
+            String body = response.getBody();
+            log.warn("[ScaleTest] HTTP {}: {}", response.getStatusCode(),
+                body.length() > 200 ? body.substring(0, 200) : body);
+            return;
+        }
+        long allocated = before.allocatedBytes >= 0 && after.allocatedBytes >= 0
+            ? after.allocatedBytes - before.allocatedBytes : -1;
+        stats.record(latencyMs, after.heapPeak, allocated);
+    }
+
+    private static MemorySample resetPeak() throws IOException {
+        return toSample(post(API_URL, "/diagnostics/memory/reset-peak", "{}"));
+    }
+
+    private static MemorySample sampleMemory() throws IOException {
+        return toSample(get(API_URL, "/diagnostics/memory"));
+    }
+
+    private static MemorySample toSample(HttpResponse response) throws IOException {
+        if (!response.isSuccess()) {
+            return new MemorySample(0, -1);
+        }
+        JsonNode node = mapper.readTree(response.getBody());
+        return new MemorySample(node.path("heapPeak").asLong(), node.path("allocatedBytes").asLong(-1));
+    }
+
+    private static void printReport(Map<Integer, Map<String, OperationStats>> results) {
+        StringBuilder report = new StringBuilder("[ScaleTest] Results\n");
+        report.append(String.format("%-8s %-14s %10s %10s %10s %12s %12s %12s %6s%n",
+            "tasks", "operation", "p50 ms", "p95 ms", "p99 ms", "heap HWM MB", "alloc MB/op", "alloc MB/s", "fail"));
+        for (Map.Entry<Integer, Map<String, OperationStats>> sizeEntry : results.entrySet()) {
+            for (Map.Entry<String, OperationStats> entry : sizeEntry.getValue().entrySet()) {
+                OperationStats stats = entry.getValue();
+                int samples = stats.latenciesMs.size();
+                double allocPerOp = samples > 0 ? stats.allocatedBytes / MB / samples : 0;
+                double allocRate = stats.totalSeconds() > 0 ? stats.allocatedBytes / MB / stats.totalSeconds() : 0;
+                report.append(String.format("%-8d %-14s %10.1f %10.1f %10.1f %12.1f %12.1f %12.1f %6d%n",
+                    sizeEntry.getKey(), entry.getKey(),
+                    stats.percentile(0.50), stats.percentile(0.95), stats.percentile(0.99),
+                    stats.heapHighWater / MB, allocPerOp, allocRate, stats.failures));
+            }
+        }
+        report.append("heap HWM and alloc are whole-heap figures taken at collections, see DiagnosticsRestController");
+        log.info(report.toString());
+    }
+
+    private static int[] parseSizes(String[] args) {
+        int[] sizes = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        return sizes;
+    }
+}
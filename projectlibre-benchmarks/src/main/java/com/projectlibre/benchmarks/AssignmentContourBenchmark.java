@@ -0,0 +1,95 @@
+package com.projectlibre.benchmarks;
+
+import com.projectlibre1.pm.assignment.Assignment;
+import com.projectlibre1.pm.assignment.AssignmentService;
+import com.projectlibre1.pm.assignment.contour.ContourTypes;
+import com.projectlibre1.pm.resource.Resource;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.ProjectFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time-phased work and cost of one assignment, queried week by week over
+ * the whole task as the usage views and histograms do.
+ * Covers every standard contour and a personal (hand-edited) contour.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssignmentContourBenchmark {
+
+    private static final long WEEK = 7L * 86400000L;
+
+    /** ContourTypes name, or PERSONAL for a bell contour made personal. */
+    @Param({"FLAT", "BACK_LOADED", "FRONT_LOADED", "DOUBLE_PEAK", "EARLY_PEAK", "LATE_PEAK", "BELL", "PLATEAU", "PERSONAL"})
+    public String contour;
+
+    @Param({"60"})
+    public int durationDays;
+
+    private Assignment assignment;
+    private long[] windowStarts;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkEnvironment.initialize();
+        Project project = ProjectFactory.getInstance().createProject();
+        project.setStart(BenchmarkProjects.PROJECT_START);
+        NormalTask task = project.createScriptedTask();
+        task.setName("Contoured");
+        task.setDuration(durationDays * BenchmarkProjects.WORK_DAY);
+        Resource resource = project.getResourcePool().createScriptedResource();
+        resource.setName("Worker");
+        assignment = AssignmentService.getInstance().newAssignment(task, resource, 1.0, 0, null);
+        if ("PERSONAL".equals(contour)) {
+            assignment.setWorkContourType(ContourTypes.BELL);
+            assignment.makeContourPersonal();
+        } else {
+            assignment.setWorkContourType(ContourTypes.class.getField(contour).getInt(null));
+        }
+        project.recalculate();
+
+        long start = assignment.getStart();
+        long end = assignment.getEnd();
+        int windows = (int) ((end - start + WEEK - 1) / WEEK);
+        windowStarts = new long[windows + 1];
+        for (int i = 0; i <= windows; i++) {
+            windowStarts[i] = start + i * WEEK;
+        }
+    }
+
+    @Benchmark
+    public void work(Blackhole blackhole) {
+        for (int i = 0; i < windowStarts.length - 1; i++) {
+            blackhole.consume(assignment.work(windowStarts[i], windowStarts[i + 1]));
+        }
+    }
+
+    @Benchmark
+    public void cost(Blackhole blackhole) {
+        for (int i = 0; i < windowStarts.length - 1; i++) {
+            blackhole.consume(assignment.cost(windowStarts[i], windowStarts[i + 1]));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.projectlibre.benchmarks;
+
+import com.projectlibre1.job.JobQueue;
+import com.projectlibre1.session.LocalSession;
+import com.projectlibre1.session.Session;
+import com.projectlibre1.session.SessionFactory;
+import com.projectlibre1.util.Environment;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Headless bootstrap of the ProjectLibre Core for benchmarks.
+ * Mirrors GlobalSessionManager of projectlibre-api: one shared LocalSession
+ * with a headless JobQueue, returned for every session lookup so that
+ * JMH worker threads see the same session.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public final class BenchmarkEnvironment {
+
+    private static volatile Session session;
+
+    private BenchmarkEnvironment() {
+    }
+
+    /**
+     * Initializes the core once per JVM. Safe to call from every @Setup.
+     */
+    public static synchronized void initialize() {
+        if (session != null) {
+            return;
+        }
+        System.setProperty("java.awt.headless", "true");
+        Environment.setStandAlone(true);
+        try {
+            LocalSession localSession = new LocalSession();
+            localSession.setJobQueue(new JobQueue("BenchmarkJobQueue", false));
+            registerSession(SessionFactory.getInstance(), localSession);
+            if (!localSession.isInitialized()) {
+                localSession.init(null);
+            }
+            session = localSession;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to initialize ProjectLibre Core", e);
+        }
+    }
+
+    private static void registerSession(SessionFactory factory, Session localSession) throws Exception {
+        Field field = SessionFactory.class.getDeclaredField("sessionImpls");
+        field.setAccessible(true);
+        Map<String, Session> sessionImpls = new HashMap<>() {
+            @Override
+            public Session get(Object key) {
+                return localSession;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return true;
+            }
+        };
+        sessionImpls.put("local", localSession);
+        field.set(factory, Collections.synchronizedMap(sessionImpls));
+    }
+}
@@ -0,0 +1,114 @@
+package com.projectlibre.benchmarks;
+
+import com.projectlibre1.association.InvalidAssociationException;
+import com.projectlibre1.pm.dependency.DependencyService;
+import com.projectlibre1.pm.dependency.DependencyType;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.ProjectFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic project generator for benchmarks.
+ * The same size, shape and seed always produce the same task network,
+ * so scores from different runs are comparable.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+public final class BenchmarkProjects {
+
+    /** Monday 2026-01-05 00:00 UTC. Fixed so that calendar effects are reproducible. */
+    public static final long PROJECT_START = 1767571200000L;
+
+    /** One working day of the standard calendar. */
+    public static final long WORK_DAY = 8L * 3600L * 1000L;
+
+    public static final long DEFAULT_SEED = 42L;
+
+    /**
+     * Shape of the generated dependency graph.
+     */
+    public enum Shape {
+        /** Every task follows the previous one: depth equals size. */
+        CHAIN,
+        /** Square-root wide layers, each task linked to one to three tasks of the previous layer. */
+        LAYERED,
+        /** Up to two finish-to-start links to any earlier task. */
+        RANDOM
+    }
+
+    private BenchmarkProjects() {
+    }
+
+    /**
+     * Creates a project with {@code size} tasks linked according to {@code shape}.
+     * Tasks are created in one multiple transaction so that the schedule is
+     * computed once at the end, as on import.
+     */
+    public static Project create(int size, Shape shape, long seed) {
+        Random random = new Random(seed);
+        Project project = ProjectFactory.getInstance().createProject();
+        project.setStart(PROJECT_START);
+        List<NormalTask> tasks = new ArrayList<>(size);
+        int transactionId = project.fireMultipleTransaction(0, true);
+        try {
+            for (int i = 0; i < size; i++) {
+                NormalTask task = project.createScriptedTask();
+                task.setName("Task " + (i + 1));
+                task.setDuration((1 + random.nextInt(5)) * WORK_DAY);
+                tasks.add(task);
+            }
+            link(tasks, shape, random);
+        } finally {
+            project.fireMultipleTransaction(transactionId, false);
+        }
+        return project;
+    }
+
+    public static Project create(int size, Shape shape) {
+        return create(size, shape, DEFAULT_SEED);
+    }
+
+    private static void link(List<NormalTask> tasks, Shape shape, Random random) {
+        int size = tasks.size();
+        switch (shape) {
+            case CHAIN:
+                for (int i = 1; i < size; i++) {
+                    connect(tasks.get(i - 1), tasks.get(i), DependencyType.FS, 0);
+                }
+                break;
+            case LAYERED:
+                int width = Math.max(1, (int) Math.sqrt(size));
+                for (int i = width; i < size; i++) {
+                    int layerStart = (i / width - 1) * width;
+                    int links = 1 + random.nextInt(3);
+                    for (int j = 0; j < links; j++) {
+                        int predecessor = layerStart + random.nextInt(width);
+                        int type = random.nextInt(4) == 0 ? DependencyType.SS : DependencyType.FS;
+                        connect(tasks.get(predecessor), tasks.get(i), type, random.nextInt(3) * WORK_DAY / 2);
+                    }
+                }
+                break;
+            default:
+                for (int i = 1; i < size; i++) {
+                    int links = random.nextInt(3);
+                    for (int j = 0; j < links; j++) {
+                        connect(tasks.get(random.nextInt(i)), tasks.get(i), DependencyType.FS, 0);
+                    }
+                }
+                break;
+        }
+    }
+
+    private static void connect(NormalTask predecessor, NormalTask successor, int type, long lag) {
+        try {
+            DependencyService.getInstance().newDependency(predecessor, successor, type, lag, null);
+        } catch (InvalidAssociationException e) {
+            // duplicate links drawn by the generator are rejected by the core and simply skipped
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.projectlibre.benchmarks;
+
+import com.projectlibre1.algorithm.buffer.GroupedCalculatedValues;
+import com.projectlibre1.algorithm.buffer.SeriesCallback;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histogram/chart series generation: accumulation of per-assignment values
+ * into time buckets followed by (cumulative) series extraction.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatedValuesBenchmark {
+
+    private static final long DAY = 86400000L;
+
+    /** Number of time buckets (days) in the series. */
+    @Param({"365", "3650"})
+    public int buckets;
+
+    /** Number of assignments accumulated into each bucket. */
+    @Param({"10", "100"})
+    public int series;
+
+    private double[][] values;
+    private GroupedCalculatedValues filled;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.initialize();
+        Random random = new Random(BenchmarkProjects.DEFAULT_SEED);
+        values = new double[series][buckets];
+        for (int s = 0; s < series; s++) {
+            for (int b = 0; b < buckets; b++) {
+                values[s][b] = random.nextInt(9) * 3600000.0;
+            }
+        }
+        filled = fill();
+    }
+
+    private GroupedCalculatedValues fill() {
+        GroupedCalculatedValues result = new GroupedCalculatedValues();
+        for (int s = 0; s < series; s++) {
+            double[] row = values[s];
+            for (int b = 0; b < buckets; b++) {
+                long date = BenchmarkProjects.PROJECT_START + b * DAY;
+                result.set(b, date, date + DAY, row[b], null);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public GroupedCalculatedValues accumulate() {
+        return fill();
+    }
+
+    @Benchmark
+    public void makeSeries(Blackhole blackhole) {
+        filled.makeSeries(false, new SeriesCallback() {
+            @Override
+            public void add(int index, double x, double y) {
+                blackhole.consume(y);
+            }
+        });
+    }
+
+    @Benchmark
+    public void makeCumulativeSeries(Blackhole blackhole) {
+        filled.makeSeries(true, new SeriesCallback() {
+            @Override
+            public void add(int index, double x, double y) {
+                blackhole.consume(y);
+            }
+        });
+    }
+}
@@ -0,0 +1,138 @@
+package com.projectlibre.benchmarks;
+
+import com.projectlibre1.pm.calendar.WorkDay;
+import com.projectlibre1.pm.calendar.WorkRangeException;
+import com.projectlibre1.pm.calendar.WorkingCalendar;
+import com.projectlibre1.pm.calendar.WorkingHours;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Working-time arithmetic of a calendar derived from the standard calendar.
+ * Inputs are precomputed so that only add/compare is measured. The
+ * {@code Iterator} variants run with the working-time index disabled and
+ * measure the day-by-day CalendarIterator path, single and multi threaded.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarBenchmark {
+
+    private static final long DAY = 86400000L;
+    private static final long HOUR = 3600000L;
+    private static final int INPUTS = 4096;
+
+    @Param({"0", "50", "500"})
+    public int exceptions;
+
+    private WorkingCalendar calendar;
+    private long[] dates;
+    private long[] durations;
+    private long[] laterDates;
+
+    /**
+     * Per-thread position in the input arrays.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int position;
+
+        int next() {
+            position = (position + 1) & (INPUTS - 1);
+            return position;
+        }
+    }
+
+    @Setup
+    public void setUp() throws WorkRangeException {
+        BenchmarkEnvironment.initialize();
+        Random random = new Random(BenchmarkProjects.DEFAULT_SEED);
+        calendar = WorkingCalendar.getStandardBasedInstance();
+        for (int i = 0; i < exceptions; i++) {
+            long day = BenchmarkProjects.PROJECT_START + random.nextInt(1500) * DAY;
+            WorkDay workDay = new WorkDay(day, day);
+            WorkingHours hours = new WorkingHours();
+            if (random.nextBoolean()) {
+                hours.setNonWorking();
+            } else {
+                hours.setInterval(0, WorkingHours.hourTime(9), WorkingHours.hourTime(13));
+            }
+            workDay.setWorkingHours(hours);
+            calendar.addOrReplaceException(workDay);
+        }
+        calendar.invalidate();
+
+        dates = new long[INPUTS];
+        durations = new long[INPUTS];
+        laterDates = new long[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            dates[i] = BenchmarkProjects.PROJECT_START + random.nextInt(1200) * DAY + random.nextInt(96) * 15 * 60000L;
+            long duration = (1 + random.nextInt(160)) * HOUR;
+            durations[i] = random.nextInt(4) == 0 ? -duration : duration;
+            laterDates[i] = dates[i] + random.nextInt(3000) * HOUR;
+        }
+    }
+
+    @Benchmark
+    public long add(Cursor cursor) {
+        int i = cursor.next();
+        return calendar.add(dates[i], durations[i], true);
+    }
+
+    @Benchmark
+    public long compare(Cursor cursor) {
+        int i = cursor.next();
+        return calendar.compare(laterDates[i], dates[i], false);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long addContended(Cursor cursor) {
+        return add(cursor);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dprojectlibre.calendar.index=false")
+    public long addIterator(Cursor cursor) {
+        return add(cursor);
+    }
+
+    @Benchmark
+    @Threads(8)
+    @Fork(value = 1, jvmArgsAppend = "-Dprojectlibre.calendar.index=false")
+    public long addIteratorContended(Cursor cursor) {
+        return add(cursor);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dprojectlibre.calendar.index=false")
+    public long compareIterator(Cursor cursor) {
+        return compare(cursor);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dprojectlibre.calendar.memo=true")
+    public long addMemo(Cursor cursor) {
+        return add(cursor);
+    }
+}
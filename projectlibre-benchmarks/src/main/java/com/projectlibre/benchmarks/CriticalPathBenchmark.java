@@ -0,0 +1,68 @@
+package com.projectlibre.benchmarks;
+
+import com.projectlibre1.pm.criticalpath.CriticalPath;
+import com.projectlibre1.pm.task.Project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forward/backward CPM passes on generated task networks.
+ * {@code calculate} is a full reschedule (Project.recalculate), {@code initialize}
+ * rebuilds the predecessor/successor ordering before any pass.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Djava.awt.headless=true"})
+public class CriticalPathBenchmark {
+
+    @Param({"1000", "10000", "50000", "100000"})
+    public int size;
+
+    @Param({"CHAIN", "LAYERED", "RANDOM"})
+    public BenchmarkProjects.Shape shape;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private Project project;
+    private CriticalPath criticalPath;
+
+    @Setup
+    public void setUp() {
+        BenchmarkEnvironment.initialize();
+        project = BenchmarkProjects.create(size, shape);
+        project.setParallelScheduling(parallel);
+        criticalPath = (CriticalPath) project.getSchedulingAlgorithm();
+        criticalPath.initialize(project);
+    }
+
+    @Benchmark
+    public long calculate() {
+        project.recalculate();
+        return project.getEnd();
+    }
+
+    @Benchmark
+    public Project initialize() {
+        criticalPath.initialize(project);
+        return project;
+    }
+}
@@ -0,0 +1,87 @@
+package com.projectlibre.benchmarks;
+
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.server.data.ProjectData;
+import com.projectlibre1.server.data.Serializer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * POD persistence path: Project to ProjectData, Java serialization of the
+ * data graph, and ProjectData back to a Project.
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SerializerBenchmark {
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private Project project;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkEnvironment.initialize();
+        project = BenchmarkProjects.create(size, BenchmarkProjects.Shape.LAYERED);
+        bytes = toBytes(new Serializer().serializeProject(project));
+    }
+
+    @Benchmark
+    public ProjectData serialize() throws Exception {
+        return new Serializer().serializeProject(project);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() throws Exception {
+        return toBytes(new Serializer().serializeProject(project));
+    }
+
+    @Benchmark
+    public Project deserialize() throws Exception {
+        return new Serializer().deserializeProject(fromBytes(bytes), false, null, null, null, false);
+    }
+
+    @Benchmark
+    public Project roundTrip() throws Exception {
+        byte[] data = toBytes(new Serializer().serializeProject(project));
+        return new Serializer().deserializeProject(fromBytes(data), false, null, null, null, false);
+    }
+
+    private static byte[] toBytes(ProjectData projectData) throws Exception {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(buffer)) {
+            out.writeObject(projectData);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static ProjectData fromBytes(byte[] data) throws Exception {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (ProjectData) in.readObject();
+        }
+    }
+}
@@ -109,6 +109,35 @@ public class Query implements Factory, HasStartAndEnd {
 		return this;
 	}
 
+	/**
+	 * Fuses several fields into one traversal: the fields' select from clauses should have been added to this query.
+	 * For each group by interval, the visitor receives all field values at once
+	 * @param fields fields to read, usually the functors selected by the clauses
+	 * @param visitor callback
+	 * @return this
+	 */
+	public Query action(DoubleValue[] fields, FieldValuesVisitor visitor) {
+		return action(new FusedFieldsClosure(fields,visitor));
+	}
+	
+	private static class FusedFieldsClosure implements Closure {
+		private final DoubleValue[] fields;
+		private final FieldValuesVisitor visitor;
+		private final double[] values;
+		
+		FusedFieldsClosure(DoubleValue[] fields, FieldValuesVisitor visitor) {
+			this.fields = fields;
+			this.visitor = visitor;
+			values = new double[fields.length];
+		}
+
+		public void execute(Object query) {
+			for (int i = 0; i < fields.length; i++)
+				values[i] = fields[i] == null ? 0.0 : fields[i].getValue();
+			visitor.execute((HasStartAndEnd)query,values);
+		}
+	}
+
 	public IntervalGenerator[] execute() {
 		if (groupByGenerator == null) 
 			groupByGenerator = RangeIntervalGenerator.continuous();
@@ -57,8 +57,10 @@ package com.projectlibre1.algorithm;
 
 import java.util.LinkedList;
 
+import com.projectlibre1.pm.assignment.Assignment;
 import com.projectlibre1.pm.assignment.HasTimeDistributedData;
 import com.projectlibre1.pm.assignment.functor.AssignmentFieldClosureCollection;
+import com.projectlibre1.pm.assignment.functor.AssignmentFieldFunctor;
 import com.projectlibre1.pm.assignment.functor.DateAtValueFunctor;
 import com.projectlibre1.pm.time.HasStartAndEnd;
 
@@ -123,6 +125,18 @@ public class ReverseQuery {
 	 */
 	public long getDate() {
 		root.buildReverseQuery(this);
+		if (fieldSet.size() == 1 && Assignment.isDateAtValueIndexed(type)) { // a single assignment: use its cumulative index
+			Assignment assignment = ((AssignmentFieldFunctor) fieldSet.getFirst()).getAssignment();
+			if (assignment != null)
+				return assignment.getIndexedDateAtValue(type, valueToFind);
+		}
+		return getQueryDate();
+	}
+
+	/**
+	 * Date found by running the merged query over the collected clauses.  The assignment index must give the same date.
+	 */
+	long getQueryDate() {
 		Query query = Query.getInstance();
 		DateAtValueFunctor dateAtValue = DateAtValueFunctor.getInstance(valueToFind, AssignmentFieldClosureCollection.getInstance(fieldSet));	
 		
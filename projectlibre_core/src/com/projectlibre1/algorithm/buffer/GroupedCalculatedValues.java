@@ -55,20 +55,33 @@
  *******************************************************************************/
 package com.projectlibre1.algorithm.buffer;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.ListIterator;
 import org.apache.commons.lang3.time.DateUtils;
 
 import com.projectlibre1.pm.calendar.WorkCalendar;
 
 /**
- * Calculated values that are grouped by time buckets, such as a histogram
+ * Calculated values that are grouped by time buckets, such as a histogram.
+ * Dates and values are held in parallel primitive arrays so that filling and reading buckets doesn't create an object per
+ * bucket.  The serialized form is still the list of points.
  */
 public class GroupedCalculatedValues implements CalculatedValues, Serializable {
 	static final long serialVersionUID = 8900927827L;
-	ArrayList values = new ArrayList(); //(x,y pairs)
+	private static final ObjectStreamField[] serialPersistentFields = {
+		new ObjectStreamField("values", ArrayList.class), //(x,y pairs)
+		new ObjectStreamField("yScale", double.class)
+	};
+	private static final int INITIAL_CAPACITY = 16;
+	transient long[] dates = new long[INITIAL_CAPACITY];
+	transient double[] vals = new double[INITIAL_CAPACITY];
+	transient int size = 0;
 	double yScale;
 	private static final Double ZERO = new Double(0.0D);
 //	boolean dayByDay;
@@ -85,97 +98,81 @@ public class GroupedCalculatedValues implements CalculatedValues, Serializable {
 	}
 
 	public int size() {
-		return values.size();
+		return size;
 	}
 	public void set(final int index, final long date, final long endDate, final double value, final WorkCalendar assignmentCalendar) {
 		if (date == 0)
 			return;
-		Point point;
-		if (index > values.size()-1) {
-//			System.out.println("add index " + index + new java.util.Date(date) + " - " + new java.util.Date(endDate) + " value " + value);
-			values.add(index, new Point(date,value));
+		if (index > size-1) {
+			if (index > size)
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			ensureCapacity(size + 1);
+			dates[size] = date;
+			vals[size] = value;
+			size++;
 		} else {
-			point = (Point) values.get(index);
-			if (point == null) {
-				values.set(index, new Point(date,value));
-//				System.out.println("add indexb " + index + new java.util.Date(date) + " - " + new java.util.Date(endDate) + " value " + value);
-			} else {
-				point.addValue(value);
-//				System.out.println("add value " + index + new java.util.Date(date) + " - " + new java.util.Date(endDate) + " value " + value);
-			}
+			vals[index] += value;
 		}
 	}
 
+	private void ensureCapacity(int capacity) {
+		if (capacity <= dates.length)
+			return;
+		int length = Math.max(capacity, dates.length + (dates.length >> 1) + 1);
+		dates = Arrays.copyOf(dates, length);
+		vals = Arrays.copyOf(vals, length);
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	}
+
 	public Long getDate(int index) {
-		Point point = (Point) values.get(index);
-		if (point == null)
-			return null;
-		return new Long(point.date);
+		return Long.valueOf(getDateMillis(index));
+	}
+
+	/**
+	 * Same as getDate without boxing
+	 */
+	public final long getDateMillis(int index) {
+		checkIndex(index);
+		return dates[index];
 	}
 	
 	public void setValue(int index, double value) {
-		Point point = (Point) values.get(index);
-		if (point == null)
-			return;
-		point.value = value;
+		checkIndex(index);
+		vals[index] = value;
 		
 	}
 	final public double getUnscaledValue(int index) {
-		if (values.isEmpty()) {
-			return 0;
-		} else if (index >= values.size()) {
+		if (index >= size)
 			return 0;
-		}
-		Point point = (Point) values.get(index);
-		if (point == null)
-			return 0;
-		return point.value;
+		return vals[index];
 	}
 	
 	public Double getValue(int index) {
-		if (values.isEmpty()) {
+		if (index >= size)
 			return ZERO;
-		} else if (index >= values.size()) {
-			return ZERO;
-		}
-		Point point = (Point) values.get(index);
-		if (point == null)
-			return null;
-		return new Double(point.value / yScale);
+		return Double.valueOf(vals[index] / yScale);
 	}
 	
 	
 	
 	public void makeSeries(boolean cumulative, SeriesCallback callback) {
-		Long[] d = new Long[values.size()];
-		Double[] v = new Double[values.size()];
-		Point point=null;
-		//long lastDate=-10L;
 		double sum = 0;
-		//int deltai=0;
-		for (int i = 0; i < values.size(); i++) {
-			point = (Point) values.get(i);
-//			lc hack to enable day by day values
-//			if (dayByDay&&point.date-lastDate>DateUtils.MILLIS_PER_DAY+12*DateUtils.MILLIS_PER_HOUR){
-//				if (lastDate>0L&&point.date-lastDate>2*DateUtils.MILLIS_PER_DAY+12*DateUtils.MILLIS_PER_HOUR)
-//					callback.add(i+deltai++,lastDate+DateUtils.MILLIS_PER_DAY,0.0);
-//				callback.add(i+deltai++,point.date-DateUtils.MILLIS_PER_DAY,0.0);
-//			}
-			callback.add(i/*+deltai*/,point.date,point.value + (cumulative ? sum : 0));
-			sum += point.value;
-//			lastDate=point.date;
+		for (int i = 0; i < size; i++) {
+			callback.add(i,dates[i],vals[i] + (cumulative ? sum : 0));
+			sum += vals[i];
 		}
-//		if (dayByDay&&point!=null) callback.add(values.size()+deltai,point.date+DateUtils.MILLIS_PER_DAY,0.0);
 	}	
 	
 	public void makeRectilinearSeries(SeriesCallback callback) {
 		double previous = 0.0D;
-		Point point;
-		for (int i = 0; i < values.size(); i++) {
-			point = (Point) values.get(i);
-			callback.add(2*i,point.getDate(),previous);
-			previous = point.getValue();
-			callback.add(2*i+1,point.getDate(),previous);
+		for (int i = 0; i < size; i++) {
+			callback.add(2*i,dates[i],previous);
+			previous = vals[i];
+			callback.add(2*i+1,dates[i],previous);
 		}
 	}
 	
@@ -185,15 +182,13 @@ public class GroupedCalculatedValues implements CalculatedValues, Serializable {
  *
  */	public void makeCumulative(boolean cumulative) {
 		double sum = 0;
-		Point point;
-		for (int i = 0; i < values.size(); i++) {
-			point = (Point) values.get(i);
+		for (int i = 0; i < size; i++) {
 			if (cumulative) {
-				sum += point.value;
-				point.value = sum;
+				sum += vals[i];
+				vals[i] = sum;
 			} else {
-				point.value -= sum;
-				sum += point.value;
+				vals[i] -= sum;
+				sum += vals[i];
 			}
 		}
 		
@@ -202,9 +197,16 @@ public class GroupedCalculatedValues implements CalculatedValues, Serializable {
  	public void dump() {
  	}
 	
+/**
+ * Iterator on a copy of the points, see getValues
+ */
  	public ListIterator iterator(int index){
- 		return values.listIterator(index);
+ 		return getValues().listIterator(index);
  	}
+ 	
+/**
+ * Sum of two series, adding the values of the dates they share.  The arguments are not modified.
+ */
  	public static GroupedCalculatedValues union(GroupedCalculatedValues values1,GroupedCalculatedValues values2){
  		GroupedCalculatedValues c1,c2;
  		if (values1.size()>=values2.size()){
@@ -215,80 +217,105 @@ public class GroupedCalculatedValues implements CalculatedValues, Serializable {
  			c2=values1;
  		}
  		GroupedCalculatedValues c=new GroupedCalculatedValues();
- 		ListIterator i1=c1.values.listIterator();
- 		ListIterator i2=c2.values.listIterator();
-	 	Point p1,p2=null;
- 		while(i1.hasNext()){
- 			p1=(Point)i1.next();
- 	 		while(i2.hasNext()){
- 	 			p2=(Point)i2.next();
- 	 			if (p2.date<p1.date){
- 	 				c.values.add(p2);
- 	 			}else if (p2.date>p1.date){
- 	 				i2.previous();
- 	 				break;
- 	 			}else break;
- 	 		}
- 	 		if (p2!=null&&p1.date==p2.date) c.values.add(new Point(p1.date,p1.value+p2.value));
- 	 		else c.values.add(p1);
- 		}
- 		while (i2.hasNext()){
- 			c.values.add((Point)i2.next());
+ 		c.ensureCapacity(c1.size+c2.size);
+ 		int j=0;
+ 		for (int i=0;i<c1.size;i++){
+ 			long date=c1.dates[i];
+ 			while (j<c2.size&&c2.dates[j]<date)
+ 				c.append(c2.dates[j],c2.vals[j++]);
+ 			if (j<c2.size&&c2.dates[j]==date)
+ 				c.append(date,c1.vals[i]+c2.vals[j++]);
+ 			else c.append(date,c1.vals[i]);
  		}
+ 		while (j<c2.size)
+ 			c.append(c2.dates[j],c2.vals[j++]);
  		return c;
  	}
+
+ 	private void append(long date, double value) {
+ 		dates[size] = date;
+ 		vals[size++] = value;
+ 	}
  	
  	public void mergeIn(GroupedCalculatedValues add){
- 		ListIterator baseIterator = values.listIterator();
-		ListIterator addIterator = add.values.listIterator();
- 		Point basePoint = baseIterator.hasNext() ? (Point)baseIterator.next() : null;
- 		long start = basePoint.date;
- 		Point previousAddPoint = null;
- 		Point addPoint = addIterator.hasNext() ? (Point)addIterator.next() : null;
- 		while (basePoint != null && addPoint != null) {
- 			if (basePoint.compareTo(addPoint) >= 0) {
- 				if (addPoint.date >= start) {
- 					basePoint.value += addPoint.value;
- 					if (basePoint.date == start && previousAddPoint != null) { // if first time
+ 		if (size == 0)
+ 			return;
+ 		int base = 0;
+ 		int addIndex = 0;
+ 		long start = dates[0];
+ 		int previousAdd = -1;
+ 		while (base < size && addIndex < add.size) {
+ 			if (dates[base] >= add.dates[addIndex]) {
+ 				if (add.dates[addIndex] >= start) {
+ 					vals[base] += add.vals[addIndex];
+ 					if (dates[base] == start && previousAdd != -1) { // if first time
  						double proratedAmount = 
- 							((double)addPoint.date - start)
-							/ (addPoint.date - previousAddPoint.date);
+ 							((double)add.dates[addIndex] - start)
+							/ (add.dates[addIndex] - add.dates[previousAdd]);
  						if (proratedAmount > 0)
- 							basePoint.value += (previousAddPoint.value * proratedAmount);
+ 							vals[base] += (add.vals[previousAdd] * proratedAmount);
  					}
  				}
- 				previousAddPoint = addPoint;
- 	 			addPoint = addIterator.hasNext() ? (Point)addIterator.next() : null;
+ 				previousAdd = addIndex++;
  	 			continue;
  			}
  			
  			
- 			if (baseIterator.hasNext()) {
- 				basePoint = (Point)baseIterator.next();
+ 			if (base < size - 1) {
+ 				base++;
  			} else { 
- 				if (previousAddPoint != null) {// handle end boundary
+ 				if (previousAdd != -1) {// handle end boundary
  					double proratedAmount = 
- 							((double)(basePoint.date - previousAddPoint.date)) 
- 							/ (addPoint.date - previousAddPoint.date);
+ 							((double)(dates[base] - add.dates[previousAdd])) 
+ 							/ (add.dates[addIndex] - add.dates[previousAdd]);
  					if (proratedAmount > 0)
- 						basePoint.value += (addPoint.value * proratedAmount);
+ 						vals[base] += (add.vals[addIndex] * proratedAmount);
  				}
- 				basePoint = null;
+ 				base = size;
  			}
  		}
  	}
  	public GroupedCalculatedValues dayByDayConvert(){
  		GroupedCalculatedValues c=new GroupedCalculatedValues();
 		//c.setDayByDay(true);
- 		for (Iterator i=values.iterator();i.hasNext();){
- 			Point p=(Point)i.next();
- 			c.values.add(new Point(p.date,p.value*DateUtils.MILLIS_PER_HOUR));
- 		}
+ 		c.dates=Arrays.copyOf(dates,Math.max(size,INITIAL_CAPACITY));
+ 		c.vals=new double[c.dates.length];
+ 		for (int i=0;i<size;i++)
+ 			c.vals[i]=vals[i]*DateUtils.MILLIS_PER_HOUR;
+ 		c.size=size;
  		return c;
  	}
 
-	public final ArrayList getValues() {
-		return values;
+/**
+ * @return the points as a new list.  Changing a point doesn't change these values, use setValue for that
+ */
+	public final ArrayList<Point> getValues() {
+		ArrayList<Point> points = new ArrayList<Point>(size);
+		for (int i = 0; i < size; i++)
+			points.add(new Point(dates[i],vals[i]));
+		return points;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("values", getValues());
+		fields.put("yScale", yScale);
+		out.writeFields();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		yScale = fields.get("yScale", 1.0D);
+		ArrayList<?> points = (ArrayList<?>) fields.get("values", null);
+		int count = points == null ? 0 : points.size();
+		dates = new long[Math.max(count, INITIAL_CAPACITY)];
+		vals = new double[dates.length];
+		size = 0;
+		for (int i = 0; i < count; i++) {
+			Point point = (Point) points.get(i);
+			if (point != null)
+				append(point.date, point.value);
+		}
 	}
 	
 }
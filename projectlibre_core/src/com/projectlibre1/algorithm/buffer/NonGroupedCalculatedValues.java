@@ -55,7 +55,7 @@
  *******************************************************************************/
 package com.projectlibre1.algorithm.buffer;
 
-import java.util.TreeMap;
+import java.util.Arrays;
 
 import com.projectlibre1.options.CalendarOption;
 import com.projectlibre1.pm.calendar.WorkCalendar;
@@ -63,12 +63,16 @@ import com.projectlibre1.pm.calendar.WorkCalendar;
 
 /**
  * Stores an array of values as a bunch of ordered values at dates.  
+ * Changes are appended to primitive arrays as they come, then sorted by date and summed per date the first time the values
+ * are read, which gives the same points as a sorted map without boxing each of them.
  */
 public class NonGroupedCalculatedValues  implements CalculatedValues  {
-	TreeMap values = new TreeMap(); //(x,y pairs)
+	private static final int INITIAL_CAPACITY = 16;
 	double yScale;
-	Long dates[];
-	Double vals[];
+	long dates[] = new long[INITIAL_CAPACITY]; //(x,y pairs)
+	double vals[] = new double[INITIAL_CAPACITY];
+	int size = 0;
+	boolean ordered = true; // dates are increasing and distinct
 	boolean cumulative;
 	long origin;
 	private static long MILLIS_PER_DAY = CalendarOption.getInstance().getMillisPerDay();
@@ -84,7 +88,8 @@ public class NonGroupedCalculatedValues  implements CalculatedValues  {
 	}
 
 	public int size() {
-		return vals.length;
+		order();
+		return size;
 	}
 
 /**
@@ -93,13 +98,67 @@ public class NonGroupedCalculatedValues  implements CalculatedValues  {
  * @param value
  */
 	private void setValue(long date, double value) {
-		Long longDate = new Long(date);
-		Double v = (Double) values.get(longDate);
-		if (v != null) // if already present, add to it
-			v = new Double(v.doubleValue() + value);
-		else
-			v = new Double(value);
-		values.put(longDate,v);
+		if (ordered && size > 0 && dates[size - 1] == date) { // if already present, add to it
+			vals[size - 1] += value;
+			return;
+		}
+		if (size == dates.length) {
+			int length = size + (size >> 1) + 1;
+			dates = Arrays.copyOf(dates, length);
+			vals = Arrays.copyOf(vals, length);
+		}
+		if (size > 0 && date < dates[size - 1])
+			ordered = false;
+		dates[size] = date;
+		vals[size++] = value;
+	}
+
+/**
+ * Sort the points by date, keeping the order in which they were added for equal dates, and sum the values of equal dates
+ */
+	private void order() {
+		if (ordered)
+			return;
+		long[] dateBuffer = new long[size];
+		double[] valueBuffer = new double[size];
+		sort(dates, vals, dateBuffer, valueBuffer, 0, size);
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			if (count > 0 && dates[count - 1] == dates[i]) {
+				vals[count - 1] += vals[i];
+			} else {
+				dates[count] = dates[i];
+				vals[count++] = vals[i];
+			}
+		}
+		size = count;
+		ordered = true;
+	}
+
+/**
+ * Stable merge sort of the range [from, to) of the parallel arrays
+ */
+	private static void sort(long[] d, double[] v, long[] dateBuffer, double[] valueBuffer, int from, int to) {
+		if (to - from < 2)
+			return;
+		int middle = (from + to) >>> 1;
+		sort(d, v, dateBuffer, valueBuffer, from, middle);
+		sort(d, v, dateBuffer, valueBuffer, middle, to);
+		if (d[middle - 1] <= d[middle]) // already in order
+			return;
+		System.arraycopy(d, from, dateBuffer, from, to - from);
+		System.arraycopy(v, from, valueBuffer, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle && dateBuffer[left] <= dateBuffer[right])) {
+				d[i] = dateBuffer[left];
+				v[i] = valueBuffer[left++];
+			} else {
+				d[i] = dateBuffer[right];
+				v[i] = valueBuffer[right++];
+			}
+		}
 	}
 
 /**
@@ -134,47 +193,20 @@ public class NonGroupedCalculatedValues  implements CalculatedValues  {
 		}
 	}
 	
-//	public void finish() {
-//		Long[] d = new Long[values.size()];
-//		Double[] v = new Double[values.size()];
-//		values.keySet().toArray(d);
-//		values.values().toArray(v);
-//		dates = new Long[d.length*2];
-//		vals = new Double[d.length*2];
-//		Double previous = new Double(0);
-//		double sum = 0;
-//		for (int i = 0; i < d.length; i++) {
-//			dates[2*i] = d[i];
-//			dates[2*i+1] = d[i];
-//			vals[2*i] = previous;
-//			sum += v[i].doubleValue();
-//			
-//			vals[2*i+1] = new Double(sum);
-//			previous = vals[2*i+1];
-//		}
-//		
-//		//makeCumulative(true); // converts + and - into correct values
-//	}
-	
 
 	public void makeSeries(boolean cumulative, SeriesCallback callback) {
-		Long[] d = new Long[values.size()];
-		Double[] v = new Double[values.size()];
-		values.keySet().toArray(d);
-		values.values().toArray(v);
+		order();
 		double sum = 0;
-		double cum = 0;
-		double z;
 		if (cumulative) {
-			for (int i = 0; i < d.length; i++) {
-				sum += v[i].doubleValue();
-				callback.add(i,d[i].doubleValue(), sum );
+			for (int i = 0; i < size; i++) {
+				sum += vals[i];
+				callback.add(i,dates[i], sum );
 			}
 		} else {
-			for (int i = 0; i < d.length; i++) {
-				callback.add(2*i,d[i].doubleValue(),sum);
-				sum += v[i].doubleValue();
-				callback.add(2*i+1,d[i].doubleValue(),sum);
+			for (int i = 0; i < size; i++) {
+				callback.add(2*i,dates[i],sum);
+				sum += vals[i];
+				callback.add(2*i+1,dates[i],sum);
 			}
 		}
 	}
@@ -184,36 +216,40 @@ public class NonGroupedCalculatedValues  implements CalculatedValues  {
 	}
 
 	public void makeContiguousNonZero(IntervalCallback callback, WorkCalendar workCalendar) {
-		Long[] d = new Long[values.size()];
-		Double[] v = new Double[values.size()];
-		values.keySet().toArray(d);
-		values.values().toArray(v);
+		order();
 		double sum = 0;
-		for (int i = 0; i < d.length-1; i++) {
-			sum += v[i].doubleValue();
-			callback.add(d.length-2 - i, d[i].longValue(),d[i+1].longValue(),sum);
+		for (int i = 0; i < size-1; i++) {
+			sum += vals[i];
+			callback.add(size-2 - i, dates[i],dates[i+1],sum);
 		}
 	}	
 	public void makeCumulative(boolean cumulative) {
+		order();
 		double sum = 0;
-		for (int i = 0; i < vals.length; i++) {
+		for (int i = 0; i < size; i++) {
 			if (cumulative) {
-				sum += vals[i].doubleValue();
-				vals[i] = new Double(sum);
+				sum += vals[i];
+				vals[i] = sum;
 			} else {
-				vals[i] = new Double(vals[i].doubleValue() - sum);
-				sum += vals[i].doubleValue();
+				vals[i] -= sum;
+				sum += vals[i];
 			}
 		}
 	}	
 	
 	
 	public Long getDate(int index) {
-		return dates[index];
+		order();
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return Long.valueOf(dates[index]);
 	}
 	
 	public Double getValue(int index) {
-		return vals[index];
+		order();
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return Double.valueOf(vals[index]);
 	}
 	
 
@@ -58,9 +58,6 @@ package com.projectlibre1.document;
 import java.util.EventListener;
 import java.util.EventObject;
 
-import org.apache.commons.pool.BasePoolableObjectFactory;
-import org.apache.commons.pool.impl.GenericObjectPool;
-
 import com.projectlibre1.field.Field;
 import com.projectlibre1.undo.NodeUndoInfo;
 
@@ -108,14 +105,12 @@ public class ObjectEvent extends EventObject {
 	private NodeUndoInfo info;
 	private Field field = null;
 	
+	/**
+	 * Events are plain objects confined to the thread that fires them: there is no shared pool to lock, and a listener
+	 * or a batch may keep them after delivery.
+	 */
 	public static ObjectEvent getInstance(Object source) {
-		ObjectEvent objectEvent;
-		try {
-			objectEvent = (ObjectEvent) pool.borrowObject();
-		} catch (Exception e) {
-			com.projectlibre1.server.access.ErrorLogger.log("Failed to borrow ObjectEvent from pool", e);
-			return null;
-		}
+		ObjectEvent objectEvent = new ObjectEvent();
 		objectEvent.source = source;
 		return objectEvent;
 	}
@@ -128,43 +123,26 @@ public class ObjectEvent extends EventObject {
 			return objectEvent;
 	}
 	
+	/**
+	 * @deprecated events are no longer pooled, there is nothing to give back
+	 */
 	public void recycle() {
-		try {
-			pool.returnObject(this);
-		} catch (Exception e) {
-			com.projectlibre1.server.access.ErrorLogger.log("Failed to return ObjectEvent to pool", e);
-		}
-	}
-	
-	private void reset() {
-		source = null;
-		eventType = 0;
-		object = null;	
 	}
 	
 	private ObjectEvent() {
 		super(NULL_SOURCE); // it needs a source.  Will be modified later
-		reset();
 	}
 	
-	
-	
-	private static GenericObjectPool pool = new GenericObjectPool(new ObjectEventFactory());
-	
-	private static class ObjectEventFactory extends BasePoolableObjectFactory {
-		public Object makeObject() { //claur
-			return new ObjectEvent();
-		}
-
-		public void activateObject(Object arg0){ //claur
-			ObjectEvent objectEvent = (ObjectEvent)arg0;
-			objectEvent.reset();
-
-		}
-	}
 	public interface Listener extends EventListener {
 		public void objectChanged(ObjectEvent objectEvent);
 	}	
+	/**
+	 * A listener that accepts to receive the events fired during a multiple transaction as a single coalesced batch
+	 * when the transaction closes, instead of one by one
+	 */
+	public interface BatchListener extends Listener {
+		public void objectsChanged(ObjectEventBatch batch);
+	}
 	/**
 	 * @return Returns the field.
 	 */
@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.document;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.projectlibre1.field.Field;
+
+
+/**
+ * The object events collected during a multiple transaction, coalesced per object.
+ * Each changed object has a single entry, kept in the order of its first event, which records whether it was created,
+ * deleted or updated and which fields were updated. Entries can be read for a given type of object.
+ */
+public class ObjectEventBatch {
+	private final IdentityHashMap<Object,Entry> entries = new IdentityHashMap<Object,Entry>();
+	private final List<Entry> order = new ArrayList<Entry>();
+	
+	void add(ObjectEvent evt) {
+		Object object = evt.getObject();
+		Entry entry = entries.get(object);
+		if (entry == null) {
+			entry = new Entry(object);
+			entries.put(object,entry);
+			order.add(entry);
+		}
+		entry.add(evt);
+	}
+	
+	public boolean isEmpty() {
+		return order.isEmpty();
+	}
+	
+	public int size() {
+		return order.size();
+	}
+	
+	/**
+	 * @return the entries of all changed objects, in the order of their first event
+	 */
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(order);
+	}
+	
+	/**
+	 * @param type class of the objects to return
+	 * @return the entries of the changed objects which are instances of type, in the order of their first event
+	 */
+	public List<Entry> getEntries(Class<?> type) {
+		List<Entry> result = new ArrayList<Entry>();
+		Iterator<Entry> i = order.iterator();
+		while (i.hasNext()) {
+			Entry entry = i.next();
+			if (type.isInstance(entry.getObject()))
+				result.add(entry);
+		}
+		return result;
+	}
+	
+	public Entry getEntry(Object object) {
+		return entries.get(object);
+	}
+	
+	public static final class Entry {
+		private final Object object;
+		private boolean created = false;
+		private boolean deleted = false;
+		private boolean updated = false;
+		private boolean wholeObjectUpdated = false;
+		private int type = ObjectEvent.UPDATE;
+		private Set<Field> fields = null;
+		
+		private Entry(Object object) {
+			this.object = object;
+		}
+		
+		private void add(ObjectEvent evt) {
+			if (evt.isCreate()) {
+				created = true;
+				type = ObjectEvent.CREATE;
+			} else if (evt.isDelete()) {
+				deleted = true;
+				type = ObjectEvent.DELETE;
+			} else {
+				updated = true;
+				Field field = evt.getField();
+				if (field == null) {
+					wholeObjectUpdated = true;
+				} else {
+					if (fields == null)
+						fields = new HashSet<Field>();
+					fields.add(field);
+				}
+			}
+		}
+		
+		public Object getObject() {
+			return object;
+		}
+		/**
+		 * @return true if a create event was received for the object
+		 */
+		public boolean isCreated() {
+			return created;
+		}
+		/**
+		 * @return true if a delete event was received for the object
+		 */
+		public boolean isDeleted() {
+			return deleted;
+		}
+		/**
+		 * @return true if an update event was received for the object
+		 */
+		public boolean isUpdated() {
+			return updated;
+		}
+		/**
+		 * @return true if an update event without a field was received, meaning any field may have changed
+		 */
+		public boolean isWholeObjectUpdated() {
+			return wholeObjectUpdated;
+		}
+		/**
+		 * @return the type of the last create or delete event, or UPDATE if there was none. An object created then
+		 * deleted in the same transaction ends as DELETE, one deleted then created again ends as CREATE.
+		 */
+		public int getType() {
+			return type;
+		}
+		/**
+		 * @return the fields given by the update events
+		 */
+		public Set<Field> getFields() {
+			return (fields == null) ? Collections.<Field>emptySet() : Collections.unmodifiableSet(fields);
+		}
+	}
+}
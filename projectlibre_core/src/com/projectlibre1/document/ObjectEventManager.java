@@ -55,6 +55,7 @@
  *******************************************************************************/
 package com.projectlibre1.document;
 
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 
 import com.projectlibre1.field.Field;
@@ -67,9 +68,12 @@ import com.projectlibre1.undo.NodeUndoInfo;
  *
  */
 public class ObjectEventManager {
+	private static final boolean BATCHING = Boolean.parseBoolean(System.getProperty("projectlibre.events.batch", "true"));
 //	 Create the listener list
     protected javax.swing.event.EventListenerList listenerList =
         new javax.swing.event.EventListenerList();
+    private int batchDepth = 0;
+    private IdentityHashMap<ObjectEvent.BatchListener,ObjectEventBatch> batches = null; // events held for batch listeners while a batch is open
 
     // This methods allows classes to register for ObjectEvents
     public void addListener(ObjectEvent.Listener listener) {
@@ -138,9 +142,73 @@ public class ObjectEventManager {
 //            	else if (evt.isCreate()) System.out.println("ObjectEvent create: object="+evt.getObject()+", field="+evt.getField()+", source="+evt.getSource()+", info="+evt.getInfo()+", listener="+listeners[i+1]);
 //            	else if (evt.isDelete()) System.out.println("ObjectEvent delete: object="+evt.getObject()+", field="+evt.getField()+", source="+evt.getSource()+", info="+evt.getInfo()+", listener="+listeners[i+1]);
 //            	else System.out.println("ObjectEvent: object="+evt.getObject()+", field="+evt.getField()+", source="+evt.getSource()+", info="+evt.getInfo()+", listener="+listeners[i+1]);
-                ((ObjectEvent.Listener)listeners[i+1]).objectChanged(evt);
+                fire(evt,(ObjectEvent.Listener)listeners[i+1]);
             }
         }
-        evt.recycle();
+    }
+
+    /**
+     * Deliver an event to a single listener. While a batch is open, a batch listener gets it in its batch instead
+     * @param evt
+     * @param listener
+     */
+    public void fire(ObjectEvent evt, ObjectEvent.Listener listener) {
+    	if (batches != null && listener instanceof ObjectEvent.BatchListener) {
+    		if (evt.getSource() == listener) // listeners ignore the events they fire themselves
+    			return;
+    		ObjectEventBatch batch = batches.get(listener);
+    		if (batch == null) {
+    			batch = new ObjectEventBatch();
+    			batches.put((ObjectEvent.BatchListener)listener,batch);
+    		}
+    		batch.add(evt);
+    		return;
+    	}
+    	listener.objectChanged(evt);
+    }
+
+    /**
+     * Start collecting the events for the batch listeners. Batches nest, only the outermost one is delivered
+     */
+    public void beginBatch() {
+    	if (!BATCHING)
+    		return;
+    	if (batchDepth++ == 0)
+    		batches = new IdentityHashMap<ObjectEvent.BatchListener,ObjectEventBatch>();
+    }
+
+    /**
+     * Close a batch. When the outermost one closes, each batch listener receives the events collected for it.
+     * A listener which fails doesn't keep the others from getting their batch: the first failure is thrown once
+     * all batches are delivered, with the later ones attached as suppressed
+     */
+    public void endBatch() {
+    	if (batchDepth == 0)
+    		return;
+    	if (--batchDepth > 0)
+    		return;
+    	IdentityHashMap<ObjectEvent.BatchListener,ObjectEventBatch> collected = batches;
+    	batches = null; // events fired by the listeners while treating their batch are delivered immediately
+    	RuntimeException failure = null;
+        Object[] listeners = listenerList.getListenerList();
+        for (int i=0; i<listeners.length; i+=2) {
+        	ObjectEventBatch batch = collected.get(listeners[i+1]);
+        	if (batch == null || batch.isEmpty())
+        		continue;
+        	try {
+        		((ObjectEvent.BatchListener)listeners[i+1]).objectsChanged(batch);
+        	} catch (RuntimeException e) {
+        		if (failure == null)
+        			failure = e;
+        		else
+        			failure.addSuppressed(e);
+        	}
+        }
+        if (failure != null)
+        	throw failure;
+    }
+
+    public boolean isBatching() {
+    	return batches != null;
     }
 }
@@ -73,6 +73,7 @@ import com.projectlibre1.algorithm.DoubleValue;
 import com.projectlibre1.algorithm.InstantIntervalGenerator;
 import com.projectlibre1.algorithm.IntervalGeneratorSet;
 import com.projectlibre1.algorithm.Merge;
+import com.projectlibre1.algorithm.FieldValuesVisitor;
 import com.projectlibre1.algorithm.Query;
 import com.projectlibre1.algorithm.RangeIntervalGenerator;
 import com.projectlibre1.algorithm.ReverseQuery;
@@ -99,6 +100,7 @@ import com.projectlibre1.pm.assignment.contour.AbstractContour;
 import com.projectlibre1.pm.assignment.contour.AbstractContourBucket;
 import com.projectlibre1.pm.assignment.contour.ContourBucketIntervalGenerator;
 import com.projectlibre1.pm.assignment.contour.ContourFactory;
+import com.projectlibre1.pm.assignment.contour.ContourTimeline;
 import com.projectlibre1.pm.assignment.contour.PersonalContour;
 import com.projectlibre1.pm.assignment.functor.AssignmentFieldClosureCollection;
 import com.projectlibre1.pm.assignment.functor.AssignmentFieldFunctor;
@@ -166,6 +168,10 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 	private transient long lastTimesheetUpdate = 0;
 	private transient int workflowState = AssignmentWorkflowState.NEW;
 	private transient boolean timesheetAssignment = false;
+	private transient TimephasedCurve workCurve = null; // see getCurve()
+	private transient TimephasedCurve costCurve = null;
+	private transient DateAtValueIndex workDateIndex = null; // see getIndexedDateAtValue()
+	private transient AssignmentLoad load = null; // see getLoad()
 
 
 	public static Field getUnitsField() {
@@ -361,7 +367,8 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 	}
 
 	public void setDuration(long duration) {
-		adjustRemainingDuration(duration - getActualDuration(),false);
+		// strip the time unit first: subtracting from an encoded duration borrows from its flag bits when actual is longer
+		adjustRemainingDuration(Duration.millis(duration) - getActualDuration(),false);
 	}
 	/**
 	 * @param duration The duration to set.
@@ -896,6 +903,11 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 	 * @return
 	 */
 	public double calcAll(Object type) {
+		if (type == WORK || type == COST) {
+			TimephasedCurve curve = getCurve(type,true);
+			if (curve != null)
+				return curve.total();
+		}
 		SelectFrom clause = SelectFrom.getInstance();
 		AssignmentFieldFunctor dataFunctor = getDataSelect(type,clause,true);
 		Query.getInstance().selectFrom(clause)
@@ -903,6 +915,54 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 		return dataFunctor.getValue();
 	}
 
+	/**
+	 * Gets the compiled curve for work or cost, rebuilding it if the contour, schedule, calendar or rates changed.
+	 * @param all true if only the total is needed
+	 * @return the curve, or null if the value is not additive and needs a query (see TimephasedCurve)
+	 */
+	private TimephasedCurve getCurve(Object type, boolean all) {
+		if (!TimephasedCurve.isCompilable(this,type,all))
+			return null;
+		TimephasedCurve curve = (type == COST) ? costCurve : workCurve;
+		if (curve == null || !curve.matches(this)) {
+			curve = TimephasedCurve.compile(this,type);
+			if (type == COST)
+				costCurve = curve;
+			else
+				workCurve = curve;
+		}
+		return curve;
+	}
+
+	/**
+	 * Work or cost in a range, as a query whereInRange(start,end) selecting work(clause) or cost(clause,false) would give
+	 */
+	private double between(Object type, long start, long end) {
+		TimephasedCurve curve = getCurve(type,false);
+		if (curve != null)
+			return curve.between(start,end);
+		return queryBetween(type,start,end);
+	}
+
+	/**
+	 * Work or cost in a range by running the query over the contour.  This is the reference the curve must match.
+	 */
+	double queryBetween(Object type, long start, long end) {
+		Query query = Query.getInstance();
+		SelectFrom clause = SelectFrom.getInstance().whereInRange(start,end);
+		query.selectFrom(clause)
+			.action((type == COST) ? cost(clause,false) : work(clause))
+			.execute();
+		return ((DoubleValue)query.getActionVisitor()).getValue();
+	}
+
+	private double baselineBetween(Object type, long start, long end) {
+		Assignment baselineAssignment = detail.getBaselineAssignment();
+		if (baselineAssignment == null)
+			return 0.0D;
+		return baselineAssignment.between(type,start,end);
+	}
+
 //	public void forEach(Object type, Closure actionVisitor) {
 //		SelectFrom clause = SelectFrom.getInstance();
 //		AssignmentFieldFunctor dataFunctor = getDataSelect(type,clause,false);
@@ -918,6 +978,41 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 		reverseQuery.addSelectFrom(clause);
 	}
 
+	/**
+	 * Gets the units this assignment loads its resource with over time, rebuilding them if the contour, schedule or
+	 * calendar changed.
+	 * @return the load, see ResourceLoadEngine
+	 */
+	public AssignmentLoad getLoad() {
+		AssignmentLoad current = load;
+		if (current == null || !current.matches(this)) {
+			current = AssignmentLoad.compile(this);
+			load = current;
+		}
+		return current;
+	}
+
+	/**
+	 * @return true if reverse queries of this type on one assignment can use getIndexedDateAtValue()
+	 */
+	public static boolean isDateAtValueIndexed(Object type) {
+		return type == WORK;
+	}
+
+	/**
+	 * Date at which a reverse query on this assignment alone reaches a value, found by binary search in a cumulative
+	 * index which is kept until the contour, schedule or calendar change (see DateAtValueIndex)
+	 * @return the same date as ReverseQuery, 0 if the value is never reached
+	 */
+	public long getIndexedDateAtValue(Object type, double value) {
+		DateAtValueIndex index = workDateIndex;
+		if (index == null || !index.matches(this)) {
+			index = DateAtValueIndex.getInstance(this,type);
+			workDateIndex = index;
+		}
+		return index.getDate(value);
+	}
+
 
 
 /**
@@ -1440,29 +1535,30 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 
 	//Costs and earned value
 	public double acwp(long start, long end) {
+		return acwp(start,end,getStatusDate());
+	}
+
+	/**
+	 * The earned value methods below take the status date to measure at instead of the project's, see EarnedValueBatch
+	 */
+	public double acwp(long start, long end, long statusDate) {
 		if (!isInRange(start,end))
 			return NO_VALUE_DOUBLE;
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(Math.max(start,detail.effectiveBaselineStart()),Math.min(end,getCompletedOrStatusDate()));
-		query.selectFrom(clause)
-			.action(cost(clause,false))
-			.execute();
-		return ((DoubleValue)query.getActionVisitor()).getValue();
+		return between(COST,Math.max(start,detail.effectiveBaselineStart()),Math.min(end,Math.min(statusDate,detail.getStop())));
 	}
 
 	public double bcws(long start, long end) {
+		return bcws(start,end,getStatusDate());
+	}
+
+	public double bcws(long start, long end, long statusDate) {
 		if (!isInRange(start,end))
 			return NO_VALUE_DOUBLE;
 
 		if (AdvancedOption.getInstance().isEarnedValueFieldsCumulative())
 			start = getStart(); // start from the beginning of the task and ignore the range start
 
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(Math.max(start,detail.effectiveBaselineStart()),Math.min(end,getStatusDate()));
-		query.selectFrom(clause)
-			.action(baselineData(COST,clause))
-			.execute();
-		return ((DoubleValue)query.getActionVisitor()).getValue();
+		return baselineBetween(COST,Math.max(start,detail.effectiveBaselineStart()),Math.min(end,statusDate));
 	}
 
 	public double efficiency() {
@@ -1481,9 +1577,13 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 	}
 	//[(Actual % of completion / Expected % of completion) of an activity for a given period] * Actual cost of activity
 	public double bcwp(long start, long end) {
+		return bcwp(start,end,getStatusDate());
+	}
+
+	public double bcwp(long start, long end, long statusDate) {
 		if (!isInRange(start,end))
 			return NO_VALUE_DOUBLE;
-		end = Math.min(end,getStatusDate());
+		end = Math.min(end,statusDate);
 		if (end == 0)
 			return 0.0D;
 		if (AdvancedOption.getInstance().isEarnedValueFieldsCumulative())
@@ -1506,46 +1606,24 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 	public double bac(long start, long end) {
 		if (!isInRange(start,end))
 			return NO_VALUE_DOUBLE;
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(start,end);
-		query.selectFrom(clause)
-			.action(baselineData(COST,clause))
-			.execute();
-		return ((DoubleValue)query.getActionVisitor()).getValue();
+		return baselineBetween(COST,start,end);
 	}
 
 	public double cost(long start, long end) {
 		if (!isInRange(start,end))
 			return NO_VALUE_DOUBLE;
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(start,end);
-		query.selectFrom(clause)
-			.action(cost(clause,false))
-			.execute();
-		return ((DoubleValue)query.getActionVisitor()).getValue();
+		return between(COST,start,end);
 	}
 
 	public long work(long start, long end) {
 		if (!isInRange(start,end))
 			return NO_VALUE_LONG;
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(start,end);
-		query.selectFrom(clause)
-			.action(work(clause))
-			.execute();
-		return (long) ((DoubleValue)query.getActionVisitor()).getValue();
-
+		return (long) between(WORK,start,end);
 	}
 	public double actualCost(long start, long end) {
 		if (!isInRange(start,end))
 			return NO_VALUE_DOUBLE;
-
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(Math.max(start,detail.getStart()),Math.min(end,getStop()));
-		query.selectFrom(clause)
-			.action(cost(clause,false))
-			.execute();
-		return ((DoubleValue)query.getActionVisitor()).getValue();
+		return between(COST,Math.max(start,detail.getStart()),Math.min(end,getStop()));
 	}
 
 	public long actualWork(long start, long end) {
@@ -1553,12 +1631,7 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 			return NO_VALUE_LONG;
 		if (!isLabor())
 			return 0;
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(Math.max(start,detail.getStart()),Math.min(end,getStop()));
-		query.selectFrom(clause)
-			.action(work(clause))
-			.execute();
-		return (long) ((DoubleValue)query.getActionVisitor()).getValue();
+		return (long) between(WORK,Math.max(start,detail.getStart()),Math.min(end,getStop()));
 	}
 
 	public long remainingWork(long start, long end) {
@@ -1566,36 +1639,20 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 			return NO_VALUE_LONG;
 		if (!isLabor())
 			return 0;
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(Math.max(start,detail.getStop()),Math.min(end,getEnd()));
-		query.selectFrom(clause)
-			.action(work(clause))
-			.execute();
-		return (long) ((DoubleValue)query.getActionVisitor()).getValue();
+		return (long) between(WORK,Math.max(start,detail.getStop()),Math.min(end,getEnd()));
 	}
 
 	public double baselineCost(long start, long end) {
 //		if (!isInRange(start,end))
 //			return NO_VALUE_DOUBLE;
-
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(start,end);
-		query.selectFrom(clause)
-			.action(baselineData(COST,clause))
-			.execute();
-		return ((DoubleValue)query.getActionVisitor()).getValue();
+		return baselineBetween(COST,start,end);
 	}
 
 
 	public long baselineWork(long start, long end) {
 		if (!isLabor())
 			return 0;
-		Query query = Query.getInstance();
-		SelectFrom clause = SelectFrom.getInstance().whereInRange(start,end);
-		query.selectFrom(clause)
-			.action(baselineData(WORK,clause))
-			.execute();
-		return (long) ((DoubleValue)query.getActionVisitor()).getValue();
+		return (long) baselineBetween(WORK,start,end);
 	}
 
 
@@ -1851,6 +1908,55 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 		calcDataBetween(dataFunctor,clause,generator,values);
 	}
 
+	/**
+	 * Calculates several fields in one query.  Contours shared by the fields are walked once.  With a time iterator, values
+	 * of all fields are stored for each interval of the iterator; without one, each field stores its own contour intervals
+	 * as calcDataBetween(type,null,values) does.  Gives the same values as calling calcDataBetween for each type.
+	 * @param types fields to calculate
+	 * @param generator time iterator, or null for the whole assignment
+	 * @param values one CalculatedValues per type
+	 */
+	public void calcDataBetween(Object[] types, HasStartAndEnd generator, final CalculatedValues[] values) {
+		if (generator != null && !(generator instanceof TimeIteratorGenerator)) {
+			for (int i = 0; i < types.length; i++)
+				calcDataBetween(types[i],generator,values[i]);
+			return;
+		}
+		final TimeIteratorGenerator iterator = (TimeIteratorGenerator)generator;
+		final AssignmentFieldFunctor[] fields = new AssignmentFieldFunctor[types.length];
+		Query query = Query.getInstance();
+		Object scope = ContourTimeline.share();
+		try {
+			for (int i = 0; i < types.length; i++) {
+				SelectFrom clause = SelectFrom.getInstance();
+				fields[i] = getDataSelect(types[i],clause,false);
+				if (fields[i] == null)
+					continue;
+				if (iterator == null)
+					clause.select(CalculatedValuesFunctor.getInstance(fields[i],values[i],null));
+				else
+					clause.whereInRange(generator.getStart(),generator.getEnd());
+				query.selectFrom(clause);
+			}
+		} finally {
+			ContourTimeline.release(scope);
+		}
+		if (iterator == null) { // each clause stores its own intervals
+			query.execute();
+			return;
+		}
+		query.groupBy(iterator)
+			.action(fields,new FieldValuesVisitor() {
+				public void execute(HasStartAndEnd interval, double[] fieldValues) {
+					for (int i = 0; i < fields.length; i++) {
+						if (fields[i] != null)
+							values[i].set(iterator.getIndex(),interval.getStart(),interval.getEnd(),fieldValues[i],fields[i].getWorkCalendar());
+					}
+				}
+			})
+			.execute();
+	}
+
 	public static void calcResourceAvailabilityBetween(Resource resource, HasStartAndEnd generator, CalculatedValues values) {
 		SelectFrom clause = SelectFrom.getInstance();
 		AssignmentFieldFunctor dataFunctor = resourceAvailability(clause,resource);
@@ -2365,6 +2471,9 @@ public final class Assignment implements Schedule, Association, Allocation, Dela
 		if (dirty){
 			Task task=getTask();
 			if (task!=null) task.setDirty(true);
+			Resource resource=getResource();
+			if (resource instanceof ResourceImpl && ((ResourceImpl)resource).getGlobalResource()!=null)
+				((ResourceImpl)resource).getGlobalResource().markRollupDirty();
 		}
 	}
 
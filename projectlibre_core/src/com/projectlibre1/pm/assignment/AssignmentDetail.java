@@ -78,6 +78,7 @@ import com.projectlibre1.pm.assignment.contour.PersonalContour;
 import com.projectlibre1.pm.assignment.contour.StandardContour;
 import com.projectlibre1.pm.calendar.CalendarService;
 import com.projectlibre1.pm.calendar.HasCalendar;
+import com.projectlibre1.pm.calendar.IntersectionCalendarCache;
 import com.projectlibre1.pm.calendar.InvalidCalendarIntersectionException;
 import com.projectlibre1.pm.calendar.WorkCalendar;
 import com.projectlibre1.pm.calendar.WorkingCalendar;
@@ -431,7 +432,7 @@ public final class AssignmentDetail implements Schedule, HasCalendar, Cloneable,
 		
 		if (intersectionCalendar == null) {
 			try {
-				intersectionCalendar = ((WorkingCalendar)task.getEffectiveWorkCalendar()).intersectWith((WorkingCalendar)resource.getEffectiveWorkCalendar());
+				intersectionCalendar = IntersectionCalendarCache.getInstance().intersect((WorkingCalendar)task.getEffectiveWorkCalendar(),(WorkingCalendar)resource.getEffectiveWorkCalendar());
 			} catch (InvalidCalendarIntersectionException e) {
 				intersectionCalendar = WorkingCalendar.INVALID_INTERSECTION_CALENDAR;
 				Alert.error(Messages.getString("Message.invalidIntersection"));
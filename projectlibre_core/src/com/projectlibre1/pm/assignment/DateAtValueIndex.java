@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment;
+
+import java.util.Arrays;
+
+import com.projectlibre1.algorithm.IntervalGenerator;
+import com.projectlibre1.algorithm.IntervalGeneratorSet;
+import com.projectlibre1.algorithm.RangeIntervalGenerator;
+import com.projectlibre1.algorithm.SelectFrom;
+import com.projectlibre1.pm.assignment.functor.AssignmentFieldClosureCollection;
+import com.projectlibre1.pm.assignment.functor.AssignmentFieldFunctor;
+import com.projectlibre1.pm.calendar.WorkCalendar;
+
+/**
+ * Cumulative index answering reverse queries (the date at which a value is reached, see ReverseQuery) for one assignment.
+ * It steps through the same query a reverse query on the assignment runs, and records for each group by interval the
+ * value DateAtValueFunctor adds up and the running subtotal.  A lookup is then a binary search on the subtotals and
+ * the same interpolation inside the interval DateAtValueFunctor does, so the dates are the same as the query's.
+ * 
+ * The query is only stepped as far as the lookups need, and the index is kept until the assignment's inputs change
+ * (see TimephasedInputs).
+ */
+final class DateAtValueIndex {
+	private static final int INITIAL_SIZE = 16;
+
+	private final TimephasedInputs inputs;
+	private final AssignmentFieldClosureCollection childList;
+	private final WorkCalendar calendar;
+	private final SelectFrom clause;
+	private final IntervalGenerator groupBy;
+	private final boolean hasGroupBy;
+	private boolean clauseFinished = false;
+	private boolean finished = false;
+	private boolean started = false;
+
+	private long[] starts = new long[INITIAL_SIZE];
+	private long[] ends = new long[INITIAL_SIZE];
+	private double[] sums = new double[INITIAL_SIZE];
+	private double[] fixedSums = new double[INITIAL_SIZE];
+	private double[] subtotals = new double[INITIAL_SIZE];
+	private int size = 0;
+	private double subtotal = 0.0D;
+	private boolean increasing = true; // subtotals never decrease, so they can be binary searched
+
+	static DateAtValueIndex getInstance(Assignment assignment, Object type) {
+		return new DateAtValueIndex(assignment, type);
+	}
+
+	/**
+	 * The query built here is the one of Assignment.buildReverseQuery() and ReverseQuery.getDate()
+	 */
+	private DateAtValueIndex(Assignment assignment, Object type) {
+		inputs = new TimephasedInputs(assignment, type);
+		clause = SelectFrom.getInstance();
+		AssignmentFieldFunctor field = assignment.getDataSelect(type, clause, false);
+		calendar = field.getWorkCalendar();
+		childList = AssignmentFieldClosureCollection.getInstance(field);
+		IntervalGenerator unshared = IntervalGeneratorSet.extractUnshared(clause.getFromIntervalGenerators());
+		hasGroupBy = unshared != null;
+		groupBy = hasGroupBy ? IntervalGeneratorSet.getInstance(unshared) : RangeIntervalGenerator.continuous();
+	}
+
+	boolean matches(Assignment assignment) {
+		return inputs.matches(assignment);
+	}
+
+	/**
+	 * @return the date at which the value is reached, 0 if it never is
+	 */
+	long getDate(double value) {
+		int index = firstReaching(value);
+		while (index == size && step()) { // not reached in the recorded part, step further
+			if (size == 0 || subtotals[size - 1] < value)
+				index = size;
+			else
+				index = size - 1;
+		}
+		if (index == size)
+			return 0;
+
+		// same as DateAtValueFunctor
+		long start = starts[index];
+		long end = ends[index];
+		if (value == 0.0)
+			return start;
+		if (start == end)
+			return start;
+		double sum = sums[index];
+		double fixedSum = fixedSums[index];
+		if (subtotals[index] + fixedSum - sum >= value)
+			return start;
+		sum -= fixedSum;
+		double fractionOfDuration = (sum - (subtotals[index] - value)) / sum;
+		long duration = calendar.compare(end, start, false);
+		return calendar.add(start, (long) (duration * fractionOfDuration), true);
+	}
+
+	/**
+	 * @return the first recorded interval whose subtotal reaches the value, or size if none does yet
+	 */
+	private int firstReaching(double value) {
+		if (!increasing) {
+			for (int i = 0; i < size; i++) {
+				if (subtotals[i] >= value)
+					return i;
+			}
+			return size;
+		}
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (subtotals[mid] >= value)
+				high = mid - 1;
+			else
+				low = mid + 1;
+		}
+		return low;
+	}
+
+	/**
+	 * Advances the query by one group by interval, as Query.create() does, recording it if the action would be called
+	 * @return false if the query is over
+	 */
+	private boolean step() {
+		if (finished)
+			return false;
+		if (started && !groupBy.evaluate(null)) {
+			finished = true;
+			return false;
+		}
+		started = true;
+		long start = groupBy.currentStart();
+		long end = groupBy.currentEnd();
+		if (!clauseFinished) {
+			clause.initializeCalculations();
+			if (!clause.calculate(start, end))
+				clauseFinished = true;
+		}
+		if (start != 0L)
+			record(start, end);
+		if (!hasGroupBy && clauseFinished)
+			finished = true;
+		return true;
+	}
+
+	private void record(long start, long end) {
+		double sum = childList.getValue();
+		double fixedSum = childList.getFixedValue();
+		subtotal += sum;
+		if (size == starts.length) {
+			int capacity = size + (size >> 1);
+			starts = Arrays.copyOf(starts, capacity);
+			ends = Arrays.copyOf(ends, capacity);
+			sums = Arrays.copyOf(sums, capacity);
+			fixedSums = Arrays.copyOf(fixedSums, capacity);
+			subtotals = Arrays.copyOf(subtotals, capacity);
+		}
+		if (size > 0 && subtotal < subtotals[size - 1])
+			increasing = false;
+		starts[size] = start;
+		ends[size] = end;
+		sums[size] = sum;
+		fixedSums[size] = fixedSum;
+		subtotals[size] = subtotal;
+		size++;
+	}
+}
@@ -78,6 +78,7 @@ public interface HasAssignments extends HasTimeDistributedData, SchedulingFields
 	public int getSchedulingType();
 	public void setSchedulingType(int schedulingType);
 	public void calcDataBetween(Object type, TimeIteratorGenerator generator, CalculatedValues values);
+	public void calcDataBetween(Object[] types, TimeIteratorGenerator generator, CalculatedValues[] values);
 	public long calcActiveAssignmentDuration(WorkCalendar workCalendar);	
 	boolean hasLaborAssignment();
 	void invalidateAssignmentCalendars();
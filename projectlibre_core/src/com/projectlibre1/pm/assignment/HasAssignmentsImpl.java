@@ -84,6 +84,7 @@ import com.projectlibre1.pm.resource.Resource;
 import com.projectlibre1.pm.resource.ResourceImpl;
 import com.projectlibre1.pm.scheduling.SchedulingType;
 import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
 import com.projectlibre1.pm.task.Task;
 import com.projectlibre1.pm.time.HasStartAndEnd;
 import com.projectlibre1.pm.time.MutableInterval;
@@ -93,6 +94,7 @@ import com.projectlibre1.pm.time.MutableInterval;
  */
 public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedData, Serializable, Cloneable{
 	transient AssociationList assignments;
+	transient RollupCache rollup = new RollupCache();
 
 	int schedulingRule = ScheduleOption.getInstance().getSchedulingRule();
 	boolean effortDriven = ScheduleOption.getInstance().isEffortDriven();
@@ -165,7 +167,9 @@ public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedDat
 	}
 	public Object clone(){
 		try {
-			return super.clone();
+			HasAssignmentsImpl clone = (HasAssignmentsImpl)super.clone();
+			clone.rollup = new RollupCache();
+			return clone;
 		} catch (CloneNotSupportedException e) {
 			throw new InternalError();
 		}
@@ -213,6 +217,7 @@ public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedDat
 	 */
 	public void addAssignment(Assignment assignment) {
 		assignments.add(assignment);
+		rollup.markDirty();
 	}
 
 	/* (non-Javadoc)
@@ -220,6 +225,26 @@ public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedDat
 	 */
 	public void removeAssignment(Assignment assignment) {
 		assignments.remove(assignment);
+		rollup.markDirty();
+	}
+
+	/**
+	 * Drops the cached totals of the assignments, see RollupCache
+	 */
+	public void markRollupDirty() {
+		rollup.markDirty();
+	}
+
+	/**
+	 * Epoch of the project of the assignments' task. The assignments of a resource may belong to several projects,
+	 * each of which marks the resource when it advances its epoch.
+	 */
+	private RollupCache.Epoch rollupEpoch() {
+		if (assignments.isEmpty())
+			return null;
+		Task task = ((Assignment)assignments.getFirst()).getTask();
+		Project project = task == null ? null : task.getProject();
+		return project == null ? null : project.getRollupEpoch();
 	}
 
 	/**
@@ -334,13 +359,38 @@ public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedDat
 		calculatedValues.makeContiguousNonZero(barCallback,workCalendar);
 		//calculatedValues.dump();
 	}
+	private static final Object[] barTypes = {ACTUAL_WORK, REMAINING_WORK};
 	public void forEachWorkingInterval(final Closure visitor, boolean mergeWorking, WorkCalendar workCalendar) {
+		// actual and remaining work are calculated in one query per assignment, so each contour is walked once
+		NonGroupedCalculatedValues actual = new NonGroupedCalculatedValues(false,0);
+		NonGroupedCalculatedValues remaining = new NonGroupedCalculatedValues(false,0);
+		CalculatedValues[] values = new CalculatedValues[] {actual, remaining};
+		WorkCalendar barCalendar = workCalendar;
+		Iterator<?> i = assignments.iterator();
+		Assignment assignment = null;
+		while (i.hasNext()) {
+			assignment = (Assignment)i.next();
+			barCalendar = assignment.getEffectiveWorkCalendar(); // use the assignment's cal because it might work on off calendar time
+			assignment.calcDataBetween(barTypes,null,values);
+		}
 		barCallback.initialize(workCalendar,visitor,true);
-		forEachInterval(visitor,ACTUAL_WORK, workCalendar);
+		barCallback.setWorkCalendar(barCalendar);
+		actual.makeContiguousNonZero(barCallback,workCalendar);
 /* if the splitting should be at latest bar use this code
 		barCallback.finish();
 		barCallback.initialize(workCalendar,visitor,false);
 */
+		barCallback.initialize(workCalendar,visitor,true);
+		barCallback.setWorkCalendar(barCalendar);
+		remaining.makeContiguousNonZero(barCallback,workCalendar);
+	}
+
+	/**
+	 * Bars from one query per field and assignment.  This is the reference the fused forEachWorkingInterval must match.
+	 */
+	void forEachWorkingIntervalByField(final Closure visitor, WorkCalendar workCalendar) {
+		barCallback.initialize(workCalendar,visitor,true);
+		forEachInterval(visitor,ACTUAL_WORK, workCalendar);
 		barCallback.initialize(workCalendar,visitor,true);
 		forEachInterval(visitor,REMAINING_WORK, workCalendar);
 	}
@@ -411,28 +461,28 @@ public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedDat
 	 * @see com.projectlibre1.pm.costing.EarnedValueValues#acwp(long, long)
 	 */
 	public double acwp(long start, long end) {
-		return TimeDistributedDataConsolidator.acwp(start,end,childrenToRollup());
+		return rollup.get(RollupCache.ACWP,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.costing.EarnedValueValues#bac(long, long)
 	 */
 	public double bac(long start, long end) {
-		return TimeDistributedDataConsolidator.bac(start,end,childrenToRollup());
+		return rollup.get(RollupCache.BAC,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.costing.EarnedValueValues#bcwp(long, long)
 	 */
 	public double bcwp(long start, long end) {
-		return TimeDistributedDataConsolidator.bcwp(start,end,childrenToRollup());
+		return rollup.get(RollupCache.BCWP,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.costing.EarnedValueValues#bcws(long, long)
 	 */
 	public double bcws(long start, long end) {
-		return TimeDistributedDataConsolidator.bcws(start,end,childrenToRollup());
+		return rollup.get(RollupCache.BCWS,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 
@@ -440,21 +490,21 @@ public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedDat
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#cost(long, long)
 	 */
 	public double cost(long start, long end) {
-		return TimeDistributedDataConsolidator.cost(start,end,childrenToRollup());
+		return rollup.get(RollupCache.COST,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#cost(long, long)
 	 */
 	public double baselineCost(long start, long end) {
-		return TimeDistributedDataConsolidator.baselineCost(start,end,childrenToRollup());
+		return rollup.get(RollupCache.BASELINE_COST,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#cost(long, long)
 	 */
 	public long baselineWork(long start, long end) {
-		return TimeDistributedDataConsolidator.baselineWork(start,end,childrenToRollup(),true);
+		return rollup.getLong(RollupCache.BASELINE_WORK,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 
@@ -462,25 +512,25 @@ public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedDat
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#actualCost(long, long)
 	 */
 	public double actualCost(long start, long end) {
-		return TimeDistributedDataConsolidator.actualCost(start,end,childrenToRollup());
+		return rollup.get(RollupCache.ACTUAL_COST,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#work(long, long)
 	 */
 	public long work(long start, long end) {
-		return TimeDistributedDataConsolidator.work(start,end,childrenToRollup(),true);
+		return rollup.getLong(RollupCache.WORK,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#actualWork(long, long)
 	 */
 	public long actualWork(long start, long end) {
-		return TimeDistributedDataConsolidator.actualWork(start,end,childrenToRollup(),true);
+		return rollup.getLong(RollupCache.ACTUAL_WORK,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 	public long remainingWork(long start, long end) {
-		return TimeDistributedDataConsolidator.remainingWork(start,end,childrenToRollup(),true);
+		return rollup.getLong(RollupCache.REMAINING_WORK,start,end,childrenToRollup(),rollupEpoch());
 	}
 
 	public void calcDataBetween(Object type, TimeIteratorGenerator generator, CalculatedValues values) {
@@ -491,6 +541,13 @@ public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedDat
 
 	}
 
+	public void calcDataBetween(Object[] types, TimeIteratorGenerator generator, CalculatedValues[] values) {
+		Iterator<?> i = getAssignments().iterator();
+		while (i.hasNext()) {
+			((Assignment)i.next()).calcDataBetween(types,generator,values);
+		}
+	}
+
     public static List extractOppositeList(List list, boolean leftObject) {
     	Iterator i = list.iterator();
     	ArrayList assignments = new ArrayList();
@@ -557,6 +614,7 @@ public class HasAssignmentsImpl implements HasAssignments, HasTimeDistributedDat
 	private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException  {
 	    s.defaultReadObject();
 	    assignments = new AssociationList();
+	    rollup = new RollupCache();
 	}
 
 	/**
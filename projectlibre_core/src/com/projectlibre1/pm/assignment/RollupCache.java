@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.projectlibre1.field.FieldContext;
+import com.projectlibre1.util.DateTime;
+
+/**
+ * Full-range totals of a rollup owner (the assignments of a task or a resource, the tasks of a project), as
+ * computed by TimeDistributedDataConsolidator. Only queries over the whole time range are cached, which is what
+ * the scalar fields read; any other range is consolidated as before.
+ *
+ * A node is marked dirty when one of its children changes and the mark goes up to the owners above it: an
+ * assignment marks its task and its resource, a task marks its project. Clean nodes keep their totals, so after an
+ * edit only the dirty owners consolidate again, and a project reads the cached totals of its clean tasks.
+ * A schedule pass marks the tasks whose dates it moved. Changes that affect a whole project (its status date, a
+ * baseline of the project, its calendar) advance the project's Epoch, which drops the totals of its tasks and of the
+ * project. Only cost rate edits and a new day for earned value move the shared epoch used by every project.
+ *
+ * The cached totals are published as an immutable Totals through a volatile field, so readers sharing a project's
+ * read lock never see a value bit without its value. A reader that consolidated while the node was marked does
+ * not publish its result.
+ * Set projectlibre.rollup.cache to false to always consolidate.
+ */
+public final class RollupCache {
+	private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("projectlibre.rollup.cache", "true"));
+
+	public static final int ACWP = 0;
+	public static final int BAC = 1;
+	public static final int BCWP = 2;
+	public static final int BCWS = 3;
+	public static final int COST = 4;
+	public static final int ACTUAL_COST = 5;
+	public static final int FIXED_COST = 6;
+	public static final int ACTUAL_FIXED_COST = 7;
+	public static final int BASELINE_COST = 8;
+	public static final int BASELINE_WORK = 9;
+	public static final int WORK = 10;
+	public static final int ACTUAL_WORK = 11;
+	public static final int REMAINING_WORK = 12;
+	private static final int COUNT = 13;
+
+	private static final AtomicLong sharedEpoch = new AtomicLong();
+	private static volatile long nextDay = DateTime.midnightTomorrow();
+	private static final LongAdder hits = new LongAdder();
+	private static final LongAdder misses = new LongAdder();
+	private static final AtomicReferenceFieldUpdater<RollupCache,Totals> TOTALS =
+		AtomicReferenceFieldUpdater.newUpdater(RollupCache.class, Totals.class, "totals");
+
+	private volatile Totals totals = Totals.dirty();
+
+	/**
+	 * Epoch of the totals of one project. Advancing it drops the cached totals of the project and of its tasks.
+	 */
+	public static final class Epoch {
+		private final AtomicLong value = new AtomicLong();
+
+		public void advance() {
+			value.incrementAndGet();
+		}
+
+		long get() {
+			return value.get();
+		}
+	}
+
+	/**
+	 * Totals computed at a pair of epochs, never modified once published
+	 */
+	private static final class Totals {
+		final long shared;
+		final long scoped;
+		final int validMask; // bit per value computed since the node was last marked dirty
+		final double[] values;
+
+		Totals(long shared, long scoped, int validMask, double[] values) {
+			this.shared = shared;
+			this.scoped = scoped;
+			this.validMask = validMask;
+			this.values = values;
+		}
+
+		static Totals dirty() { // a new instance each time, so a fill racing with the mark cannot be published
+			return new Totals(-1L, -1L, 0, null);
+		}
+	}
+
+	/**
+	 * Marks the node as needing to consolidate again.
+	 */
+	public void markDirty() {
+		totals = Totals.dirty();
+	}
+
+	/**
+	 * Drops the totals of every node in every project. Only for changes that cannot be traced to a project, like
+	 * the rates of a cost rate table.
+	 */
+	public static void invalidateShared() {
+		sharedEpoch.incrementAndGet();
+	}
+
+	/**
+	 * @param epoch epoch of the project the totals belong to, or null
+	 */
+	public double get(int value, long start, long end, Collection<?> children, Epoch epoch) {
+		if (!ENABLED || !FieldContext.isScalar(start, end))
+			return consolidate(value, start, end, children);
+		long shared = currentSharedEpoch();
+		long scoped = epoch == null ? 0L : epoch.get();
+		Totals before = totals;
+		boolean current = before.shared == shared && before.scoped == scoped;
+		int bit = 1 << value;
+		if (current && (before.validMask & bit) != 0) {
+			hits.increment();
+			return before.values[value];
+		}
+		misses.increment();
+		double result = consolidate(value, start, end, children);
+		double[] values = current ? before.values.clone() : new double[COUNT];
+		values[value] = result;
+		// epochs are the ones read before consolidating, so a total computed across an invalidation is dropped on the next read
+		TOTALS.compareAndSet(this, before, new Totals(shared, scoped, (current ? before.validMask : 0) | bit, values));
+		return result;
+	}
+
+	public long getLong(int value, long start, long end, Collection<?> children, Epoch epoch) {
+		return (long) get(value, start, end, children, epoch);
+	}
+
+	private static long currentSharedEpoch() {
+		if (System.currentTimeMillis() >= nextDay) { // earned value depends on today when there is no status date
+			nextDay = DateTime.midnightTomorrow();
+			invalidateShared();
+		}
+		return sharedEpoch.get();
+	}
+
+	private static double consolidate(int value, long start, long end, Collection<?> children) {
+		switch (value) {
+		case ACWP: return TimeDistributedDataConsolidator.acwp(start, end, children);
+		case BAC: return TimeDistributedDataConsolidator.bac(start, end, children);
+		case BCWP: return TimeDistributedDataConsolidator.bcwp(start, end, children);
+		case BCWS: return TimeDistributedDataConsolidator.bcws(start, end, children);
+		case COST: return TimeDistributedDataConsolidator.cost(start, end, children);
+		case ACTUAL_COST: return TimeDistributedDataConsolidator.actualCost(start, end, children);
+		case FIXED_COST: return TimeDistributedDataConsolidator.fixedCost(start, end, children);
+		case ACTUAL_FIXED_COST: return TimeDistributedDataConsolidator.actualFixedCost(start, end, children);
+		case BASELINE_COST: return TimeDistributedDataConsolidator.baselineCost(start, end, children);
+		case BASELINE_WORK: return TimeDistributedDataConsolidator.baselineWork(start, end, children, true);
+		case WORK: return TimeDistributedDataConsolidator.work(start, end, children, true);
+		case ACTUAL_WORK: return TimeDistributedDataConsolidator.actualWork(start, end, children, true);
+		case REMAINING_WORK: return TimeDistributedDataConsolidator.remainingWork(start, end, children, true);
+		default: throw new IllegalArgumentException("Unknown rollup value " + value);
+		}
+	}
+
+	public static long getHitCount() {
+		return hits.sum();
+	}
+
+	public static long getMissCount() {
+		return misses.sum();
+	}
+
+	public static double getHitRate() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0.0 : (double) h / total;
+	}
+}
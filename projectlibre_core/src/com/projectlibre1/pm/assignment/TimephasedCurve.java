@@ -0,0 +1,278 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.projectlibre1.algorithm.CalculationVisitor;
+import com.projectlibre1.algorithm.CollectionIntervalGenerator;
+import com.projectlibre1.algorithm.Query;
+import com.projectlibre1.algorithm.SelectFrom;
+import com.projectlibre1.pm.assignment.contour.AbstractContourBucket;
+import com.projectlibre1.pm.assignment.contour.ContourBucketIntervalGenerator;
+import com.projectlibre1.pm.calendar.WorkCalendar;
+import com.projectlibre1.pm.costing.CostRate;
+import com.projectlibre1.pm.time.HasStartAndEnd;
+
+/**
+ * The work or cost of an assignment compiled once into a piecewise linear curve.
+ * The pieces are the intervals a Query over the contour (and for cost, the cost rate table) visits.  Each piece has a
+ * constant value per working millisecond and the cumulative value at its start, so the value between two dates is two
+ * binary searches, a subtraction, and a calendar compare for each of the two pieces the range cuts.
+ * Rates are those of WorkFunctor and CostFunctor, so the curve gives the same results as the query it replaces.
+ * 
+ * Only additive values can be compiled.  Cost whose cost per use is applied at an instant, or which is not proportional
+ * to time, still needs a query, see isCompilable().
+ * 
+ * A curve remembers the inputs it was built from and is rebuilt when one of them changes, see TimephasedInputs.
+ */
+final class TimephasedCurve {
+	private static final int INITIAL_SIZE = 8;
+
+	private final TimephasedInputs inputs;
+	private final WorkCalendar calendar;
+	private final long[] starts;
+	private final long[] ends;
+	private final double[] rates; // value per working millisecond
+	private final double[] cumulative; // value at the start of each piece, plus the total at the end
+	private final double divisor; // the duration for unitless work, see WorkFunctor
+	private final int size;
+
+	/**
+	 * Whether the value of this type can be compiled.  Work always can.  Cost can when it comes from a saved cost contour,
+	 * or when it is proportional to time and any cost per use is spread over the duration.
+	 * @param all true when the curve is used for the total only, in which case cost per use is spread too (see Assignment.cost())
+	 */
+	static boolean isCompilable(Assignment assignment, Object type, boolean all) {
+		AssignmentDetail detail = assignment.getDetail();
+		if (type != HasTimeDistributedData.COST || detail.getCostContour().isPersonal())
+			return true;
+		boolean prorated = assignment.isProratedCost();
+		if (!all && !prorated || !assignment.isTemporal())
+			return false;
+		if (prorated && assignment.getDuration() != 0)
+			return true;
+		List<?> list = TimephasedInputs.costRates(detail);
+		for (int i = 0; i < list.size(); i++) {
+			if (((CostRate) list.get(i)).getCostPerUse() != 0.0D) // applied once at an instant or per interval: not additive
+				return false;
+		}
+		return true;
+	}
+
+	static TimephasedCurve compile(Assignment assignment, Object type) {
+		return new TimephasedCurve(assignment, type);
+	}
+
+	private TimephasedCurve(Assignment assignment, Object type) {
+		inputs = new TimephasedInputs(assignment, type);
+		calendar = inputs.calendar;
+		boolean costFromWork = inputs.costFromWork;
+		divisor = (!costFromWork && assignment.getRate().isNonTemporal() && inputs.duration != 0) ? inputs.duration : 1.0D;
+
+		ContourBucketIntervalGenerator contour = assignment.contourGeneratorInstance(inputs.contourType());
+		CollectionIntervalGenerator costRate = costFromWork ? CollectionIntervalGenerator.getInstance(inputs.costRates) : null;
+		SelectFrom clause = SelectFrom.getInstance();
+		if (costRate != null)
+			clause.from(costRate);
+		PieceRecorder recorder = new PieceRecorder(contour, costRate, inputs.units, inputs.overtimeUnits, inputs.prorated, inputs.duration);
+		clause.from(contour).select(recorder);
+		Query.getInstance().selectFrom(clause).execute();
+
+		size = recorder.size;
+		starts = recorder.starts;
+		ends = recorder.ends;
+		rates = recorder.rates;
+		cumulative = new double[size + 1];
+		for (int i = 0; i < size; i++)
+			cumulative[i + 1] = cumulative[i] + rates[i] * calendar.compare(ends[i], starts[i], false) / divisor;
+	}
+
+	/**
+	 * @return true if the assignment still has the inputs this curve was built from
+	 */
+	boolean matches(Assignment assignment) {
+		return inputs.matches(assignment);
+	}
+
+	/**
+	 * Value in [start,end], 0 if the range is backwards, as a query whereInRange(start,end) would give.
+	 * Like the query, the pieces cut by the range are measured from the range ends: calendar compares are only additive
+	 * for dates on whole seconds, and contour buckets may end in between.
+	 */
+	double between(long start, long end) {
+		if (start > end)
+			return 0.0D;
+		int first = firstEndingAfter(start);
+		int last = lastStartingBefore(end);
+		if (first > last)
+			return 0.0D;
+		if (first == last)
+			return partial(first, Math.max(start, starts[first]), Math.min(end, ends[first]));
+		return partial(first, Math.max(start, starts[first]), ends[first])
+			+ (cumulative[last] - cumulative[first + 1])
+			+ partial(last, starts[last], Math.min(end, ends[last]));
+	}
+
+	double total() {
+		return cumulative[size];
+	}
+
+	private double partial(int i, long from, long to) {
+		if (from == starts[i] && to == ends[i])
+			return cumulative[i + 1] - cumulative[i];
+		return rates[i] * calendar.compare(to, from, false) / divisor;
+	}
+
+	private int firstEndingAfter(long date) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (ends[mid] <= date)
+				low = mid + 1;
+			else
+				high = mid - 1;
+		}
+		return low;
+	}
+
+	private int lastStartingBefore(long date) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (starts[mid] < date)
+				low = mid + 1;
+			else
+				high = mid - 1;
+		}
+		return high;
+	}
+
+	/**
+	 * Records the value per working millisecond of each interval the query visits, as WorkFunctor and CostFunctor compute it
+	 */
+	private static final class PieceRecorder implements CalculationVisitor {
+		private final ContourBucketIntervalGenerator contour;
+		private final CollectionIntervalGenerator costRate;
+		private final double units;
+		private final double overtimeUnits;
+		private final boolean prorated;
+		private final long assignmentDuration;
+		long[] starts = new long[INITIAL_SIZE];
+		long[] ends = new long[INITIAL_SIZE];
+		double[] rates = new double[INITIAL_SIZE];
+		int size = 0;
+
+		PieceRecorder(ContourBucketIntervalGenerator contour, CollectionIntervalGenerator costRate, double units, double overtimeUnits, boolean prorated, long assignmentDuration) {
+			this.contour = contour;
+			this.costRate = costRate;
+			this.units = units;
+			this.overtimeUnits = overtimeUnits;
+			this.prorated = prorated;
+			this.assignmentDuration = assignmentDuration;
+		}
+
+		public void execute(Object object) {
+			HasStartAndEnd interval = (HasStartAndEnd) object;
+			AbstractContourBucket bucket = (AbstractContourBucket) contour.current();
+			if (bucket == null)
+				return;
+			double rate;
+			if (costRate == null) {
+				if (bucket.getUnits() == 0)
+					return;
+				rate = bucket.getEffectiveUnits(units) + overtimeUnits;
+			} else {
+				double bucketUnits = bucket.getEffectiveUnits(units);
+				if (bucketUnits == 0.0)
+					return;
+				CostRate current = (CostRate) costRate.current();
+				rate = current.getStandardRate().getValue() * bucketUnits + current.getOvertimeRate().getValue() * overtimeUnits;
+				if (prorated && current.getCostPerUse() != 0.0D) // isCompilable() assures the duration is not 0
+					rate += current.getCostPerUse() * units / assignmentDuration;
+			}
+			add(interval.getStart(), interval.getEnd(), rate);
+		}
+
+		private void add(long pieceStart, long pieceEnd, double rate) {
+			if (rate == 0.0D || pieceEnd <= pieceStart)
+				return;
+			if (size == starts.length) {
+				int capacity = size + (size >> 1);
+				starts = Arrays.copyOf(starts, capacity);
+				ends = Arrays.copyOf(ends, capacity);
+				rates = Arrays.copyOf(rates, capacity);
+			}
+			starts[size] = pieceStart;
+			ends[size] = pieceEnd;
+			rates[size] = rate;
+			size++;
+		}
+
+		public void initialize() {
+		}
+
+		public void reset() {
+		}
+
+		public boolean isCumulative() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment;
+
+import java.util.List;
+
+import com.projectlibre1.pm.assignment.contour.AbstractContourBucket;
+import com.projectlibre1.pm.calendar.WorkCalendar;
+import com.projectlibre1.pm.calendar.WorkingCalendar;
+import com.projectlibre1.pm.costing.CostRate;
+import com.projectlibre1.pm.task.Project;
+
+/**
+ * The inputs the timephased work or cost of an assignment is calculated from: contour, schedule (start, durations,
+ * dependency split, units, overtime), calendar version and, for cost calculated from work, cost rates.
+ * Values compiled from an assignment keep the inputs they were built from and are rebuilt when matches() fails,
+ * see TimephasedCurve and DateAtValueIndex.
+ */
+final class TimephasedInputs {
+	final Object type;
+	final boolean costFromWork;
+	final WorkCalendar calendar;
+	final AbstractContourBucket[] buckets;
+	final long calendarVersion;
+	final long start;
+	final long durationMillis;
+	final long duration;
+	final long actualDuration;
+	final long dependencyStart;
+	final double percentComplete;
+	final boolean forward;
+	final double units;
+	final double overtimeUnits;
+	final int rateTimeUnit;
+	final List<?> costRates;
+	final double[] costRateValues; // effective date, standard, overtime, per use for each cost rate
+	final boolean prorated;
+
+	TimephasedInputs(Assignment assignment, Object type) {
+		AssignmentDetail detail = assignment.getDetail();
+		this.type = type;
+		costFromWork = isCostFromWork(detail, type);
+		calendar = assignment.getEffectiveWorkCalendar();
+		buckets = assignment.getContour(contourType());
+		calendarVersion = versionOf(calendar);
+		start = assignment.getStart();
+		durationMillis = assignment.getDurationMillis();
+		duration = assignment.getDuration();
+		actualDuration = assignment.getActualDuration();
+		dependencyStart = assignment.getDependencyStart();
+		percentComplete = assignment.getPercentComplete();
+		forward = isForward(assignment);
+		units = assignment.getUnits();
+		overtimeUnits = detail.calcOvertimeUnits();
+		rateTimeUnit = assignment.getRate().getTimeUnit();
+		prorated = costFromWork && assignment.isProratedCost();
+		costRates = costFromWork ? costRates(detail) : null;
+		costRateValues = costFromWork ? costRateValues(costRates) : null;
+	}
+
+	/**
+	 * @return the type of the contour walked: cost calculated from work walks the work contour
+	 */
+	Object contourType() {
+		return costFromWork ? HasTimeDistributedData.WORK : type;
+	}
+
+	/**
+	 * @return true if the assignment still has these inputs
+	 */
+	boolean matches(Assignment assignment) {
+		AssignmentDetail detail = assignment.getDetail();
+		if (costFromWork != isCostFromWork(detail, type))
+			return false;
+		if (buckets != assignment.getContour(contourType())
+				|| start != assignment.getStart()
+				|| durationMillis != assignment.getDurationMillis()
+				|| duration != assignment.getDuration()
+				|| actualDuration != assignment.getActualDuration()
+				|| dependencyStart != assignment.getDependencyStart()
+				|| percentComplete != assignment.getPercentComplete()
+				|| units != assignment.getUnits()
+				|| rateTimeUnit != assignment.getRate().getTimeUnit()
+				|| forward != isForward(assignment))
+			return false;
+		WorkCalendar currentCalendar = assignment.getEffectiveWorkCalendar();
+		if (currentCalendar != calendar || calendarVersion != versionOf(currentCalendar))
+			return false;
+		if (overtimeUnits != detail.calcOvertimeUnits())
+			return false;
+		if (!costFromWork)
+			return true;
+		if (costRates != costRates(detail) || prorated != assignment.isProratedCost() || costRateValues.length != 4 * costRates.size())
+			return false;
+		for (int i = 0; i < costRates.size(); i++) {
+			CostRate costRate = (CostRate) costRates.get(i);
+			if (costRateValues[4 * i] != costRate.getStart()
+					|| costRateValues[4 * i + 1] != costRate.getStandardRate().getValue()
+					|| costRateValues[4 * i + 2] != costRate.getOvertimeRate().getValue()
+					|| costRateValues[4 * i + 3] != costRate.getCostPerUse())
+				return false;
+		}
+		return true;
+	}
+
+	static boolean isCostFromWork(AssignmentDetail detail, Object type) {
+		return type == HasTimeDistributedData.COST && !detail.getCostContour().isPersonal();
+	}
+
+	static List<?> costRates(AssignmentDetail detail) {
+		return detail.getResource().getCostRateTable(detail.getCostRateIndex()).getList();
+	}
+
+	private static double[] costRateValues(List<?> list) {
+		double[] values = new double[list.size() * 4];
+		for (int i = 0; i < list.size(); i++) {
+			CostRate costRate = (CostRate) list.get(i);
+			values[4 * i] = costRate.getStart();
+			values[4 * i + 1] = costRate.getStandardRate().getValue();
+			values[4 * i + 2] = costRate.getOvertimeRate().getValue();
+			values[4 * i + 3] = costRate.getCostPerUse();
+		}
+		return values;
+	}
+
+	private static long versionOf(WorkCalendar calendar) {
+		return (calendar instanceof WorkingCalendar) ? ((WorkingCalendar) calendar).getVersion() : 0L;
+	}
+
+	private static boolean isForward(Assignment assignment) {
+		Project project = assignment.getTask().getProject();
+		return project == null || project.isForward();
+	}
+}
@@ -80,9 +80,20 @@ public class ContourBucketIntervalGenerator implements IntervalGenerator {
 	AbstractContourBucket specialBucket = null;
 	boolean didSplit = false;
 	public static ContourBucketIntervalGenerator getInstance(Assignment assignment, Object type) {
+		ContourTimeline timeline = ContourTimeline.shared(assignment,type); // inside a fused query, replay a shared walk
+		if (timeline != null)
+			return timeline.cursor();
 		return new ContourBucketIntervalGenerator(assignment,type);		
 	}
 	
+	/**
+	 * Constructor for generators which do not walk the contour themselves, but replay a walk - see ContourTimeline
+	 */
+	protected ContourBucketIntervalGenerator(WorkCalendar workCalendar, long end) {
+		this.workCalendar = workCalendar;
+		this.end = end;
+	}
+	
 	protected ContourBucketIntervalGenerator(Assignment assignment, Object type) {
 		workCalendar = assignment.getEffectiveWorkCalendar();
 		contourBuckets = assignment.getContour(type);
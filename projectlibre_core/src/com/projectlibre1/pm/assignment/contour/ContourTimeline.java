@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment.contour;
+
+import java.util.ArrayList;
+
+import com.projectlibre1.pm.assignment.Assignment;
+
+/**
+ * Records the intervals of one walk through an assignment contour so that several generators can replay it.
+ * Walking a contour costs two calendar additions per bucket.  When a query selects several fields of the same assignment,
+ * each field has its own generator over the same contour, so the walk is done once and the other generators read it back.
+ * The replayed generators go through exactly the same intervals and buckets as a generator walking the contour itself.
+ * 
+ * Timelines are only shared between share() and release(), while the clauses of a fused query are built.  The assignment
+ * must not change while the query runs.
+ */
+public class ContourTimeline {
+	private static final ThreadLocal<Scope> sharedScope = new ThreadLocal<Scope>();
+	
+	private final Assignment assignment;
+	private final Object type;
+	private final ContourBucketIntervalGenerator walker;
+	private final long initialEnd;
+	private final boolean initialHasNext;
+	private long[] starts = new long[8];
+	private long[] ends = new long[8];
+	private Object[] buckets = new Object[8];
+	private boolean[] hasNexts = new boolean[8];
+	private int size = 0;
+	private boolean walked = false;
+	
+	private ContourTimeline(Assignment assignment, Object type) {
+		this.assignment = assignment;
+		this.type = type;
+		walker = new ContourBucketIntervalGenerator(assignment,type);
+		initialEnd = walker.currentEnd();
+		initialHasNext = walker.hasNext();
+	}
+
+	/**
+	 * Starts sharing contour walks on this thread.  Must be paired with release() in a finally block
+	 * @return the previous scope, to pass to release()
+	 */
+	public static Object share() {
+		Object previous = sharedScope.get();
+		sharedScope.set(new Scope());
+		return previous;
+	}
+
+	public static void release(Object previous) {
+		sharedScope.set((Scope) previous);
+	}
+	
+	/**
+	 * @return the timeline of this assignment's contour if walks are being shared on this thread, null otherwise
+	 */
+	static ContourTimeline shared(Assignment assignment, Object type) {
+		Scope scope = sharedScope.get();
+		if (scope == null)
+			return null;
+		ContourTimeline timeline;
+		for (int i = 0; i < scope.timelines.size(); i++) {
+			timeline = scope.timelines.get(i);
+			if (timeline.assignment == assignment && timeline.type == type)
+				return timeline;
+		}
+		timeline = new ContourTimeline(assignment,type);
+		scope.timelines.add(timeline);
+		return timeline;
+	}
+	
+	/**
+	 * @return a new generator positioned before the first bucket
+	 */
+	public ContourBucketIntervalGenerator cursor() {
+		return new Cursor(this);
+	}
+	
+	/**
+	 * Walks the contour until the given step is recorded
+	 * @return false if the contour ends before this step
+	 */
+	private boolean reach(int step) {
+		while (step >= size) {
+			if (walked || !walker.evaluate(null)) {
+				walked = true;
+				return false;
+			}
+			if (size == starts.length) {
+				int capacity = size * 2;
+				long[] newStarts = new long[capacity];
+				long[] newEnds = new long[capacity];
+				Object[] newBuckets = new Object[capacity];
+				boolean[] newHasNexts = new boolean[capacity];
+				System.arraycopy(starts,0,newStarts,0,size);
+				System.arraycopy(ends,0,newEnds,0,size);
+				System.arraycopy(buckets,0,newBuckets,0,size);
+				System.arraycopy(hasNexts,0,newHasNexts,0,size);
+				starts = newStarts;
+				ends = newEnds;
+				buckets = newBuckets;
+				hasNexts = newHasNexts;
+			}
+			starts[size] = walker.currentStart();
+			ends[size] = walker.currentEnd();
+			buckets[size] = walker.current();
+			hasNexts[size] = walker.hasNext();
+			size++;
+		}
+		return true;
+	}
+	
+	/**
+	 * Generator replaying a timeline.  Each cursor has its own position.
+	 */
+	private static class Cursor extends ContourBucketIntervalGenerator {
+		private final ContourTimeline timeline;
+		private int step = -1;
+		
+		Cursor(ContourTimeline timeline) {
+			super(timeline.walker.getWorkCalendar(),timeline.initialEnd);
+			this.timeline = timeline;
+		}
+
+		public boolean evaluate(Object obj) {
+			if (!timeline.reach(step + 1))
+				return false;
+			step++;
+			start = timeline.starts[step];
+			end = timeline.ends[step];
+			return true;
+		}
+
+		public Object current() {
+			return step < 0 ? null : timeline.buckets[step];
+		}
+
+		public boolean hasNext() {
+			return step < 0 ? timeline.initialHasNext : timeline.hasNexts[step];
+		}
+	}
+	
+	/**
+	 * Timelines of the contours walked on a thread between share() and release()
+	 */
+	private static final class Scope {
+		private final ArrayList<ContourTimeline> timelines = new ArrayList<ContourTimeline>();
+	}
+}
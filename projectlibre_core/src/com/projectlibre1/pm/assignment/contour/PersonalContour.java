@@ -56,24 +56,41 @@
 package com.projectlibre1.pm.assignment.contour;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedList;
 
+import com.projectlibre1.configuration.CalculationPreference;
 import com.projectlibre1.pm.time.MutableInterval;
 import com.projectlibre1.strings.Messages;
 
 /**
+ * A contour whose buckets are set by the user, by progress or by timesheets.
+ * The buckets are packed in two parallel arrays: the end of each bucket as a duration from the start of the contour, and
+ * the units of each bucket, with FILLER marking filler buckets.  Since the ends are increasing, the bucket at a duration
+ * is found by binary search.  The arrays are never modified once a contour is made, so a new contour which only
+ * changes durations or only changes units shares the other array.  The bucket objects of getContourBuckets() are only
+ * made when asked for.  They are what is written to project files, so the file format is unchanged.
  * @stereotype strategy 
  */
 public class PersonalContour extends AbstractContour {
 	private static final String name = Messages.getString("PersonalContour.personal"); //$NON-NLS-1$
+	private static final double FILLER = Double.NaN; // units of a filler bucket, see FillerContourBucket
+	private static final long[] NO_ENDS = new long[0];
+	private static final double[] NO_UNITS = new double[0];
+
+	private long[] ends = NO_ENDS; // end of each bucket, as a duration from the start of the contour
+	private double[] units = NO_UNITS; // units of each bucket, FILLER for filler buckets
+	private boolean packed = false; // true if made by Packer, so packing it again would not change it
+
 	public boolean isPersonal() {return true;}
 	/**
 	 * Calculates total work 
 	 */
 	public long calcTotalWork(long assignmentDuration) {
 		long work = 0;
-		for (int i=0; i < contourBuckets.length; i++)
-			work += ((PersonalContourBucket)contourBuckets[i]).calcWork();
+		for (int i=0; i < ends.length; i++)
+			work += (long) (unitsAt(i) * durationAt(i));
 		return work;
 	}
 	
@@ -88,30 +105,27 @@ public class PersonalContour extends AbstractContour {
 	public int getType() {
 		return ContourTypes.CONTOURED;
 	}
-	/**
-	 * 
-	 */
-	private PersonalContour(AbstractContourBucket contourBuckets[]) {
-		super(contourBuckets);
+
+	private PersonalContour(long[] ends, double[] units, boolean packed) {
+		super(null);
+		this.ends = ends;
+		this.units = units;
+		this.packed = packed;
+		maxUnits = calcMaxUnits();
 	}
 
 	public static PersonalContour makePersonal(AbstractContour contour, long assignmentDuration) {
 		if (contour.isPersonal())
 			return (PersonalContour) contour;
-		AbstractContourBucket newBuckets[] = new AbstractContourBucket[contour.contourBuckets.length];
-		StandardContourBucket bucket;
-		for (int i=0; i < contour.contourBuckets.length; i++) {
-			bucket = (StandardContourBucket)contour.contourBuckets[i];
-			newBuckets[i] = PersonalContourBucket.getInstance(bucket.getBucketDuration(assignmentDuration), bucket.getUnits());
-		}
-		PersonalContour newOne = getInstance(newBuckets);
-		return newOne;
+		return getInstance(contour.getContourBuckets(), assignmentDuration);
 	}
 
+	/**
+	 * Makes a contour with as many buckets as another one, all of them empty
+	 */
 	public static PersonalContour constructUsingSizeOf(AbstractContour from) {
-		PersonalContour newOne = getInstance(new AbstractContourBucket[from.contourBuckets.length]);
-		newOne.maxUnits = newOne.calcMaxUnits();
-		return newOne;
+		int size = from.numBuckets();
+		return new PersonalContour(new long[size], new double[size], false);
 	}
 	
 	public static PersonalContour getInstance(Collection list) {
@@ -123,14 +137,37 @@ public class PersonalContour extends AbstractContour {
 	}
 	
 	public void validate() {
-		for (int i = 0; i < this.contourBuckets.length; i++)
-			if (contourBuckets[i].getBucketDuration(0) < 0 || contourBuckets[i].getUnits()< 0) {
+		for (int i = 0; i < ends.length; i++)
+			if (durationAt(i) < 0 || unitsAt(i) < 0) {
 				com.projectlibre1.server.access.ErrorLogger.log("Negative bucket in PersonalContour: " + this.toString(0), null);
 			}
 	}
 	
 	public static PersonalContour getInstance(AbstractContourBucket[] contourBuckets) {
-		return new PersonalContour(contourBuckets);
+		return getInstance(contourBuckets, 0);
+	}
+
+	/**
+	 * Packs buckets as they are.  Null buckets are skipped
+	 */
+	private static PersonalContour getInstance(AbstractContourBucket[] contourBuckets, long assignmentDuration) {
+		long[] ends = new long[contourBuckets.length];
+		double[] units = new double[contourBuckets.length];
+		int size = 0;
+		long end = 0;
+		for (int i = 0; i < contourBuckets.length; i++) {
+			AbstractContourBucket bucket = contourBuckets[i];
+			if (bucket == null)
+				continue;
+			end += bucket.getBucketDuration(assignmentDuration);
+			ends[size] = end;
+			units[size++] = bucket.isFiller() ? FILLER : bucket.getUnits();
+		}
+		if (size < ends.length) {
+			ends = Arrays.copyOf(ends, size);
+			units = Arrays.copyOf(units, size);
+		}
+		return new PersonalContour(ends, units, false);
 	}
 	
 /**
@@ -140,132 +177,68 @@ public class PersonalContour extends AbstractContour {
  * @param after
  * @return
  */	public static PersonalContour addEmptyBucket(AbstractContour from, long duration, boolean after) {
-		int oldLength = from.contourBuckets.length;
-		PersonalContour newContour = getInstance(new AbstractContourBucket[oldLength+1]);
-		
-		System.arraycopy(from.contourBuckets,0,newContour.contourBuckets,after ? 0 : 1,oldLength); // replace old with new and truncate to correct length
-		newContour.contourBuckets[after ? oldLength : 0] = PersonalContourBucket.getInstance(duration,0.0);
-		return newContour;
+		PersonalContour contour = makePersonal(from, 0);
+		int oldLength = contour.ends.length;
+		long[] ends = new long[oldLength + 1];
+		double[] units = new double[oldLength + 1];
+		if (after) {
+			System.arraycopy(contour.ends, 0, ends, 0, oldLength);
+			System.arraycopy(contour.units, 0, units, 0, oldLength);
+			ends[oldLength] = contour.totalDuration() + duration;
+		} else {
+			ends[0] = duration;
+			for (int i = 0; i < oldLength; i++)
+				ends[i + 1] = contour.ends[i] + duration;
+			System.arraycopy(contour.units, 0, units, 1, oldLength);
+		}
+		return new PersonalContour(ends, units, false);
 	}
 	
  
  /**
 	 * Set the duration of the personal contour. This implies either truncating the bucket array or changing the last bucket
 	 * to accommodate the new duration. Note that only the last bucket will be modified.  The number of buckets will never increase.
-	 * Since the buckets themselves are immutable, the last element will most likely be replaced.
 	 * @param newDuration: The new duration to set to.
 	 */	
 	public AbstractContour adjustDuration(long newDuration, long actualDuration) {
-		PersonalContour newContour = constructUsingSizeOf(this);
-		
-		PersonalContourBucket bucket = null;
-		for (int i=0; i < contourBuckets.length; i++) {
-			bucket = (PersonalContourBucket)contourBuckets[i];
-			newContour.contourBuckets[i] = bucket;
-			newDuration -= bucket.getDuration();
-			if (newDuration <= 0) {
-				newContour.contourBuckets[i] = bucket.adjustDuration(newDuration);// adding a negative value
-				if (i < contourBuckets.length -1 ) // if shortening number of buckets
-					System.arraycopy(newContour.contourBuckets,0,newContour.contourBuckets,0,i+1); // replace old with new and truncate to correct length
-		
-				AbstractContour result = newContour.makePacked(); // pack so as to get rid of any trailing empty buckets
-				return result;
-			}
+		int size = ends.length;
+		if (size == 0)
+			return this;
+		int last = indexAtOrAfter(newDuration);
+		if (last == size) { // extend last bucket to account for duration, the units do not change
+			long[] newEnds = ends.clone();
+			newEnds[size - 1] = newDuration;
+			if (!isFillerAt(size - 1))
+				return new PersonalContour(newEnds, units, packed);
+			double[] newUnits = units.clone();
+			newUnits[size - 1] = 0.0; // the adjusted bucket is no longer filler
+			return new PersonalContour(newEnds, newUnits, false);
 		}
-		// extend last bucket to account for duration
-		newContour.contourBuckets[contourBuckets.length-1] = bucket.adjustDuration(newDuration);
-		return newContour;
+		long[] newEnds = Arrays.copyOf(ends, last + 1);
+		newEnds[last] = newDuration;
+		double[] newUnits = Arrays.copyOf(units, last + 1);
+		newUnits[last] = unitsAt(last); // the adjusted bucket is no longer filler
+		return pack(newEnds, newUnits, last + 1); // pack so as to get rid of any trailing empty buckets
 	}
 
-//	private AbstractContour makeFlatIfPossible() {
-//		if (contourBuckets.length == 1)
-//			contourBuckets[0].units
-//	}
-
-	/**
-	 * Gets all buckets before a duration, cutting a bucket in half if needed.  Will return empty list if at start
-	 * @param atDuration
-	 * @param newBucket
-	 * @return
-	 */	
-	private ArrayList bucketsBeforeDuration(long atDuration) {
-		ArrayList newList = new ArrayList();
-		boolean inserted = false;
-		PersonalContourBucket bucket = null;
-		long cursorDuration = 0;
-		for (int i=0; i < contourBuckets.length; i++) {
-			bucket = (PersonalContourBucket)contourBuckets[i];
-			cursorDuration += bucket.getDuration();
-			if (cursorDuration < atDuration) { // if already treated or before start, just use existing one
-				newList.add(bucket);
-			} else {
-				long fractionedBucketDuration = atDuration - (cursorDuration - bucket.getDuration());
-				if (fractionedBucketDuration > 0) {
-					if (bucket.isFiller())
-						newList.add(FillerContourBucket.getInstance(fractionedBucketDuration));
-					else
-						newList.add(PersonalContourBucket.getInstance(fractionedBucketDuration,bucket.getUnits()));
-				}
-				break;
-			}
-		}
-		return newList;
-	}		
-
-	private ArrayList bucketsAfterDuration(long atDuration, boolean excludeFiller) {
-		ArrayList newList = new ArrayList();
-		boolean inserted = false;
-		PersonalContourBucket bucket = null;
-		long cursorDuration = 0;
-		for (int i=0; i < contourBuckets.length; i++) {
-			bucket = (PersonalContourBucket)contourBuckets[i];
-			cursorDuration += bucket.getDuration();
-			if (excludeFiller && bucket.isFiller()) // see if should skip filler buckets
-				continue;
-			if (cursorDuration > atDuration) { // if already treated or before start, just use existing one
-				if (cursorDuration - bucket.getDuration() >= atDuration) {
-					newList.add(bucket); // if start of this bucket is past atDuration, just add it
-				} else {
-					long fractionedBucketDuration = cursorDuration - atDuration;
-					if (fractionedBucketDuration > 0)
-						newList.add(PersonalContourBucket.getInstance(fractionedBucketDuration,bucket.getUnits()));
-				}
-			}
-		}
-		return newList;
-	}	
-	
-	/**
-	 * Removes any buckets having filler status after a given date.  This is used in the obscure case where we uncomplete
-	 * work and we want to eliminate gaps that exist due to dependency dates.  These gaps should not be considered part of the contour.
-	 * @param atDuration
-	 * @return
-	 */
-	public AbstractContour removeFillerAfter(long atDuration) {
-		ArrayList newList = bucketsBeforeDuration(atDuration);
-		newList.addAll(bucketsAfterDuration(atDuration,false)); // exclude filler
-		return getInstance(newList).makePacked();
-	}
 /**
  * Given an interval as start and end, determine the range which this interval can move in.
  * @param start
  * @param end
  * @return an interval which is a superset of the start,end interval
  */	public MutableInterval getRangeThatIntervalCanBeMoved(long start, long end) {
-		ArrayList tempList = bucketsBeforeDuration(start);
 		long startConstraint = start;
 		long endConstraint = Long.MAX_VALUE; // by default unbounded 
-		if (tempList.size() > 0) {
-			PersonalContourBucket bucket = (PersonalContourBucket) tempList.get(tempList.size()-1);
-			if (bucket.getUnits() == 0)
-				startConstraint = start - bucket.getDuration();
+		int size = ends.length;
+		if (start > 0 && size > 0) { // the bucket just before start, cut at start
+			int i = Math.min(indexAtOrAfter(start), size - 1);
+			if (unitsAt(i) == 0)
+				startConstraint = start - (Math.min(start, ends[i]) - startOf(i));
 		}
-		tempList.clear();
-		tempList = bucketsAfterDuration(end, false);
-		if (tempList.size() > 0) {
-			PersonalContourBucket bucket = (PersonalContourBucket) tempList.get(0);
-			if (bucket.getUnits() == 0)
-				endConstraint = end + bucket.getDuration();
+		int i = indexAfter(end); // the bucket just after end, cut at end
+		if (i < size) {
+			if (unitsAt(i) == 0)
+				endConstraint = end + ends[i] - Math.max(end, startOf(i));
 			else
 				endConstraint = end;
 		}
@@ -274,11 +247,11 @@ public class PersonalContour extends AbstractContour {
 	}
 	
 	public PersonalContour setInterval(long startDuration, long endDuration, double units) {
-		ArrayList newList = new ArrayList();
-		newList.addAll(bucketsBeforeDuration(startDuration));
-		newList.add(PersonalContourBucket.getInstance(endDuration - startDuration, units));
-		newList.addAll(bucketsAfterDuration(endDuration, false));
-		return getInstance(newList).makePacked();
+		Packer packer = new Packer(ends.length + 2);
+		packer.addBefore(this, startDuration);
+		packer.add(endDuration - startDuration, units);
+		packer.addAfter(this, endDuration);
+		return packer.toContour();
 	}
 	
 	
@@ -288,81 +261,40 @@ public class PersonalContour extends AbstractContour {
  * @param newBucket
  * @return
  */	public PersonalContour insertBucket(long atDuration, AbstractContourBucket newBucket) {
-		ArrayList newList = new ArrayList();
-		boolean inserted = false;
-		PersonalContourBucket bucket = null;
-		long cursorDuration = 0;
-		for (int i=0; i < contourBuckets.length; i++) {
-			bucket = (PersonalContourBucket)contourBuckets[i];
-			cursorDuration += bucket.getDuration();
-			if (inserted || cursorDuration < atDuration) { // if already treated or before start, just use existing one
-				newList.add(bucket);
+		Packer packer = new Packer(ends.length + 2);
+		int at = indexAtOrAfter(atDuration);
+		for (int i = 0; i < ends.length; i++) {
+			if (i == at) {
+				long d = ends[i] - atDuration;
+				packer.add(d, unitsAt(i));
+				packer.add(newBucket.getBucketDuration(0), newBucket.isFiller() ? FILLER : newBucket.getUnits()); // do this bucket after
+				packer.add(durationAt(i) - d, unitsAt(i));
 			} else {
-				long d = cursorDuration - atDuration;
-				newList.add(PersonalContourBucket.getInstance(d,bucket.getUnits()));
-				newList.add(newBucket); // do this bucket after
-				newList.add(PersonalContourBucket.getInstance(bucket.getDuration()-d,bucket.getUnits()));				
-				inserted = true;
+				packer.add(durationAt(i), units[i]);
 			}
 		}
-		return getInstance(newList).makePacked();
+		return packer.toContour();
 	}	
 	
-// 	public PersonalContour setContiguousDuration(long startOfRegion, long duration) {
-// 		
-// 		//not yet implemented
-//		ArrayList newList = new ArrayList();
-//		boolean inserted = false;
-//		PersonalContourBucket bucket = null;
-//		long cursorDuration = 0;
-//		long regionDuration = 0;
-//		for (int i=0; i < contourBuckets.length; i++) {
-//			bucket = (PersonalContourBucket)contourBuckets[i];
-//			cursorDuration += bucket.getDuration();
-//			if (inserted || cursorDuration < startOfRegion) { // if already treated or before start, just use existing one
-//				newList.add(bucket);
-//			} else { // start of region
-//				regionDuration += bucket.getDuration();
-//				if (regionDuration < duration)
-//					newList.add(bucket);
-//				
-//				
-//				
-//				long d = cursorDuration - startOfRegion;
-//				if (d > 0)
-//					newList.add(PersonalContourBucket.getInstance(d,bucket.getUnits()));
-//				// at region now
-//				//newList.add(newBucket); // do this bucket after
-//				newList.add(PersonalContourBucket.getInstance(bucket.getDuration()-d,bucket.getUnits()));				
-//				inserted = true;
-//			}
-//		}
-//		return getInstance(newList).makePacked();
-// 		
-// 	}
- 
 /**
  * Extend a bucket by a duration
  * @param atDuration - point on bucket to extend
  * @param extendDuration - amount to extend - can be negative to contract
  * @return - new contour
  */	public PersonalContour extendBucket(long atDuration, long extendDuration) {
-		PersonalContour newContour = constructUsingSizeOf(this);
-		PersonalContourBucket bucket = null;
-		boolean extended = false;
-		long cursorDuration = 0;
-		for (int i=0; i < contourBuckets.length; i++) {
-			bucket = (PersonalContourBucket)contourBuckets[i];
-			newContour.contourBuckets[i] = bucket; // use existing bucket by default
-			cursorDuration += bucket.getDuration();
-			if (!extended && cursorDuration >= atDuration) { // if the current bucket overlaps the point
-				if (bucket.getUnits() != 0) { // if it is a working bucket, then skip it
-					extended = true;
-					newContour.contourBuckets[i] = PersonalContourBucket.getInstance(Math.max(0,bucket.getDuration() + extendDuration),bucket.getUnits());
-				}
-			}
-		}
-		return newContour.makePacked();		
+		int i = indexAtOrAfter(atDuration);
+		while (i < ends.length && unitsAt(i) == 0) // if it is not a working bucket, then skip it
+			i++;
+		if (i == ends.length)
+			return pack();
+		long newDuration = Math.max(0, durationAt(i) + extendDuration);
+		long offset = newDuration - durationAt(i);
+		long[] newEnds = ends.clone();
+		for (int j = i; j < newEnds.length; j++)
+			newEnds[j] += offset;
+		if (packed && newDuration > 0)
+			return new PersonalContour(newEnds, units, true);
+		return pack(newEnds, units, newEnds.length);
 	}	
 
 /**
@@ -374,162 +306,153 @@ public class PersonalContour extends AbstractContour {
  */	public PersonalContour shift(long start, long end, long shiftDuration) {
 		if (shiftDuration == 0)
 			return this;
-		ArrayList newList = new ArrayList();
+		Packer packer = new Packer(ends.length + 2);
 		if (shiftDuration > 0) {
 			// we are shifting to right, so remove a period corresponding to shiftDuration immediately after the interval
-			newList.addAll(bucketsBeforeDuration(end));
-			newList.addAll(bucketsAfterDuration(end+shiftDuration, false));
-			
-			PersonalContour temp = getInstance(newList).makePacked();
-			newList.clear();
+			packer.addBefore(this, end);
+			packer.addAfter(this, end + shiftDuration);
+			PersonalContour temp = packer.toContour();
 			
 			//Now add in a non-work period before the start
-			newList.addAll(temp.bucketsBeforeDuration(start));
-			newList.add(PersonalContourBucket.getInstance(shiftDuration,0));
-			newList.addAll(temp.bucketsAfterDuration(start, false)); 
+			packer = new Packer(temp.ends.length + 2);
+			packer.addBefore(temp, start);
+			packer.add(shiftDuration, 0);
+			packer.addAfter(temp, start);
 		} else {
 			// we will be shifting to the left, so add padding after the interval so later bars will stay fixed
-			newList.addAll(bucketsBeforeDuration(end));
-			newList.add(PersonalContourBucket.getInstance(-shiftDuration,0)); // note shift duration is negative
-			newList.addAll(bucketsAfterDuration(end, false));
+			packer.addBefore(this, end);
+			packer.add(-shiftDuration, 0); // note shift duration is negative
+			packer.addAfter(this, end);
+			PersonalContour temp = packer.toContour();
 
-			PersonalContour temp = getInstance(newList).makePacked();
-			newList.clear();
 			// Now remove the period corresponding to shiftDuration before the bar
-			newList.addAll(temp.bucketsBeforeDuration(start+shiftDuration)); // note shift duration is negative
-			newList.addAll(temp.bucketsAfterDuration(start, false));
+			packer = new Packer(temp.ends.length + 2);
+			packer.addBefore(temp, start + shiftDuration); // note shift duration is negative
+			packer.addAfter(temp, start);
 		}
-		PersonalContour result =getInstance(newList).makePacked(); 
-		return result;
+		return packer.toContour();
 	}	
 
 	public AbstractContour extend(long end, long extendDuration) {
 		if (extendDuration == 0)
 			return this;
-		PersonalContour result;
-		ArrayList newList = new ArrayList();
+		Packer packer = new Packer(ends.length + 2);
 		if (extendDuration > 0) {
-			newList.addAll(bucketsBeforeDuration(end));
-			newList.addAll(bucketsAfterDuration(end+extendDuration, false));
-			PersonalContour temp = getInstance(newList).makePacked();
-			result = temp.extendBucket(end,extendDuration); // extend interval
-		} else {
-			newList.addAll(bucketsBeforeDuration(end+extendDuration));
-			newList.add(PersonalContourBucket.getInstance(-extendDuration,0)); // whitespace replaces area removed by shortening
-			newList.addAll(bucketsAfterDuration(end, false));
-			result = getInstance(newList).makePacked();
+			packer.addBefore(this, end);
+			packer.addAfter(this, end + extendDuration);
+			return packer.toContour().extendBucket(end, extendDuration); // extend interval
 		}
-		return result;
+		packer.addBefore(this, end + extendDuration);
+		packer.add(-extendDuration, 0); // whitespace replaces area removed by shortening
+		packer.addAfter(this, end);
+		return packer.toContour();
 	}
 
 	public AbstractContour extendBefore(long start, long extendDuration) {
 		if (extendDuration == 0)
 			return this;
-		PersonalContour result;
-		ArrayList newList = new ArrayList();
 		PersonalContour temp = extendBucket(start,-extendDuration); // extend at point
+		Packer packer = new Packer(temp.ends.length + 2);
 		if (extendDuration < 0) {
-			newList.addAll(temp.bucketsBeforeDuration(start+extendDuration)); // add all up to new start - extend duration is neg
-			newList.addAll(temp.bucketsAfterDuration(start, false));
+			packer.addBefore(temp, start + extendDuration); // add all up to new start - extend duration is neg
+			packer.addAfter(temp, start);
 		} else {
-			newList.addAll(temp.bucketsBeforeDuration(start));
-			newList.add(PersonalContourBucket.getInstance(extendDuration,0)); // whitespace replaces area removed by shortening
-			newList.addAll(temp.bucketsAfterDuration(start, false));
-
+			packer.addBefore(temp, start);
+			packer.add(extendDuration, 0); // whitespace replaces area removed by shortening
+			packer.addAfter(temp, start);
 		}
-		result = getInstance(newList).makePacked();		
-		return result;
+		return packer.toContour();
 	}	
+
+	/**
+	 * Removes any buckets having filler status after a given date.  This is used in the obscure case where we uncomplete
+	 * work and we want to eliminate gaps that exist due to dependency dates.  These gaps should not be considered part of the contour.
+	 * @param atDuration
+	 * @return
+	 */
+	public AbstractContour removeFillerAfter(long atDuration) {
+		Packer packer = new Packer(ends.length + 1);
+		packer.addBefore(this, atDuration);
+		packer.addAfter(this, atDuration);
+		return packer.toContour();
+	}
+
 /**
  * Return an optimized contour that has no superflous info
  * @return
- */	private PersonalContour makePacked() {
-		ArrayList newList = new ArrayList();
-		PersonalContourBucket previous = null;
-		PersonalContourBucket bucket = null;
-		// go thru each bucket
-		for (int i=0; i < contourBuckets.length; i++) {
-			bucket = (PersonalContourBucket) contourBuckets[i];
-			if (bucket == null) {
-				System.out.println("null bucket " + i + " in make packed - skipping");
-				continue;
-			}
-			if (previous != null && previous.getUnits() == bucket.getUnits()  && previous.isFiller() == bucket.isFiller()) { // if matches previous bucket, make new bucket
-				previous = PersonalContourBucket.getInstance(previous.getDuration() + bucket.getDuration(),bucket.getUnits());
-			} else {
-				if (previous != null) {
-					if (previous.getDuration() > 0) {// ignore 0 length buckets
-						newList.add(previous); // doesnt match, so add it
-					}
-				}
-				previous = bucket;
-			}
-			
-		}
-		if (previous != null && previous.getDuration() > 0 && previous.getUnits() != 0.0) // ignore 0 length buckets or ones with 0 units at end
-			newList.add(previous); // add the last one - it will not have been added yet
-		if (newList.isEmpty())
-			newList.add(PersonalContourBucket.getInstance(0,1.0)); // add empty bucket with no duration
-		return getInstance(newList);
-		
+ */	private PersonalContour pack() {
+		if (packed)
+			return this;
+		return pack(ends, units, ends.length);
+	}
+
+	private static PersonalContour pack(long[] ends, double[] units, int size) {
+		Packer packer = new Packer(size);
+		packer.addBuckets(new PersonalContour(ends, units, false), 0, size);
+		return packer.toContour();
 	}
 	
  	public AbstractContour convertToFlatIfPossible() {
- 		if (getContourBuckets().length > 1)
+ 		if (numBuckets() > 1)
  			return this;
  		else
  			return StandardContour.FLAT_CONTOUR;
  	}
+
 	/**
 	 * Set the units of the personal contour by multiplying each bucket's units by a multipier.
-	 * Since buckets are immutable, each element is copied to a new one
 	 * The multiplier is newRate / oldRate
 	 * @param multiplier: The new value to set to.
 	 */	
-//	public AbstractContour adjustUnitsOld(double multiplier, long actualDuration) {
-//		PersonalContour newContour = constructUsingSizeOf(this);		
-//		for (int i=0; i < contourBuckets.length; i++) {
-//			newContour.contourBuckets[i] = ((PersonalContourBucket)contourBuckets[i]).adjustUnits(multiplier);
-//		}
-//		newContour.maxUnits = newContour.calcMaxUnits();
-//		return newContour;		
-//	}
-
 	public AbstractContour adjustUnits(double multiplier, long startingFrom) {
-		ArrayList newList = new ArrayList();
-		newList.addAll(bucketsBeforeDuration(startingFrom));
-		ArrayList remainingBuckets = bucketsAfterDuration(startingFrom, false);
-		for (int i=0; i < remainingBuckets.size(); i++) {
-			newList.add(((PersonalContourBucket)remainingBuckets.get(i)).adjustUnits(multiplier));
+		if (startingFrom <= 0 && packed && multiplier > 0 && totalDuration() > 0 && !hasFiller()) { // same buckets, only the units change
+			double[] newUnits = new double[units.length];
+			for (int i = 0; i < units.length; i++)
+				newUnits[i] = units[i] * multiplier;
+			return new PersonalContour(ends, newUnits, true);
 		}
-		PersonalContour newContour = getInstance(newList).makePacked();
-		newContour.maxUnits = newContour.calcMaxUnits();
-		return newContour;
+		Packer packer = new Packer(ends.length + 1);
+		packer.addBefore(this, startingFrom);
+		for (int i = indexAfter(startingFrom); i < ends.length; i++)
+			packer.add(ends[i] - Math.max(startingFrom, startOf(i)), unitsAt(i) * multiplier); // adjusted buckets are not filler
+		return packer.toContour();
 	}
 		
 	
 /**
- * Replace every element of the array with another that has its work adjusted
+ * Adjust the work of every bucket after the actual duration, by multiplying its duration and dividing its units
  */
 	public AbstractContour contourAdjustWork(double multiplier, long actualDuration) {
-		if (actualDuration == 0) {
-			PersonalContour newContour = constructUsingSizeOf(this);
-			for (int i=0; i < contourBuckets.length; i++) {
-				newContour.contourBuckets[i] = ((PersonalContourBucket)contourBuckets[i]).adjustWork(multiplier);
+		boolean nonWorkStaysFixed = CalculationPreference.getActive().isNonWorkContourPeriodsStayFixedLength();
+		if (actualDuration == 0) { // every bucket is adjusted, and the buckets are kept as they are
+			long[] newEnds = new long[ends.length];
+			double[] newUnits = new double[ends.length];
+			long end = 0;
+			for (int i = 0; i < ends.length; i++) {
+				long duration = durationAt(i);
+				newUnits[i] = units[i];
+				if (!nonWorkStaysFixed || unitsAt(i) != 0) { // in the case where units are 0, don't touch the bucket
+					duration = (long) (duration * multiplier);
+					newUnits[i] = unitsAt(i) / multiplier;
+				}
+				end += duration;
+				newEnds[i] = end;
 			}
-			newContour.makePacked();
-			newContour.maxUnits = newContour.calcMaxUnits();		
-			return newContour;
+			return new PersonalContour(newEnds, newUnits, false);
 		}
-
-		ArrayList newList = bucketsBeforeDuration(actualDuration);
-		ArrayList after = bucketsAfterDuration(actualDuration,false);
-		for (int i = 0; i < after.size(); i++) {
-			newList.add(((PersonalContourBucket)after.get(i)).adjustWork(multiplier));
+		Packer packer = new Packer(ends.length + 1);
+		packer.addBefore(this, actualDuration);
+		for (int i = indexAfter(actualDuration); i < ends.length; i++) {
+			boolean cut = startOf(i) < actualDuration;
+			long duration = ends[i] - Math.max(actualDuration, startOf(i));
+			double bucketUnits = cut ? unitsAt(i) : units[i];
+			if (!nonWorkStaysFixed || unitsAt(i) != 0) {
+				duration = (long) (duration * multiplier);
+				bucketUnits = unitsAt(i) / multiplier;
+			}
+			packer.add(duration, bucketUnits);
 		}
-		AbstractContour result =  getInstance(newList).makePacked();
-		result.maxUnits = result.calcMaxUnits();
-		return result;
+		return packer.toContour();
 	}	
 	
 
@@ -541,62 +464,33 @@ public class PersonalContour extends AbstractContour {
  * @param assignmentDuration
  */
 	public PersonalContour(AbstractContour standard, long assignmentDuration) {
-		super(new PersonalContourBucket[standard.numBuckets()]);
-		for (int i = 0; i < contourBuckets.length; i++) 
-			contourBuckets[i] = PersonalContourBucket.getInstance(standard.getContourBuckets()[i], assignmentDuration);
+		super(null);
+		PersonalContour copy = getInstance(standard.getContourBuckets(), assignmentDuration);
+		ends = copy.ends;
+		units = copy.units;
 		maxUnits = calcMaxUnits();
 	}
 
-
-//	public AbstractContour setValue(long assignmentStart, long setStart, long setEnd, long setDuration, double value) {
-//		LinkedList newList = new LinkedList();
-//		
-//		PersonalContourBucket bucket = null;
-//		long start = assignmentStart;
-//		long end;
-//		for (int i=0; i < contourBuckets.length; i++) {
-//			bucket = (PersonalContourBucket)contourBuckets[i];
-//
-//			if (setStart <= start) {
-//				newList.add(new PersonalContourBucket(setDuration, value));
-//				setStart = Long.MAX_VALUE;
-//				end = setEnd;
-//			}
-//			if (start + bucket.getDuration())
-//			
-//				end = start + bucket.getDuration();
-//				
-//			}
-//			
-//			newContour.contourBuckets[i] = bucket;
-//			newDuration -= bucket.getDuration();
-//			if (newDuration <= 0) {
-//				newContour.contourBuckets[i] = bucket.adjustDuration(newDuration);// adding a negative value
-//				if (i < contourBuckets.length -1 ) // if shortening number of buckets
-//					System.arraycopy(newContour.contourBuckets,0,newContour.contourBuckets,0,i+1); // replace old with new and truncate to correct length
-//				return newContour;
-//			}
-//		}
-//		// extend last bucket to account for duration
-//		newContour.contourBuckets[contourBuckets.length] = bucket.adjustDuration(newDuration);
-//		return newContour;
-//	}
-
 	/**
 	 * Remove any starting empty buckets from the contour and return the duration of those buckets
 	 * @return
 	 */
 	public long extractDelay() {
-		long delay = 0;
-		if (contourBuckets.length < 2) 
+		int size = ends.length;
+		if (size < 2) 
 			return 0;
-
-		while (contourBuckets[0].getUnits() == 0) {
-			delay += contourBuckets[0].getBucketDuration(0);
-			AbstractContourBucket newBuckets[] = new AbstractContourBucket[contourBuckets.length - 1];
-			System.arraycopy(contourBuckets,1,newBuckets,0,newBuckets.length);
-			contourBuckets = newBuckets;
-		}
+		int count = 0;
+		while (count < size - 1 && unitsAt(count) == 0)
+			count++;
+		if (count == 0)
+			return 0;
+		long delay = ends[count - 1];
+		long[] newEnds = new long[size - count];
+		for (int i = 0; i < newEnds.length; i++)
+			newEnds[i] = ends[count + i] - delay;
+		ends = newEnds;
+		units = Arrays.copyOfRange(units, count, size);
+		contourBuckets = null;
 		return delay;
 	}
 	
@@ -606,19 +500,218 @@ public class PersonalContour extends AbstractContour {
 	 * @return
 	 */
 	public AbstractContour removeEmptyBucketAtDuration(long atDuration) {
-		ArrayList afterList = bucketsAfterDuration(atDuration,false);
+		int i = indexAfter(atDuration);
 		// if nothing after or starts with a non null bucket
-		if (afterList.isEmpty() || ((AbstractContourBucket)afterList.get(0)).getUnits() != 0)
+		if (i == ends.length || unitsAt(i) != 0)
 			return this;
-		afterList.remove(0); // remove blank bucket
-		ArrayList newList = bucketsBeforeDuration(atDuration);
-		newList.addAll(afterList); // exclude filler
-		return getInstance(newList).makePacked();
+		Packer packer = new Packer(ends.length);
+		packer.addBefore(this, atDuration);
+		packer.addBuckets(this, i + 1, ends.length); // remove blank bucket
+		return packer.toContour();
+	}
+
+	/**
+	 * The buckets are made from the packed arrays the first time they are asked for
+	 */
+	public AbstractContourBucket[] getContourBuckets() {
+		AbstractContourBucket[] buckets = contourBuckets;
+		if (buckets == null) {
+			buckets = new AbstractContourBucket[ends.length];
+			for (int i = 0; i < buckets.length; i++)
+				buckets[i] = isFillerAt(i) ? FillerContourBucket.getInstance(durationAt(i)) : PersonalContourBucket.getInstance(durationAt(i), units[i]);
+			contourBuckets = buckets;
+		}
+		return buckets;
+	}
+
+	public int numBuckets() {
+		return ends.length;
+	}
+
+	public long calcTotalBucketDuration(long assignmentDuration) {
+		return totalDuration();
+	}
+
+	public long calcWorkingBucketDuration(long assignmentDuration) {
+		long duration = 0;
+		for (int i = 0; i < ends.length; i++)
+			if (unitsAt(i) != 0.0) // do not add in durations for time off
+				duration += durationAt(i);
+		return duration;
+	}
+
+	protected double calcMaxUnits() {
+		double max = 0.0;
+		if (units != null) // in case called from the super constructor
+			for (int i = 0; i < units.length; i++)
+				max = Math.max(max, unitsAt(i));
+		return max;
+	}
+
+	public ArrayList<AbstractContourBucket> toArrayList() {
+		return new ArrayList<AbstractContourBucket>(Arrays.asList(getContourBuckets()));
+	}
+
+	public LinkedList<AbstractContourBucket> bucketsBetweenDurations(long start, long end, long assignmentDuration) {
+		LinkedList<AbstractContourBucket> list = new LinkedList<AbstractContourBucket>();
+		for (int i = indexAfter(start); i < ends.length && startOf(i) < end; i++)
+			list.add(PersonalContourBucket.getInstance(Math.min(end, ends[i]) - Math.max(start, startOf(i)), unitsAt(i)));
+		return list;
+	}
+
+	public String toString(long assignmentDuration) {
+		getContourBuckets();
+		return super.toString(assignmentDuration);
+	}
+
+	public double getLastBucketUnits() {
+		return unitsAt(ends.length - 1);
+	}
+
+	/**
+	 * @return the units of the bucket at a duration from the start of the contour, 0 if past the end
+	 */
+	public double getUnitsAt(long atDuration) {
+		int i = indexAfter(atDuration);
+		return i == ends.length ? 0.0 : unitsAt(i);
+	}
+
+	private long totalDuration() {
+		return ends.length == 0 ? 0 : ends[ends.length - 1];
+	}
+
+	private long startOf(int i) {
+		return i == 0 ? 0 : ends[i - 1];
+	}
 
+	private long durationAt(int i) {
+		return ends[i] - startOf(i);
 	}
+
+	private double unitsAt(int i) {
+		return isFillerAt(i) ? 0.0 : units[i];
+	}
+
+	private boolean isFillerAt(int i) {
+		return Double.isNaN(units[i]);
+	}
+
+	private boolean hasFiller() {
+		for (int i = 0; i < units.length; i++)
+			if (isFillerAt(i))
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return the first bucket ending at or after a duration, the number of buckets if none
+	 */
+	private int indexAtOrAfter(long duration) {
+		int low = 0;
+		int high = ends.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (ends[mid] < duration)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+
+	/**
+	 * @return the first bucket ending after a duration, the number of buckets if none
+	 */
+	private int indexAfter(long duration) {
+		return duration == Long.MAX_VALUE ? ends.length : indexAtOrAfter(duration + 1);
+	}
+
 	public Object clone() {
 		return super.clone();
 	}
-}
 
+	/**
+	 * Appends buckets, merging a bucket with the one before it if they have the same units, and dropping empty buckets
+	 * and the last bucket if it has no units
+	 */
+	private static final class Packer {
+		private long[] ends;
+		private double[] units;
+		private int size = 0;
+		private boolean hasPrevious = false; // the last bucket added is kept apart until the next one is known
+		private long previousDuration;
+		private double previousUnits;
+
+		Packer(int capacity) {
+			ends = new long[Math.max(capacity, 1)];
+			units = new double[ends.length];
+		}
+
+		void add(long duration, double bucketUnits) {
+			if (hasPrevious && (previousUnits == bucketUnits || (Double.isNaN(previousUnits) && Double.isNaN(bucketUnits)))) {
+				previousDuration += duration; // matches previous bucket
+				if (Double.isNaN(bucketUnits))
+					previousUnits = 0.0; // merged filler buckets are no longer filler
+				return;
+			}
+			if (hasPrevious && previousDuration > 0) // ignore 0 length buckets
+				append(previousDuration, previousUnits);
+			hasPrevious = true;
+			previousDuration = duration;
+			previousUnits = bucketUnits;
+		}
+
+		private void append(long duration, double bucketUnits) {
+			if (size == ends.length) {
+				ends = Arrays.copyOf(ends, size * 2);
+				units = Arrays.copyOf(units, size * 2);
+			}
+			ends[size] = (size == 0 ? 0 : ends[size - 1]) + duration;
+			units[size++] = bucketUnits;
+		}
 
+		/**
+		 * Adds buckets of a contour as they are
+		 */
+		void addBuckets(PersonalContour from, int first, int end) {
+			for (int i = first; i < end; i++)
+				add(from.durationAt(i), from.units[i]);
+		}
+
+		/**
+		 * Adds the buckets of a contour before a duration, cutting the bucket at the duration
+		 */
+		void addBefore(PersonalContour from, long atDuration) {
+			int i = from.indexAtOrAfter(atDuration);
+			addBuckets(from, 0, i);
+			if (i < from.ends.length && atDuration > from.startOf(i))
+				add(atDuration - from.startOf(i), from.units[i]);
+		}
+
+		/**
+		 * Adds the buckets of a contour after a duration, cutting the bucket at the duration.  The part of a filler bucket
+		 * which is cut is no longer filler
+		 */
+		void addAfter(PersonalContour from, long atDuration) {
+			for (int i = from.indexAfter(atDuration); i < from.ends.length; i++) {
+				if (from.startOf(i) >= atDuration)
+					add(from.durationAt(i), from.units[i]);
+				else
+					add(from.ends[i] - atDuration, from.unitsAt(i));
+			}
+		}
+
+		PersonalContour toContour() {
+			if (hasPrevious && previousDuration > 0 && previousUnits != 0.0 && !Double.isNaN(previousUnits)) // ignore 0 length buckets or ones with 0 units at end
+				append(previousDuration, previousUnits);
+			hasPrevious = false;
+			if (size == 0) // add empty bucket with no duration
+				return new PersonalContour(new long[] {0}, new double[] {1.0}, true);
+			// packing again would merge buckets which were around an empty one, or drop a last bucket with no units
+			boolean packed = units[size - 1] != 0.0 && !Double.isNaN(units[size - 1]);
+			for (int i = 1; i < size && packed; i++)
+				packed = units[i] != units[i - 1] && !(Double.isNaN(units[i]) && Double.isNaN(units[i - 1]));
+			return new PersonalContour(Arrays.copyOf(ends, size), Arrays.copyOf(units, size), packed);
+		}
+	}
+}
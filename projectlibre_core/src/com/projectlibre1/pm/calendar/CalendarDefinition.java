@@ -55,21 +55,15 @@
  *******************************************************************************/
 package com.projectlibre1.pm.calendar;
 
-import java.text.SimpleDateFormat;
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.TreeSet;
 
-import org.apache.commons.lang3.time.DateUtils;
-import org.apache.commons.pool.BasePoolableObjectFactory;
-import org.apache.commons.pool.impl.GenericObjectPool;
 
 import com.projectlibre1.datatype.Duration;
 import com.projectlibre1.pm.criticalpath.CriticalPath;
 import com.projectlibre1.server.access.ErrorLogger;
-import com.projectlibre1.util.DateTime;
 
 /**
  * This class holds specific calendar informatin either for a base calendar or a concrete one, as well as date math functions
@@ -80,6 +74,7 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 	WorkDay[] exceptions = null;
 	WorkWeek week = new WorkWeek();
 	protected long id=-1L;
+	private transient volatile WorkingTimeIndex workingTimeIndex = null; // built lazily by add and compare
 
 	/**
 	 * Creates a new empty calendar definition with no exceptions.
@@ -121,7 +116,7 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 		dayExceptions.add(WorkDay.MAXIMUM);
 		exceptions = new WorkDay[dayExceptions.size()];
 		dayExceptions.toArray(exceptions);
-
+		workingTimeIndex = null;
 	}
 	public WorkDay[] getExceptions() {
 		return exceptions;
@@ -135,6 +130,7 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 		dayExceptions.add(exceptionDay);
 		exceptions = new WorkDay[dayExceptions.size()];
 		dayExceptions.toArray(exceptions);
+		workingTimeIndex = null;
 	}
 
 
@@ -145,6 +141,7 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 		CalendarDefinition newOne = (CalendarDefinition) super.clone();
 		newOne.week = (WorkWeek) week.clone();
 		newOne.dayExceptions = new TreeSet();
+		newOne.workingTimeIndex = null;
 
 		Iterator i = dayExceptions.iterator();
 		while (i.hasNext())
@@ -225,13 +222,46 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 				forward = false;
 				duration = -duration;
 			}
-			CalendarIterator iterator = CalendarIteratorFactory.getInstance();
-			long currentDay = iterator.dayOf(date);
-			iterator.initialize(this,forward,currentDay);
-			WorkingHours current = iterator.getNext(currentDay);
-			duration -= current.calcWorkTime(iterator.timeOf(date),forward);// handle the first day
+			CalendarAddEvent event = CalendarAddEvent.sample();
+			WorkingTimeIndex index = null;
+			if (date % 1000 == 0 && week != null && week.getDuration() > 0) {
+				long day = WorkingTimeIndex.dayOf(date);
+				long spanDays = (duration / week.getDuration() + 2) * WorkWeek.DAYS_IN_WEEK; // the week jumps plus a couple of weeks to finish
+				if (WorkingTimeIndex.isSpanIndexable(day, forward ? day + spanDays : day - spanDays))
+					index = getWorkingTimeIndex(day);
+			}
+			if (index != null)
+				result = addWithIndex(index, date, duration, forward, useSooner);
+			else
+				result = addWithIterator(date, duration, forward, useSooner);
+			if (event != null && event.shouldCommit()) {
+				event.workDuration = duration;
+				event.forward = forward;
+				event.indexed = index != null;
+				event.commit();
+			}
+		}
+
+		// if input was negative time, return a negative value
+		if (negative)
+			result = -result;
+		return result;
+	}
+
 
-			long numWeeks;
+
+	/**
+	 * Add a positive duration to a positive date by walking through the weeks and days of the calendar.
+	 * This is the reference algorithm.  addWithIndex gives the same results using the working time index.
+	 */
+	long addWithIterator(long date, long duration, boolean forward, boolean useSooner) {
+		CalendarIterator iterator = CalendarIteratorFactory.getInstance();
+		long currentDay = iterator.dayOf(date);
+		iterator.initialize(this,forward,currentDay);
+		WorkingHours current = iterator.getNext(currentDay);
+		duration -= current.calcWorkTime(iterator.timeOf(date),forward);// handle the first day
+
+		long numWeeks;
 
 	/*
 	 * First, do a "rough tuning" to get within a week of destination day.  This part of the algorithm will
@@ -242,62 +272,153 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 	 */
 
 
-			int weekTries = 0;			// in rare cases, the exception value can increase, so abort if so
-			long weekDuration = week.getDuration();
-			while ((numWeeks = (duration / weekDuration)) != 0) {
-				if (weekTries++ == 4) // most likely it's increasing. give up and do remaining day by day
-					break;
-				currentDay = iterator.nextDay(currentDay); // move to next day, first is done
-				currentDay = iterator.moveNumberOfDays((int) (WorkWeek.DAYS_IN_WEEK * (forward ? numWeeks : -numWeeks)),currentDay);
-				duration -= (numWeeks * weekDuration); // subtract off fixed duration
-				duration -= iterator.exceptionDurationDifference(currentDay); // subtract off difference.
-
-				if (duration <= 0) {
-					// If exceptions cause too much duration, reverse direction
-					iterator.reverseDirection();
-					duration = -duration;
-					forward = !forward;
-				} else {
-					// Move back a day for fine tuning (will be added back in fine tuning loop)
-					currentDay = iterator.prevDay(currentDay);
-				}
+		int weekTries = 0;			// in rare cases, the exception value can increase, so abort if so
+		long weekDuration = week.getDuration();
+		while ((numWeeks = (duration / weekDuration)) != 0) {
+			if (weekTries++ == 4) // most likely it's increasing. give up and do remaining day by day
+				break;
+			currentDay = iterator.nextDay(currentDay); // move to next day, first is done
+			currentDay = iterator.moveNumberOfDays((int) (WorkWeek.DAYS_IN_WEEK * (forward ? numWeeks : -numWeeks)),currentDay);
+			duration -= (numWeeks * weekDuration); // subtract off fixed duration
+			duration -= iterator.exceptionDurationDifference(currentDay); // subtract off difference.
 
+			if (duration <= 0) {
+				// If exceptions cause too much duration, reverse direction
+				iterator.reverseDirection();
+				duration = -duration;
+				forward = !forward;
+			} else {
+				// Move back a day for fine tuning (will be added back in fine tuning loop)
+				currentDay = iterator.prevDay(currentDay);
 			}
+
+		}
 //
 //
 	/*
 	 * This part of the algorithm is the fine tuning.  It does through the remaining deays and treats them one by one.
 	 * Because of the week treatment above, this is guaranteed to go through 6 days at the most.
 	 */		while (duration >= 0) { // add in days until we go exactly on the spot or past it
-				if (duration == 0 && (forward == useSooner))
-					break;
-				currentDay = iterator.nextDay(currentDay);
-				current = iterator.getNext(currentDay);
-				duration -= current.getDuration(); // use exception day
-			}
-			// Handle the last day
+			if (duration == 0 && (forward == useSooner))
+				break;
+			currentDay = iterator.nextDay(currentDay);
+			current = iterator.getNext(currentDay);
+			duration -= current.getDuration(); // use exception day
+		}
+		// Handle the last day
 	 		long time = -1;
 	 		while (true)  {
-				if (forward) {
-					time = current.calcTimeAtRemainingWork(-duration);
-				}else
-					time = current.calcTimeAtWork(-duration);
-				if (time != -1)
-					break;
-				currentDay = iterator.nextDay(currentDay);
-				current = iterator.getNext(currentDay);
+			if (forward) {
+				time = current.calcTimeAtRemainingWork(-duration);
+			}else
+				time = current.calcTimeAtWork(-duration);
+			if (time != -1)
+				break;
+			currentDay = iterator.nextDay(currentDay);
+			current = iterator.getNext(currentDay);
 	 		};
-			result = currentDay + time;
+		long result = currentDay + time;
 
 	 		CalendarIteratorFactory.recycle(iterator); //No longer using iterator, return it to pool
+		return result;
+	}
+
+	/**
+	 * Same as addWithIterator, but the days are looked up in the index and the week jumps use its prefix sums, so the cost
+	 * no longer depends on the number of exceptions crossed.  The remaining days are found with a binary search.  The steps
+	 * of the iterator algorithm are kept, including its change of direction when exceptions make it overshoot, so that the
+	 * results are identical.
+	 */
+	private long addWithIndex(WorkingTimeIndex index, long date, long duration, boolean forward, boolean useSooner) {
+		long currentDay = WorkingTimeIndex.dayOf(date);
+		WorkingHours current = index.getHours(currentDay);
+		duration -= current.calcWorkTime(date - currentDay * MILLIS_IN_DAY, forward);// handle the first day
+
+		long numWeeks;
+		int weekTries = 0;
+		long weekDuration = week.getDuration();
+		while ((numWeeks = (duration / weekDuration)) != 0) {
+			if (weekTries++ == 4)
+				break;
+			long fromDay = currentDay;
+			currentDay += (forward ? 1 : -1) + (int) (WorkWeek.DAYS_IN_WEEK * (forward ? numWeeks : -numWeeks));
+			index = getWorkingTimeIndex(index, fromDay, currentDay);
+			duration -= (numWeeks * weekDuration);
+			duration -= index.getExceptionDifferenceBetween(fromDay, currentDay);
+			if (duration <= 0) {
+				duration = -duration;
+				forward = !forward;
+			} else {
+				currentDay += forward ? -1 : 1;
+			}
 		}
 
-		// if input was negative time, return a negative value
-		if (negative)
-			result = -result;
-		return result;
+		if (duration > 0 || (duration == 0 && forward != useSooner)) {
+			boolean inclusive = forward == useSooner;
+			long day;
+			while ((day = index.findDay(currentDay, forward, duration, inclusive)) == Long.MIN_VALUE) // not reached inside the index
+				index = getWorkingTimeIndex(index, currentDay, forward ? index.getLastDay() + 1 : index.getFirstDay() - 1);
+			duration -= forward ? index.getWork(currentDay + 1, day) : index.getWork(day, currentDay - 1);
+			currentDay = day;
+			current = index.getHours(currentDay);
+		}
+
+		long time;
+		while (true) {
+			if (forward)
+				time = current.calcTimeAtRemainingWork(-duration);
+			else
+				time = current.calcTimeAtWork(-duration);
+			if (time != -1)
+				break;
+			currentDay += forward ? 1 : -1;
+			index = getWorkingTimeIndex(index, currentDay, currentDay);
+			current = index.getHours(currentDay);
+		}
+		return currentDay * MILLIS_IN_DAY + time;
 	}
 
+	/**
+	 * Get the working time index if the calendar can be indexed.  It is rebuilt if the calendar changed, and extended if it
+	 * doesn't cover the day.
+	 * @param day day number from the epoch
+	 * @return index covering the day, or null if the iterator must be used
+	 */
+	WorkingTimeIndex getWorkingTimeIndex(long day) {
+		return getWorkingTimeIndex(day, day);
+	}
+
+	/**
+	 * Same as above for a range of days.  Growing is bounded by WorkingTimeIndex.MAX_DAYS: past it, the old range is
+	 * dropped and a new index is built around the days needed.
+	 */
+	private WorkingTimeIndex getWorkingTimeIndex(long fromDay, long toDay) {
+		WorkingTimeIndex index = workingTimeIndex;
+		if (index != null && index.isFor(this) && index.covers(fromDay) && index.covers(toDay))
+			return index;
+		if (!WorkingTimeIndex.ENABLED)
+			return null;
+		long firstDay = fromDay - WorkingTimeIndex.HORIZON_DAYS / 4;
+		long lastDay = toDay + WorkingTimeIndex.HORIZON_DAYS;
+		if (index != null && index.isFor(this)) { // grow by at least the current size so that extending is amortized
+			long size = index.getLastDay() - index.getFirstDay() + 1;
+			long grownFirstDay = Math.min(index.getFirstDay(), fromDay < index.getFirstDay() ? fromDay - size : firstDay);
+			long grownLastDay = Math.max(index.getLastDay(), toDay > index.getLastDay() ? toDay + size : lastDay);
+			if (grownLastDay - grownFirstDay < WorkingTimeIndex.MAX_DAYS) {
+				firstDay = grownFirstDay;
+				lastDay = grownLastDay;
+			}
+		}
+		index = WorkingTimeIndex.build(this, firstDay, lastDay);
+		workingTimeIndex = index;
+		return index;
+	}
+
+	private WorkingTimeIndex getWorkingTimeIndex(WorkingTimeIndex index, long day1, long day2) {
+		if (index.covers(day1) && index.covers(day2))
+			return index;
+		return getWorkingTimeIndex(Math.min(day1, day2), Math.max(day1, day2));
+	}
 
 	/**
 	 * Get difference of two dates: laterDate - earlierDate according to calendar
@@ -325,6 +446,20 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 		if (earlierDate == 0) // degenerate case.  A 0 date means undefined, so don't process it
 			return laterDate;
 
+		WorkingTimeIndex index = (earlierDate % 1000 == 0 && laterDate % 1000 == 0
+				&& WorkingTimeIndex.isSpanIndexable(WorkingTimeIndex.dayOf(earlierDate), WorkingTimeIndex.dayOf(laterDate)))
+				? getWorkingTimeIndex(WorkingTimeIndex.dayOf(earlierDate)) : null;
+		long duration = index != null ? compareWithIndex(index, laterDate, earlierDate) : compareWithIterator(laterDate, earlierDate);
+		if (negative)
+			duration = -duration;
+		return (swap == 0) ? duration : - duration; // swap == 0 implies that no swap was done since early date had to be minimum
+	}
+
+
+	/**
+	 * Working time between two positive dates, the earlier one first, by walking through the weeks and days of the calendar
+	 */
+	long compareWithIterator(long laterDate, long earlierDate) {
 		CalendarIterator iterator = CalendarIteratorFactory.getInstance(); // use object pool for speed
 		long earlierDay = iterator.dayOf(earlierDate);
 		long laterDay = iterator.dayOf(laterDate);
@@ -359,46 +494,67 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 		duration -= current.calcWorkTimeAfter(iterator.timeOf(laterDate));
 
 		CalendarIteratorFactory.recycle(iterator);
-		if (negative)
-			duration = -duration;
-		return (swap == 0) ? duration : - duration; // swap == 0 implies that no swap was done since early date had to be minimum
+		return duration;
+	}
+
+	/**
+	 * Same as compareWithIterator, but the week jump and the remaining days are a difference of prefix sums
+	 */
+	private long compareWithIndex(WorkingTimeIndex index, long laterDate, long earlierDate) {
+		long earlierDay = WorkingTimeIndex.dayOf(earlierDate);
+		long laterDay = WorkingTimeIndex.dayOf(laterDate);
+		index = getWorkingTimeIndex(index, earlierDay, laterDay);
+		WorkingHours current = index.getHours(earlierDay);
+		long duration = current.calcWorkTimeAfter(earlierDate - earlierDay * MILLIS_IN_DAY);
+		long currentDay = earlierDay + 1;
+
+		long numWeeks = ((laterDay - currentDay) * MILLIS_IN_DAY) / WorkWeek.MS_IN_WEEK;
+		if (numWeeks != 0) {
+			currentDay += (int) (WorkWeek.DAYS_IN_WEEK * numWeeks);
+			duration += numWeeks * week.getDuration();
+			duration += index.getExceptionDifferenceBetween(earlierDay, currentDay);
+		}
+		if (currentDay <= laterDay) {
+			duration += index.getWork(currentDay, laterDay);
+			current = index.getHours(laterDay);
+		}
+		duration -= current.calcWorkTimeAfter(laterDate - laterDay * MILLIS_IN_DAY);
+		return duration;
 	}
 
 
 /**
- * This class manages a pool of calendar iterators.
+ * Hands out calendar iterators.  An iterator no longer holds a Calendar, so instead of a shared object pool
+ * (which synchronized on each borrow and return) every thread keeps its own.  A nested use on the same thread
+ * gets a fresh one.
  *
- */	private static class CalendarIteratorFactory extends BasePoolableObjectFactory {
-		private static GenericObjectPool pool =  new GenericObjectPool(new CalendarIteratorFactory());
-		public Object makeObject(){ //claur
-			return new CalendarIterator();
-		}
+ */	private static class CalendarIteratorFactory {
+		private static final ThreadLocal<CalendarIterator> threadIterator = ThreadLocal.withInitial(CalendarIterator::new);
 		public static CalendarIterator getInstance() {
-			try {
-				return (CalendarIterator) pool.borrowObject();
-			} catch (Exception e) {
-				com.projectlibre1.server.access.ErrorLogger.log("Failed to borrow CalendarIterator from pool", e);
-				return null;
-			}
+			CalendarIterator iterator = threadIterator.get();
+			if (iterator.inUse)
+				iterator = new CalendarIterator();
+			iterator.inUse = true;
+			return iterator;
 		}
 
 		public static void recycle(CalendarIterator object) {
-			try {
-				pool.returnObject(object);
-			} catch (Exception e) {
-				com.projectlibre1.server.access.ErrorLogger.log("Failed to return CalendarIterator to pool", e);
-			}
+			object.exceptions = null; // don't keep the calendar reachable from the thread
+			object.week = null;
+			object.inUse = false;
 		}
 	}
 
 /**
  * This class is an iterator which is used to return week days or exception days
+ * Dates are UTC (see DateTime.calendarInstance()), so a day is always MILLIS_IN_DAY long and the days are
+ * moved by plain arithmetic instead of through a GregorianCalendar.
  *
  */
  	private static class CalendarIterator {
 		WorkDay[] exceptions;
 		WorkWeek week;
-		Calendar scratchDate; // will get reused since this class is recycled
+		boolean inUse;
 
 		long exceptionDay;
 		int i;
@@ -407,7 +563,6 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 
 
 		private CalendarIterator() {
-			scratchDate = DateTime.calendarInstance(); // will get reused since this class is recycled
 		}
 		/**
 		 *
@@ -423,16 +578,11 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 			forward = !forward;
 		}
 
-		private static SimpleDateFormat f = DateTime.dateFormatInstance();
-
-
+		/**
+		 * Midnight of the date's day.  Like the previous Calendar based version, the milliseconds are kept.
+		 */
 		public long dayOf(long date) {
-			scratchDate.setTimeInMillis(date);
-			scratchDate.set(Calendar.HOUR_OF_DAY,0);
-			scratchDate.set(Calendar.MINUTE,0);
-			scratchDate.set(Calendar.SECOND,0); // Fixed rounding bug as we now go to seconds 8/2/07
-//			scratchDate.set(Calendar.MILLISECOND,0);
-			return scratchDate.getTimeInMillis();
+			return Math.floorDiv(date, MILLIS_IN_DAY) * MILLIS_IN_DAY + Math.floorMod(date, 1000L);
 		}
 
 		public long timeOf(long date) {
@@ -444,14 +594,8 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 			exceptions = cal.exceptions;
 			week = cal.week;
 			this.forward = forward;
-			scratchDate.setTimeInMillis(day);
-			try {
-				DateUtils.truncate(scratchDate,Calendar.DATE);
-			} catch (Exception e) {
-				ErrorLogger.logOnce("hugedate", "date value is garbage " + scratchDate + "\n" + CriticalPath.getTrace(), e);
-			}
 			step = (forward) ? 1 : -1;
-			i = Arrays.binarySearch(exceptions, scratchDate);
+			i = binarySearch(exceptions, day); // the day keeps its milliseconds, as the Calendar version did (truncate never changed it)
 			if (i < 0) {// First day not found
 				i = -i-1; // set index for the future
 				if (!forward)
@@ -461,6 +605,25 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 
 		}
 
+		/**
+		 * Same contract as Arrays.binarySearch on the exception start dates
+		 */
+		private static int binarySearch(WorkDay[] exceptions, long start) {
+			int low = 0;
+			int high = exceptions.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				long midStart = exceptions[mid].getStart();
+				if (midStart < start)
+					low = mid + 1;
+				else if (midStart > start)
+					high = mid - 1;
+				else
+					return mid;
+			}
+			return -(low + 1);
+		}
+
 		public String dump() {
 			String result = "CalendarIterator ";
 			result += "weekdays\n";
@@ -517,25 +680,18 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 		}
 
 		private int dayOfWeek(long day) {
-			scratchDate.setTimeInMillis(day);
-			return scratchDate.get(Calendar.DAY_OF_WEEK) -1 ;
+			return CalendarDefinition.getDayOfWeek(day);
 
 		}
 		private long moveNumberOfDays(int numberOfDays, long fromDay) {
-			scratchDate.setTimeInMillis(fromDay);
-			scratchDate.add(Calendar.DATE,numberOfDays);
-			return scratchDate.getTimeInMillis();
+			return fromDay + numberOfDays * MILLIS_IN_DAY;
 		}
 
 		private long nextDay(long day) {
-			scratchDate.setTimeInMillis(day);
-			scratchDate.add(Calendar.DATE,forward ? 1 : -1);
-			return scratchDate.getTimeInMillis();
+			return forward ? day + MILLIS_IN_DAY : day - MILLIS_IN_DAY;
 		}
 		private long prevDay(long day) {
-			scratchDate.setTimeInMillis(day);
-			scratchDate.add(Calendar.DATE,forward ? -1 : 1);
-			return scratchDate.getTimeInMillis();
+			return forward ? day - MILLIS_IN_DAY : day + MILLIS_IN_DAY;
 		}
 
 	}
@@ -574,9 +730,7 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 		return this; // doesn't make sense to call this
 	}
 	public static final int getDayOfWeek(long date) {
-		Calendar scratchDate = DateTime.calendarInstance();
-		scratchDate.setTimeInMillis(date);
-		return scratchDate.get(Calendar.DAY_OF_WEEK) -1 ;
+		return WorkingTimeIndex.dayOfWeek(WorkingTimeIndex.dayOf(date)); // dates are UTC, 0 is sunday
 	}
 
 
@@ -628,6 +782,7 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 	 * @see com.projectlibre1.pm.calendar.WorkCalendar#invalidate()
 	 */
 	public void invalidate() {
+		workingTimeIndex = null;
 	}
 
 	/* (non-Javadoc)
@@ -662,6 +817,8 @@ public class CalendarDefinition implements WorkCalendar, Cloneable {
 	}
 	public void setDirty(boolean dirty) {
 		this.dirty = dirty;
+		if (dirty)
+			workingTimeIndex = null;
 	}
 
 	public String dump() {
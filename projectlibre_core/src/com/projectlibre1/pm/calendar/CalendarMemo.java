@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.calendar;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional bounded memo of calendar date math.  During a schedule calculation the same (calendar, date, duration)
+ * questions are asked many times: dependency lags, sentinel offsets, constraint checks, adjustInsideCalendar.
+ * Results are keyed by the calendar's memo id and its version (see WorkingCalendar.getVersion()), so a calendar
+ * change makes its old entries unreachable and they age out of the LRU.  Keys hold no reference to the calendar, so the
+ * calendars of a closed project, and what they reference, can be collected while their entries age out.
+ * The memo is split in segments, each an access ordered LinkedHashMap guarded by its own lock.
+ * It is off unless projectlibre.calendar.memo is true or setEnabled(true) is called.
+ */
+public final class CalendarMemo {
+	private static final int SEGMENTS = 16; // power of 2
+	private static final int DEFAULT_SIZE = 65536;
+
+	private static final byte ADD_SOONER = 0;
+	private static final byte ADD_LATER = 1;
+	private static final byte COMPARE = 2;
+	private static final byte COMPARE_ELAPSED = 3;
+	private static final byte ADJUST_SOONER = 4;
+	private static final byte ADJUST_LATER = 5;
+
+	private static final CalendarMemo instance = new CalendarMemo(
+			Math.max(SEGMENTS, Integer.getInteger("projectlibre.calendar.memoSize", DEFAULT_SIZE).intValue()));
+	private static volatile boolean enabled = Boolean.getBoolean("projectlibre.calendar.memo");
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final int maxSize;
+
+	private CalendarMemo(int maxSize) {
+		this.maxSize = maxSize;
+		for (int i = 0; i < SEGMENTS; i++)
+			segments[i] = new Segment(maxSize / SEGMENTS);
+	}
+
+	public static CalendarMemo getInstance() {
+		return instance;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		CalendarMemo.enabled = enabled;
+		if (!enabled)
+			instance.clear();
+	}
+
+	long add(WorkingCalendar calendar, long date, long duration, boolean useSooner) {
+		Key key = new Key(calendar, useSooner ? ADD_SOONER : ADD_LATER, date, duration);
+		Long result = get(key);
+		if (result != null)
+			return result.longValue();
+		long value = calendar.getConcreteInstance().add(date, duration, useSooner);
+		put(key, value);
+		return value;
+	}
+
+	long compare(WorkingCalendar calendar, long laterDate, long earlierDate, boolean elapsed) {
+		Key key = new Key(calendar, elapsed ? COMPARE_ELAPSED : COMPARE, laterDate, earlierDate);
+		Long result = get(key);
+		if (result != null)
+			return result.longValue();
+		long value = calendar.getConcreteInstance().compare(laterDate, earlierDate, elapsed);
+		put(key, value);
+		return value;
+	}
+
+	long adjustInsideCalendar(WorkingCalendar calendar, long date, boolean useSooner) {
+		Key key = new Key(calendar, useSooner ? ADJUST_SOONER : ADJUST_LATER, date, 0L);
+		Long result = get(key);
+		if (result != null)
+			return result.longValue();
+		long value = calendar.getConcreteInstance().adjustInsideCalendar(date, useSooner);
+		put(key, value);
+		return value;
+	}
+
+	private Long get(Key key) {
+		Long result = segmentFor(key).get(key);
+		if (result == null)
+			misses.increment();
+		else
+			hits.increment();
+		return result;
+	}
+
+	private void put(Key key, long value) {
+		segmentFor(key).put(key, value);
+	}
+
+	private Segment segmentFor(Key key) {
+		int h = key.hash;
+		return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+	}
+
+	public void clear() {
+		for (Segment segment : segments)
+			segment.clear();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	public double getHitRate() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0.0 : (double) h / total;
+	}
+
+	public int getSize() {
+		int size = 0;
+		for (Segment segment : segments)
+			size += segment.size();
+		return size;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public void resetStatistics() {
+		hits.reset();
+		misses.reset();
+		evictions.reset();
+	}
+
+	public String toString() {
+		return "CalendarMemo size=" + getSize() + "/" + maxSize + " hits=" + getHitCount() + " misses=" + getMissCount()
+			+ " evictions=" + getEvictionCount();
+	}
+
+	/**
+	 * One LRU segment
+	 */
+	private final class Segment extends LinkedHashMap<Key, Long> {
+		private static final long serialVersionUID = 1L;
+		private final int capacity;
+
+		private Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		public synchronized Long get(Object key) {
+			return super.get(key);
+		}
+
+		public synchronized Long put(Key key, Long value) {
+			return super.put(key, value);
+		}
+
+		public synchronized void clear() {
+			super.clear();
+		}
+
+		public synchronized int size() {
+			return super.size();
+		}
+
+		protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+			if (size() <= capacity)
+				return false;
+			evictions.increment();
+			return true;
+		}
+	}
+
+	/**
+	 * Calendar id and version, the operation, and its two arguments
+	 */
+	private static final class Key {
+		private final long calendarId;
+		private final long version;
+		private final byte operation;
+		private final long a;
+		private final long b;
+		private final int hash;
+
+		private Key(WorkingCalendar calendar, byte operation, long a, long b) {
+			this.calendarId = calendar.getMemoId();
+			this.version = calendar.getVersion();
+			this.operation = operation;
+			this.a = a;
+			this.b = b;
+			int h = Long.hashCode(calendarId);
+			h = 31 * h + Long.hashCode(version);
+			h = 31 * h + operation;
+			h = 31 * h + Long.hashCode(a);
+			h = 31 * h + Long.hashCode(b);
+			this.hash = h;
+		}
+
+		public int hashCode() {
+			return hash;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key k = (Key) o;
+			return calendarId == k.calendarId && version == k.version && operation == k.operation && a == k.a && b == k.b;
+		}
+	}
+}
@@ -427,6 +427,7 @@ public class CalendarService {
 	}
 
 	public void invalidate(WorkingCalendar cal) {
+		cal.bumpVersion(); // drops its memoized date math
 		Iterator i = cal.getObjectsUsing().iterator();
 		HasCalendar hasCal;
 		HashSet documents = new HashSet();
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.calendar;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Intern table of the calendars made by WorkingCalendar.intersectWith for assignments.
+ * Projects usually have only a few task calendar x resource calendar combinations, so the assignments sharing one
+ * get the same intersection calendar instead of each computing and holding its own copy.
+ * Both source calendars and the intersections are weakly held: the table never keeps a calendar alive.
+ * An entry remembers the versions of its sources (see WorkingCalendar.getVersion()) and is rebuilt when either changes.
+ * Set projectlibre.calendar.internIntersections to false to compute a new intersection each time as before.
+ */
+public final class IntersectionCalendarCache {
+	private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("projectlibre.calendar.internIntersections", "true"));
+	private static final IntersectionCalendarCache instance = new IntersectionCalendarCache();
+
+	private final WeakHashMap<WorkingCalendar, WeakHashMap<WorkingCalendar, Entry>> table = new WeakHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	private IntersectionCalendarCache() {
+	}
+
+	public static IntersectionCalendarCache getInstance() {
+		return instance;
+	}
+
+	/**
+	 * @return the shared intersection of the two calendars, the same as first.intersectWith(second)
+	 * @throws InvalidCalendarIntersectionException if the calendars have no working time in common
+	 */
+	public WorkingCalendar intersect(WorkingCalendar first, WorkingCalendar second) throws InvalidCalendarIntersectionException {
+		if (!ENABLED)
+			return first.intersectWith(second);
+		long firstVersion = first.getVersion();
+		long secondVersion = second.getVersion();
+		synchronized (this) {
+			Map<WorkingCalendar, Entry> row = table.get(first);
+			Entry entry = row == null ? null : row.get(second);
+			if (entry != null && entry.firstVersion == firstVersion && entry.secondVersion == secondVersion) {
+				if (entry.invalid) {
+					hits.increment();
+					throw new InvalidCalendarIntersectionException();
+				}
+				WorkingCalendar intersection = entry.intersection.get();
+				if (intersection != null && !intersection.isInvalid()) {
+					hits.increment();
+					return intersection;
+				}
+			}
+		}
+		misses.increment();
+		WorkingCalendar intersection;
+		try {
+			intersection = first.intersectWith(second);
+		} catch (InvalidCalendarIntersectionException e) { // remember calendars that can't be intersected too
+			put(first, second, new Entry(null, firstVersion, secondVersion));
+			throw e;
+		}
+		put(first, second, new Entry(intersection, firstVersion, secondVersion));
+		return intersection;
+	}
+
+	private synchronized void put(WorkingCalendar first, WorkingCalendar second, Entry entry) {
+		table.computeIfAbsent(first, k -> new WeakHashMap<>()).put(second, entry);
+	}
+
+	public synchronized void clear() {
+		table.clear();
+	}
+
+	/**
+	 * @return the number of live intersections in the table
+	 */
+	public synchronized int getSize() {
+		int size = 0;
+		for (Map<WorkingCalendar, Entry> row : table.values()) {
+			for (Entry entry : row.values()) {
+				if (entry.invalid || entry.intersection.get() != null)
+					size++;
+			}
+		}
+		return size;
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public double getHitRate() {
+		long h = hits.sum();
+		long total = h + misses.sum();
+		return total == 0 ? 0.0 : (double) h / total;
+	}
+
+	public String toString() {
+		return "IntersectionCalendarCache size=" + getSize() + " hits=" + getHitCount() + " misses=" + getMissCount();
+	}
+
+	private static final class Entry {
+		private final WeakReference<WorkingCalendar> intersection;
+		private final boolean invalid; // the sources have no working time in common
+		private final long firstVersion;
+		private final long secondVersion;
+
+		private Entry(WorkingCalendar intersection, long firstVersion, long secondVersion) {
+			this.intersection = new WeakReference<>(intersection);
+			this.invalid = intersection == null;
+			this.firstVersion = firstVersion;
+			this.secondVersion = secondVersion;
+		}
+	}
+}
@@ -66,6 +66,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.collections.Closure;
 
@@ -83,6 +84,8 @@ import com.projectlibre1.util.DateTime;
 public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable {
 	static final long serialVersionUID = 27738049223431L;
 	private int fixedId = 0;
+	private static final AtomicLong versionClock = new AtomicLong(); // shared by all calendars, so a stamp is never reused
+	private static final AtomicLong memoIdClock = new AtomicLong();
 	public static final WorkingCalendar INVALID_INTERSECTION_CALENDAR = new WorkingCalendar();
 
 // the objects that use this calendar
@@ -133,6 +136,7 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 
 	public Object clone() throws CloneNotSupportedException {
 		WorkingCalendar cal = (WorkingCalendar)super.clone();
+		cal.memoId = memoIdClock.incrementAndGet();
 	//	cal.hasKey = new HasCommonKeyImpl(this);
 		cal.setName(getName());
 		return cal;
@@ -180,6 +184,7 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 		}
 		differences = source.differences;
 		concrete = null;
+		bumpVersion();
 	}
 
 	private WorkCalendar baseCalendar = null;
@@ -203,10 +208,12 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 	public void addOrReplaceException(WorkDay exceptionDay) {
 		exceptionDay.initialize(); // make sure cached duration is set
 		differences.addOrReplaceException(exceptionDay);
+		bumpVersion();
 	}
 
 	public void removeException(WorkDay exceptionDay) {
 		differences.dayExceptions.remove(exceptionDay); // remove any existing
+		bumpVersion();
 	}
 
 
@@ -214,21 +221,49 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
  * This function will return a concrete calendar instance.  That is, one for which the days are already merged
  * @return concrete instance
  */
-	private transient CalendarDefinition concrete = null;
+	private transient volatile CalendarDefinition concrete = null; // read once per call: the parallel passes share calendars
 
 	public CalendarDefinition getConcreteInstance() {
-		if (concrete == null) {
+		CalendarDefinition result = concrete;
+		if (result == null) { // two threads may both build it, they build the same definition
 			WorkCalendar base = baseCalendar;
-			concrete = new CalendarDefinition(base == null ? null : base.getConcreteInstance(),differences);
+			result = new CalendarDefinition(base == null ? null : base.getConcreteInstance(),differences);
+			concrete = result;
 		}
-		return concrete;
+		return result;
 	}
 
 	public void invalidate() {
 		concrete = null;
+		bumpVersion();
 		CalendarService.getInstance().invalidate(this);
 	}
 
+	private transient long version = versionClock.incrementAndGet(); // restamped on each change, see CalendarMemo
+	private transient long memoId = memoIdClock.incrementAndGet(); // identifies this calendar in CalendarMemo, which must not hold it
+
+	/**
+	 * @return an id no other calendar instance has, not even a clone or a deserialized copy of this one
+	 */
+	long getMemoId() {
+		return memoId;
+	}
+
+	void bumpVersion() {
+		version = versionClock.incrementAndGet();
+	}
+
+	/**
+	 * A change stamps the calendar with a value above every stamp given before, so the highest stamp along the base
+	 * chain never comes back to an earlier value, even when the base calendar is replaced.
+	 * @return a stamp that changes whenever this calendar or one of its base calendars is changed or invalidated
+	 */
+	public long getVersion() {
+		WorkCalendar base = baseCalendar;
+		long baseVersion = (base instanceof WorkingCalendar && base != this) ? ((WorkingCalendar) base).getVersion() : 0L;
+		return Math.max(version, baseVersion);
+	}
+
 
 	/**
 	 * @return Returns the baseCalendar.
@@ -259,6 +294,7 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 		if (baseCalendar != null && baseCalendar.dependsOn(this)) // avoid circular
 			throw new CircularDependencyException(Messages.getString("Calendar.ExceptionCircular"));
 		this.baseCalendar = baseCalendar;
+		bumpVersion();
 	}
 
 	public void changeBaseCalendar(WorkCalendar baseCalendar) throws CircularDependencyException {
@@ -287,6 +323,7 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 	 */
 	public void setWeekDay(int dayNum, WorkDay day) {
 		differences.week.setWeekDay(dayNum, day);
+		bumpVersion();
 	}
 
 	/**
@@ -294,6 +331,7 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 	 */
 	public void setWeekDays(WorkDay day) {
 		differences.week.setWeekDays(day);
+		bumpVersion();
 	}
 
 	/**
@@ -301,6 +339,7 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 	 */
 	public void setWeekends(WorkDay day) {
 		differences.week.setWeekends(day);
+		bumpVersion();
 	}
 
 
@@ -311,16 +350,22 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 	public long add(long date, long duration, boolean useSooner) {
 //		if (date == 0)
 //			DebugUtils.dumpStack("0 date");
+		if (CalendarMemo.isEnabled())
+			return CalendarMemo.getInstance().add(this,date,duration,useSooner);
 		return getConcreteInstance().add(date,duration,useSooner);
 	}
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.time.WorkCalendar#compare(long, long, boolean)
 	 */
 	public long compare(long laterDate, long earlierDate, boolean elapsed) {
+		if (CalendarMemo.isEnabled())
+			return CalendarMemo.getInstance().compare(this,laterDate,earlierDate,elapsed);
 		return getConcreteInstance().compare(laterDate,earlierDate,elapsed);
 	}
 
 	public long adjustInsideCalendar(long date, boolean useSooner) {
+		if (CalendarMemo.isEnabled())
+			return CalendarMemo.getInstance().adjustInsideCalendar(this,date,useSooner);
 		return getConcreteInstance().adjustInsideCalendar(date,useSooner);
 	}
 
@@ -574,6 +619,8 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 	}
 	private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException  {
 	    s.defaultReadObject();
+	    version = versionClock.incrementAndGet();
+	    memoId = memoIdClock.incrementAndGet();
 	    hasKey=HasCommonKeyImpl.deserialize(s,this);
 	    if (serializedName == null)
 	    	serializedName = "";
@@ -633,6 +680,7 @@ public class WorkingCalendar implements WorkCalendar,  Serializable, Comparable
 
 	public void notifyChanged() {
 		concrete = null;
+		bumpVersion();
 	}
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.calendar.WorkCalendar#isInvalid()
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.calendar;
+
+/**
+ * Precompiled working time of a concrete calendar over a range of days.  For each day, it holds the working hours that
+ * CalendarDefinition's iterator would give for that day, as well as prefix sums of their durations and of the exception
+ * differences used by the week jumps.  This lets date math skip any number of days in constant time.
+ * Days are numbered from the epoch.  Like the rest of the calendar code, days are UTC days.
+ * An index is immutable.  When a date falls outside of it, the calendar builds a larger one, or a new one around the date
+ * once the merged range would exceed MAX_DAYS.  Date math spanning more than half of MAX_DAYS uses the iterator instead.
+ */
+final class WorkingTimeIndex {
+	static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("projectlibre.calendar.index", "true"));
+	static final int HORIZON_DAYS = Math.max(7, Integer.getInteger("projectlibre.calendar.indexHorizonDays", 730).intValue());
+	static final int MAX_DAYS = Math.max(2 * HORIZON_DAYS, Integer.getInteger("projectlibre.calendar.indexMaxDays", 8 * HORIZON_DAYS).intValue()); // an index never grows past this by merging
+	private static final long MS_PER_DAY = WorkCalendar.MILLIS_IN_DAY;
+
+	private final WorkDay[] exceptions; // the arrays this index was built from
+	private final WorkWeek week;
+	private final long firstDay;
+	private final WorkingHours[] hours;
+	private final long[] workBefore; // workBefore[i] is the working time of the days before firstDay + i
+	private final long[] exceptionDifferenceBefore; // same for the difference between exception days and their normal week day
+
+	private WorkingTimeIndex(CalendarDefinition calendar, long firstDay, long lastDay) {
+		exceptions = calendar.exceptions;
+		week = calendar.week;
+		this.firstDay = firstDay;
+		int size = (int) (lastDay - firstDay + 1);
+		hours = new WorkingHours[size];
+		workBefore = new long[size + 1];
+		exceptionDifferenceBefore = new long[size + 1];
+
+		int e = firstExceptionFrom(firstDay * MS_PER_DAY);
+		long nextExceptionDay = e < exceptions.length ? dayOf(exceptions[e].getStart()) : Long.MAX_VALUE;
+		for (int i = 0; i < size; i++) {
+			long day = firstDay + i;
+			WorkDay weekDay = week.getWeekDay(dayOfWeek(day));
+			long exceptionDifference = 0;
+			if (day == nextExceptionDay) {
+				WorkDay exception = exceptions[e];
+				hours[i] = exception.getWorkingHours();
+				exceptionDifference = exception.getDuration() - weekDay.getDuration();
+				e++;
+				nextExceptionDay = e < exceptions.length ? dayOf(exceptions[e].getStart()) : Long.MAX_VALUE;
+			} else {
+				hours[i] = weekDay.getWorkingHours();
+			}
+			workBefore[i + 1] = workBefore[i] + hours[i].getDuration();
+			exceptionDifferenceBefore[i + 1] = exceptionDifferenceBefore[i] + exceptionDifference;
+		}
+	}
+
+	/**
+	 * @return true if date math between these days can be done with an index
+	 */
+	static boolean isSpanIndexable(long day1, long day2) {
+		return Math.abs(day2 - day1) <= MAX_DAYS / 2;
+	}
+
+	/**
+	 * Build an index for a calendar
+	 * @return the index, or null if the calendar cannot be indexed and the iterator must be used
+	 */
+	static WorkingTimeIndex build(CalendarDefinition calendar, long firstDay, long lastDay) {
+		if (!isIndexable(calendar))
+			return null;
+		return new WorkingTimeIndex(calendar, firstDay, lastDay);
+	}
+
+	/**
+	 * The iterator only recognizes exceptions starting at midnight, and fails on missing week days, so other calendars are left to it
+	 */
+	private static boolean isIndexable(CalendarDefinition calendar) {
+		if (calendar.exceptions == null || calendar.week == null || calendar.week.getDuration() <= 0)
+			return false;
+		for (int d = 0; d < WorkWeek.DAYS_IN_WEEK; d++) {
+			WorkDay weekDay = calendar.week.getWeekDay(d);
+			if (weekDay == null || weekDay.getWorkingHours() == null)
+				return false;
+		}
+		for (int i = 0; i < calendar.exceptions.length; i++) {
+			WorkDay exception = calendar.exceptions[i];
+			if (exception == WorkDay.MAXIMUM)
+				continue;
+			if (exception.getStart() % MS_PER_DAY != 0 || exception.getWorkingHours() == null)
+				return false;
+		}
+		return true;
+	}
+
+	private int firstExceptionFrom(long date) {
+		int low = 0;
+		int high = exceptions.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (exceptions[middle].getStart() < date)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		return low;
+	}
+
+	static long dayOf(long date) {
+		return Math.floorDiv(date, MS_PER_DAY);
+	}
+
+	static int dayOfWeek(long day) {
+		return (int) Math.floorMod(day + 4, (long) WorkWeek.DAYS_IN_WEEK); // the epoch is a thursday, sunday is 0
+	}
+
+	/**
+	 * @return true if the index was built from the current state of the calendar
+	 */
+	boolean isFor(CalendarDefinition calendar) {
+		return calendar.exceptions == exceptions && calendar.week == week;
+	}
+	boolean covers(long day) {
+		return day >= firstDay && day < firstDay + hours.length;
+	}
+	long getFirstDay() {
+		return firstDay;
+	}
+	long getLastDay() {
+		return firstDay + hours.length - 1;
+	}
+
+	WorkingHours getHours(long day) {
+		return hours[(int) (day - firstDay)];
+	}
+
+	/**
+	 * @return working time of the days from fromDay to toDay inclusive
+	 */
+	long getWork(long fromDay, long toDay) {
+		if (toDay < fromDay)
+			return 0;
+		return workBefore[(int) (toDay - firstDay) + 1] - workBefore[(int) (fromDay - firstDay)];
+	}
+
+	/**
+	 * @return sum of the differences between exception days and their normal week day for the days strictly between the two days
+	 */
+	long getExceptionDifferenceBetween(long day1, long day2) {
+		long from = Math.min(day1, day2) + 1;
+		long to = Math.max(day1, day2) - 1;
+		if (to < from)
+			return 0;
+		return exceptionDifferenceBefore[(int) (to - firstDay) + 1] - exceptionDifferenceBefore[(int) (from - firstDay)];
+	}
+
+	/**
+	 * Find the first day after (before if not forward) the given day at which the working time of the days walked reaches
+	 * the duration: at least the duration if inclusive, more than the duration otherwise.
+	 * @return the day found, or Long.MIN_VALUE if it is outside of the index
+	 */
+	long findDay(long day, boolean forward, long duration, boolean inclusive) {
+		int position = (int) (day - firstDay);
+		if (forward) {
+			long target = workBefore[position + 1] + duration; // looking for smallest k with workBefore[k] >= target (> if not inclusive)
+			int low = position + 2;
+			int high = workBefore.length - 1;
+			if (low > high || !reaches(workBefore[high], target, inclusive))
+				return Long.MIN_VALUE;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (reaches(workBefore[middle], target, inclusive))
+					high = middle;
+				else
+					low = middle + 1;
+			}
+			return firstDay + low - 1;
+		}
+		long target = workBefore[position] - duration; // looking for largest k with workBefore[k] <= target (< if not inclusive)
+		int low = 0;
+		int high = position - 1;
+		if (high < low || !reaches(target, workBefore[low], inclusive))
+			return Long.MIN_VALUE;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (reaches(target, workBefore[middle], inclusive))
+				low = middle;
+			else
+				high = middle - 1;
+		}
+		return firstDay + low;
+	}
+
+	private static boolean reaches(long value, long target, boolean inclusive) {
+		return inclusive ? value >= target : value > target;
+	}
+}
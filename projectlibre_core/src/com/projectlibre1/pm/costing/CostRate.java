@@ -63,6 +63,7 @@ import com.projectlibre1.field.FieldContext;
 import com.projectlibre1.interval.InvalidValueObjectForIntervalException;
 import com.projectlibre1.interval.ValueObjectForInterval;
 import com.projectlibre1.interval.ValueObjectForIntervalTable;
+import com.projectlibre1.pm.assignment.RollupCache;
 /**
  * Standard and overtime cost rates are expressesed as cost/millisecond
  * Fixed cost is a simple scalar value, not a value.
@@ -91,6 +92,7 @@ public class CostRate extends ValueObjectForInterval implements Cost {
 	 */
 	public void setCostPerUse(double costPerUse) {
 		this.costPerUse = costPerUse;
+		RollupCache.invalidateShared();
 	}
 
 	/**
@@ -105,6 +107,7 @@ public class CostRate extends ValueObjectForInterval implements Cost {
 	 */
 	public void setOvertimeRate(Rate overtimeRate) {
 		this.overtimeRate = overtimeRate;
+		RollupCache.invalidateShared();
 	}
 
 	/**
@@ -119,6 +122,7 @@ public class CostRate extends ValueObjectForInterval implements Cost {
 	 */
 	public void setStandardRate(Rate standardRate) {
 		this.standardRate = standardRate;
+		RollupCache.invalidateShared(); // costs of every assignment using this rate change
 	}
 
 	/* (non-Javadoc)
@@ -133,6 +137,7 @@ public class CostRate extends ValueObjectForInterval implements Cost {
 	 */
 	public void setEffectiveDate(long effectiveDate) throws InvalidValueObjectForIntervalException {
 		table.adjustStart(effectiveDate,this);
+		RollupCache.invalidateShared();
 	}
 
 	/* (non-Javadoc)
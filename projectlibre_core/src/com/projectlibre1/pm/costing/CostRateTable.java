@@ -61,7 +61,9 @@ import java.util.ArrayList;
 
 import com.projectlibre1.grouping.core.model.NodeModel;
 import com.projectlibre1.interval.ValueObjectForInterval;
+import com.projectlibre1.interval.InvalidValueObjectForIntervalException;
 import com.projectlibre1.interval.ValueObjectForIntervalTable;
+import com.projectlibre1.pm.assignment.RollupCache;
 import com.projectlibre1.undo.DataFactoryUndoController;
 
 public class CostRateTable extends ValueObjectForIntervalTable{
@@ -92,6 +94,16 @@ public class CostRateTable extends ValueObjectForIntervalTable{
 		return new CostRate(this,date);
 	}
 
+	public ValueObjectForInterval newValueObject(long start) throws InvalidValueObjectForIntervalException {
+		RollupCache.invalidateShared(); // a new rate takes effect
+		return super.newValueObject(start);
+	}
+
+	public void remove(ValueObjectForInterval removeMe) throws InvalidValueObjectForIntervalException {
+		super.remove(removeMe);
+		RollupCache.invalidateShared();
+	}
+
 	
 	
 	public static CostRateTable deserialize(ObjectInputStream s) throws IOException, ClassNotFoundException  {
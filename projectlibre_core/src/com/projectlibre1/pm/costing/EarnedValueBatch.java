@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.costing;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.stream.IntStream;
+
+import com.projectlibre1.pm.assignment.Assignment;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.Task;
+import com.projectlibre1.util.DateTime;
+
+/**
+ * Earned value of every task of a project at a status date, computed in one pass.
+ * Asking EarnedValueCalculator for each indicator of each task traverses the time distributed data again for every
+ * indicator (eac alone needs bcwp, acwp, bac and cost). Here the base values (BCWS, BCWP, ACWP, BAC, cost) of the
+ * assignments of each task are computed once, in parallel across tasks, then summed bottom-up along the WBS into
+ * the summary tasks and the project, and the indicators (EAC, CV, SV, CPI, SPI, VAC, TCPI) are derived from them with
+ * the formulas of EarnedValueCalculator.
+ *
+ * Results are arrays indexed by task, in the order of Project.getTasks(); the last row, getProjectRow(), holds the
+ * project totals. The getters return copies of the arrays. A summary row includes the values of the summary task's
+ * own assignments if it has any. Ratios of summary rows are computed from the summed base values.
+ * Set projectlibre.earnedValue.parallel to false to compute the tasks on the calling thread.
+ */
+public final class EarnedValueBatch {
+	private static final boolean PARALLEL = Boolean.parseBoolean(System.getProperty("projectlibre.earnedValue.parallel", "true"));
+	private static final int PARALLEL_THRESHOLD = 256; // tasks
+	private static final long defaultStart = 0;
+	private static final long defaultEnd = DateTime.getMaxDate().getTime();
+
+	private final Task[] tasks;
+	private final IdentityHashMap<Task,Integer> indexes;
+	private final long statusDate;
+	private final double[] bcws;
+	private final double[] bcwp;
+	private final double[] acwp;
+	private final double[] bac;
+	private final double[] cost;
+	private final double[] eac;
+	private final double[] cv;
+	private final double[] sv;
+	private final double[] cpi;
+	private final double[] spi;
+	private final double[] vac;
+	private final double[] tcpi;
+
+	/**
+	 * Evaluates at the status date of the project
+	 */
+	public static EarnedValueBatch evaluate(Project project) {
+		return evaluate(project, project.getStatusDate());
+	}
+
+	/**
+	 * @param statusDate instant earned value is measured at, as given by Project.getStatusDate()
+	 */
+	public static EarnedValueBatch evaluate(Project project, long statusDate) {
+		EarnedValueBatch batch = new EarnedValueBatch(project.getTasks(), statusDate);
+		batch.computeTasks();
+		batch.rollup();
+		batch.computeIndicators();
+		return batch;
+	}
+
+	private EarnedValueBatch(Collection<?> projectTasks, long statusDate) {
+		this.statusDate = statusDate;
+		tasks = projectTasks.toArray(new Task[projectTasks.size()]);
+		indexes = new IdentityHashMap<Task,Integer>(tasks.length * 2);
+		for (int i = 0; i < tasks.length; i++)
+			indexes.put(tasks[i], i);
+		int rows = tasks.length + 1;
+		bcws = new double[rows];
+		bcwp = new double[rows];
+		acwp = new double[rows];
+		bac = new double[rows];
+		cost = new double[rows];
+		eac = new double[rows];
+		cv = new double[rows];
+		sv = new double[rows];
+		cpi = new double[rows];
+		spi = new double[rows];
+		vac = new double[rows];
+		tcpi = new double[rows];
+	}
+
+	/**
+	 * Base values of each task's own assignments. Tasks are independent, each one writes its own row.
+	 */
+	private void computeTasks() {
+		IntStream rows = IntStream.range(0, tasks.length);
+		if (PARALLEL && tasks.length >= PARALLEL_THRESHOLD)
+			rows = rows.parallel();
+		rows.forEach(this::computeTask);
+	}
+
+	private void computeTask(int row) {
+		if (!(tasks[row] instanceof NormalTask))
+			return;
+		for (Object next : ((NormalTask) tasks[row]).getAssignments()) {
+			Assignment assignment = (Assignment) next;
+			bcws[row] += assignment.bcws(defaultStart, defaultEnd, statusDate);
+			bcwp[row] += assignment.bcwp(defaultStart, defaultEnd, statusDate);
+			acwp[row] += assignment.acwp(defaultStart, defaultEnd, statusDate);
+			bac[row] += assignment.bac(defaultStart, defaultEnd);
+			cost[row] += assignment.cost(defaultStart, defaultEnd);
+		}
+	}
+
+	/**
+	 * Adds each row to its WBS parent, deepest rows first, and top level rows to the project row.
+	 */
+	private void rollup() {
+		int[] parents = new int[tasks.length];
+		int[] depths = new int[tasks.length];
+		int maxDepth = 0;
+		for (int i = 0; i < tasks.length; i++) {
+			Integer parent = tasks[i].getWbsParentTask() == null ? null : indexes.get(tasks[i].getWbsParentTask());
+			parents[i] = parent == null ? tasks.length : parent.intValue();
+		}
+		for (int i = 0; i < tasks.length; i++) {
+			int depth = 0;
+			for (int p = parents[i]; p != tasks.length && depth <= tasks.length; p = parents[p])
+				depth++;
+			depths[i] = depth;
+			maxDepth = Math.max(maxDepth, depth);
+		}
+		for (int depth = maxDepth; depth >= 0; depth--) {
+			for (int i = 0; i < tasks.length; i++) {
+				if (depths[i] != depth)
+					continue;
+				int p = parents[i];
+				bcws[p] += bcws[i];
+				bcwp[p] += bcwp[i];
+				acwp[p] += acwp[i];
+				bac[p] += bac[i];
+				cost[p] += cost[i];
+			}
+		}
+	}
+
+	private void computeIndicators() {
+		EarnedValueCalculator calculator = EarnedValueCalculator.getInstance();
+		for (int row = 0; row < eac.length; row++) {
+			eac[row] = calculator.eac(bcwp[row], acwp[row], bac[row], cost[row]);
+			cv[row] = bcwp[row] - acwp[row];
+			sv[row] = bcwp[row] - bcws[row];
+			cpi[row] = calculator.cpi(bcwp[row], acwp[row]);
+			spi[row] = calculator.spi(bcwp[row], bcws[row]);
+			vac[row] = bac[row] - eac[row];
+			tcpi[row] = calculator.tcpi(bcwp[row], acwp[row], bac[row]);
+		}
+	}
+
+	/**
+	 * @return the row of a task, -1 if it is not in the project
+	 */
+	public int indexOf(Task task) {
+		Integer index = indexes.get(task);
+		return index == null ? -1 : index.intValue();
+	}
+
+	public Task getTask(int row) {
+		return row < tasks.length ? tasks[row] : null;
+	}
+
+	public int getProjectRow() {
+		return tasks.length;
+	}
+
+	public long getStatusDate() {
+		return statusDate;
+	}
+
+	public double[] getBcws() {
+		return bcws.clone();
+	}
+
+	public double[] getBcwp() {
+		return bcwp.clone();
+	}
+
+	public double[] getAcwp() {
+		return acwp.clone();
+	}
+
+	public double[] getBac() {
+		return bac.clone();
+	}
+
+	public double[] getCost() {
+		return cost.clone();
+	}
+
+	public double[] getEac() {
+		return eac.clone();
+	}
+
+	public double[] getCv() {
+		return cv.clone();
+	}
+
+	public double[] getSv() {
+		return sv.clone();
+	}
+
+	public double[] getCpi() {
+		return cpi.clone();
+	}
+
+	public double[] getSpi() {
+		return spi.clone();
+	}
+
+	public double[] getVac() {
+		return vac.clone();
+	}
+
+	public double[] getTcpi() {
+		return tcpi.clone();
+	}
+}
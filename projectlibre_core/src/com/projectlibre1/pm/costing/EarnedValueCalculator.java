@@ -129,6 +129,22 @@ public class EarnedValueCalculator {
 		return acwp + acwp * (ev.bac(start,end) - bcwp) / bcwp;
 	}
 
+	/**
+	 * Same as above from values already computed, see EarnedValueBatch
+	 */
+	public double eac(double bcwp, double acwp, double bac, double cost) {
+		if (bcwp == 0.0D) {
+			if (getDivideByZeroValue() == 0)// prevent divide by 0
+				return 0;
+			bcwp = cost; // use cost for bcwp in case no bcwp
+		}
+		if (acwp == 0) {
+			if (getDivideByZeroValue() != 0)
+				return cost; // use cost eac
+		}
+		return acwp + acwp * (bac - bcwp) / bcwp;
+	}
+
 	public double eac(EarnedValueValues ev) {
 		return eac(ev,defaultStart,defaultEnd); 
 	}
@@ -148,6 +164,12 @@ public class EarnedValueCalculator {
 		return ev.bcwp(start,end) / acwp;
 	}
 
+	public double cpi(double bcwp, double acwp) {
+		if (acwp == 0.0D) // prevent divide by 0
+			return getDivideByZeroValue();
+		return bcwp / acwp;
+	}
+
 	public double cpi(EarnedValueValues ev) {
 		return cpi(ev,defaultStart,defaultEnd); 
 	}
@@ -159,6 +181,12 @@ public class EarnedValueCalculator {
 		return ev.bcwp(start,end) / bcws;
 	}
 
+	public double spi(double bcwp, double bcws) {
+		if (bcws == 0.0D) // prevent divide by 0
+			return getDivideByZeroValue();
+		return bcwp / bcws;
+	}
+
 	public double spi(EarnedValueValues ev) {
 		return spi(ev,defaultStart,defaultEnd); 
 	}
@@ -200,6 +228,12 @@ public class EarnedValueCalculator {
 		return (bac - ev.bcwp(start,end)) / (bac - acwp);
 	}	
 
+	public double tcpi(double bcwp, double acwp, double bac) {
+		if (bac == acwp) // prevent divide by 0
+			return getDivideByZeroValue();
+		return (bac - bcwp) / (bac - acwp);
+	}
+
 	public double tcpi(EarnedValueValues ev) {
 		return tcpi(ev,defaultStart,defaultEnd); 
 	}
@@ -56,23 +56,34 @@
 package com.projectlibre1.pm.criticalpath;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
 import com.projectlibre1.configuration.Configuration;
+import com.projectlibre1.contrib.util.Log;
+import com.projectlibre1.contrib.util.LogFactory;
 import com.projectlibre1.document.Document;
 import com.projectlibre1.document.ObjectEvent;
+import com.projectlibre1.document.ObjectEventBatch;
 import com.projectlibre1.field.Field;
+import com.projectlibre1.grouping.core.Node;
 import com.projectlibre1.options.ScheduleOption;
 import com.projectlibre1.pm.assignment.Assignment;
 import com.projectlibre1.pm.calendar.WorkingCalendar;
 import com.projectlibre1.pm.dependency.Dependency;
 import com.projectlibre1.pm.dependency.DependencyService;
+import com.projectlibre1.pm.dependency.DependencyType;
 import com.projectlibre1.pm.scheduling.ConstraintType;
 import com.projectlibre1.pm.scheduling.ScheduleEvent;
 import com.projectlibre1.pm.task.BelongsToDocument;
@@ -87,7 +98,7 @@ import com.projectlibre1.util.Environment;
 /**
  * The critical path calculation
  */
-public class CriticalPath implements SchedulingAlgorithm {
+public class CriticalPath implements SchedulingAlgorithm, ObjectEvent.BatchListener {
 	PredecessorTaskList predecessorTaskList = new PredecessorTaskList(this);
 	private CriticalPathFields fieldUpdater = null;
 	NormalTask finishSentinel;
@@ -102,6 +113,27 @@ public class CriticalPath implements SchedulingAlgorithm {
 	TaskSchedule.CalculationContext context;
 	private static CriticalPath lastInstance;
 	private static Field constraintTypeField = Configuration.getFieldFromId("Field.constraintType");
+	private static Log log = LogFactory.getLog(CriticalPath.class);
+	
+	// Incremental mode: instead of walking the whole predecessor list, each pass only visits the tasks that are marked
+	// and the successors (predecessors in backward pass) that they mark in turn.  The visiting order is the same as the full walk.
+	// Setting projectlibre.cpm.incremental to false restores the full walks.
+	private boolean incremental = Boolean.parseBoolean(System.getProperty("projectlibre.cpm.incremental", "true"));
+	private final Set<Task> dirtyTasks = Collections.newSetFromMap(new IdentityHashMap<Task,Boolean>()); // tasks marked since the last calculation
+	private final Set<Task> recomputedTasks = Collections.newSetFromMap(new IdentityHashMap<Task,Boolean>()); // tasks treated during the current calculation
+	private boolean allTasksDirty = true;
+	private boolean aggregateAllSummaries = true;
+	private BitSet pendingPositions = null; // worklist of the incremental pass in progress
+	private PredecessorTaskList.TopologicalIndex pendingIndex = null;
+	private int pendingCursor;
+	private boolean pendingForward;
+	
+	// Parallel mode (Project.isParallelScheduling): full passes treat the waves of the topological index one after the other,
+	// and the tasks of a large wave concurrently.
+	static final int PARALLEL_WAVE_THRESHOLD = 256; // smaller waves are treated in the calling thread
+	private static final int PARALLEL_CHUNK_SIZE = 64;
+	private final int[] tasksTouchedInPass = new int[4]; // indexed by context.pass
+	private long totalTasksTouched = 0;
 	public CriticalPath(Project project) {
 		this.project = project;
 		project.setSchedulingAlgorithm(this); 
@@ -251,6 +283,10 @@ public class CriticalPath implements SchedulingAlgorithm {
 		long firstBoundary = isForward() ? project.getStartConstraint() : -project.getEnd();
 		boolean hasReverseScheduledTasks = predecessorTaskList.hasReverseScheduledTasks();
 
+		for (int p = 0; p < tasksTouchedInPass.length; p++)
+			tasksTouchedInPass[p] = 0;
+		recomputedTasks.clear();
+
 		context = new TaskSchedule.CalculationContext();
 		context.stateCount = getNextCalculationStateCount();
 		context.honorRequiredDates = isHonorRequiredDates();
@@ -262,15 +298,18 @@ public class CriticalPath implements SchedulingAlgorithm {
 		context.scheduleType = isForward() ? TaskSchedule.EARLY : TaskSchedule.LATE;;
 		context.pass = 0;
 		boolean affectsCriticalPath = (startTask == beginSentinel) || startTask.getSchedule(context.scheduleType).affectsCriticalPath(context);
+		// An incremental backward pass only treats the tasks whose dates changed in the first pass, so it is always run.
+		// Skipping it would leave the late dates of the modified task stale.
+		boolean backwardPass = affectsCriticalPath || useIncrementalPass();
 		
-		boolean worstCase = affectsCriticalPath && hasReverseScheduledTasks;
+		boolean worstCase = backwardPass && hasReverseScheduledTasks;
 		context.earlyOnly = worstCase;
 		context.assign = true;
 		context.pass = 1;
 		criticalPathJustChanged = affectsCriticalPath;
 		doPass(startTask,context); // always assign in first pass.  Dates may change in third pass
 		
-		if (affectsCriticalPath) {
+		if (backwardPass) {
 			ensureFinishSentinelEarlyDatesBeforeBackwardPass(context);
 			context.stateCount = getNextCalculationStateCount(); // backward pass treats next increment
 			context.sentinel = endSentinel;
@@ -291,9 +330,6 @@ public class CriticalPath implements SchedulingAlgorithm {
 		// CPM-MS.2: Агрегация дат для summary tasks после forward/backward passes.
 		// По стандарту MS Project summary tasks не участвуют в CPM, а получают даты от детей.
 		aggregateSummaryTaskDates();
-		
-		// ДИАГНОСТИКА БАГА: Логируем summary tasks после агрегации
-		logSummaryTasksAfterAggregation();
 
 		// Даты проекта: конец проекта обновляем по раннему финишу; граница обратного прохода уже учла FNLT выше.
 		project.setStart(startSentinel.getEarlyStart());
@@ -316,7 +352,33 @@ public class CriticalPath implements SchedulingAlgorithm {
 			}
 			
 		}
-		getFreshCalculationStateCount(); // For next time;
+		int freshCount = getFreshCalculationStateCount(); // For next time;
+		markMovedTasksRollupDirty();
+		forgetTreatedDirtyTasks(freshCount);
+	}
+
+	/**
+	 * Drop the cached totals of the tasks whose current dates this calculation moved, see RollupCache
+	 */
+	private void markMovedTasksRollupDirty() {
+		for (Task task : recomputedTasks) {
+			if (!isSentinel(task))
+				task.markRollupDirtyIfMoved();
+		}
+	}
+	
+	/**
+	 * After a calculation, only keep the dirty tasks whose marks concern the next calculation
+	 * @param freshCount the calculation state count the next calculation will start from
+	 */
+	private void forgetTreatedDirtyTasks(int freshCount) {
+		for (Iterator<Task> i = dirtyTasks.iterator(); i.hasNext();) {
+			if (i.next().getCalculationStateCount() <= freshCount)
+				i.remove();
+		}
+		recomputedTasks.clear();
+		allTasksDirty = false;
+		aggregateAllSummaries = false;
 	}
 
 	/**
@@ -345,7 +407,7 @@ public class CriticalPath implements SchedulingAlgorithm {
 	 * чтобы вложенные summary уже имели корректные даты перед агрегацией родителями.
 	 */
 	private void aggregateSummaryTaskDates() {
-		List<NormalTask> summaries = collectSummaryTasks();
+		List<NormalTask> summaries = aggregateAllSummaries ? collectSummaryTasks() : collectAffectedSummaryTasks();
 		if (summaries.isEmpty()) {
 			return;
 		}
@@ -368,6 +430,30 @@ public class CriticalPath implements SchedulingAlgorithm {
 		return summaries;
 	}
 	
+	/**
+	 * Collect only the summary tasks affected by the current incremental calculation: the ancestors of the recomputed
+	 * tasks and the summaries marked as changed.  The dates of the other summaries can't have changed since the dates of
+	 * their children didn't.
+	 */
+	private List<NormalTask> collectAffectedSummaryTasks() {
+		Set<Task> affected = Collections.newSetFromMap(new IdentityHashMap<Task,Boolean>());
+		for (Task task : recomputedTasks) {
+			for (Task parent = task.getWbsParentTask(); parent != null && affected.add(parent); parent = parent.getWbsParentTask())
+				;
+		}
+		for (Task task : dirtyTasks) {
+			if (task.isWbsParent())
+				affected.add(task);
+		}
+		List<NormalTask> summaries = new ArrayList<>();
+		for (Task task : affected) {
+			if (task instanceof NormalTask && task.isWbsParent() && !task.isExternal() && task.getOwningProject() == project) {
+				summaries.add((NormalTask) task);
+			}
+		}
+		return summaries;
+	}
+	
 	/**
 	 * Сортирует summary tasks по глубине (outlineLevel) в порядке убывания.
 	 * Глубокие summary обрабатываются первыми (bottom-up).
@@ -388,79 +474,316 @@ public class CriticalPath implements SchedulingAlgorithm {
 		}
 	}
 	
+	private void doPass(Task startTask, TaskSchedule.CalculationContext context) {
+		if (startTask != null) {
+			startTask.getSchedule(context.scheduleType).invalidate();
+			startTask.setCalculationStateCount(getCalculationStateCount());
+			dirtyTasks.add(startTask);
+		}
+		CpmPassEvent event = new CpmPassEvent();
+		event.begin();
+		int touchedBefore = tasksTouchedInPass[context.pass];
+		String mode;
+		if (useIncrementalPass()) {
+			mode = "incremental";
+			doIncrementalPass(context);
+		} else if (project.isParallelScheduling()) {
+			mode = "parallel";
+			doParallelPass(context);
+		} else {
+			mode = "full";
+			doFullPass(context);
+		}
+		if (event.shouldCommit()) {
+			event.project = project.getName();
+			event.direction = context.forward ? "forward" : "backward";
+			event.mode = mode;
+			event.taskCount = predecessorTaskList.getTopologicalIndex().size();
+			event.tasksRecomputed = tasksTouchedInPass[context.pass] - touchedBefore;
+			event.commit();
+		}
+	}
+	
+	private boolean useIncrementalPass() {
+		return incremental && !allTasksDirty && !predecessorTaskList.getTopologicalIndex().hasForeignTasks();
+	}
+
+	private void doFullPass(TaskSchedule.CalculationContext context) {
+		PredecessorTaskList.TopologicalIndex index = predecessorTaskList.getTopologicalIndex();
+		boolean forward = context.forward;
+		boolean projectForward = project.isForward();
+		int size = index.size();
+		for (int position = 0; position < size; position++)
+			treatTaskReference(index.getReference(forward ? position : size - 1 - position), context, projectForward);
+	}
+	
 	/**
-	 * ДИАГНОСТИКА БАГА: Логирует summary tasks после агрегации дат от детей.
+	 * Parallel version of the full pass.  The waves are treated in order, and the tasks of a wave are treated concurrently since
+	 * none of them reads what another one writes.  Calculated tasks are recorded after each wave so the result is the same as
+	 * the full walk.
 	 */
-	private void logSummaryTasksAfterAggregation() {
-		System.out.println("[BUG-DIAG] ===== SUMMARY TASKS AFTER AGGREGATION =====");
-		
-		Iterator<Task> it = project.getTaskOutlineIterator();
-		while (it.hasNext()) {
-			Task t = it.next();
-			if (t.isExternal() || !t.isWbsParent()) continue;
-			
-			if (t instanceof NormalTask) {
-				NormalTask nt = (NormalTask) t;
-				long earlyStart = nt.getEarlyStart();
-				long earlyFinish = nt.getEarlyFinish();
-				long lateStart = nt.getLateStart();
-				long lateFinish = nt.getLateFinish();
-				long currentStart = nt.getStart();
-				long currentEnd = nt.getEnd();
-				
-				System.out.println("[BUG-DIAG] SUMMARY '" + t.getName() + "' earlyStart=" + earlyStart + " earlyFinish=" + earlyFinish
-					+ " lateStart=" + lateStart + " lateFinish=" + lateFinish + " currentStart=" + currentStart + " currentEnd=" + currentEnd);
+	private void doParallelPass(TaskSchedule.CalculationContext context) {
+		PredecessorTaskList.TopologicalIndex index = predecessorTaskList.getTopologicalIndex();
+		Wavefront wavefront = index.getWavefront(context.forward);
+		boolean projectForward = project.isForward();
+		boolean[] calculated = new boolean[index.size()];
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		for (int wave = 0; wave < wavefront.getWaveCount(); wave++) {
+			int start = wavefront.getWaveStart(wave);
+			int end = wavefront.getWaveEnd(wave);
+			if (end - start < PARALLEL_WAVE_THRESHOLD) {
+				for (int i = start; i < end; i++) {
+					int position = wavefront.getPosition(i);
+					calculated[position] = calcTaskReference(index.getReference(position), context);
+				}
+			} else {
+				pool.invoke(new WaveAction(index, wavefront, start, end, context, calculated));
+			}
+			for (int i = start; i < end; i++) {
+				int position = wavefront.getPosition(i);
+				if (calculated[position])
+					recordCalculatedTask(index.getTask(position), context, projectForward);
 			}
 		}
-		
-		System.out.println("[BUG-DIAG] ===== END SUMMARY TASKS AFTER AGGREGATION =====");
 	}
 	
-	private void doPass(Task startTask, TaskSchedule.CalculationContext context) {
-		if (startTask != null) {
-			startTask.getSchedule(context.scheduleType).invalidate();
-			startTask.setCalculationStateCount(getCalculationStateCount());
+	/**
+	 * Treats a range of a wave.  Each subtask has its own copy of the context, since the reference type is set in it.
+	 */
+	private static final class WaveAction extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final PredecessorTaskList.TopologicalIndex index;
+		private final Wavefront wavefront;
+		private final int start;
+		private final int end;
+		private final TaskSchedule.CalculationContext context;
+		private final boolean[] calculated;
+		
+		WaveAction(PredecessorTaskList.TopologicalIndex index, Wavefront wavefront, int start, int end, TaskSchedule.CalculationContext context, boolean[] calculated) {
+			this.index = index;
+			this.wavefront = wavefront;
+			this.start = start;
+			this.end = end;
+			this.context = context;
+			this.calculated = calculated;
 		}
-
-		PredecessorTaskList.TaskReference taskReference;
+		
+		protected void compute() {
+			if (end - start > PARALLEL_CHUNK_SIZE) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new WaveAction(index, wavefront, start, middle, context, calculated),
+						new WaveAction(index, wavefront, middle, end, context, calculated));
+				return;
+			}
+			TaskSchedule.CalculationContext localContext = context.copy();
+			for (int i = start; i < end; i++) {
+				int position = wavefront.getPosition(i);
+				calculated[position] = calcTaskReference(index.getReference(position), localContext);
+			}
+		}
+	}
+	
+	/**
+	 * Incremental version of the pass.  The marked tasks are put in a worklist ordered by their position in the predecessor list.
+	 * Each time a task is treated, the tasks it marks are added to the worklist.  Since a task only marks tasks that come after it
+	 * in the list (its successors, or its predecessors in the backward pass, and the sentinel), the tasks are treated in exactly the
+	 * same order as the full walk would treat them, but unmarked tasks are never visited. The pass stops as soon as dates stop changing
+	 * since calcDates doesn't mark anything when a task's dates are unchanged.
+	 */
+	private void doIncrementalPass(TaskSchedule.CalculationContext context) {
+		PredecessorTaskList.TopologicalIndex index = predecessorTaskList.getTopologicalIndex();
 		boolean forward = context.forward;
-		ListIterator i = forward ? predecessorTaskList.listIterator() : predecessorTaskList.reverseIterator();
-		Task task;
-		TaskSchedule schedule;
-
 		boolean projectForward = project.isForward();
-		while (forward ? i.hasNext() : i.hasPrevious()) {
-			taskReference = (PredecessorTaskList.TaskReference)(forward ? i.next() : i.previous());
-			
-			// CPM-MS.1: Пропускаем summary tasks — по стандарту MS Project они не участвуют в CPM.
-			// Summary tasks (PARENT_BEGIN/PARENT_END) получают даты в отдельном aggregation pass.
-			int refType = taskReference.getType();
-			if (refType == PredecessorTaskList.TaskReference.PARENT_BEGIN ||
-				refType == PredecessorTaskList.TaskReference.PARENT_END) {
-				continue;
+		pendingIndex = index;
+		pendingPositions = new BitSet(index.size());
+		pendingForward = forward;
+		pendingCursor = forward ? -1 : index.size();
+		try {
+			for (Task task : dirtyTasks)
+				enqueueIfMarked(task, context.stateCount);
+			for (Task task : recomputedTasks) // tasks treated in an earlier pass are marked for the next one
+				enqueueIfMarked(task, context.stateCount);
+			for (Task task : dirtyTasks) {
+				recalcLinksUsingDuration(task, context);
+				restoreSentinelDependencyDate(task, context);
 			}
+			for (Task task : recomputedTasks)
+				recalcLinksUsingDuration(task, context);
+			enqueueIfMarked(startSentinel, context.stateCount);
+			enqueueIfMarked(finishSentinel, context.stateCount);
+			int[] reverseScheduled = index.getReverseScheduledPositions(); // these are always treated
+			for (int r = 0; r < reverseScheduled.length; r++)
+				pendingPositions.set(reverseScheduled[r]);
 			
-			traceTask = task = taskReference.getTask();
-			context.taskReferenceType = refType;
-			schedule = task.getSchedule(context.scheduleType);
-			if (!forward) {
-				context.taskReferenceType = -refType;
+			int position = forward ? pendingPositions.nextSetBit(0) : pendingPositions.previousSetBit(index.size() - 1);
+			while (position >= 0) {
+				pendingCursor = position;
+				PredecessorTaskList.TaskReference taskReference = index.getReference(position);
+				if (treatTaskReference(taskReference, context, projectForward))
+					enqueueMarkedNeighbors(position, context);
+				position = forward ? pendingPositions.nextSetBit(position + 1) : pendingPositions.previousSetBit(position - 1);
 			}
-				
-			if (task.isReverseScheduled()) {
-				schedule.invalidate();
-				task.setCalculationStateCount(context.stateCount);
+		} finally {
+			pendingPositions = null;
+			pendingIndex = null;
+		}
+	}
+	
+	/**
+	 * Add to the worklist the tasks that calcDates may have marked: the successors (predecessors) and the sentinel.  A marked
+	 * parent is not in the worklist, its descendants are added instead.
+	 */
+	private void enqueueMarkedNeighbors(int position, TaskSchedule.CalculationContext context) {
+		boolean pred = !pendingIndex.getTask(position).getSchedule(context.scheduleType).isForward();
+		int end = pendingIndex.getDependencyEnd(pred, position);
+		for (int d = pendingIndex.getDependencyStart(pred, position); d < end; d++)
+			enqueuePositionIfMarked(pendingIndex.getDependencyTarget(pred, d), context.stateCount);
+		if (pendingIndex.hasParentDependency(pred, position)) {
+			for (Iterator<?> d = pendingIndex.getTask(position).getDependencyList(pred).iterator(); d.hasNext();) {
+				Task parent = (Task) ((Dependency) d.next()).getTask(pred);
+				if (parent.isWbsParent() && parent.getCalculationStateCount() >= context.stateCount)
+					enqueueWbsDescendants(parent, context.stateCount);
 			}
-			if (task.getCalculationStateCount() >= context.stateCount) {
-				schedule.calcDates(context);
-				if (context.assign && (projectForward || !task.isWbsParent())) {
-					if (schedule.getBegin() != 0L && !isSentinel(task)) {
-						earliestStart = Math.min(earliestStart, schedule.getStart());
-					}
-					if (schedule.getEnd() != 0 && !isSentinel(task)) {
-						latestFinish = Math.max(latestFinish, schedule.getFinish());
-					}
-				}
+		}
+		enqueueIfMarked(context.sentinel, context.stateCount);
+	}
+
+	/**
+	 * Summary tasks are not treated by the passes, but their children read the summary's dependency date.  When a dependency
+	 * marks a summary, its descendants are marked and treated instead.
+	 */
+	private void enqueueWbsDescendants(Task parent, int stateCount) {
+		Collection<?> children = parent.getWbsChildrenNodes();
+		if (children == null)
+			return;
+		for (Iterator<?> i = children.iterator(); i.hasNext();) {
+			Object child = ((Node) i.next()).getImpl();
+			if (! (child instanceof Task))
+				continue;
+			((Task)child).setCalculationStateCount(stateCount);
+			enqueueIfMarked((Task)child, stateCount);
+			enqueueWbsDescendants((Task)child, stateCount);
+		}
+	}
+	
+	/**
+	 * The date a dependency stores for the pass is calculated when the task at its other end is treated.  For SS and SF links in the
+	 * backward pass (FF and SF links in the forward pass) that date includes the duration of this task, which may have changed.
+	 * The other task is not treated again if its own dates don't change, so the dates of these links are calculated here from its
+	 * current dates.
+	 */
+	private void recalcLinksUsingDuration(Task task, TaskSchedule.CalculationContext context) {
+		if (task.getCalculationStateCount() < context.stateCount || pendingIndex.getPosition(task) < 0)
+			return;
+		TaskSchedule schedule = task.getSchedule(context.scheduleType);
+		boolean forward = schedule.isForward();
+		boolean recalculated = false;
+		for (Iterator<?> d = task.getDependencyList(forward).iterator(); d.hasNext();) {
+			Dependency dependency = (Dependency) d.next();
+			int type = dependency.getDependencyType();
+			if (dependency.isDisabled() || (type != DependencyType.SF && type != (forward ? DependencyType.FF : DependencyType.SS)))
+				continue;
+			TaskSchedule otherSchedule = ((Task) dependency.getTask(forward)).getSchedule(context.scheduleType);
+			if (otherSchedule.getBegin() == 0L) // not calculated yet, it will be treated
+				continue;
+			dependency.calcDependencyDate(forward, otherSchedule.getBegin(), otherSchedule.getEnd(), !task.isWbsParent() && task.hasDuration());
+			recalculated = true;
+		}
+		if (recalculated)
+			schedule.invalidateDependencyDate();
+	}
+	
+	/**
+	 * A task without predecessors (successors in backward pass) gets its dependency date from the sentinel, which sets it to its
+	 * own begin date when it is treated.  If the task's schedule was invalidated and the sentinel's dates don't change, the
+	 * sentinel isn't treated again and calcDependencyDate, which only reads the task's own links, would find no date.
+	 */
+	private void restoreSentinelDependencyDate(Task task, TaskSchedule.CalculationContext context) {
+		if (isSentinel(task) || task.getCalculationStateCount() < context.stateCount)
+			return;
+		TaskSchedule schedule = task.getSchedule(context.scheduleType);
+		boolean forward = schedule.isForward();
+		if (schedule.getDependencyDate() != Dependency.NEEDS_CALCULATION || !task.getDependencyList(forward).isEmpty())
+			return;
+		Task sentinel = forward ? startSentinel : finishSentinel;
+		long sentinelBegin = sentinel.getSchedule(context.scheduleType).getBegin();
+		if (sentinelBegin != 0 && sentinel.getDependencyList(!forward).find(!forward, task) != null)
+			schedule.setDependencyDate(sentinelBegin);
+	}
+	
+	private void enqueueIfMarked(Task task, int stateCount) {
+		if (task.getCalculationStateCount() < stateCount)
+			return;
+		int position = pendingIndex.getPosition(task);
+		if (position >= 0)
+			enqueuePosition(position);
+	}
+	
+	private void enqueuePositionIfMarked(int position, int stateCount) {
+		if (pendingIndex.getTask(position).getCalculationStateCount() >= stateCount)
+			enqueuePosition(position);
+	}
+	
+	private void enqueuePosition(int position) {
+		if (pendingForward ? position > pendingCursor : position < pendingCursor) // the full walk would not go back either
+			pendingPositions.set(position);
+	}
+	
+	/**
+	 * Treat one entry of the predecessor list.  This is shared by the full and the incremental passes.
+	 * @return true if the task's dates were calculated
+	 */
+	private boolean treatTaskReference(PredecessorTaskList.TaskReference taskReference, TaskSchedule.CalculationContext context, boolean projectForward) {
+		traceTask = taskReference.getTask();
+		if (!calcTaskReference(taskReference, context))
+			return false;
+		recordCalculatedTask(taskReference.getTask(), context, projectForward);
+		return true;
+	}
+	
+	/**
+	 * Calculate the dates of the entry's task if it is marked.  This only modifies the task and the tasks it marks, so it can be
+	 * called concurrently for the tasks of a wave.
+	 * @return true if the task's dates were calculated
+	 */
+	private static boolean calcTaskReference(PredecessorTaskList.TaskReference taskReference, TaskSchedule.CalculationContext context) {
+		// CPM-MS.1: Пропускаем summary tasks — по стандарту MS Project они не участвуют в CPM.
+		// Summary tasks (PARENT_BEGIN/PARENT_END) получают даты в отдельном aggregation pass.
+		int refType = taskReference.getType();
+		if (refType == PredecessorTaskList.TaskReference.PARENT_BEGIN ||
+			refType == PredecessorTaskList.TaskReference.PARENT_END) {
+			return false;
+		}
+		
+		Task task = taskReference.getTask();
+		context.taskReferenceType = refType;
+		TaskSchedule schedule = task.getSchedule(context.scheduleType);
+		if (!context.forward) {
+			context.taskReferenceType = -refType;
+		}
+			
+		if (task.isReverseScheduled()) {
+			schedule.invalidate();
+			task.setCalculationStateCount(context.stateCount);
+		}
+		if (task.getCalculationStateCount() < context.stateCount)
+			return false;
+		
+		schedule.calcDates(context);
+		return true;
+	}
+	
+	private void recordCalculatedTask(Task task, TaskSchedule.CalculationContext context, boolean projectForward) {
+		tasksTouchedInPass[context.pass]++;
+		totalTasksTouched++;
+		recomputedTasks.add(task);
+		if (context.assign && (projectForward || !task.isWbsParent())) {
+			TaskSchedule schedule = task.getSchedule(context.scheduleType);
+			if (schedule.getBegin() != 0L && !isSentinel(task)) {
+				earliestStart = Math.min(earliestStart, schedule.getStart());
+			}
+			if (schedule.getEnd() != 0 && !isSentinel(task)) {
+				latestFinish = Math.max(latestFinish, schedule.getFinish());
 			}
 		}
 	}
@@ -476,7 +799,7 @@ public class CriticalPath implements SchedulingAlgorithm {
 		earliestStart = latestFinish = date;
 	}
 	private void _calculate(boolean update, Task task) {
-		if (predecessorTaskList.getList().size() < 3) {// if no tasks, nothing to calculate.  This is needed to avoid a null pointer execption because of sentinels not having any preds/succs
+		if (predecessorTaskList.size() < 3) {// if no tasks, nothing to calculate.  This is needed to avoid a null pointer execption because of sentinels not having any preds/succs
 			if (isForward())
 				project.setEnd(project.getStartConstraint());
 			else
@@ -492,8 +815,13 @@ public class CriticalPath implements SchedulingAlgorithm {
 			fireScheduleChanged();
 	}
 	private void calculate(final boolean update, final Task task) {
-		if (suspendUpdates)
+		if (suspendUpdates) {
+			if (task != null) { // the task won't be the start of the pass, so mark it now as doPass would do, otherwise the change is lost
+				task.getSchedule(isForward() ? TaskSchedule.EARLY : TaskSchedule.LATE).invalidate();
+				task.markTaskAsNeedingRecalculation();
+			}
 			return;
+		}
 		_calculate(update,task);
 		// instead of calculating immediately, we can perhaps delay the calculation till the end of all other updates.  This may
 		// cause problems in other cases where an immediate update is required, so I am commenting it out for now. See bug 225
@@ -559,19 +887,7 @@ public class CriticalPath implements SchedulingAlgorithm {
 		Task task = null;
 		if (changedObject instanceof Task) {
 			if (objectEvent.isCreate()) {
-				Task newTask = (Task) changedObject;
-				predecessorTaskList.arrangeTask(newTask);
-				// Подключить новую задачу к сентинелам (как в addObject), иначе конец проекта не пересчитается.
-				if (newTask.getSuccessorList().size() == 0) {
-					addEndSentinelDependency(newTask);
-				} else {
-					removeEndSentinelDependency(newTask);
-				}
-				if (newTask.getPredecessorList().size() == 0) {
-					addStartSentinelDependency(newTask);
-				} else {
-					removeStartSentinelDependency(newTask);
-				}
+				connectNewTask((Task) changedObject);
 				return; // let the hierarchy event that follow run the CP
 			} else if (objectEvent.isDelete()) {
 				Task removedTask = (Task) changedObject;
@@ -595,25 +911,7 @@ public class CriticalPath implements SchedulingAlgorithm {
 			Dependency dependency = (Dependency) changedObject;
 			if (!dependency.refersToDocument(project))
 				return;
-			if (!objectEvent.isUpdate()) {
-				reset(); // refresh predecssor list - the whold thing may change drastically no matter what the link because of parents
-			}
-			task = (Task)dependency.getPredecessor();
-			Task successor = (Task) dependency.getSuccessor(); // the successor needs to be scheduled
-			
-			// to fix a bug, I am invalidating both early and late schedules
-			task.invalidateSchedules();
-			task.markTaskAsNeedingRecalculation();
-			if (successor.isSubproject()) { // special case for subprojects - need to reset all
-				SubProj sub = (SubProj)successor;
-				if (sub.isSubprojectOpen())
-					sub.getSubproject().markAllTasksAsNeedingRecalculation(true);
-			} 
-			successor.invalidateSchedules();
-			successor.markTaskAsNeedingRecalculation();
-			
-//			The line below fixes a bug with nested parents of the sort pred->grand par sib1->sib2. Of course, it means most of the code above is redundant (except for subproject stuff)
-			project.markAllTasksAsNeedingRecalculation(true); 
+			dependencyChanged(dependency,!objectEvent.isUpdate());
 			calculate(true,null); // Run both passes, since the CP might be modified and it's hard to tell if so
 		} else if (changedObject == project) { // if whole project changed, such
 											   // as hierarchy event
@@ -641,6 +939,127 @@ public class CriticalPath implements SchedulingAlgorithm {
 		}
 	}
 
+	/**
+	 * Treat the events collected during a multiple transaction, one entry per changed object. The batch arrives before
+	 * the transaction ends, so the changes are only marked here and the end of the transaction runs a single calculation.
+	 */
+	public void objectsChanged(ObjectEventBatch batch) {
+		if (!project.isInitialized() && !Environment.isImporting()) {
+			log.warn("Event batch received when project is not initialized: " + project);
+			return;
+		}
+		boolean changed = false;
+		Iterator<ObjectEventBatch.Entry> i = batch.getEntries().iterator();
+		while (i.hasNext()) {
+			ObjectEventBatch.Entry entry = i.next();
+			Object changedObject = entry.getObject();
+			if (changedObject instanceof Task) {
+				Task task = (Task) changedObject;
+				if (entry.isDeleted()) {
+					predecessorTaskList.removeTask(task);
+					reset();
+					changed = true;
+				}
+				if (entry.getType() == ObjectEvent.CREATE) // created, or deleted then created again
+					connectNewTask(task);
+				if (entry.getType() != ObjectEvent.DELETE && (entry.isWholeObjectUpdated() || hasInputField(entry))) {
+					if (entry.getFields().contains(constraintTypeField)) {
+						reset();
+						task.invalidateSchedules();
+					}
+					calculate(true,task);
+					changed = true;
+				}
+			} else if (changedObject instanceof Dependency) {
+				Dependency dependency = (Dependency) changedObject;
+				if (!dependency.refersToDocument(project))
+					continue;
+				dependencyChanged(dependency,entry.isCreated() || entry.isDeleted());
+				changed = true;
+			} else if (changedObject == project) {
+				reset();
+				changed = true;
+			} else if (changedObject instanceof WorkingCalendar) {
+				project.markAllTasksAsNeedingRecalculation(false);
+				changed = true;
+			} else if (changedObject instanceof Assignment) {
+				Task task = ((Assignment)changedObject).getTask();
+				if (task.getProject().getSchedulingAlgorithm() != this)
+					continue;
+				calculate(true,task);
+				changed = true;
+			} else if (changedObject instanceof BelongsToDocument) {
+				if (((BelongsToDocument)changedObject).getDocument() instanceof Project) {
+					Project proj = (Project)((BelongsToDocument)changedObject).getDocument();
+					if (proj.getSchedulingAlgorithm() != this)
+						continue;
+				}
+				if (hasInputField(entry))
+					changed = true;
+			}
+		}
+		if (changed)
+			calculate(true,null); // nothing is done here while the transaction is still open
+	}
+
+	/**
+	 * @return true if a field updated in the entry is one the critical path depends on
+	 */
+	private boolean hasInputField(ObjectEventBatch.Entry entry) {
+		Iterator<Field> i = entry.getFields().iterator();
+		while (i.hasNext()) {
+			if (fieldUpdater.inputContains(i.next()))
+				return true;
+		}
+		return false;
+	}
+
+	private void connectNewTask(Task newTask) {
+		predecessorTaskList.arrangeTask(newTask);
+		// Подключить новую задачу к сентинелам (как в addObject), иначе конец проекта не пересчитается.
+		if (newTask.getSuccessorList().size() == 0) {
+			addEndSentinelDependency(newTask);
+		} else {
+			removeEndSentinelDependency(newTask);
+		}
+		if (newTask.getPredecessorList().size() == 0) {
+			addStartSentinelDependency(newTask);
+		} else {
+			removeStartSentinelDependency(newTask);
+		}
+	}
+
+	/**
+	 * Mark the tasks a dependency change affects
+	 * @param dependency
+	 * @param linkChanged true if the dependency was added or removed, false if only its lead or type changed
+	 */
+	private void dependencyChanged(Dependency dependency, boolean linkChanged) {
+		if (linkChanged) {
+			reset(); // refresh predecssor list - the whold thing may change drastically no matter what the link because of parents
+		}
+		Task task = (Task)dependency.getPredecessor();
+		Task successor = (Task) dependency.getSuccessor(); // the successor needs to be scheduled
+		
+		// to fix a bug, I am invalidating both early and late schedules
+		task.invalidateSchedules();
+		task.markTaskAsNeedingRecalculation();
+		if (successor.isSubproject()) { // special case for subprojects - need to reset all
+			SubProj sub = (SubProj)successor;
+			if (sub.isSubprojectOpen())
+				sub.getSubproject().markAllTasksAsNeedingRecalculation(true);
+		} 
+		successor.invalidateSchedules();
+		successor.markTaskAsNeedingRecalculation();
+		
+//		The line below fixes a bug with nested parents of the sort pred->grand par sib1->sib2. Of course, it means most of the code above is redundant (except for subproject stuff)
+//		In incremental mode, only the wbs descendants of the successor need to be marked in addition: they inherit its dependency date
+		if (incremental)
+			markWbsDescendantsAsNeedingRecalculation(successor);
+		else
+			project.markAllTasksAsNeedingRecalculation(true); 
+	}
+
 	public void reset() {
 		if (suspendUpdates) {
 			needsReset = true;
@@ -648,6 +1067,7 @@ public class CriticalPath implements SchedulingAlgorithm {
 		}
 		
 		needsReset = false;
+		aggregateAllSummaries = true; // hierarchy may have changed
 		initEarliestAndLatest();
 		predecessorTaskList.rearrangeAll();
 		// Обновить связи с сентинелами по текущему графу зависимостей (после sync/изменения связей).
@@ -660,55 +1080,151 @@ public class CriticalPath implements SchedulingAlgorithm {
 	 * корректно подключены и расчёт критического пути давал верный Early Finish и обратный проход.
 	 */
 	private void refreshSentinelsFromTaskList() {
-		// Снять текущие связи с сентинелов (чтобы не дублировать и убрать устаревшие).
+		// Tasks which must be linked to the sentinels according to the current dependency graph
+		Set<Task> endTasks = Collections.newSetFromMap(new IdentityHashMap<Task,Boolean>());
+		Set<Task> startTasks = Collections.newSetFromMap(new IdentityHashMap<Task,Boolean>());
+		Iterator<?> it = predecessorTaskList.listIterator();
+		while (it.hasNext()) {
+			Task task = ((PredecessorTaskList.TaskReference) it.next()).getTask();
+			if (task == startSentinel || task == finishSentinel) {
+				continue;
+			}
+			if (task.getPredecessorList().size() == 0) {
+				startTasks.add(task);
+			}
+			if (task.getSuccessorList().size() == 0) {
+				endTasks.add(task);
+			}
+		}
+		// Remove the stale sentinel links.  Links still valid are kept with their remembered dependency dates, so an
+		// incremental calculation doesn't have to treat all the end tasks again.
+		boolean changed = false;
 		List<Task> endPreds = new ArrayList<>();
 		for (Iterator i = finishSentinel.getPredecessorList().iterator(); i.hasNext(); ) {
 			Dependency d = (Dependency) i.next();
-			endPreds.add((Task) d.getTask(true));
+			Task t = (Task) d.getTask(true);
+			if (!endTasks.remove(t))
+				endPreds.add(t);
 		}
 		for (Task t : endPreds) {
-			removeEndSentinelDependency(t);
+			changed |= removeEndSentinelDependency(t);
 		}
 		List<Task> startSuccs = new ArrayList<>();
 		for (Iterator i = startSentinel.getSuccessorList().iterator(); i.hasNext(); ) {
 			Dependency d = (Dependency) i.next();
-			startSuccs.add((Task) d.getTask(false));
+			Task t = (Task) d.getTask(false);
+			if (!startTasks.remove(t))
+				startSuccs.add(t);
 		}
 		for (Task t : startSuccs) {
-			removeStartSentinelDependency(t);
+			changed |= removeStartSentinelDependency(t);
 		}
-		// Заново подключить задачи без предшественников/преемников к сентинелам.
-		Iterator it = predecessorTaskList.listIterator();
-		while (it.hasNext()) {
-			Task task = ((PredecessorTaskList.TaskReference) it.next()).getTask();
-			if (task == startSentinel || task == finishSentinel) {
+		// Add the missing links.  A new link has no remembered date, so the task must be recalculated.
+		for (Task task : startTasks) {
+			addStartSentinelDependency(task);
+			markTaskForNewSentinelDependency(task);
+			changed = true;
+		}
+		for (Task task : endTasks) {
+			addEndSentinelDependency(task);
+			markTaskForNewSentinelDependency(task);
+			changed = true;
+		}
+		if (changed) {
+			startSentinel.invalidateSchedules();
+			startSentinel.markTaskAsNeedingRecalculation();
+			finishSentinel.invalidateSchedules();
+			finishSentinel.markTaskAsNeedingRecalculation();
+		}
+	}
+	
+	private void markTaskForNewSentinelDependency(Task task) {
+		task.invalidateSchedules();
+		task.markTaskAsNeedingRecalculation();
+	}
+
+	private void markWbsDescendantsAsNeedingRecalculation(Task parent) {
+		Collection<?> children = parent.getWbsChildrenNodes();
+		if (children == null)
+			return;
+		for (Iterator<?> i = children.iterator(); i.hasNext();) {
+			Object child = ((Node) i.next()).getImpl();
+			if (! (child instanceof Task))
 				continue;
-			}
-			if (task.getPredecessorList().size() == 0) {
-				addStartSentinelDependency(task);
-			}
-			if (task.getSuccessorList().size() == 0) {
-				addEndSentinelDependency(task);
-			}
+			((Task)child).invalidateSchedules();
+			((Task)child).markTaskAsNeedingRecalculation();
+			markWbsDescendantsAsNeedingRecalculation((Task)child);
 		}
 	}
+	
+	/**
+	 * Called when a task's calculation state count is bumped outside of a pass.  The task will be a starting point of the
+	 * next incremental pass.  If a pass is in progress, the task is treated in it if the full walk would have treated it.
+	 */
+	public void markTaskDirty(Task task) {
+		dirtyTasks.add(task);
+		if (pendingPositions != null)
+			enqueueIfMarked(task, getCalculationStateCount());
+	}
+	
+	/**
+	 * Called when all tasks are marked.  The next calculation will walk the whole predecessor list.
+	 */
+	public void markAllTasksDirty() {
+		allTasksDirty = true;
+		aggregateAllSummaries = true;
+	}
+	
+	public boolean isIncremental() {
+		return incremental;
+	}
+	/**
+	 * Turn on or off incremental passes.  When off, each pass walks the whole predecessor list.
+	 * Turning them on makes the next calculation a full one, since marks made before may not have been tracked.
+	 */
+	public void setIncremental(boolean incremental) {
+		if (incremental && !this.incremental)
+			markAllTasksDirty();
+		this.incremental = incremental;
+	}
+	/**
+	 * @param pass 1 for the first pass, 2 for the second one and 3 for the pass which sets current dates of reverse scheduled tasks
+	 * @return number of tasks whose dates were calculated during that pass of the last calculation
+	 */
+	public int getTasksTouchedInPass(int pass) {
+		return tasksTouchedInPass[pass];
+	}
+	/**
+	 * @return number of task date calculations since this critical path was created
+	 */
+	public long getTotalTasksTouched() {
+		return totalTasksTouched;
+	}
 
 	public void addEndSentinelDependency(Task task) {
-		if (task.getOwningProject() == project && !task.isExternal())
+		if (task.getOwningProject() == project && !task.isExternal()) {
+			predecessorTaskList.markStructureChanged();
 			DependencyService.getInstance().addEndSentinelDependency(finishSentinel,task);
+		}
 	}
 	public boolean removeEndSentinelDependency(Task task) {
-		if (task.getOwningProject() == project && !task.isExternal())
+		if (task.getOwningProject() == project && !task.isExternal()) {
+			predecessorTaskList.markStructureChanged();
 			return DependencyService.getInstance().removeEndSentinel(finishSentinel,task);
+		}
 		return false;
 	}
 	public void addStartSentinelDependency(Task task) {
-		if (task.getOwningProject() == project && !task.isExternal())
+		if (task.getOwningProject() == project && !task.isExternal()) {
+			predecessorTaskList.markStructureChanged();
 			DependencyService.getInstance().addStartSentinelDependency(startSentinel,task);
+		}
 	}
 	public boolean removeStartSentinelDependency(Task task) {
-		if (task.getOwningProject() == project && !task.isExternal())
+		if (task.getOwningProject() == project && !task.isExternal()) {
+			predecessorTaskList.markStructureChanged();
 			return DependencyService.getInstance().removeStartSentinel(startSentinel,task);
+		}
 		return false;
 	}
 	
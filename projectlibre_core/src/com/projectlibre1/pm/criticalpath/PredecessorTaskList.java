@@ -55,11 +55,16 @@
  *******************************************************************************/
 package com.projectlibre1.pm.criticalpath;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.ListIterator;
 
+import com.projectlibre1.document.Document;
+import com.projectlibre1.pm.dependency.Dependency;
 import com.projectlibre1.pm.task.SubProj;
 import com.projectlibre1.pm.task.Task;
 
@@ -67,18 +72,21 @@ import com.projectlibre1.pm.task.Task;
 * This class implements a task list in predecessor/parent order.  That is, the successors of any given
 * task are guaranteed to be after that task in the list. Also wbs children are after their parents.
 *  This ordering is needed for the critical path algorithm.
+*  The list is only used to build the order. The passes iterate a {@link TopologicalIndex} built from it.
 */
 public class PredecessorTaskList {
-	private LinkedList list = new LinkedList();
+	private ArrayList<TaskReference> list = new ArrayList<TaskReference>();
 	private int calculationStateCount = 0;
 	private boolean markerStatus;
 	private int numberOfReverseScheduledTasks = 0;
 	public static final int CALCULATION_STATUS_STEP = 3;
 	private SchedulingAlgorithm schedulingAlgorithm;
+	private TopologicalIndex topologicalIndex = null; // array view of the list and its dependencies, rebuilt lazily after a structural change
 	PredecessorTaskList(SchedulingAlgorithm schedulingAlgorithm) {
 		this.schedulingAlgorithm = schedulingAlgorithm;
 	}
 	void removeTask(Task task) {
+		markStructureChanged();
 		if (task.isReverseScheduled())
 			numberOfReverseScheduledTasks--;
 
@@ -112,9 +120,10 @@ public class PredecessorTaskList {
  * @param subproject
  */	
 	public void addSubproject(final Task subproject) {
+		markStructureChanged();
 		// remove sentinels 
-		TaskReference startSentinel = (TaskReference) list.removeFirst();
-		TaskReference endSentinel = (TaskReference) list.removeLast();
+		TaskReference startSentinel = list.remove(0);
+		TaskReference endSentinel = list.remove(list.size() - 1);
 
 		// mark tasks to be added as not yet treated
 		boolean m = !getMarkerStatus();
@@ -136,8 +145,8 @@ public class PredecessorTaskList {
 			arrangeSingleTask((Task)i.next());
 		
 		// put back sentinels
-		list.addFirst(startSentinel);
-		list.addLast(endSentinel);
+		list.add(0, startSentinel);
+		list.add(endSentinel);
 	}
     /**
      * Insert a task into the list.  Go thru and insert it after its parent
@@ -145,6 +154,7 @@ public class PredecessorTaskList {
      *  * @param hasDependencies
      */
     void arrangeTask(Task task) {
+        markStructureChanged();
         if (task.isReverseScheduled())
 			numberOfReverseScheduledTasks++;
     	task.setMarkerStatus(markerStatus);
@@ -172,10 +182,36 @@ public class PredecessorTaskList {
 		return list.listIterator();
 	}
 	
-	LinkedList getList(){
+	/**
+	 * Callers may modify the list, so the topological index is dropped
+	 */
+	List<TaskReference> getList(){
+		markStructureChanged();
 		return list;
 	}
 	
+	int size() {
+		return list.size();
+	}
+	
+	/**
+	 * Drop the topological index.  Must be called when tasks are added or removed, and when dependencies are added, removed or modified
+	 */
+	final void markStructureChanged() {
+		topologicalIndex = null;
+	}
+	
+	/**
+	 * Get an array view of the list and of the dependencies between its tasks.  It is only rebuilt when the structure changes,
+	 * not when dates change.
+	 * @return topological index
+	 */
+	TopologicalIndex getTopologicalIndex() {
+		if (topologicalIndex == null)
+			topologicalIndex = new TopologicalIndex(list, schedulingAlgorithm.getMasterDocument());
+		return topologicalIndex;
+	}
+	
 	public void dump() {
 		ListIterator i = list.listIterator();
 		Object x;
@@ -200,6 +236,7 @@ public class PredecessorTaskList {
 
 	boolean addAll(Collection tasks) {
 		Task task;
+		markStructureChanged();
 		list.clear();
 		toggleMarkerStatus();
 		Iterator i = tasks.iterator();
@@ -227,11 +264,12 @@ public class PredecessorTaskList {
 	}
 	
 	void rearrangeAll() {
-		LinkedList oldList = list;
+		markStructureChanged();
+		ArrayList<TaskReference> oldList = list;
 		// store off sentinels to put them back later
-		TaskReference startSentinel = (TaskReference) list.removeFirst();
-		TaskReference endSentinel = (TaskReference) list.removeLast();
-		list = new LinkedList();
+		TaskReference startSentinel = list.remove(0);
+		TaskReference endSentinel = list.remove(list.size() - 1);
+		list = new ArrayList<TaskReference>(oldList.size() + 2);
 			
 		Task task;
 		Iterator i = oldList.iterator();
@@ -240,8 +278,8 @@ public class PredecessorTaskList {
 			task = ((TaskReference)i.next()).getTask();
 			arrangeSingleTask(task);
 		}
-		list.addFirst(startSentinel);
-		list.addLast(endSentinel);
+		list.add(0, startSentinel);
+		list.add(endSentinel);
 //		setDebugDependencyOrder();
  	}
 	
@@ -297,6 +335,151 @@ public class PredecessorTaskList {
 			return type;
 		}
 	}
+	/**
+	 * Array form of the list: the entries in predecessor/parent order, and the dependencies between them in compressed
+	 * sparse row form.  For the entry at a given position, the positions of its predecessors (successors) are stored in
+	 * getDependencyTarget(pred, k) for k from getDependencyStart(pred, position) to getDependencyEnd(pred, position) - 1.
+	 * Leads and types are read from the Dependency objects when dates are calculated, so editing them keeps the index.
+	 * Only CHILD entries can be the target of a dependency since parent begin/end entries are not treated by the CPM passes.
+	 * Dependencies to parents and to tasks which are not in the list are left out, the entries having dependencies to parents
+	 * are flagged instead.
+	 */
+	static final class TopologicalIndex {
+		private final TaskReference[] references;
+		private final Task[] tasks;
+		private final IdentityHashMap<Task,Integer> positions;
+		private final int[] reverseScheduledPositions;
+		private final Edges predecessors;
+		private final Edges successors;
+		private Wavefront forwardWavefront = null;
+		private Wavefront backwardWavefront = null;
+		private boolean foreignTasks = false;
+		
+		TopologicalIndex(Collection<TaskReference> list, Document masterDocument) {
+			references = list.toArray(new TaskReference[list.size()]);
+			tasks = new Task[references.length];
+			positions = new IdentityHashMap<Task,Integer>(references.length * 2);
+			int reverseCount = 0;
+			for (int i = 0; i < references.length; i++) {
+				tasks[i] = references[i].getTask();
+				if (references[i].getType() != TaskReference.CHILD)
+					continue;
+				positions.put(tasks[i], i);
+				if (tasks[i].getProject() != masterDocument)
+					foreignTasks = true;
+				if (tasks[i].isReverseScheduled())
+					reverseCount++;
+			}
+			reverseScheduledPositions = new int[reverseCount];
+			reverseCount = 0;
+			for (int i = 0; i < references.length; i++) {
+				if (references[i].getType() == TaskReference.CHILD && tasks[i].isReverseScheduled())
+					reverseScheduledPositions[reverseCount++] = i;
+			}
+			predecessors = new Edges(true);
+			successors = new Edges(false);
+		}
+		
+		int size() {
+			return references.length;
+		}
+		TaskReference getReference(int position) {
+			return references[position];
+		}
+		Task getTask(int position) {
+			return tasks[position];
+		}
+		/**
+		 * @param task
+		 * @return position of the task's entry, or -1 if it has none (parents and tasks not in list)
+		 */
+		int getPosition(Task task) {
+			Integer position = positions.get(task);
+			return position == null ? -1 : position.intValue();
+		}
+		int[] getReverseScheduledPositions() {
+			return reverseScheduledPositions;
+		}
+		/**
+		 * @return true if the list contains tasks of other projects, such as the tasks of an inserted subproject
+		 */
+		boolean hasForeignTasks() {
+			return foreignTasks;
+		}
+		
+		/**
+		 * Get the waves of entries that can be treated concurrently by a pass.  They are computed once per direction.
+		 * @param forward direction of the pass
+		 * @return wavefront
+		 */
+		synchronized Wavefront getWavefront(boolean forward) {
+			if (forward) {
+				if (forwardWavefront == null)
+					forwardWavefront = new Wavefront(this, true);
+				return forwardWavefront;
+			}
+			if (backwardWavefront == null)
+				backwardWavefront = new Wavefront(this, false);
+			return backwardWavefront;
+		}
+		
+		int getDependencyStart(boolean pred, int position) {
+			return (pred ? predecessors : successors).offsets[position];
+		}
+		int getDependencyEnd(boolean pred, int position) {
+			return (pred ? predecessors : successors).offsets[position + 1];
+		}
+		/**
+		 * @return the position of the predecessor (successor) task of the dependency
+		 */
+		int getDependencyTarget(boolean pred, int dependency) {
+			return (pred ? predecessors : successors).targets[dependency];
+		}
+		
+		/**
+		 * @return true if a predecessor (successor) of the entry's task is a parent, which has no position
+		 */
+		boolean hasParentDependency(boolean pred, int position) {
+			return (pred ? predecessors : successors).parentDependencies.get(position);
+		}
+		
+		/**
+		 * Predecessor or successor dependencies of all entries
+		 */
+		private final class Edges {
+			final int[] offsets;
+			final int[] targets;
+			final BitSet parentDependencies = new BitSet();
+			
+			Edges(boolean pred) {
+				offsets = new int[references.length + 1];
+				int count = 0;
+				for (int i = 0; i < references.length; i++) {
+					offsets[i] = count;
+					for (Iterator<?> d = tasks[i].getDependencyList(pred).iterator(); d.hasNext();) {
+						Task target = (Task)((Dependency)d.next()).getTask(pred);
+						if (getPosition(target) >= 0)
+							count++;
+						else if (target.isWbsParent())
+							parentDependencies.set(i);
+					}
+				}
+				offsets[references.length] = count;
+				targets = new int[count];
+				count = 0;
+				for (int i = 0; i < references.length; i++) {
+					for (Iterator<?> d = tasks[i].getDependencyList(pred).iterator(); d.hasNext();) {
+						Dependency dependency = (Dependency)d.next();
+						int target = getPosition((Task)dependency.getTask(pred));
+						if (target < 0)
+							continue;
+						targets[count++] = target;
+					}
+				}
+			}
+		}
+	}
+	
 	/**
 	 * Refresh the Reverse schedule count - called in response to change in constraint type field
 	 */
@@ -87,4 +87,13 @@ public interface SchedulingAlgorithm extends ObjectEvent.Listener, HasSentinels,
 	public void initEarliestAndLatest();
 	public void setEarliestAndLatest(long earliest, long latest);
 	AlgorithmFieldUpdater getFieldUpdater();
+	/**
+	 * Record that a task was marked as needing recalculation so that incremental passes can start from it
+	 * @param task
+	 */
+	void markTaskDirty(Task task);
+	/**
+	 * Record that all tasks were marked as needing recalculation
+	 */
+	void markAllTasksDirty();
 }
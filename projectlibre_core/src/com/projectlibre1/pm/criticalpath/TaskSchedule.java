@@ -833,6 +833,21 @@ public final class TaskSchedule implements Cloneable {
 		int scheduleType;
 		int pass;
 		
+		CalculationContext copy() {
+			CalculationContext result = new CalculationContext();
+			result.stateCount = stateCount;
+			result.forward = forward;
+			result.honorRequiredDates = honorRequiredDates;
+			result.sentinel = sentinel;
+			result.taskReferenceType = taskReferenceType;
+			result.boundary = boundary;
+			result.earlyOnly = earlyOnly;
+			result.assign = assign;
+			result.scheduleType = scheduleType;
+			result.pass = pass;
+			return result;
+		}
+		
 		public String toString() {
 			return ToStringBuilder.reflectionToString(this);
 		}
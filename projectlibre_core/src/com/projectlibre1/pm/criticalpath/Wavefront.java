@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.criticalpath;
+
+import java.util.IdentityHashMap;
+
+import com.projectlibre1.pm.task.Task;
+
+/**
+ * Groups the entries of a topological index in waves.  The tasks of a wave do not read anything written by the calculation
+ * of another task of the same wave, so they can be calculated concurrently once the preceding waves are done.  The waves are
+ * ordered in the direction of the pass and within a wave, the entries keep their list order.
+ * 
+ * A task reads the dependency dates stored by its predecessors (successors in a backward pass) and the schedule of its wbs
+ * ancestors, which is written by the ancestors' predecessors (successors).  The first entry of the pass is the begin sentinel
+ * and the last is the sentinel treated at the end of the pass, so they each get their own wave.
+ * Parent begin/end entries are left out since the passes don't treat them.
+ */
+final class Wavefront {
+	private final int[] offsets;
+	private final int[] positions;
+	
+	Wavefront(PredecessorTaskList.TopologicalIndex index, boolean forward) {
+		int size = index.size();
+		int[] levels = new int[size];
+		IdentityHashMap<Task,Integer> parentLevels = new IdentityHashMap<Task,Integer>();
+		boolean read = forward; // dependencies whose dates are read: predecessors in forward pass, successors in backward pass
+		int maxLevel = 0;
+		for (int step = 0; step < size; step++) {
+			int position = forward ? step : size - 1 - step;
+			Task task = index.getTask(position);
+			int level = step == 0 ? 0 : Math.max(1, levels[position]);
+			Task parent = task.getWbsParentTask();
+			if (parent != null) {
+				Integer parentLevel = parentLevels.get(parent);
+				if (parentLevel != null)
+					level = Math.max(level, parentLevel.intValue());
+			}
+			int end = index.getDependencyEnd(read, position);
+			for (int d = index.getDependencyStart(read, position); d < end; d++) {
+				int target = index.getDependencyTarget(read, d);
+				if (forward ? target < position : target > position)
+					level = Math.max(level, levels[target] + 1);
+			}
+			if (index.getReference(position).getType() != PredecessorTaskList.TaskReference.CHILD) {
+				if (!parentLevels.containsKey(task)) // first of the two entries in the direction of the pass
+					parentLevels.put(task, level);
+				continue;
+			}
+			levels[position] = level;
+			maxLevel = Math.max(maxLevel, level);
+			// the task writes the dependency dates of its successors (predecessors) and marks them
+			end = index.getDependencyEnd(!read, position);
+			for (int d = index.getDependencyStart(!read, position); d < end; d++) {
+				int target = index.getDependencyTarget(!read, d);
+				levels[target] = Math.max(levels[target], level + 1);
+			}
+		}
+		if (size > 1) { // the sentinel at the end of the pass is treated after everything else
+			int last = forward ? size - 1 : 0;
+			levels[last] = maxLevel + 1;
+			maxLevel++;
+		}
+		
+		offsets = new int[maxLevel + 2];
+		for (int position = 0; position < size; position++) {
+			if (index.getReference(position).getType() == PredecessorTaskList.TaskReference.CHILD)
+				offsets[levels[position] + 1]++;
+		}
+		for (int w = 0; w <= maxLevel; w++)
+			offsets[w + 1] += offsets[w];
+		positions = new int[offsets[maxLevel + 1]];
+		int[] fill = new int[maxLevel + 1];
+		for (int step = 0; step < size; step++) {
+			int position = forward ? step : size - 1 - step;
+			if (index.getReference(position).getType() != PredecessorTaskList.TaskReference.CHILD)
+				continue;
+			int level = levels[position];
+			positions[offsets[level] + fill[level]++] = position;
+		}
+	}
+	
+	int getWaveCount() {
+		return offsets.length - 1;
+	}
+	int getWaveStart(int wave) {
+		return offsets[wave];
+	}
+	int getWaveEnd(int wave) {
+		return offsets[wave + 1];
+	}
+	/**
+	 * @param i index between getWaveStart and getWaveEnd of a wave
+	 * @return position of the entry in the topological index
+	 */
+	int getPosition(int i) {
+		return positions[i];
+	}
+}
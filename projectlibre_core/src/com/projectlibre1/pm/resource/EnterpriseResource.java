@@ -301,6 +301,7 @@ public class EnterpriseResource implements Resource {
 	 */
 	public void setAccrueAt(int accrueAt) {
 		this.accrueAt = accrueAt;
+		markAssignmentRollupsDirty();
 	}
 
 	/**
@@ -675,6 +676,10 @@ public class EnterpriseResource implements Resource {
 			CalculatedValues values) {
 		hasAssignments.calcDataBetween(type, generator, values);
 	}
+	public void calcDataBetween(Object[] types, TimeIteratorGenerator generator,
+			CalculatedValues[] values) {
+		hasAssignments.calcDataBetween(types, generator, values);
+	}
 	/**
 	 * @return Returns the rbsCode.
 	 */
@@ -1104,6 +1109,7 @@ public class EnterpriseResource implements Resource {
 	}
 	public void invalidateAssignmentCalendars() {
 		hasAssignments.invalidateAssignmentCalendars();
+		markAssignmentRollupsDirty(); // assignment totals depend on working time
 	}
 
 	/* (non-Javadoc)
@@ -1214,6 +1220,28 @@ public class EnterpriseResource implements Resource {
 	}
 	public void setDirty(boolean dirty) {
 		this.dirty = dirty;
+		if (dirty)
+			markAssignmentRollupsDirty(); // rates and availability are used by the resource's assignments
+	}
+
+	/**
+	 * Drops the cached totals of the resource's assignments, see RollupCache
+	 */
+	public void markRollupDirty() {
+		if (hasAssignments instanceof HasAssignmentsImpl)
+			((HasAssignmentsImpl)hasAssignments).markRollupDirty();
+	}
+
+	/**
+	 * Drops the cached totals of the resource and of the tasks it is assigned to
+	 */
+	public void markAssignmentRollupsDirty() {
+		markRollupDirty();
+		for (Iterator<?> i = getAssignments().iterator(); i.hasNext();) {
+			Task task = ((Assignment)i.next()).getTask();
+			if (task != null)
+				task.markRollupDirty();
+		}
 	}
 
 	public boolean isReadOnly() {
@@ -1361,6 +1389,18 @@ public class EnterpriseResource implements Resource {
 
 
 	private transient AvailabilityTable availabilityTable = new AvailabilityTable(null);
+	transient ResourceLoad load = null; // last result of ResourceLoadEngine
+
+	/**
+	 * @return load of this resource over time, computed again only if an assignment or the availability changed
+	 */
+	public ResourceLoad getLoad() {
+		return ResourceLoadEngine.load(this);
+	}
+
+	public boolean isOverallocated() {
+		return isLabor() && getLoad().isOverallocated();
+	}
 
 	/**
 	 * Returns the availability table for this enterprise resource.
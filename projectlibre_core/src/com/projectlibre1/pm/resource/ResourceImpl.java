@@ -235,6 +235,10 @@ public class ResourceImpl implements Resource, HasAvailability, HasResourceIndic
 			CalculatedValues values) {
 		globalResource.calcDataBetween(type, generator, values);
 	}
+	public void calcDataBetween(Object[] types, TimeIteratorGenerator generator,
+			CalculatedValues[] values) {
+		globalResource.calcDataBetween(types, generator, values);
+	}
 	public Collection childrenToRollup() {
 		return globalResource.childrenToRollup();
 	}
@@ -582,6 +586,12 @@ public class ResourceImpl implements Resource, HasAvailability, HasResourceIndic
 	    return this==UNASSIGNED;
 	}
 
+	public ResourceLoad getLoad() {
+		return globalResource.getLoad();
+	}
+	public boolean isOverallocated() {
+		return globalResource.isOverallocated();
+	}
     public EnterpriseResource getGlobalResource() {
         return globalResource;
     }
@@ -831,6 +841,8 @@ public class ResourceImpl implements Resource, HasAvailability, HasResourceIndic
 	public void setDirty(boolean dirty) {
 		//System.out.println("ResourceImpl _setDirty("+dirty+"): "+getName());
 		this.dirty = dirty;
+		if (dirty && globalResource != null)
+			globalResource.markAssignmentRollupsDirty(); // rates and availability are used by the resource's assignments
 	}
 
 	/**
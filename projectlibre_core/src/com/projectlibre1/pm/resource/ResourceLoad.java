@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.resource;
+
+import com.projectlibre1.pm.assignment.AssignmentLoad;
+
+/**
+ * Load of a resource over time, as computed by ResourceLoadEngine: the peak units of all its assignments, and the
+ * periods in which they exceed the maximum units of the resource's availability table.
+ * Periods are sorted, do not overlap, and are half open: [start,end).
+ */
+public final class ResourceLoad {
+	private final EnterpriseResource resource;
+	private final AssignmentLoad[] sources; // loads this was computed from, see isCurrent()
+	private final long[] availabilityDates; // start and end of each availability
+	private final double[] availabilityUnits;
+	private final double peakUnits;
+	private final long[] periodStarts;
+	private final long[] periodEnds;
+	private final double[] periodPeakUnits;
+	private final double[] periodMaximumUnits;
+	private final int periodCount;
+
+	ResourceLoad(EnterpriseResource resource, AssignmentLoad[] sources, long[] availabilityDates, double[] availabilityUnits,
+			double peakUnits, long[] periodStarts, long[] periodEnds, double[] periodPeakUnits, double[] periodMaximumUnits, int periodCount) {
+		this.resource = resource;
+		this.sources = sources;
+		this.availabilityDates = availabilityDates;
+		this.availabilityUnits = availabilityUnits;
+		this.peakUnits = peakUnits;
+		this.periodStarts = periodStarts;
+		this.periodEnds = periodEnds;
+		this.periodPeakUnits = periodPeakUnits;
+		this.periodMaximumUnits = periodMaximumUnits;
+		this.periodCount = periodCount;
+	}
+
+	/**
+	 * @return true if computed from the same assignment loads and availabilities
+	 */
+	boolean isCurrent(AssignmentLoad[] loads, long[] dates, double[] units) {
+		if (loads.length != sources.length || dates.length != availabilityDates.length)
+			return false;
+		for (int i = 0; i < loads.length; i++) {
+			if (loads[i] != sources[i])
+				return false;
+		}
+		for (int i = 0; i < dates.length; i++) {
+			if (dates[i] != availabilityDates[i])
+				return false;
+		}
+		for (int i = 0; i < units.length; i++) {
+			if (units[i] != availabilityUnits[i])
+				return false;
+		}
+		return true;
+	}
+
+	public EnterpriseResource getResource() {
+		return resource;
+	}
+
+	/**
+	 * @return the highest sum of units of the resource's assignments at any time
+	 */
+	public double getPeakUnits() {
+		return peakUnits;
+	}
+
+	public boolean isOverallocated() {
+		return periodCount > 0;
+	}
+
+	public int getPeriodCount() {
+		return periodCount;
+	}
+
+	public long getPeriodStart(int i) {
+		return periodStarts[i];
+	}
+
+	public long getPeriodEnd(int i) {
+		return periodEnds[i];
+	}
+
+	/**
+	 * @return the highest sum of units during the overallocated period
+	 */
+	public double getPeriodPeakUnits(int i) {
+		return periodPeakUnits[i];
+	}
+
+	/**
+	 * @return the lowest maximum units available during the overallocated period
+	 */
+	public double getPeriodMaximumUnits(int i) {
+		return periodMaximumUnits[i];
+	}
+}
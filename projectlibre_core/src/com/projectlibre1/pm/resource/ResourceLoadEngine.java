@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.resource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.projectlibre1.pm.assignment.Assignment;
+import com.projectlibre1.pm.assignment.AssignmentLoad;
+import com.projectlibre1.pm.availability.Availability;
+import com.projectlibre1.pm.task.Project;
+
+/**
+ * Computes resource load and overallocation.
+ * The assignments of a resource, from all the projects it is used in, are turned into segments of constant units
+ * (see AssignmentLoad).  One sweep over the sorted segment starts and ends, together with the availability table
+ * boundaries, gives the total units at any time, which is compared to the maximum units available then.
+ * 
+ * Results are kept on the resource and reused while its assignment loads and availabilities are unchanged.  Assignment
+ * loads are themselves kept until the assignment changes, so when a single assignment moves only its load and its
+ * resource are computed again.
+ * Several resources are computed in parallel.  Set projectlibre.resourceLoad.parallel to false to compute them on the
+ * calling thread.
+ */
+public final class ResourceLoadEngine {
+	private static final boolean PARALLEL = Boolean.parseBoolean(System.getProperty("projectlibre.resourceLoad.parallel", "true"));
+	private static final int PARALLEL_THRESHOLD = 32; // resources
+	private static final double EPSILON = 1E-6; // tolerance for units sums such as 0.1 + 0.2 + 0.7
+
+	private ResourceLoadEngine() {
+	}
+
+	/**
+	 * Load of all work resources of the projects' resource pools.  A resource shared between projects appears once, with
+	 * the assignments of all projects.
+	 */
+	public static ResourceLoad[] computeForProjects(Collection<? extends Project> projects) {
+		ArrayList<Object> resources = new ArrayList<Object>();
+		for (Project project : projects) {
+			for (Object resource : project.getResourcePool().getResourceList())
+				resources.add(resource);
+		}
+		return compute(resources);
+	}
+
+	public static ResourceLoad[] compute(ResourcePool pool) {
+		return compute(pool.getResourceList());
+	}
+
+	/**
+	 * @param resources project resources (ResourceImpl) or enterprise resources.  Only work resources are computed.
+	 */
+	public static ResourceLoad[] compute(Collection<?> resources) {
+		final EnterpriseResource[] globals = workResources(resources);
+		final ResourceLoad[] result = new ResourceLoad[globals.length];
+		IntStream indexes = IntStream.range(0, globals.length);
+		if (PARALLEL && globals.length >= PARALLEL_THRESHOLD)
+			indexes = indexes.parallel();
+		indexes.forEach(r -> result[r] = load(globals[r]));
+		return result;
+	}
+
+	/**
+	 * Load of one resource, computed again only if one of its assignments or its availability changed
+	 */
+	public static ResourceLoad load(EnterpriseResource resource) {
+		AssignmentLoad[] loads = assignmentLoads(resource);
+		List<?> availabilities = resource.getAvailabilityTable().getList();
+		int count = availabilities.size();
+		long[] dates = new long[2 * count];
+		double[] units = new double[count];
+		for (int i = 0; i < count; i++) {
+			Availability availability = (Availability) availabilities.get(i);
+			dates[2 * i] = availability.getStart();
+			dates[2 * i + 1] = availability.getEnd();
+			units[i] = availability.getMaximumUnits();
+		}
+		ResourceLoad previous = resource.load;
+		if (previous != null && previous.isCurrent(loads, dates, units))
+			return previous;
+		ResourceLoad result = sweep(resource, loads, dates, units);
+		resource.load = result;
+		return result;
+	}
+
+	/**
+	 * @param resources project resources (ResourceImpl) or enterprise resources
+	 * @return the enterprise resources which are work resources, each once
+	 */
+	public static EnterpriseResource[] workResources(Collection<?> resources) {
+		IdentityHashMap<EnterpriseResource,EnterpriseResource> seen = new IdentityHashMap<EnterpriseResource,EnterpriseResource>();
+		ArrayList<EnterpriseResource> globals = new ArrayList<EnterpriseResource>();
+		Object unassigned = EnterpriseResource.getUnassignedInstance();
+		for (Object resource : resources) {
+			EnterpriseResource global = (resource instanceof ResourceImpl) ? ((ResourceImpl) resource).getGlobalResource() : (EnterpriseResource) resource;
+			if (global == null || global == unassigned || !global.isLabor() || seen.put(global, global) != null)
+				continue;
+			globals.add(global);
+		}
+		return globals.toArray(new EnterpriseResource[globals.size()]);
+	}
+
+	private static AssignmentLoad[] assignmentLoads(EnterpriseResource resource) {
+		Collection<?> assignments = resource.getAssignments();
+		ArrayList<AssignmentLoad> loads = new ArrayList<AssignmentLoad>(assignments.size());
+		for (Object next : assignments) {
+			Assignment assignment = (Assignment) next;
+			if (assignment.isDefault() || assignment.getTask() == null)
+				continue;
+			loads.add(assignment.getLoad());
+		}
+		return loads.toArray(new AssignmentLoad[loads.size()]);
+	}
+
+	/**
+	 * The sweep itself.  Times where something changes are visited in order; between two of them the load and the
+	 * maximum units are constant.
+	 */
+	private static ResourceLoad sweep(EnterpriseResource resource, AssignmentLoad[] loads, long[] availabilityDates, double[] availabilityUnits) {
+		int size = 0;
+		for (int i = 0; i < loads.length; i++)
+			size += loads[i].size();
+		long[] startTimes = new long[size];
+		double[] startUnits = new double[size];
+		long[] endTimes = new long[size];
+		double[] endUnits = new double[size];
+		int n = 0;
+		for (int i = 0; i < loads.length; i++) {
+			AssignmentLoad load = loads[i];
+			for (int j = 0; j < load.size(); j++) {
+				startTimes[n] = load.getStart(j);
+				endTimes[n] = load.getEnd(j);
+				startUnits[n] = endUnits[n] = load.getUnits(j);
+				n++;
+			}
+		}
+		sort(startTimes, startUnits, 0, size - 1);
+		sort(endTimes, endUnits, 0, size - 1);
+
+		boolean noAvailability = availabilityUnits.length == 0;
+		double defaultUnits = resource.getMaximumUnits();
+
+		PeriodBuilder periods = new PeriodBuilder();
+		double peak = 0.0D;
+		double current = 0.0D;
+		int active = 0;
+		int s = 0;
+		int e = 0;
+		int a = 0; // first availability not ended
+		long time = size == 0 ? Long.MAX_VALUE : startTimes[0];
+		while (s < size || e < size) {
+			while (e < size && endTimes[e] == time) {
+				current -= endUnits[e++];
+				active--;
+			}
+			while (s < size && startTimes[s] == time) {
+				current += startUnits[s++];
+				active++;
+			}
+			if (active == 0)
+				current = 0.0D; // drop rounding left by additions and subtractions
+			long next = Long.MAX_VALUE;
+			if (s < size)
+				next = startTimes[s];
+			if (e < size && endTimes[e] < next)
+				next = endTimes[e];
+			if (next == Long.MAX_VALUE)
+				break;
+
+			// maximum units at this time, and the next availability boundary if it comes before next
+			double maximum = defaultUnits;
+			if (!noAvailability) {
+				while (a < availabilityUnits.length && availabilityDates[2 * a + 1] <= time)
+					a++;
+				maximum = 0.0D;
+				if (a < availabilityUnits.length) {
+					long availabilityStart = availabilityDates[2 * a];
+					long availabilityEnd = availabilityDates[2 * a + 1];
+					if (availabilityStart <= time) {
+						maximum = availabilityUnits[a];
+						if (availabilityEnd < next)
+							next = availabilityEnd;
+					} else if (availabilityStart < next) {
+						next = availabilityStart;
+					}
+				}
+			}
+			if (active > 0) {
+				if (current > peak)
+					peak = current;
+				if (current > maximum + EPSILON)
+					periods.add(time, next, current, maximum);
+			}
+			time = next;
+		}
+		return new ResourceLoad(resource, loads, availabilityDates, availabilityUnits, peak,
+				periods.starts, periods.ends, periods.peaks, periods.maximums, periods.size);
+	}
+
+	/**
+	 * Overallocated periods, contiguous ones merged
+	 */
+	private static final class PeriodBuilder {
+		long[] starts = new long[4];
+		long[] ends = new long[4];
+		double[] peaks = new double[4];
+		double[] maximums = new double[4];
+		int size = 0;
+
+		void add(long start, long end, double units, double maximum) {
+			if (size > 0 && ends[size - 1] == start) {
+				ends[size - 1] = end;
+				peaks[size - 1] = Math.max(peaks[size - 1], units);
+				maximums[size - 1] = Math.min(maximums[size - 1], maximum);
+				return;
+			}
+			if (size == starts.length) {
+				int capacity = size * 2;
+				starts = Arrays.copyOf(starts, capacity);
+				ends = Arrays.copyOf(ends, capacity);
+				peaks = Arrays.copyOf(peaks, capacity);
+				maximums = Arrays.copyOf(maximums, capacity);
+			}
+			starts[size] = start;
+			ends[size] = end;
+			peaks[size] = units;
+			maximums[size] = maximum;
+			size++;
+		}
+	}
+
+	/**
+	 * Sorts times ascending, keeping each value with its time
+	 */
+	private static void sort(long[] times, double[] values, int low, int high) {
+		while (high - low > 16) {
+			long pivot = times[(low + high) >>> 1];
+			int i = low;
+			int j = high;
+			while (i <= j) {
+				while (times[i] < pivot)
+					i++;
+				while (times[j] > pivot)
+					j--;
+				if (i <= j) {
+					long time = times[i];
+					times[i] = times[j];
+					times[j] = time;
+					double value = values[i];
+					values[i] = values[j];
+					values[j] = value;
+					i++;
+					j--;
+				}
+			}
+			if (j - low < high - i) { // recurse on the smaller side
+				sort(times, values, low, j);
+				low = i;
+			} else {
+				sort(times, values, i, high);
+				high = j;
+			}
+		}
+		for (int i = low + 1; i <= high; i++) {
+			long time = times[i];
+			double value = values[i];
+			int j = i - 1;
+			while (j >= low && times[j] > time) {
+				times[j + 1] = times[j];
+				values[j + 1] = values[j];
+				j--;
+			}
+			times[j + 1] = time;
+			values[j + 1] = value;
+		}
+	}
+}
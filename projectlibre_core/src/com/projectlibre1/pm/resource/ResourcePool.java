@@ -107,7 +107,8 @@ public class ResourcePool implements Document, NodeModelDataFactory {
 	
     private transient HashMap<Long,Resource> idMap = null;
 	public Resource findById(long id) {
-		if (idMap == null) {
+		Resource found = idMap == null ? null : idMap.get(id);
+		if (found == null) { // resources created or renumbered since the map was built
 		    idMap = new HashMap<Long,Resource>();
 			Iterator i = getResourceList().iterator();
 			Resource resource;
@@ -115,8 +116,9 @@ public class ResourcePool implements Document, NodeModelDataFactory {
 				resource = (Resource)i.next();
 				idMap.put(resource.getUniqueId(),resource);
 			}
+			found = idMap.get(id);
 		}
-		return idMap.get(id);
+		return found;
 	}
 	public void initializeId(Resource resource) {
 		long id = ++resourceIdCounter;
@@ -146,6 +148,7 @@ public class ResourcePool implements Document, NodeModelDataFactory {
 	}
 	public void remove(Resource resource) {
 		resourceList.remove(resource);
+		idMap = null;
 	}
 	
 	public ResourceImpl newResourceInstance() {
@@ -0,0 +1,556 @@
+/*******************************************************************************
+ * The contents of this file are subject to the Common Public Attribution License 
+ * Version 1.0 (the "License"); you may not use this file except in compliance with 
+ * the License. You may obtain a copy of the License at 
+ * http://www.projectlibre.com/license . The License is based on the Mozilla Public 
+ * License Version 1.1 but Sections 14 and 15 have been added to cover use of 
+ * software over a computer network and provide for limited attribution for the 
+ * Original Developer. In addition, Exhibit A has been modified to be consistent 
+ * with Exhibit B. 
+ *
+ * Software distributed under the License is distributed on an "AS IS" basis, 
+ * WITHOUT WARRANTY OF ANY KIND, either express or implied. See the License for the 
+ * specific language governing rights and limitations under the License. The 
+ * Original Code is ProjectLibre. The Original Developer is the Initial Developer 
+ * and is ProjectLibre Inc. All portions of the code written by ProjectLibre are 
+ * Copyright (c) 2012-2019. All Rights Reserved. All portions of the code written by 
+ * ProjectLibre are Copyright (c) 2012-2019. All Rights Reserved. Contributor 
+ * ProjectLibre, Inc.
+ *
+ * Alternatively, the contents of this file may be used under the terms of the 
+ * ProjectLibre End-User License Agreement (the ProjectLibre License) in which case 
+ * the provisions of the ProjectLibre License are applicable instead of those above. 
+ * If you wish to allow use of your version of this file only under the terms of the 
+ * ProjectLibre License and not to allow others to use your version of this file 
+ * under the CPAL, indicate your decision by deleting the provisions above and 
+ * replace them with the notice and other provisions required by the ProjectLibre 
+ * License. If you do not delete the provisions above, a recipient may use your 
+ * version of this file under either the CPAL or the ProjectLibre Licenses. 
+ *
+ *
+ * [NOTE: The text of this Exhibit A may differ slightly from the text of the notices 
+ * in the Source Code files of the Original Code. You should use the text of this 
+ * Exhibit A rather than the text found in the Original Code Source Code for Your 
+ * Modifications.] 
+ *
+ * EXHIBIT B. Attribution Information for ProjectLibre required
+ *
+ * Attribution Copyright Notice: Copyright (c) 2012-2019, ProjectLibre, Inc.
+ * Attribution Phrase (not exceeding 10 words): 
+ * ProjectLibre, open source project management software.
+ * Attribution URL: http://www.projectlibre.com
+ * Graphic Image as provided in the Covered Code as file: projectlibre-logo.png with 
+ * alternatives listed on http://www.projectlibre.com/logo 
+ *
+ * Display of Attribution Information is required in Larger Works which are defined 
+ * in the CPAL as a work which combines Covered Code or portions thereof with code 
+ * not governed by the terms of the CPAL. However, in addition to the other notice 
+ * obligations, all copies of the Covered Code in Executable and Source Code form 
+ * distributed must, as a form of attribution of the original author, include on 
+ * each user interface screen the "ProjectLibre" logo visible to all users. 
+ * The ProjectLibre logo should be located horizontally aligned with the menu bar 
+ * and left justified on the top left of the screen adjacent to the File menu. The 
+ * logo must be at least 144 x 31 pixels. When users click on the "ProjectLibre" 
+ * logo it must direct them back to http://www.projectlibre.com. 
+ *******************************************************************************/
+package com.projectlibre1.pm.scheduling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import com.projectlibre1.pm.assignment.Assignment;
+import com.projectlibre1.pm.assignment.AssignmentLoad;
+import com.projectlibre1.pm.availability.Availability;
+import com.projectlibre1.pm.calendar.WorkCalendar;
+import com.projectlibre1.pm.criticalpath.CriticalPath;
+import com.projectlibre1.pm.criticalpath.SchedulingAlgorithm;
+import com.projectlibre1.pm.resource.EnterpriseResource;
+import com.projectlibre1.pm.resource.Resource;
+import com.projectlibre1.pm.resource.ResourceImpl;
+import com.projectlibre1.pm.resource.ResourceLoad;
+import com.projectlibre1.pm.resource.ResourceLoadEngine;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+
+/**
+ * Resolves resource overallocations by giving tasks a leveling delay (see CanBeLeveled).
+ * Tasks using the leveled resources are taken from a priority queue in order of start, then of priority (highest
+ * first), then of total slack (least first).  Each task is checked against the load of the tasks taken before it.  If
+ * a resource is overallocated, the delay which gets it past the conflict is found on the task's assignment loads
+ * shifted in working time, and the shifted loads are taken as the task's load.
+ * The critical path is not run after each delay.  A delayed task can only push tasks to after its new start, so the
+ * critical path is run once the queue reaches the earliest new start of the tasks delayed since the last run.  The runs
+ * are incremental, also when the critical path is set to full walks, so they only treat the delayed tasks and the
+ * tasks they push.  Tasks it moves whose real load conflicts go back in the queue.
+ * Tasks which have started, have a must start/finish on constraint, have priority 1000 or start outside the range
+ * are not delayed.  A delay which breaks a start/finish no later than constraint is undone and the task is reported
+ * as unresolved.  When leveling within slack, the critical path is run after each delay, and a delay which moves the
+ * project finish is undone in the same way.
+ * Only forward scheduled projects are leveled, and assignments of summary tasks are ignored.
+ */
+public final class LevelingEngine {
+	private static final int DO_NOT_LEVEL = 1000; // priority of tasks which must not be delayed, as in MS Project
+	private static final int MAX_ATTEMPTS = 200; // delay predictions per placement before giving up
+	private static final int MAX_PLACEMENTS = 8; // placements of a task whose real load keeps conflicting
+	private static final long MINIMUM_STEP = 60000L; // one minute of working time
+	private static final double EPSILON = 1E-6;
+
+	private final Project project;
+	private final LevelingOptions options;
+	private final SchedulingAlgorithm algorithm;
+	private final IdentityHashMap<EnterpriseResource,Profile> profiles = new IdentityHashMap<EnterpriseResource,Profile>();
+	private final PriorityQueue<Entry> queue = new PriorityQueue<Entry>(11, new EntryComparator());
+	private final ArrayList<Entry> placed = new ArrayList<Entry>(); // entries whose load is in the profiles
+	private final ArrayList<Entry> pending = new ArrayList<Entry>(); // entries delayed since the last critical path run
+	private long pendingStart = Long.MAX_VALUE; // earliest new start of the pending entries
+	private long finish; // project finish before any delay, kept when leveling within slack
+	private final ArrayList<NormalTask> unresolved = new ArrayList<NormalTask>();
+	private int cpmRuns = 0;
+
+	/**
+	 * Level the project's tasks
+	 * @return what was done
+	 */
+	public static LevelingResult level(Project project, LevelingOptions options) {
+		return new LevelingEngine(project, options == null ? new LevelingOptions() : options).level();
+	}
+
+	private LevelingEngine(Project project, LevelingOptions options) {
+		this.project = project;
+		this.options = options;
+		this.algorithm = project.getSchedulingAlgorithm();
+	}
+
+	private LevelingResult level() {
+		if (!(algorithm instanceof CriticalPath))
+			return levelTasks();
+		CriticalPath criticalPath = (CriticalPath) algorithm;
+		boolean incremental = criticalPath.isIncremental();
+		criticalPath.setIncremental(true); // the runs must not walk the whole project
+		try {
+			return levelTasks();
+		} finally {
+			criticalPath.setIncremental(incremental);
+		}
+	}
+
+	private LevelingResult levelTasks() {
+		Collection<?> resources = options.getResources();
+		if (resources == null)
+			resources = project.getResourcePool().getResourceList();
+		EnterpriseResource[] leveled = ResourceLoadEngine.workResources(resources);
+		if (!project.isForward())
+			return new LevelingResult(0, unresolved, 0, 0, countOverallocated(leveled));
+		for (int i = 0; i < leveled.length; i++)
+			profiles.put(leveled[i], new Profile(leveled[i]));
+		long touchedBefore = (algorithm instanceof CriticalPath) ? ((CriticalPath) algorithm).getTotalTasksTouched() : 0;
+
+		List<Entry> entries = collectEntries();
+		if (options.isClearLevelingDelays())
+			clearLevelingDelays(entries);
+		finish = project.getEnd();
+		if (isOverallocatedInRange(leveled)) {
+			for (Entry entry : entries)
+				requeue(entry);
+			while (!queue.isEmpty()) {
+				while (!queue.isEmpty()) {
+					Entry entry = queue.poll();
+					if (entry.task.getStart() >= pendingStart) // a delay may have moved it
+						recalculate();
+					if (entry.task.getStart() != entry.start) { // moved since it was queued
+						requeue(entry);
+						continue;
+					}
+					place(entry);
+				}
+				if (!pending.isEmpty())
+					recalculate(); // may put tasks back in the queue
+			}
+		}
+		int delayedCount = 0;
+		for (Entry entry : entries) {
+			if (entry.placements > 0 && entry.task.getLevelingDelay() != entry.originalDelay)
+				delayedCount++;
+		}
+		if (cpmRuns > 0)
+			project.fireScheduleChanged(algorithm, ScheduleEvent.SCHEDULE);
+		long touched = (algorithm instanceof CriticalPath) ? ((CriticalPath) algorithm).getTotalTasksTouched() - touchedBefore : -1;
+		return new LevelingResult(delayedCount, unresolved, cpmRuns, touched, countOverallocated(leveled));
+	}
+
+	/**
+	 * One entry for each task using a leveled resource
+	 */
+	private List<Entry> collectEntries() {
+		ArrayList<Entry> entries = new ArrayList<Entry>();
+		for (Iterator<?> i = project.getTasks().iterator(); i.hasNext();) {
+			Object next = i.next();
+			if (!(next instanceof NormalTask))
+				continue;
+			NormalTask task = (NormalTask) next;
+			if (task.isWbsParent() || task.isExternal() || task.isSubproject())
+				continue;
+			ArrayList<Assignment> assignments = new ArrayList<Assignment>();
+			ArrayList<Profile> taskProfiles = new ArrayList<Profile>();
+			for (Iterator<?> j = task.getAssignments().iterator(); j.hasNext();) {
+				Assignment assignment = (Assignment) j.next();
+				if (assignment.isDefault())
+					continue;
+				Resource resource = assignment.getResource();
+				Object global = (resource instanceof ResourceImpl) ? ((ResourceImpl) resource).getGlobalResource() : resource;
+				Profile profile = profiles.get(global);
+				if (profile == null)
+					continue;
+				assignments.add(assignment);
+				taskProfiles.add(profile);
+			}
+			if (!assignments.isEmpty())
+				entries.add(new Entry(task, assignments.toArray(new Assignment[assignments.size()]),
+						taskProfiles.toArray(new Profile[taskProfiles.size()])));
+		}
+		return entries;
+	}
+
+	private void clearLevelingDelays(List<Entry> entries) {
+		boolean cleared = false;
+		for (Entry entry : entries) {
+			NormalTask task = entry.task;
+			if (task.getLevelingDelay() != 0 && options.isInRange(task.getStart())) {
+				task.setLevelingDelay(0);
+				task.markTaskAsNeedingRecalculation();
+				cleared = true;
+			}
+		}
+		if (cleared)
+			recalculate();
+	}
+
+	private boolean isOverallocatedInRange(EnterpriseResource[] resources) {
+		for (int i = 0; i < resources.length; i++) {
+			ResourceLoad load = ResourceLoadEngine.load(resources[i]);
+			for (int p = 0; p < load.getPeriodCount(); p++) {
+				if ((options.getEnd() == 0 || load.getPeriodStart(p) < options.getEnd())
+						&& (options.getStart() == 0 || load.getPeriodEnd(p) > options.getStart()))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	private static int countOverallocated(EnterpriseResource[] resources) {
+		int count = 0;
+		ResourceLoad[] loads = ResourceLoadEngine.compute(Arrays.asList(resources));
+		for (int i = 0; i < loads.length; i++) {
+			if (loads[i].isOverallocated())
+				count++;
+		}
+		return count;
+	}
+
+	private boolean isDelayable(NormalTask task) {
+		if (task.getActualStart() != 0 || task.getPriority() >= DO_NOT_LEVEL)
+			return false;
+		int constraintType = task.getConstraintType();
+		if (constraintType == ConstraintType.MSO || constraintType == ConstraintType.MFO)
+			return false;
+		return options.isInRange(task.getStart());
+	}
+
+	private static boolean violatesConstraint(NormalTask task) {
+		int constraintType = task.getConstraintType();
+		long constraintDate = task.getConstraintDate();
+		if (constraintDate == 0)
+			return false;
+		if (constraintType == ConstraintType.SNLT)
+			return task.getStart() > constraintDate;
+		if (constraintType == ConstraintType.FNLT)
+			return task.getEnd() > constraintDate;
+		return false;
+	}
+
+	private void requeue(Entry entry) {
+		entry.start = entry.task.getStart();
+		entry.priority = entry.task.getPriority();
+		entry.slack = entry.task.getTotalSlack();
+		queue.add(entry);
+	}
+
+	/**
+	 * Delay the task if it conflicts with the tasks already placed, then add its load to theirs
+	 */
+	private void place(Entry entry) {
+		NormalTask task = entry.task;
+		if (conflictDelay(entry, 0) == 0) {
+			commit(entry, 0);
+			return;
+		}
+		if (options.isWithinSlack() && !pending.isEmpty()) { // delays are checked against the finish one at a time
+			recalculate();
+			if (task.getStart() != entry.start) {
+				requeue(entry);
+				return;
+			}
+		}
+		if (entry.placements == 0) {
+			if (!isDelayable(task)) {
+				markUnresolved(entry);
+				commit(entry, 0);
+				return;
+			}
+			entry.originalDelay = task.getLevelingDelay();
+		}
+		long delta = 0;
+		for (int attempt = 0;; attempt++) {
+			long needed = conflictDelay(entry, delta);
+			if (needed == 0)
+				break;
+			if (attempt == MAX_ATTEMPTS) {
+				delta = -1;
+				break;
+			}
+			delta += needed;
+		}
+		long delay = task.getLevelingDelay() - entry.originalDelay + delta;
+		if (delta < 0 || ++entry.placements > MAX_PLACEMENTS) {
+			markUnresolved(entry);
+			commit(entry, 0);
+			return;
+		}
+		pendingStart = Math.min(pendingStart, task.getEffectiveWorkCalendar().add(task.getStart(), delta, false));
+		task.setLevelingDelay(entry.originalDelay + delay);
+		task.markTaskAsNeedingRecalculation();
+		commit(entry, delta);
+		pending.add(entry);
+	}
+
+	/**
+	 * @param delta working time of the task's calendar by which the task's assignment loads are shifted, as the
+	 * leveling delay shifts the task
+	 * @return working time to add to delta to get past the first conflict, or 0 if none
+	 */
+	private static long conflictDelay(Entry entry, long delta) {
+		WorkCalendar calendar = entry.task.getEffectiveWorkCalendar();
+		for (int i = 0; i < entry.assignments.length; i++) {
+			AssignmentLoad load = entry.assignments[i].getLoad();
+			for (int j = 0; j < load.size(); j++) {
+				long start = load.getStart(j);
+				long end = load.getEnd(j);
+				if (delta != 0) {
+					start = calendar.add(start, delta, false);
+					end = calendar.add(end, delta, true);
+				}
+				long free = entry.profiles[i].conflict(start, end, load.getUnits(j));
+				if (free != 0)
+					return Math.max(calendar.compare(free, start, false), MINIMUM_STEP);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Add the load of the task to the profiles
+	 * @param delta working time by which the loads are shifted, 0 for the real loads
+	 */
+	private void commit(Entry entry, long delta) {
+		WorkCalendar calendar = delta == 0 ? null : entry.task.getEffectiveWorkCalendar();
+		for (int i = 0; i < entry.assignments.length; i++) {
+			entry.committed[i] = new Segments(entry.assignments[i].getLoad(), calendar, delta);
+			entry.profiles[i].add(entry.committed[i], 1.0D);
+		}
+		placed.add(entry);
+	}
+
+	private void markUnresolved(Entry entry) {
+		if (!entry.unresolved)
+			unresolved.add(entry.task);
+		entry.unresolved = true;
+	}
+
+	/**
+	 * Run the critical path on the tasks marked since the last run.  Delayed tasks which break a constraint get their
+	 * delay back.  Placed tasks whose load changed are checked again, and go back in the queue if they now conflict.
+	 */
+	private void recalculate() {
+		while (true) {
+			int stateCount = algorithm.getCalculationStateCount();
+			algorithm.calculate(false);
+			cpmRuns++;
+			pendingStart = Long.MAX_VALUE;
+			boolean reverted = false;
+			for (Entry entry : pending) {
+				NormalTask task = entry.task;
+				if (violatesConstraint(task) || (options.isWithinSlack() && project.getEnd() > finish)) {
+					task.setLevelingDelay(entry.originalDelay);
+					task.markTaskAsNeedingRecalculation();
+					markUnresolved(entry);
+					reverted = true;
+				}
+			}
+			pending.clear();
+			ArrayList<Entry> moved = new ArrayList<Entry>();
+			for (Iterator<Entry> i = placed.iterator(); i.hasNext();) {
+				Entry entry = i.next();
+				if (entry.task.getCalculationStateCount() <= stateCount || !entry.isMoved())
+					continue; // not treated by this run, or treated without change
+				i.remove();
+				moved.add(entry);
+				for (int j = 0; j < entry.assignments.length; j++)
+					entry.profiles[j].add(entry.committed[j], -1.0D);
+			}
+			for (Entry entry : moved) {
+				if (!entry.unresolved && conflictDelay(entry, 0) != 0) {
+					requeue(entry);
+				} else {
+					commit(entry, 0);
+				}
+			}
+			if (!reverted)
+				return;
+		}
+	}
+
+	private static final class Entry {
+		final NormalTask task;
+		final Assignment[] assignments; // assignments to leveled resources
+		final Profile[] profiles; // the profile of each assignment's resource
+		final Segments[] committed; // loads in the profiles once placed
+		long start; // queue keys
+		int priority;
+		long slack;
+		int placements = 0; // number of times the task was delayed
+		long originalDelay; // leveling delay before the first delay
+		boolean unresolved = false;
+
+		Entry(NormalTask task, Assignment[] assignments, Profile[] profiles) {
+			this.task = task;
+			this.assignments = assignments;
+			this.profiles = profiles;
+			this.committed = new Segments[assignments.length];
+		}
+
+		/**
+		 * @return true if a committed load is not the assignment's load
+		 */
+		boolean isMoved() {
+			for (int i = 0; i < assignments.length; i++) {
+				if (committed[i].source != assignments[i].getLoad())
+					return true;
+			}
+			return false;
+		}
+	}
+
+	private static final class EntryComparator implements Comparator<Entry> {
+		public int compare(Entry e1, Entry e2) {
+			if (e1.start != e2.start)
+				return e1.start < e2.start ? -1 : 1;
+			if (e1.priority != e2.priority)
+				return e1.priority > e2.priority ? -1 : 1;
+			if (e1.slack != e2.slack)
+				return e1.slack < e2.slack ? -1 : 1;
+			return Long.compare(e1.task.getId(), e2.task.getId());
+		}
+	}
+
+	/**
+	 * An assignment load, possibly shifted by a working time delta
+	 */
+	private static final class Segments {
+		final AssignmentLoad source; // null if shifted
+		final long[] starts;
+		final long[] ends;
+		final double[] units;
+
+		Segments(AssignmentLoad load, WorkCalendar calendar, long delta) {
+			int size = load.size();
+			source = calendar == null ? load : null;
+			starts = new long[size];
+			ends = new long[size];
+			units = new double[size];
+			for (int i = 0; i < size; i++) {
+				starts[i] = calendar == null ? load.getStart(i) : calendar.add(load.getStart(i), delta, false);
+				ends[i] = calendar == null ? load.getEnd(i) : calendar.add(load.getEnd(i), delta, true);
+				units[i] = load.getUnits(i);
+			}
+		}
+	}
+
+	/**
+	 * Units used by the placed tasks and maximum units of a resource, as a step function.  Each key is the start of a
+	 * step, which lasts until the next key.
+	 */
+	private static final class Profile {
+		private final TreeMap<Long,double[]> steps = new TreeMap<Long,double[]>(); // {used units, maximum units}
+		private double ceiling; // highest maximum units
+
+		Profile(EnterpriseResource resource) {
+			List<?> availabilities = resource.getAvailabilityTable().getList();
+			if (availabilities.isEmpty()) {
+				ceiling = resource.getMaximumUnits();
+				steps.put(Long.MIN_VALUE, new double[] {0.0D, ceiling});
+				return;
+			}
+			steps.put(Long.MIN_VALUE, new double[] {0.0D, 0.0D}); // not available before the first availability
+			for (Object next : availabilities) {
+				Availability availability = (Availability) next;
+				if (!steps.containsKey(availability.getEnd()))
+					steps.put(availability.getEnd(), new double[] {0.0D, 0.0D});
+				steps.put(availability.getStart(), new double[] {0.0D, availability.getMaximumUnits()});
+				ceiling = Math.max(ceiling, availability.getMaximumUnits());
+			}
+		}
+
+		void add(Segments segments, double sign) {
+			for (int i = 0; i < segments.starts.length; i++) {
+				long start = segments.starts[i];
+				long end = segments.ends[i];
+				split(start);
+				split(end);
+				double units = sign * segments.units[i];
+				for (double[] value : steps.subMap(start, end).values())
+					value[0] += units;
+			}
+		}
+
+		private void split(long date) {
+			Map.Entry<Long,double[]> floor = steps.floorEntry(date);
+			if (floor.getKey().longValue() != date) {
+				double[] value = floor.getValue();
+				steps.put(date, new double[] {value[0], value[1]});
+			}
+		}
+
+		/**
+		 * Units above the highest maximum units overallocate the resource whatever the date, so they are not counted.
+		 * @return 0 if units can be added over [start,end), otherwise the end of the run of steps which conflict,
+		 * starting at the first one
+		 */
+		long conflict(long start, long end, double units) {
+			units = Math.min(units, ceiling);
+			long free = 0;
+			Iterator<Map.Entry<Long,double[]>> i = steps.tailMap(steps.floorKey(start)).entrySet().iterator();
+			Map.Entry<Long,double[]> step = i.next();
+			while (step != null) {
+				long stepStart = step.getKey().longValue();
+				if (free == 0 && stepStart >= end)
+					return 0;
+				Map.Entry<Long,double[]> next = i.hasNext() ? i.next() : null;
+				double[] value = step.getValue();
+				if (value[0] + units > value[1] + EPSILON)
+					free = next == null ? Long.MAX_VALUE : next.getKey().longValue();
+				else if (free != 0)
+					return free;
+				step = next;
+			}
+			return free == Long.MAX_VALUE ? 0 : free; // never available enough, nothing to gain by waiting
+		}
+	}
+}
@@ -95,6 +95,7 @@ import com.projectlibre1.pm.assignment.Assignment;
 import com.projectlibre1.pm.assignment.AssignmentFormat;
 import com.projectlibre1.pm.assignment.AssignmentService;
 import com.projectlibre1.pm.assignment.HasAssignments;
+import com.projectlibre1.pm.assignment.HasAssignmentsImpl;
 import com.projectlibre1.pm.assignment.TimeDistributedFields;
 import com.projectlibre1.pm.assignment.timesheet.TimesheetHelper;
 import com.projectlibre1.pm.calendar.CalendarService;
@@ -468,6 +469,22 @@ public class NormalTask extends Task implements Allocation, TaskSpecificFields,
 		return snapshots.getCurrentSnapshot();
 	}
 
+	public void markRollupDirty() {
+		if (snapshots != null) {
+			TaskSnapshot snapshot = (TaskSnapshot) getCurrentSnapshot();
+			if (snapshot != null && snapshot.getHasAssignments() instanceof HasAssignmentsImpl) {
+				HasAssignmentsImpl hasAssignments = (HasAssignmentsImpl) snapshot.getHasAssignments();
+				hasAssignments.markRollupDirty();
+				for (Iterator<?> i = hasAssignments.getAssignments().iterator(); i.hasNext();) { // the resources total these assignments too
+					Resource resource = ((Assignment) i.next()).getResource();
+					if (resource instanceof ResourceImpl && ((ResourceImpl) resource).getGlobalResource() != null)
+						((ResourceImpl) resource).getGlobalResource().markRollupDirty();
+				}
+			}
+		}
+		super.markRollupDirty();
+	}
+
 	/**
 	 * @param i
 	 * @return
@@ -752,6 +769,7 @@ public class NormalTask extends Task implements Allocation, TaskSpecificFields,
 	}
 	public void setFixedCost(double fixedCost) {
 		((TaskSnapshot) getCurrentSnapshot()).setFixedCost(fixedCost);
+		markRollupDirty();
 	}
 
 	/**
@@ -765,6 +783,7 @@ public class NormalTask extends Task implements Allocation, TaskSpecificFields,
 	 */
 	public final void setFixedCostAccrual(int fixedCostAccrual) {
 		((TaskSnapshot) getCurrentSnapshot()).setFixedCostAccrual(fixedCostAccrual);
+		markRollupDirty();
 	}
 
 	public int getPriority() {
@@ -1727,6 +1746,12 @@ public class NormalTask extends Task implements Allocation, TaskSpecificFields,
 
 	}
 
+	public void calcDataBetween(Object[] types, TimeIteratorGenerator generator,
+			CalculatedValues[] values) {
+		((TaskSnapshot) getCurrentSnapshot()).calcDataBetween(types, generator,
+				values);
+	}
+
 
 	public void setPercentComplete(double percentComplete) {
 		if (percentComplete > 1.0) {
@@ -2335,6 +2360,7 @@ public class NormalTask extends Task implements Allocation, TaskSpecificFields,
 	 */
 	public void invalidateAssignmentCalendars() {
 		((TaskSnapshot) getCurrentSnapshot()).invalidateAssignmentCalendars();
+		markRollupDirty(); // assignment totals depend on working time
 	}
 
 	/* (non-Javadoc)
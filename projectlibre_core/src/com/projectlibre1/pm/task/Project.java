@@ -119,7 +119,7 @@ import com.projectlibre1.options.ScheduleOption;
 import com.projectlibre1.options.TimesheetOption;
 import com.projectlibre1.pm.assignment.Assignment;
 import com.projectlibre1.pm.assignment.HasTimeDistributedData;
-import com.projectlibre1.pm.assignment.TimeDistributedDataConsolidator;
+import com.projectlibre1.pm.assignment.RollupCache;
 import com.projectlibre1.pm.assignment.TimeDistributedFields;
 import com.projectlibre1.pm.assignment.timesheet.TimesheetHelper;
 import com.projectlibre1.pm.assignment.timesheet.UpdatesFromTimesheet;
@@ -142,6 +142,7 @@ import com.projectlibre1.pm.key.HasId;
 import com.projectlibre1.pm.key.HasKey;
 import com.projectlibre1.pm.key.HasKeyImpl;
 import com.projectlibre1.pm.resource.Resource;
+import com.projectlibre1.pm.resource.ResourceImpl;
 import com.projectlibre1.pm.resource.ResourcePool;
 import com.projectlibre1.pm.scheduling.BarClosure;
 import com.projectlibre1.pm.scheduling.ConstraintType;
@@ -182,6 +183,8 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	private transient HasKeyImpl hasKey;
 	private String notes="";
 	private transient LinkedList tasks = new LinkedList();
+	private transient RollupCache rollup = new RollupCache();
+	private transient RollupCache.Epoch rollupEpoch = new RollupCache.Epoch();
 	private transient ResourcePool resourcePool = null;
 	//private transient Schedule schedule = null; //used?
 	private transient SchedulingAlgorithm schedulingAlgorithm = null;
@@ -196,6 +199,7 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	private transient boolean isDirty = false;
 	private transient boolean readOnly = false;
 	private transient SubprojectHandler subprojectHandler;
+	private transient Boolean parallelScheduling = null; // null means use the projectlibre.cpm.parallel system property
 	public transient static Project lastDeserialized = null;
 	long start;
 	long end;
@@ -528,6 +532,7 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 		statusDate = DateTime.midnightNextDay(statusDate) -1; // last instant of today
 		statusDate = workCalendar.adjustInsideCalendar(statusDate, true);
 		this.statusDate = statusDate;
+		advanceRollupEpoch(); // earned value is measured at the status date
 	}
 	
 
@@ -540,6 +545,32 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	}
 	public void add(Task task) {
 		tasks.add(task);
+		rollup.markDirty();
+	}
+
+	/**
+	 * Drops the cached project totals, see RollupCache
+	 */
+	public void markRollupDirty() {
+		rollup.markDirty();
+	}
+
+	/**
+	 * Drops the cached totals of the project, of its tasks and of its resources, see RollupCache
+	 */
+	public void advanceRollupEpoch() {
+		rollupEpoch.advance();
+		if (resourcePool == null)
+			return;
+		for (Iterator<?> i = resourcePool.getResourceList().iterator(); i.hasNext();) {
+			Object resource = i.next();
+			if (resource instanceof ResourceImpl && ((ResourceImpl)resource).getGlobalResource() != null)
+				((ResourceImpl)resource).getGlobalResource().markRollupDirty();
+		}
+	}
+
+	public RollupCache.Epoch getRollupEpoch() {
+		return rollupEpoch;
 	}
 	/**
 	 * @return Returns the tasks.
@@ -735,6 +766,20 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	public boolean isInitialized() {
 		return initialized;
 	}
+	/**
+	 * @return true if the full critical path passes of this project treat independent tasks concurrently
+	 */
+	public boolean isParallelScheduling() {
+		if (parallelScheduling == null)
+			return Boolean.getBoolean("projectlibre.cpm.parallel");
+		return parallelScheduling.booleanValue();
+	}
+	/**
+	 * @param parallelScheduling true to treat the waves of independent tasks of the full critical path passes concurrently
+	 */
+	public void setParallelScheduling(boolean parallelScheduling) {
+		this.parallelScheduling = Boolean.valueOf(parallelScheduling);
+	}
 	/**
 	 * @return Returns the manager.
 	 */
@@ -913,14 +958,12 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	}
 	public void updateScheduling(Object source,Object newlyCreated,int type){
 		ObjectEvent evt = ObjectEvent.getInstance(source,newlyCreated,type,null);
-		getSchedulingAlgorithm().objectChanged(evt);
-		evt.recycle();
+		objectEventManager.fire(evt,getSchedulingAlgorithm()); // goes in the batch with the other events if one is open
 	}
 	public void updateScheduling(Object source,Object newlyCreated,int type,Field field){
 		ObjectEvent evt = ObjectEvent.getInstance(source,newlyCreated,type,null);
 		evt.setField(field);
-		getSchedulingAlgorithm().objectChanged(evt);
-		evt.recycle();
+		objectEventManager.fire(evt,getSchedulingAlgorithm());
 	}
 
 	/* (non-Javadoc)
@@ -935,9 +978,11 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 		if (owningProject != this) {
 			owningProject.taskOutlines.removeFromAll(toRemove,null);
 			owningProject.tasks.remove(task);
+			owningProject.rollup.markDirty();
 		}
 		task.cleanUp(/*null*/eventSource,deep,undo,cleanDependencies); //lc
 		tasks.remove(task);
+		rollup.markDirty();
 		taskOutlines.removeFromAll(task,nodeModel); // update all node models except the one passed in
 
 		if (task.isSubproject()) { // remove subproject from portfolio so it won't be saved - fixes bug with it being saved empty
@@ -955,6 +1000,7 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 //		removeStartSentinelDependency(toRemove);
 //		removeEndSentinelDependency(toRemove);
 		tasks.remove(toRemove);
+		rollup.markDirty();
 		taskOutlines.removeFromAll(toRemove,null); // update all node models except the one passed in
 		objectEventManager.fireDeleteEvent(this,toRemove);
 	}
@@ -1068,9 +1114,15 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 		scheduleEventManager.fire(source,type);
 	}
 	public void fireScheduleChanged(Object source, String type, Object object) {
+		if (object instanceof Task) // actuals of a task
+			((Task)object).markRollupDirty();
 		scheduleEventManager.fire(source,type,object);
 	}
 	public void fireBaselineChanged(Object source, Object object, Integer baselineNumber, boolean save) {
+		if (object instanceof Task)
+			((Task)object).markRollupDirty();
+		else
+			advanceRollupEpoch(); // baseline of the whole project
 		scheduleEventManager.fireBaselineChanged(source, null, baselineNumber, save);
 	}
 
@@ -1108,64 +1160,64 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	 * @see com.projectlibre1.pm.costing.EarnedValueValues#acwp(long, long)
 	 */
 	public double acwp(long start, long end) {
-		return TimeDistributedDataConsolidator.acwp(start,end,childrenToRollup());
+		return rollup.get(RollupCache.ACWP,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.costing.EarnedValueValues#bac(long, long)
 	 */
 	public double bac(long start, long end) {
-		return TimeDistributedDataConsolidator.bac(start,end,childrenToRollup());
+		return rollup.get(RollupCache.BAC,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.costing.EarnedValueValues#bcwp(long, long)
 	 */
 	public double bcwp(long start, long end) {
-		return TimeDistributedDataConsolidator.bcwp(start,end,childrenToRollup());
+		return rollup.get(RollupCache.BCWP,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.costing.EarnedValueValues#bcws(long, long)
 	 */
 	public double bcws(long start, long end) {
-		return TimeDistributedDataConsolidator.bcws(start,end,childrenToRollup());
+		return rollup.get(RollupCache.BCWS,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#cost(long, long)
 	 */
 	public double baselineCost(long start, long end) {
-		return TimeDistributedDataConsolidator.baselineCost(start,end,childrenToRollup());
+		return rollup.get(RollupCache.BASELINE_COST,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#cost(long, long)
 	 */
 	public long baselineWork(long start, long end) {
-		return TimeDistributedDataConsolidator.baselineWork(start,end,childrenToRollup(),true);
+		return rollup.getLong(RollupCache.BASELINE_WORK,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#cost(long, long)
 	 */
 	public double cost(long start, long end) {
-		return TimeDistributedDataConsolidator.cost(start,end,childrenToRollup());
+		return rollup.get(RollupCache.COST,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#actualCost(long, long)
 	 */
 	public double actualCost(long start, long end) {
-		return TimeDistributedDataConsolidator.actualCost(start,end,childrenToRollup());
+		return rollup.get(RollupCache.ACTUAL_COST,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	public double fixedCost(long start, long end) {
-		return TimeDistributedDataConsolidator.fixedCost(start,end,childrenToRollup());
+		return rollup.get(RollupCache.FIXED_COST,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	public double actualFixedCost(long start, long end) {
-		return TimeDistributedDataConsolidator.actualFixedCost(start,end,childrenToRollup());
+		return rollup.get(RollupCache.ACTUAL_FIXED_COST,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	public boolean fieldHideActualFixedCost(FieldContext fieldContext) {
@@ -1176,20 +1228,20 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#work(long, long)
 	 */
 	public long work(long start, long end) {
-		return TimeDistributedDataConsolidator.work(start,end,childrenToRollup(),true);
+		return rollup.getLong(RollupCache.WORK,start,end,childrenToRollup(),rollupEpoch);
 	}
 
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#actualWork(long, long)
 	 */
 	public long actualWork(long start, long end) {
-		return TimeDistributedDataConsolidator.actualWork(start,end,childrenToRollup(),true);
+		return rollup.getLong(RollupCache.ACTUAL_WORK,start,end,childrenToRollup(),rollupEpoch);
 	}
 	/* (non-Javadoc)
 	 * @see com.projectlibre1.pm.assignment.HasTimeDistributedData#actualWork(long, long)
 	 */
 	public long remainingWork(long start, long end) {
-		return TimeDistributedDataConsolidator.remainingWork(start,end,childrenToRollup(),true);
+		return rollup.getLong(RollupCache.REMAINING_WORK,start,end,childrenToRollup(),rollupEpoch);
 	}
 	boolean isInRange(long start, long finish) {
 		long s = getStart();
@@ -1512,6 +1564,8 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	    hasKey=HasKeyImpl.deserialize(s,this);
 	    //initUndo();
 	    tasks = new LinkedList();
+	    rollup = new RollupCache();
+	    rollupEpoch = new RollupCache.Epoch();
 	    resourcePool = null; // Явная инициализация transient-поля
 		objectEventManager = new ObjectEventManager();
 		objectSelectionEventManager = new ObjectSelectionEventManager();
@@ -1633,6 +1687,10 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 			return 0;
 		return schedulingAlgorithm.getCalculationStateCount();
 	}
+	void markTaskDirty(Task task) {
+		if (schedulingAlgorithm != null)
+			schedulingAlgorithm.markTaskDirty(task);
+	}
 	/**
 	 * @return Returns the multipleTransactionManager.
 	 */
@@ -1644,7 +1702,25 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	 * @see com.projectlibre1.document.Document#fireMultipleTransaction(int, boolean)
 	 */
 	public int fireMultipleTransaction(int id, boolean begin) {
-		return multipleTransactionManager.fire(this,id,begin);
+		if (begin) {
+			objectEventManager.beginBatch();
+			boolean begun = false;
+			try {
+				int result = multipleTransactionManager.fire(this,id,true);
+				begun = true;
+				return result;
+			} finally {
+				if (!begun) // no end will come for this transaction, so don't leave the batch open
+					objectEventManager.endBatch();
+			}
+		}
+		int result;
+		try {
+			objectEventManager.endBatch(); // the batch is delivered before the listeners learn that the transaction ended
+		} finally {
+			result = multipleTransactionManager.fire(this,id,false); // end the transaction even if a batch listener failed
+		}
+		return result;
 	}
 
 
@@ -1727,6 +1803,7 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 			if (invalidateSchedules)
 				task.invalidateSchedules();
 		}
+		getSchedulingAlgorithm().markAllTasksDirty();
 		getSchedulingAlgorithm().initEarliestAndLatest();
 	}
 	public void setAllChildrenDirty(boolean dirty) { // used when changing field dirties all tasks
@@ -2168,6 +2245,7 @@ public class Project implements Document, BelongsToDocument, HasKey, HasPriority
 	 */
 	public Document invalidateCalendar() {
 		markAllTasksAsNeedingRecalculation(false);
+		advanceRollupEpoch(); // tasks without a calendar of their own use the project's
 		return this;
 	}
 
@@ -967,6 +967,7 @@ public abstract class Task implements HasKey, HasNotes, HasCalendar, HasDependen
 	public void markTaskAsNeedingRecalculation() {
 		int nextStateCount = project.getCalculationStateCount()+1;
 		setCalculationStateCount(nextStateCount);
+		project.markTaskDirty(this);
 	}
 
 	/**
@@ -1947,6 +1948,32 @@ public abstract class Task implements HasKey, HasNotes, HasCalendar, HasDependen
 			setLastSavedFinish(currentSchedule.getFinish());
 		}
 		if (dirty&&project!=null) project.setGroupDirty(true);
+		if (dirty) markRollupDirty();
+	}
+
+	/**
+	 * Drops the cached totals that include this task, see RollupCache
+	 */
+	public void markRollupDirty() {
+		if (project!=null) project.markRollupDirty();
+	}
+
+	private transient long rollupStart = 0;
+	private transient long rollupFinish = 0;
+
+	/**
+	 * Drops the cached totals that include this task and its summary tasks if its current dates moved since the
+	 * last check. Called by the schedule pass for the tasks it treated.
+	 */
+	public void markRollupDirtyIfMoved() {
+		long start = currentSchedule.getStart();
+		long finish = currentSchedule.getFinish();
+		if (start == rollupStart && finish == rollupFinish)
+			return;
+		rollupStart = start;
+		rollupFinish = finish;
+		for (Task task = this; task != null; task = task.getWbsParentTask())
+			task.markRollupDirty();
 	}
 
 	public boolean isMissedDeadline() {
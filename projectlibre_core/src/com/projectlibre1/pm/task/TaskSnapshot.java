@@ -333,6 +333,10 @@ public class TaskSnapshot implements DataSnapshot, HasAssignments, Cloneable {
 			CalculatedValues values) {
 		hasAssignments.calcDataBetween(type, generator, values);
 	}
+	public void calcDataBetween(Object[] types, TimeIteratorGenerator generator,
+			CalculatedValues[] values) {
+		hasAssignments.calcDataBetween(types, generator, values);
+	}
 	/**
 	 * @return
 	 */
@@ -55,6 +55,8 @@
  *******************************************************************************/
 package com.projectlibre1.transaction;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.projectlibre1.document.Document;
 
 
@@ -62,8 +64,8 @@ import com.projectlibre1.document.Document;
  * Takes care of notifying the creation or deletion of objects
  */
 public class MultipleTransactionManager {
-	private static int counter=0;
-	public static int depth = 0;
+	private static final AtomicInteger counter = new AtomicInteger();
+	private int depth = 0; // per document, so that transactions on projects edited by different threads don't see each other
 //	 Create the listener list
     protected javax.swing.event.EventListenerList listenerList =
         new javax.swing.event.EventListenerList();
@@ -87,7 +89,7 @@ public class MultipleTransactionManager {
  */    
     public int fire(Document source, int id, boolean begin) {
     	if (id == 0)
-    		id = ++counter;
+    		id = counter.incrementAndGet();
     	if (begin)
     		depth++;
     	else
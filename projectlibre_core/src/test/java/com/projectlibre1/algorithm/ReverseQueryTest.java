@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Equivalence tests for the binary-search ReverseQuery: the date at which one
+ * assignment reaches a work value, found in its DateAtValueIndex, must equal
+ * the date the merged query finds, before and after progress splits the
+ * remaining work and after a contour change.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.algorithm;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.assignment.Assignment;
+import com.projectlibre1.pm.assignment.TimeDistributedConstants;
+import com.projectlibre1.pm.assignment.contour.ContourTypes;
+
+/** Дата достижения объёма работ по индексу назначения против запроса по контуру. */
+class ReverseQueryTest {
+
+    private static final Object WORK = TimeDistributedConstants.WORK;
+    private static final int LOOKUPS = 25;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("Индекс даёт те же даты, что запрос, до и после правок")
+    void indexedDatesMatchQuery() {
+        TestProjects.Generated generated = TestProjects.create(40, 4, 16L);
+        Random random = new Random(16L);
+        assertDates(generated, random, "initial");
+
+        for (int i = 0; i < generated.tasks.size(); i += 4) {
+            generated.tasks.get(i).setPercentComplete(0.3 + 0.1 * (i % 5));
+        }
+        generated.tasks.get(0).setDuration(7 * TestProjects.WORK_DAY); // pushes the remaining work of started successors
+        generated.project.recalculate();
+        assertDates(generated, random, "progress");
+
+        for (int i = 1; i < generated.assignments.size(); i += 3) {
+            generated.assignments.get(i).setWorkContourType(ContourTypes.BACK_LOADED);
+        }
+        assertDates(generated, random, "contour");
+    }
+
+    private static void assertDates(TestProjects.Generated generated, Random random, String phase) {
+        for (Assignment assignment : generated.assignments) {
+            String what = phase + " " + assignment.getTask().getName() + "/" + assignment.getResource().getName();
+            double total = assignment.calcAll(WORK);
+            for (int i = 0; i < LOOKUPS; i++) {
+                double value = i == 0 ? 0 : i == 1 ? total : i == 2 ? total * 2 : total * random.nextDouble();
+                ReverseQuery query = ReverseQuery.getInstance(WORK, assignment, value);
+                assignment.buildReverseQuery(query);
+                assertEquals(query.getQueryDate(), ReverseQuery.getDateAtValue(WORK, assignment, value, false),
+                    what + " date at " + value + " of " + total);
+            }
+        }
+    }
+}
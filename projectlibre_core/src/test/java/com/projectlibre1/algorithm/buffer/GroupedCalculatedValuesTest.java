@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Tests for the array-backed GroupedCalculatedValues: the series, union, mergeIn
+ * and dayByDayConvert give the values of the former point list implementation,
+ * and the serialized form is still the list of points, so values serialized by
+ * that implementation are read back.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.algorithm.buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Сгруппированные по интервалам значения на массивах против прежнего списка точек. */
+class GroupedCalculatedValuesTest {
+
+    private static final long DAY = 86400000L;
+
+    /** yScale 2.5 and the points (day 10, 1.25), (day 11, -2), (day 12, 3), serialized by the point list implementation */
+    private static final String POINT_LIST_FORM = "rO0ABXNyADpjb20ucHJvamVjdGxpYnJlMS5hbGdvcml0aG0uYnVmZmVyLkdyb3VwZWRDYWxj"
+        + "dWxhdGVkVmFsdWVzAAAAAhKJYVMCAAJEAAZ5U2NhbGVMAAZ2YWx1ZXN0ABVMamF2YS91dGlsL0FycmF5TGlzdDt4cEAEAAAAAAAAc3IAE2ph"
+        + "dmEudXRpbC5BcnJheUxpc3R4gdIdmcdhnQMAAUkABHNpemV4cAAAAAN3BAAAAANzcgAoY29tLnByb2plY3RsaWJyZTEuYWxnb3JpdGhtLmJ1"
+        + "ZmZlci5Qb2ludAAAAJKksF0+AgACSgAEZGF0ZUQABXZhbHVleHAAAAAAM3+YAD/0AAAAAAAAc3EAfgAFAAAAADil9ADAAAAAAAAAAHNxAH4A"
+        + "BQAAAAA9zFAAQAgAAAAAAAB4";
+
+    @Test @DisplayName("Значения по индексу суммируются, масштаб применяется при чтении")
+    void setAddsToBucket() {
+        GroupedCalculatedValues values = grouped(2.0, new long[] {10, 11, 13}, 1.5, 2, 4);
+        values.set(1, 11 * DAY, 12 * DAY, 0.5, null);
+        values.set(3, 0, 0, 9, null); // no date: ignored
+
+        assertEquals(3, values.size());
+        assertEquals(11 * DAY, values.getDateMillis(1));
+        assertEquals(2.5, values.getUnscaledValue(1));
+        assertEquals(1.25, values.getValue(1));
+        assertEquals(0.0, values.getValue(5), "past the end");
+        assertThrows(IndexOutOfBoundsException.class, () -> values.set(5, 20 * DAY, 21 * DAY, 1, null));
+    }
+
+    @Test @DisplayName("Ряды: обычный, накопленный и ступенчатый")
+    void series() {
+        GroupedCalculatedValues values = grouped(1, new long[] {10, 11, 13}, 1.5, 2.5, 4);
+
+        assertEquals("[0,10,1.5][1,11,2.5][2,13,4.0]", series(values, false));
+        assertEquals("[0,10,1.5][1,11,4.0][2,13,8.0]", series(values, true));
+        assertEquals("[0,10,0.0][1,10,1.5][2,11,1.5][3,11,2.5][4,13,2.5][5,13,4.0]", rectilinear(values));
+        values.makeCumulative(true);
+        assertEquals("[0,10,1.5][1,11,4.0][2,13,8.0]", series(values, false));
+        values.makeCumulative(false);
+        assertEquals("[0,10,1.5][1,11,2.5][2,13,4.0]", series(values, false));
+    }
+
+    @Test @DisplayName("Объединение складывает общие даты и не меняет аргументы")
+    void union() {
+        GroupedCalculatedValues first = grouped(1, new long[] {10, 12, 14, 16}, 1, 2, 3, 4);
+        GroupedCalculatedValues second = grouped(1, new long[] {9, 12, 15}, 10, 20, 30);
+        String expected = "[0,9,10.0][1,10,1.0][2,12,22.0][3,14,3.0][4,15,30.0][5,16,4.0]";
+
+        GroupedCalculatedValues union = GroupedCalculatedValues.union(first, second);
+        assertEquals(expected, series(union, false));
+        assertEquals(expected, series(GroupedCalculatedValues.union(second, first), false));
+        union.setValue(0, 99);
+        union.makeCumulative(true);
+        assertEquals("[0,10,1.0][1,12,2.0][2,14,3.0][3,16,4.0]", series(first, false));
+        assertEquals("[0,9,10.0][1,12,20.0][2,15,30.0]", series(second, false));
+    }
+
+    @Test @DisplayName("Слияние распределяет значения на границах пропорционально")
+    void mergeIn() {
+        GroupedCalculatedValues base = grouped(1, new long[] {10, 20, 30}, 1, 1, 1);
+        base.mergeIn(grouped(1, new long[] {5, 15, 25, 40}, 10, 20, 30, 40));
+        assertEquals("[0,10,1.0][1,20,21.0][2,30,44.33333333333333]", series(base, false));
+
+        GroupedCalculatedValues inside = grouped(1, new long[] {10, 20}, 1, 1);
+        inside.mergeIn(grouped(1, new long[] {12, 14}, 5, 7));
+        assertEquals("[0,10,1.0][1,20,13.0]", series(inside, false));
+
+        GroupedCalculatedValues empty = new GroupedCalculatedValues();
+        empty.mergeIn(inside);
+        assertEquals(0, empty.size());
+    }
+
+    @Test @DisplayName("Перевод по дням умножает значения на миллисекунды часа")
+    void dayByDayConvert() {
+        GroupedCalculatedValues values = grouped(1, new long[] {10, 11}, 0.25, 2);
+        GroupedCalculatedValues converted = values.dayByDayConvert();
+
+        assertEquals("[0,10,900000.0][1,11,7200000.0]", series(converted, false));
+        assertEquals("[0,10,0.25][1,11,2.0]", series(values, false));
+        converted.set(2, 12 * DAY, 13 * DAY, 1, null); // the copy has its own arrays
+        assertEquals(2, values.size());
+    }
+
+    @Test @DisplayName("Сериализуемые поля: список точек и масштаб")
+    void serialPersistentFields() {
+        ObjectStreamClass descriptor = ObjectStreamClass.lookup(GroupedCalculatedValues.class);
+        assertEquals(8900927827L, descriptor.getSerialVersionUID());
+        ObjectStreamField[] fields = descriptor.getFields();
+        assertEquals(2, fields.length);
+        assertEquals("yScale", fields[0].getName());
+        assertEquals(double.class, fields[0].getType());
+        assertEquals("values", fields[1].getName());
+        assertEquals(ArrayList.class, fields[1].getType());
+    }
+
+    @Test @DisplayName("Значения, сериализованные списком точек, читаются и сохраняются обратно")
+    void pointListFormRoundTrip() throws Exception {
+        GroupedCalculatedValues read = (GroupedCalculatedValues) read(Base64.getDecoder().decode(POINT_LIST_FORM));
+        assertEquals("[0,10,1.25][1,11,-2.0][2,12,3.0]", series(read, false));
+        assertEquals(0.5, read.getValue(0), "yScale 2.5");
+        read.set(3, 13 * DAY, 14 * DAY, 5, null); // the arrays grow past the points read
+
+        GroupedCalculatedValues again = (GroupedCalculatedValues) read(write(read));
+        assertEquals("[0,10,1.25][1,11,-2.0][2,12,3.0][3,13,5.0]", series(again, false));
+        assertEquals(2.0, again.getValue(3));
+        List<Point> points = again.getValues();
+        assertEquals(4, points.size());
+        assertEquals(13 * DAY, points.get(3).getDate());
+    }
+
+    private static GroupedCalculatedValues grouped(double yScale, long[] days, double... values) {
+        GroupedCalculatedValues grouped = new GroupedCalculatedValues(yScale);
+        for (int i = 0; i < days.length; i++)
+            grouped.set(i, days[i] * DAY, (days[i] + 1) * DAY, values[i], null);
+        return grouped;
+    }
+
+    /** Points as [index,day,value] */
+    private static String series(CalculatedValues values, boolean cumulative) {
+        StringBuilder text = new StringBuilder();
+        values.makeSeries(cumulative, (index, x, y) -> text.append("[" + index + "," + (long) x / DAY + "," + y + "]"));
+        return text.toString();
+    }
+
+    private static String rectilinear(CalculatedValues values) {
+        StringBuilder text = new StringBuilder();
+        values.makeRectilinearSeries((index, x, y) -> text.append("[" + index + "," + (long) x / DAY + "," + y + "]"));
+        return text.toString();
+    }
+
+    private static byte[] write(Object object) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object read(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Tests for the array-backed NonGroupedCalculatedValues: ranges added in any
+ * order are sorted and summed per date as the former sorted map did, for the
+ * series, the non zero intervals and the cumulative values.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.algorithm.buffer;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Несгруппированные значения: сортировка слиянием и суммирование по датам. */
+class NonGroupedCalculatedValuesTest {
+
+    private static final long DAY = 86400000L;
+
+    @Test @DisplayName("Диапазоны в произвольном порядке дают ряды прежней реализации")
+    void rangesInAnyOrder() {
+        NonGroupedCalculatedValues values = ranges();
+
+        assertEquals("[0,10,0.0][1,10,2.5][2,12,2.5][3,12,3.5][4,15,3.5][5,15,2.0][6,20,2.0][7,20,3.0][8,25,3.0]"
+            + "[9,25,0.0]", series(values, false));
+        assertEquals("[0,10,2.5][1,12,3.5][2,15,2.0][3,20,3.0][4,25,0.0]", series(values, true));
+        assertEquals(series(values, false), rectilinear(values));
+        StringBuilder intervals = new StringBuilder();
+        values.makeContiguousNonZero((index, start, end, value) ->
+            intervals.append("[" + index + "," + start / DAY + "," + end / DAY + "," + value + "]"), null);
+        assertEquals("[3,10,12,2.5][2,12,15,3.5][1,15,20,2.0][0,20,25,3.0]", intervals.toString());
+    }
+
+    @Test @DisplayName("Значения одной даты суммируются, точки читаются по индексу")
+    void pointsSummedPerDate() {
+        NonGroupedCalculatedValues values = ranges();
+
+        assertEquals(5, values.size());
+        long[] days = {10, 12, 15, 20, 25};
+        double[] sums = {2.5, 1.0, -1.5, 1.0, -3.0};
+        for (int i = 0; i < days.length; i++) {
+            assertEquals(days[i] * DAY, values.getDate(i).longValue());
+            assertEquals(sums[i], values.getValue(i).doubleValue(), 1e-12);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> values.getValue(5));
+
+        values.makeCumulative(true);
+        assertEquals(3.5, values.getValue(1).doubleValue(), 1e-12);
+        assertEquals(0.0, values.getValue(4).doubleValue(), 1e-12);
+        values.makeCumulative(false);
+        assertEquals(-1.5, values.getValue(2).doubleValue(), 1e-12);
+    }
+
+    @Test @DisplayName("Накопительный режим ставит значение на конец диапазона")
+    void cumulativeRanges() {
+        NonGroupedCalculatedValues values = new NonGroupedCalculatedValues(true, 0);
+        values.set(0, 10 * DAY, 14 * DAY, 4, null);
+        values.set(0, 8 * DAY, 12 * DAY, 2, null);
+        values.set(0, 12 * DAY, 14 * DAY, 1, null);
+
+        assertEquals("[0,8,0.0][1,8,0.0][2,10,0.0][3,10,0.0][4,12,0.0][5,12,2.0][6,14,2.0][7,14,7.0]",
+            series(values, false));
+        assertEquals("[0,8,0.0][1,10,0.0][2,12,2.0][3,14,7.0]", series(values, true));
+    }
+
+    @Test @DisplayName("Много диапазонов в случайном порядке: те же суммы, что у упорядоченного словаря")
+    void manyRangesMatchSortedMap() {
+        Random random = new Random(11L);
+        NonGroupedCalculatedValues values = new NonGroupedCalculatedValues(false, 0);
+        TreeMap<Long, Double> expected = new TreeMap<>();
+        for (int i = 0; i < 300; i++) {
+            long start = (1 + random.nextInt(60)) * DAY;
+            long end = start + (1 + random.nextInt(10)) * DAY;
+            double value = random.nextInt(16) / 4.0;
+            values.set(0, start, end, value, null);
+            expected.merge(start, value, Double::sum);
+            expected.merge(end, -value, Double::sum);
+            if (i == 150)
+                assertTrue(values.size() > 0); // reading in between orders the points added so far
+        }
+
+        assertEquals(expected.size(), values.size());
+        int index = 0;
+        for (Map.Entry<Long, Double> entry : expected.entrySet()) {
+            assertEquals(entry.getKey(), values.getDate(index));
+            assertEquals(entry.getValue(), values.getValue(index), "date " + entry.getKey() / DAY);
+            index++;
+        }
+    }
+
+    /** Ranges added out of order, with shared dates and one without a start */
+    private static NonGroupedCalculatedValues ranges() {
+        NonGroupedCalculatedValues values = new NonGroupedCalculatedValues(false, 0);
+        values.set(0, 20 * DAY, 25 * DAY, 3, null);
+        values.set(0, 10 * DAY, 20 * DAY, 2, null);
+        values.set(0, 12 * DAY, 15 * DAY, 1.5, null);
+        values.set(0, 0, 15 * DAY, 7, null);
+        values.set(0, 10 * DAY, 12 * DAY, 0.5, null);
+        return values;
+    }
+
+    /** Points as [index,day,value] */
+    private static String series(CalculatedValues values, boolean cumulative) {
+        StringBuilder text = new StringBuilder();
+        values.makeSeries(cumulative, (index, x, y) -> text.append("[" + index + "," + (long) x / DAY + "," + y + "]"));
+        return text.toString();
+    }
+
+    private static String rectilinear(CalculatedValues values) {
+        StringBuilder text = new StringBuilder();
+        values.makeRectilinearSeries((index, x, y) -> text.append("[" + index + "," + (long) x / DAY + "," + y + "]"));
+        return text.toString();
+    }
+}
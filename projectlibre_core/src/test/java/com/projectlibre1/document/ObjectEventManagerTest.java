@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Tests for batched event delivery: events fired inside a multiple transaction
+ * reach each batch listener once, coalesced per object, when the outermost
+ * transaction ends, while plain listeners still get every event immediately.
+ * A batch listener which fails doesn't keep the others from their batch.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.document;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.configuration.Configuration;
+import com.projectlibre1.field.Field;
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+
+/** Пакетная доставка событий объектов внутри транзакции проекта. */
+class ObjectEventManagerTest {
+
+    private static final Object SOURCE = new Object();
+
+    private Project project;
+    private ObjectEventManager manager;
+    private NormalTask first;
+    private NormalTask second;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @BeforeEach
+    void createProject() {
+        TestProjects.Generated generated = TestProjects.create(3, 0, 20L);
+        project = generated.project;
+        manager = project.getObjectEventManager();
+        first = generated.tasks.get(0);
+        second = generated.tasks.get(1);
+    }
+
+    @Test @DisplayName("События транзакции приходят пакетному слушателю одним пакетом, по одной записи на объект")
+    void batchCoalescesEvents() {
+        Field name = Configuration.getFieldFromId("Field.name");
+        RecordingBatchListener batchListener = new RecordingBatchListener();
+        RecordingListener plainListener = new RecordingListener();
+        manager.addListener(batchListener);
+        manager.addListener(plainListener);
+
+        int transactionId = project.fireMultipleTransaction(0, true);
+        assertTrue(manager.isBatching());
+        manager.fireUpdateEvent(SOURCE, first, name);
+        manager.fireUpdateEvent(SOURCE, second);
+        manager.fireUpdateEvent(SOURCE, first);
+        manager.fireCreateEvent(SOURCE, second);
+        manager.fireUpdateEvent(SOURCE, first, name);
+        assertTrue(batchListener.batches.isEmpty(), "Batch delivered before the transaction ended");
+        assertEquals(0, batchListener.events, "Batch listener got an event one by one");
+        int assignments = first.getAssignments().size(); // a field of the assignments too is updated on each of them
+        assertEquals(5 + 2 * assignments, plainListener.events, "Plain listener must get every event immediately");
+        project.fireMultipleTransaction(transactionId, false);
+
+        assertFalse(manager.isBatching());
+        assertEquals(1, batchListener.batches.size(), "One batch per transaction");
+        ObjectEventBatch batch = batchListener.batches.get(0);
+        assertEquals(2 + assignments, batch.size());
+        assertSame(first, batch.getEntries().get(0).getObject(), "Entries in first event order");
+        ObjectEventBatch.Entry firstEntry = batch.getEntry(first);
+        assertTrue(firstEntry.isUpdated());
+        assertTrue(firstEntry.isWholeObjectUpdated());
+        assertEquals(1, firstEntry.getFields().size());
+        assertTrue(firstEntry.getFields().contains(name));
+        ObjectEventBatch.Entry secondEntry = batch.getEntry(second);
+        assertTrue(secondEntry.isCreated());
+        assertEquals(ObjectEvent.CREATE, secondEntry.getType());
+        assertEquals(2, batch.getEntries(NormalTask.class).size());
+
+        manager.fireUpdateEvent(SOURCE, first);
+        assertEquals(1, batchListener.events, "Outside a transaction events are delivered immediately");
+        assertEquals(1, batchListener.batches.size());
+    }
+
+    @Test @DisplayName("Вложенные транзакции доставляют один пакет при завершении внешней")
+    void nestedBatchesDeliverOnce() {
+        RecordingBatchListener batchListener = new RecordingBatchListener();
+        RecordingBatchListener otherListener = new RecordingBatchListener();
+        manager.addListener(batchListener);
+        manager.addListener(otherListener);
+
+        int outerId = project.fireMultipleTransaction(0, true);
+        manager.fireUpdateEvent(SOURCE, first);
+        int innerId = project.fireMultipleTransaction(0, true);
+        manager.fireUpdateEvent(SOURCE, second);
+        manager.fireUpdateEvent(SOURCE, first);
+        manager.fireUpdateEvent(batchListener, second); // a listener doesn't get its own events
+        project.fireMultipleTransaction(innerId, false);
+        assertTrue(manager.isBatching(), "Inner transaction closed the batch");
+        assertTrue(batchListener.batches.isEmpty(), "Inner transaction delivered the batch");
+        manager.fireDeleteEvent(SOURCE, second);
+        project.fireMultipleTransaction(outerId, false);
+
+        assertFalse(manager.isBatching());
+        for (RecordingBatchListener listener : List.of(batchListener, otherListener)) {
+            assertEquals(1, listener.batches.size(), "One batch for the outer transaction");
+            ObjectEventBatch batch = listener.batches.get(0);
+            assertEquals(2, batch.size());
+            assertTrue(batch.getEntry(first).isUpdated());
+            assertTrue(batch.getEntry(second).isDeleted());
+            assertEquals(ObjectEvent.DELETE, batch.getEntry(second).getType());
+            assertEquals(0, listener.events);
+        }
+    }
+
+    @Test @DisplayName("Сбой одного пакетного слушателя не лишает пакета остальных")
+    void failingListenerDoesNotLoseOtherBatches() {
+        RecordingBatchListener failing = new RecordingBatchListener() {
+            @Override
+            public void objectsChanged(ObjectEventBatch batch) {
+                super.objectsChanged(batch);
+                throw new IllegalStateException("first");
+            }
+        };
+        RecordingBatchListener alsoFailing = new RecordingBatchListener() {
+            @Override
+            public void objectsChanged(ObjectEventBatch batch) {
+                super.objectsChanged(batch);
+                throw new IllegalStateException("second");
+            }
+        };
+        RecordingBatchListener working = new RecordingBatchListener();
+        manager.addListener(failing);
+        manager.addListener(alsoFailing);
+        manager.addListener(working);
+
+        int transactionId = project.fireMultipleTransaction(0, true);
+        manager.fireUpdateEvent(SOURCE, first);
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+            () -> project.fireMultipleTransaction(transactionId, false));
+
+        assertEquals(1, failing.batches.size());
+        assertEquals(1, alsoFailing.batches.size());
+        assertEquals(1, working.batches.size(), "Listener after the failing ones lost its batch");
+        assertEquals(1, failure.getSuppressed().length, "Later failure must be kept as suppressed");
+        assertFalse(manager.isBatching());
+
+        // the next transaction starts a fresh batch
+        int nextId = project.fireMultipleTransaction(0, true);
+        manager.fireUpdateEvent(SOURCE, second);
+        assertThrows(IllegalStateException.class, () -> project.fireMultipleTransaction(nextId, false));
+        assertEquals(2, working.batches.size());
+        assertSame(second, working.batches.get(1).getEntries().get(0).getObject());
+        assertEquals(1, working.batches.get(1).size());
+    }
+
+    private static class RecordingListener implements ObjectEvent.Listener {
+        int events;
+
+        @Override
+        public void objectChanged(ObjectEvent objectEvent) {
+            events++;
+        }
+    }
+
+    private static class RecordingBatchListener extends RecordingListener implements ObjectEvent.BatchListener {
+        final List<ObjectEventBatch> batches = new ArrayList<>();
+
+        @Override
+        public void objectsChanged(ObjectEventBatch batch) {
+            batches.add(batch);
+        }
+    }
+}
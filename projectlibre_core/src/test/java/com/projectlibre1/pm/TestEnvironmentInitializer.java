@@ -12,6 +12,11 @@ package com.projectlibre1.pm;
 
 import java.util.Locale;
 
+import com.projectlibre1.job.JobQueue;
+import com.projectlibre1.session.LocalSession;
+import com.projectlibre1.session.SessionFactory;
+import com.projectlibre1.util.Environment;
+
 /**
  * Initializes ProjectLibre environment for integration testing.
  * 
@@ -90,13 +95,30 @@ public final class TestEnvironmentInitializer {
         }
     }
     
+    /**
+     * Starts the local session declared in meta.properties, standalone and with a headless job queue,
+     * as GlobalSessionManager of projectlibre-api does
+     */
     private static void tryInitializeSession() throws Exception {
-        try {
-            Class<?> sessionFactoryClass = Class.forName("com.projectlibre1.session.SessionFactory");
-            Object factory = sessionFactoryClass.getMethod("getInstance").invoke(null);
-            sessionFactoryClass.getMethod("getLocalSession").invoke(factory);
-        } catch (ClassNotFoundException e) {
-            System.out.println("[TestEnvironmentInitializer] SessionFactory not found - skipping");
+        Environment.setStandAlone(true);
+        LocalSession localSession = SessionFactory.getInstance().getLocalSession();
+        if (localSession.getJobQueue() == null) {
+            localSession.setJobQueue(new JobQueue("TestJobQueue", false));
+        }
+        if (!localSession.isInitialized()) {
+            localSession.init(null);
+        }
+    }
+    
+    /**
+     * Initialize the environment for tests which can't run without it, such as those working on real
+     * Project/Task/Assignment objects. Safe to call from every @BeforeAll.
+     * 
+     * @throws IllegalStateException if the environment can't be initialized
+     */
+    public static synchronized void requireEnvironment() {
+        if (!initializeEnvironment()) {
+            throw new IllegalStateException("Failed to initialize ProjectLibre Core", initializationError);
         }
     }
     
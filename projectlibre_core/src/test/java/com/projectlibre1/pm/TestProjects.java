@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * Deterministic projects for equivalence tests
+ * Builds real Project/Task/Resource/Assignment graphs from a seed
+ *
+ * NOTE: Requires TestEnvironmentInitializer.requireEnvironment().
+ *
+ * @author ProjectLibre Team
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.projectlibre1.association.InvalidAssociationException;
+import com.projectlibre1.datatype.Rate;
+import com.projectlibre1.datatype.TimeUnit;
+import com.projectlibre1.interval.InvalidValueObjectForIntervalException;
+import com.projectlibre1.pm.assignment.Assignment;
+import com.projectlibre1.pm.assignment.AssignmentService;
+import com.projectlibre1.pm.costing.CostRate;
+import com.projectlibre1.pm.costing.CostRateTables;
+import com.projectlibre1.pm.dependency.DependencyService;
+import com.projectlibre1.pm.dependency.DependencyType;
+import com.projectlibre1.pm.resource.Resource;
+import com.projectlibre1.pm.resource.ResourceImpl;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+import com.projectlibre1.pm.task.ProjectFactory;
+
+/**
+ * Seeded project generator: tasks with one to five day durations, finish-to-start
+ * (sometimes start-to-start) links to earlier tasks and one or two assignments per task.
+ * Resource rates rise every RATE_STEP days, so costs depend on the dates of the tasks.
+ */
+public final class TestProjects {
+
+    /** Monday 2026-01-05 00:00 UTC. Fixed so that calendar effects are reproducible. */
+    public static final long PROJECT_START = 1767571200000L;
+
+    /** One working day of the standard calendar. */
+    public static final long WORK_DAY = 8L * 3600L * 1000L;
+
+    /** Days between two raises of the standard rate of a generated resource. */
+    public static final int RATE_STEP = 10;
+
+    private static final int RATE_STEPS = 40;
+
+    private TestProjects() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Project with its tasks, resources and assignments, in creation order
+     */
+    public static final class Generated {
+        public final Project project;
+        public final List<NormalTask> tasks = new ArrayList<>();
+        public final List<Resource> resources = new ArrayList<>();
+        public final List<Assignment> assignments = new ArrayList<>();
+
+        Generated(Project project) {
+            this.project = project;
+        }
+    }
+
+    /**
+     * Creates and schedules a project. Everything is created in one multiple
+     * transaction so that the schedule is computed once at the end, as on import.
+     */
+    public static Generated create(int taskCount, int resourceCount, long seed) {
+        Random random = new Random(seed);
+        Project project = ProjectFactory.getInstance().createProject();
+        project.setStart(PROJECT_START);
+        Generated generated = new Generated(project);
+        int transactionId = project.fireMultipleTransaction(0, true);
+        try {
+            for (int i = 0; i < resourceCount; i++) {
+                Resource resource = project.getResourcePool().createScriptedResource();
+                resource.setName("Resource " + (i + 1));
+                double rate = 20 + random.nextInt(80);
+                resource.setStandardRate(new Rate(rate, TimeUnit.NON_TEMPORAL));
+                for (int step = 1; step <= RATE_STEPS; step++) {
+                    addRate(resource, PROJECT_START + step * RATE_STEP * 86400000L, rate * (1 + step * 0.1));
+                }
+                generated.resources.add(resource);
+            }
+            for (int i = 0; i < taskCount; i++) {
+                NormalTask task = project.createScriptedTask();
+                task.setName("Task " + (i + 1));
+                task.setDuration((1 + random.nextInt(5)) * WORK_DAY);
+                generated.tasks.add(task);
+                if (i > 0) {
+                    int type = random.nextInt(4) == 0 ? DependencyType.SS : DependencyType.FS;
+                    link(generated.tasks.get(random.nextInt(i)), task, type, 0);
+                }
+                if (resourceCount > 0) {
+                    int assignmentCount = 1 + random.nextInt(2);
+                    for (int a = 0; a < assignmentCount; a++) {
+                        Resource resource = generated.resources.get(random.nextInt(resourceCount));
+                        if (task.findAssignment(resource) == null) {
+                            generated.assignments.add(assign(task, resource, 0.5 + random.nextInt(2) * 0.5));
+                        }
+                    }
+                }
+            }
+        } finally {
+            project.fireMultipleTransaction(transactionId, false);
+        }
+        project.recalculate();
+        return generated;
+    }
+
+    /**
+     * Creates and schedules a layered network: each task after the first layer is linked to one or two tasks
+     * of the previous layer, mostly finish-to-start, sometimes start-to-start or finish-to-finish, some with a
+     * one day lag. Every layer is a wave of width independent tasks. One task in four has an assignment.
+     */
+    public static Generated createLayered(int layers, int width, int resourceCount, long seed) {
+        Random random = new Random(seed);
+        Project project = ProjectFactory.getInstance().createProject();
+        project.setStart(PROJECT_START);
+        Generated generated = new Generated(project);
+        int transactionId = project.fireMultipleTransaction(0, true);
+        try {
+            for (int i = 0; i < resourceCount; i++) {
+                Resource resource = project.getResourcePool().createScriptedResource();
+                resource.setName("Resource " + (i + 1));
+                resource.setStandardRate(new Rate(20 + random.nextInt(80), TimeUnit.NON_TEMPORAL));
+                generated.resources.add(resource);
+            }
+            for (int layer = 0; layer < layers; layer++) {
+                for (int i = 0; i < width; i++) {
+                    NormalTask task = project.createScriptedTask();
+                    task.setName("Task " + (layer + 1) + "." + (i + 1));
+                    task.setDuration((1 + random.nextInt(5)) * WORK_DAY);
+                    if (layer > 0) {
+                        int linkCount = 1 + random.nextInt(2);
+                        for (int l = 0; l < linkCount; l++) {
+                            NormalTask predecessor = generated.tasks.get((layer - 1) * width + random.nextInt(width));
+                            int kind = random.nextInt(8);
+                            int type = kind == 0 ? DependencyType.SS : kind == 1 ? DependencyType.FF : DependencyType.FS;
+                            link(predecessor, task, type, random.nextInt(4) == 0 ? WORK_DAY : 0);
+                        }
+                    }
+                    generated.tasks.add(task);
+                    if (resourceCount > 0 && random.nextInt(4) == 0) {
+                        Resource resource = generated.resources.get(random.nextInt(resourceCount));
+                        generated.assignments.add(assign(task, resource, 1.0));
+                    }
+                }
+            }
+        } finally {
+            project.fireMultipleTransaction(transactionId, false);
+        }
+        project.recalculate();
+        return generated;
+    }
+
+    public static void link(NormalTask predecessor, NormalTask successor, int type, long lag) {
+        try {
+            DependencyService.getInstance().newDependency(predecessor, successor, type, lag, null);
+        } catch (InvalidAssociationException e) {
+            // a duplicate or circular link is rejected by the core and simply skipped
+        }
+    }
+
+    public static void addRate(Resource resource, long effectiveDate, double rate) {
+        try {
+            CostRate costRate = (CostRate) ((ResourceImpl) resource).getCostRateTable(CostRateTables.DEFAULT)
+                .newValueObject(effectiveDate);
+            costRate.setStandardRate(new Rate(rate, TimeUnit.NON_TEMPORAL));
+        } catch (InvalidValueObjectForIntervalException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static Assignment assign(NormalTask task, Resource resource, double units) {
+        return AssignmentService.getInstance().newAssignment(task, resource, units, 0, null, false);
+    }
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Regression tests for Assignment.setDuration: a duration that carries its time
+ * unit must give the same remaining duration as the plain milliseconds, also
+ * when it is shorter than the actual duration already worked.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.datatype.Duration;
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.task.NormalTask;
+
+/** Длительность назначения с единицей времени против длительности в миллисекундах. */
+class AssignmentDurationTest {
+
+    private static final long YEAR = 365L * 86400000L;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("Длительность с единицей времени даёт тот же остаток, что и в миллисекундах")
+    void encodedDurationMatchesMillis() {
+        Assignment assignment = startedAssignment();
+        long longer = assignment.getActualDuration() + 3 * TestProjects.WORK_DAY;
+
+        assignment.setDuration(longer);
+        long expected = assignment.getRemainingDuration();
+        assignment.setDuration(TestProjects.WORK_DAY); // something else in between
+        assignment.setDuration(Duration.setAsDays(longer));
+        assertEquals(expected, assignment.getRemainingDuration(), "days");
+        assignment.setDuration(Duration.setAsElapsedDays(longer));
+        assertEquals(expected, assignment.getRemainingDuration(), "elapsed days");
+    }
+
+    @Test @DisplayName("Длительность короче фактической не уводит окончание на миллионы лет")
+    void encodedDurationShorterThanActual() {
+        Assignment assignment = startedAssignment();
+        long shorter = assignment.getActualDuration() / 2;
+        assertTrue(shorter > 0);
+
+        // subtracting the actual from the encoded duration used to borrow from its unit bits
+        assignment.setDuration(Duration.setAsElapsedDays(shorter));
+        assertEquals(0, assignment.getRemainingDuration(), "remaining duration");
+        assertTrue(assignment.getEnd() < assignment.getStart() + YEAR, "end " + assignment.getEnd());
+    }
+
+    private static Assignment startedAssignment() {
+        TestProjects.Generated generated = TestProjects.create(1, 1, 7L);
+        NormalTask task = generated.tasks.get(0);
+        task.setDuration(10 * TestProjects.WORK_DAY);
+        task.setPercentComplete(0.5);
+        generated.project.recalculate();
+        Assignment assignment = generated.assignments.get(0);
+        assertTrue(assignment.getActualDuration() > 0, "assignment has actuals");
+        return assignment;
+    }
+}
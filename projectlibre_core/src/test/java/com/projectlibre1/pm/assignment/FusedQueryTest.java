@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Equivalence tests for the fused multi-field query: several fields of an
+ * assignment calculated in one query, with or without a time iterator, must
+ * give the values of one query per field, and the bars of a task built from
+ * the fused query must equal those built field by field.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.collections.Closure;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.algorithm.TimeIteratorGenerator;
+import com.projectlibre1.algorithm.buffer.CalculatedValues;
+import com.projectlibre1.algorithm.buffer.GroupedCalculatedValues;
+import com.projectlibre1.algorithm.buffer.NonGroupedCalculatedValues;
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.assignment.contour.ContourTypes;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.TaskSnapshot;
+import com.projectlibre1.pm.time.HasStartAndEnd;
+import com.projectlibre1.timescale.TimeIterator;
+import com.projectlibre1.timescale.TimeScale;
+import com.projectlibre1.timescale.TimeScaleManager;
+
+/** Слитый запрос по нескольким полям против запроса по каждому полю. */
+class FusedQueryTest {
+
+    private static final long DAY = 86400000L;
+    private static final Object[] TYPES = {
+        TimeDistributedConstants.WORK,
+        TimeDistributedConstants.ACTUAL_WORK,
+        TimeDistributedConstants.REMAINING_WORK,
+        TimeDistributedConstants.COST,
+        TimeDistributedConstants.ACTUAL_COST,
+        TimeDistributedConstants.REMAINING_COST,
+        TimeDistributedConstants.ACWP,
+        TimeDistributedConstants.BCWP
+    };
+    private static TimeScale scale;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+        scale = TimeScaleManager.createInstance().getScale();
+    }
+
+    @Test @DisplayName("Слитый запрос даёт те же значения и полосы, что запрос по каждому полю, и после правок")
+    void fusedValuesMatchQueryPerField() {
+        TestProjects.Generated generated = TestProjects.create(40, 4, 15L);
+        assertFused(generated, "initial");
+
+        for (int i = 0; i < generated.tasks.size(); i += 4) {
+            generated.tasks.get(i).setPercentComplete(0.3 + 0.1 * (i % 5));
+        }
+        generated.tasks.get(0).setDuration(7 * TestProjects.WORK_DAY); // pushes the remaining work of started successors
+        generated.project.recalculate();
+        assertFused(generated, "progress");
+
+        for (int i = 1; i < generated.assignments.size(); i += 3) {
+            generated.assignments.get(i).setWorkContourType(ContourTypes.BACK_LOADED);
+        }
+        assertFused(generated, "contour");
+    }
+
+    private static void assertFused(TestProjects.Generated generated, String phase) {
+        for (Assignment assignment : generated.assignments) {
+            String what = phase + " " + assignment.getTask().getName() + "/" + assignment.getResource().getName();
+
+            CalculatedValues[] fused = new CalculatedValues[TYPES.length];
+            for (int t = 0; t < TYPES.length; t++)
+                fused[t] = new NonGroupedCalculatedValues(false, 0);
+            assignment.calcDataBetween(TYPES, null, fused);
+            assertTrue(fused[0].size() > 0, what + " has work intervals");
+            for (int t = 0; t < TYPES.length; t++) {
+                CalculatedValues single = new NonGroupedCalculatedValues(false, 0);
+                assignment.calcDataBetween(TYPES[t], null, single);
+                assertValues(single, fused[t], what + " " + TYPES[t] + " without iterator");
+            }
+
+            long start = assignment.getStart() - 2 * DAY;
+            long end = assignment.getEnd() + 2 * DAY;
+            for (int t = 0; t < TYPES.length; t++)
+                fused[t] = new GroupedCalculatedValues();
+            assignment.calcDataBetween(TYPES, iterator(start, end), fused);
+            for (int t = 0; t < TYPES.length; t++) {
+                CalculatedValues single = new GroupedCalculatedValues();
+                assignment.calcDataBetween(TYPES[t], iterator(start, end), single);
+                assertValues(single, fused[t], what + " " + TYPES[t] + " by time scale");
+            }
+        }
+
+        for (NormalTask task : generated.tasks) {
+            HasAssignmentsImpl hasAssignments = (HasAssignmentsImpl) ((TaskSnapshot) task.getCurrentSnapshot()).getHasAssignments();
+            BarRecorder byField = new BarRecorder();
+            hasAssignments.forEachWorkingIntervalByField(byField, task.getEffectiveWorkCalendar());
+            BarRecorder fused = new BarRecorder();
+            hasAssignments.forEachWorkingInterval(fused, true, task.getEffectiveWorkCalendar());
+            assertFalse(fused.bars.isEmpty(), phase + " " + task.getName() + " has bars");
+            assertEquals(byField.bars, fused.bars, phase + " " + task.getName() + " bars");
+        }
+    }
+
+    private static TimeIteratorGenerator iterator(long start, long end) {
+        return TimeIteratorGenerator.getInstance(new TimeIterator(start, end, scale, -1));
+    }
+
+    private static void assertValues(CalculatedValues expected, CalculatedValues actual, String what) {
+        assertEquals(expected.size(), actual.size(), what + " size");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getDate(i), actual.getDate(i), what + " date " + i);
+            assertEquals(expected.getValue(i), actual.getValue(i), what + " value " + i);
+        }
+    }
+
+    /** Collects the bars given to a visitor, which reuses its interval. */
+    private static final class BarRecorder implements Closure {
+        final List<String> bars = new ArrayList<>();
+
+        public void execute(Object interval) {
+            bars.add(((HasStartAndEnd) interval).getStart() + ".." + ((HasStartAndEnd) interval).getEnd());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Equivalence tests for RollupCache: cached task, resource and project totals
+ * must equal a fresh TimeDistributedDataConsolidator computation after edits,
+ * and an edit of one project must not drop the totals of another.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment;
+
+import java.util.Collection;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.datatype.Rate;
+import com.projectlibre1.datatype.TimeUnit;
+import com.projectlibre1.field.FieldContext;
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.costing.EarnedValueValues;
+import com.projectlibre1.pm.resource.Resource;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+
+/** Кэш итогов задач, ресурсов и проекта против прямого пересчёта. */
+class RollupCacheTest {
+
+    private static final long START = 0;
+    private static final long END = FieldContext.defaultEnd;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("Итоги из кэша равны прямому пересчёту после правок")
+    void cachedTotalsMatchConsolidationAfterEdits() {
+        TestProjects.Generated generated = TestProjects.create(60, 6, 7L);
+        Project project = generated.project;
+        assertTotals(generated, "initial");
+        project.setStatusDate(TestProjects.PROJECT_START + 15 * 86400000L); // earned value of moved successors changes
+        assertTotals(generated, "status date");
+        assertTotals(generated, "cached");
+
+        generated.tasks.get(0).setDuration(7 * TestProjects.WORK_DAY); // moves its successors across rate changes
+        project.recalculate();
+        assertTotals(generated, "duration");
+
+        generated.assignments.get(3).adjustRemainingUnits(2.0, generated.assignments.get(3).getUnits(), true, false);
+        project.recalculate();
+        assertTotals(generated, "units");
+
+        Resource resource = generated.resources.get(1);
+        resource.setStandardRate(new Rate(resource.getStandardRate().getValue() * 3, TimeUnit.NON_TEMPORAL));
+        assertTotals(generated, "rate");
+
+        generated.tasks.get(10).setPercentComplete(0.5);
+        generated.tasks.get(20).setFixedCost(1000);
+        assertTotals(generated, "progress");
+
+        project.setStatusDate(TestProjects.PROJECT_START + 25 * 86400000L);
+        assertTotals(generated, "later status date");
+    }
+
+    @Test @DisplayName("Правка одного проекта не сбрасывает кэш другого")
+    void otherProjectKeepsItsTotals() {
+        TestProjects.Generated edited = TestProjects.create(30, 3, 11L);
+        TestProjects.Generated other = TestProjects.create(30, 3, 13L);
+        readTaskTotals(other.project);
+
+        edited.tasks.get(2).setDuration(9 * TestProjects.WORK_DAY);
+        edited.project.recalculate();
+        edited.project.setStatusDate(TestProjects.PROJECT_START + 10 * 86400000L);
+
+        long missesBefore = RollupCache.getMissCount();
+        readTaskTotals(other.project);
+        assertEquals(missesBefore, RollupCache.getMissCount(), "totals of the other project were dropped");
+        assertTotals(edited, "edited");
+    }
+
+    private static void readTaskTotals(Project project) {
+        for (Object task : project.getTasks()) {
+            ((NormalTask) task).work(START, END);
+            ((NormalTask) task).cost(START, END);
+            ((NormalTask) task).bcws(START, END);
+        }
+        project.work(START, END);
+        project.cost(START, END);
+    }
+
+    private static void assertTotals(TestProjects.Generated generated, String phase) {
+        for (NormalTask task : generated.tasks) {
+            assertTotals(phase + " " + task.getName(), task, task, task.getAssignments());
+        }
+        for (Resource resource : generated.resources) {
+            assertTotals(phase + " " + resource.getName(), resource, resource, resource.getAssignments());
+        }
+        Project project = generated.project;
+        assertTotals(phase + " project", project, project, project.getTasks());
+        assertEquals(TimeDistributedDataConsolidator.fixedCost(START, END, project.getTasks()),
+            project.fixedCost(START, END), 1e-6, phase + " project fixedCost");
+    }
+
+    private static void assertTotals(String what, HasTimeDistributedData data, EarnedValueValues ev, Collection children) {
+        assertEquals(TimeDistributedDataConsolidator.work(START, END, children, true), data.work(START, END), what + " work");
+        assertEquals(TimeDistributedDataConsolidator.actualWork(START, END, children, true), data.actualWork(START, END), what + " actualWork");
+        assertEquals(TimeDistributedDataConsolidator.remainingWork(START, END, children, true), data.remainingWork(START, END), what + " remainingWork");
+        assertEquals(TimeDistributedDataConsolidator.cost(START, END, children), data.cost(START, END), 1e-6, what + " cost");
+        assertEquals(TimeDistributedDataConsolidator.actualCost(START, END, children), data.actualCost(START, END), 1e-6, what + " actualCost");
+        assertEquals(TimeDistributedDataConsolidator.baselineCost(START, END, children), data.baselineCost(START, END), 1e-6, what + " baselineCost");
+        assertEquals(TimeDistributedDataConsolidator.acwp(START, END, children), ev.acwp(START, END), 1e-6, what + " acwp");
+        assertEquals(TimeDistributedDataConsolidator.bcwp(START, END, children), ev.bcwp(START, END), 1e-6, what + " bcwp");
+        assertEquals(TimeDistributedDataConsolidator.bcws(START, END, children), ev.bcws(START, END), 1e-6, what + " bcws");
+        assertEquals(TimeDistributedDataConsolidator.bac(START, END, children), ev.bac(START, END), 1e-6, what + " bac");
+    }
+}
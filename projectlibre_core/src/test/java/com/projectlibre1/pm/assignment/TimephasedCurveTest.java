@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Equivalence tests for TimephasedCurve: work and cost of an assignment in a
+ * range, answered by the compiled curve, must equal the query over the
+ * contour, on random ranges and after edits the curve has to notice
+ * (contour, progress, rates, duration).
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.datatype.Rate;
+import com.projectlibre1.datatype.TimeUnit;
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.assignment.contour.ContourTypes;
+import com.projectlibre1.pm.resource.Resource;
+
+/** Работа и стоимость назначения по кривой против запроса по контуру. */
+class TimephasedCurveTest {
+
+    private static final long DAY = 86400000L;
+    private static final int RANGES = 20;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("Кривая даёт те же работу и стоимость, что запрос, и после правок")
+    void curveMatchesQueryAfterEdits() {
+        TestProjects.Generated generated = TestProjects.create(40, 4, 12L);
+        Random random = new Random(12L);
+        assertCurves(generated, random, "initial");
+
+        for (int i = 0; i < generated.assignments.size(); i += 3) {
+            generated.assignments.get(i).setWorkContourType(i % 2 == 0 ? ContourTypes.BACK_LOADED : ContourTypes.BELL);
+        }
+        assertCurves(generated, random, "contour");
+
+        generated.tasks.get(5).setPercentComplete(0.4);
+        generated.tasks.get(12).setPercentComplete(1.0);
+        assertCurves(generated, random, "progress");
+
+        Resource resource = generated.resources.get(2);
+        resource.setStandardRate(new Rate(resource.getStandardRate().getValue() * 2, TimeUnit.NON_TEMPORAL));
+        assertCurves(generated, random, "rate");
+
+        generated.tasks.get(0).setDuration(6 * TestProjects.WORK_DAY); // moves its successors across rate changes
+        generated.project.recalculate();
+        assertCurves(generated, random, "duration");
+    }
+
+    private static void assertCurves(TestProjects.Generated generated, Random random, String phase) {
+        for (Assignment assignment : generated.assignments) {
+            String what = phase + " " + assignment.getTask().getName() + "/" + assignment.getResource().getName();
+            long from = assignment.getStart() - 2 * DAY;
+            long span = assignment.getEnd() + 2 * DAY - from;
+            for (int r = 0; r < RANGES; r++) {
+                long start = from + (long) (random.nextDouble() * span);
+                long end = start + (long) (random.nextDouble() * (from + span - start));
+                if (r % 2 == 0) { // whole minutes, as most dates of a schedule are
+                    start -= start % 60000L;
+                    end -= end % 60000L;
+                }
+                if (!assignment.isInRange(start, end)) // work() and cost() don't query then
+                    continue;
+                assertEquals((long) assignment.queryBetween(TimeDistributedConstants.WORK, start, end),
+                    assignment.work(start, end), what + " work " + start + ".." + end);
+                double cost = assignment.queryBetween(TimeDistributedConstants.COST, start, end);
+                assertEquals(cost, assignment.cost(start, end), 1e-12 * Math.max(1, Math.abs(cost)), // sums of pieces round differently
+                    what + " cost " + start + ".." + end);
+            }
+            assertEquals((long) assignment.queryBetween(TimeDistributedConstants.WORK, from, from + span),
+                assignment.work(from, from + span), what + " whole work");
+        }
+    }
+}
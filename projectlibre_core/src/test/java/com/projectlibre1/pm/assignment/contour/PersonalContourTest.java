@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Tests for the packed PersonalContour: each edit operation must give the
+ * bucket sequence and filler flags of the implementation holding bucket
+ * objects, on contours with empty, filler and working buckets. The expected
+ * sequences were produced by that implementation. The contour maximum units,
+ * which it left at 0 after addEmptyBucket and adjustDuration, now follow the
+ * buckets.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.assignment.contour;
+
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.time.MutableInterval;
+
+/** Правки упакованного персонального контура против эталонных последовательностей корзин. */
+class PersonalContourTest {
+
+    private static final long HOUR = 3600000L;
+
+    /** Buckets as hours:units, F for a filler */
+    private static final String WITH_FILLER = "8:1.0 4:0.0 6:F 10:1.5";
+    private static final String SINGLE = "16:0.5";
+    private static final String WITH_DELAY = "3:0.0 5:1.0 2:0.0 7:0.5";
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("setInterval задаёт единицы на отрезке, сливая соседние корзины")
+    void setInterval() {
+        assertEdit("4:1.0 8:0.5 6:F 10:1.5", WITH_FILLER, c -> c.setInterval(4 * HOUR, 12 * HOUR, 0.5));
+        assertEdit("28:1.0", WITH_FILLER, c -> c.setInterval(0, 28 * HOUR, 1.0));
+        assertEdit("8:1.0 4:0.0 2:F 6:0.5 8:1.5", WITH_FILLER, c -> c.setInterval(14 * HOUR, 20 * HOUR, 0.5));
+        assertEdit("8:1.0 2:0.0 7:0.5", WITH_DELAY, c -> c.setInterval(0, 3 * HOUR, 1.0));
+        assertEdit("2:0.5 3:0.0 11:0.5", SINGLE, c -> c.setInterval(2 * HOUR, 5 * HOUR, 0.0));
+    }
+
+    @Test @DisplayName("insertBucket вставляет корзину, в том числе заполнитель")
+    void insertBucket() {
+        assertEdit("3:0.5 8:1.0 4:0.0 6:F 10:1.5", WITH_FILLER,
+            c -> c.insertBucket(8 * HOUR, PersonalContourBucket.getInstance(3 * HOUR, 0.5)));
+        assertEdit("8:1.0 2:F 4:0.0 6:F 10:1.5", WITH_FILLER,
+            c -> c.insertBucket(0, FillerContourBucket.getInstance(2 * HOUR)));
+        assertEdit("8:1.0 4:0.0 6:F 4:1.0 10:1.5", WITH_FILLER,
+            c -> c.insertBucket(28 * HOUR, PersonalContourBucket.getInstance(4 * HOUR, 1.0)));
+        assertEdit("3:0.0 3:1.0 1:0.0 2:1.0 2:0.0 7:0.5", WITH_DELAY,
+            c -> c.insertBucket(5 * HOUR, PersonalContourBucket.getInstance(HOUR, 0.0)));
+    }
+
+    @Test @DisplayName("extendBucket удлиняет и укорачивает корзину в точке")
+    void extendBucket() {
+        assertEdit("10:1.0 4:0.0 6:F 10:1.5", WITH_FILLER, c -> c.extendBucket(8 * HOUR, 2 * HOUR));
+        assertEdit("8:1.0 4:0.0 6:F 8:1.5", WITH_FILLER, c -> c.extendBucket(10 * HOUR, -2 * HOUR));
+        assertEdit("3:0.0 2:1.0 2:0.0 7:0.5", WITH_DELAY, c -> c.extendBucket(0, -3 * HOUR));
+        assertEdit("20:0.5", SINGLE, c -> c.extendBucket(4 * HOUR, 4 * HOUR));
+    }
+
+    @Test @DisplayName("shift сдвигает отрезок вперёд и назад")
+    void shift() {
+        assertEdit("8:1.0 10:0.0 10:1.5", WITH_FILLER, c -> c.shift(8 * HOUR, 12 * HOUR, 3 * HOUR));
+        assertEdit("6:1.0 6:0.0 6:F 10:1.5", WITH_FILLER, c -> c.shift(8 * HOUR, 12 * HOUR, -2 * HOUR));
+        assertEdit("2:0.0 8:1.0 2:0.0 6:F 10:1.5", WITH_FILLER, c -> c.shift(0, 8 * HOUR, 2 * HOUR));
+        assertEdit("5:1.0 5:0.0 7:0.5", WITH_DELAY, c -> c.shift(3 * HOUR, 8 * HOUR, -3 * HOUR));
+    }
+
+    @Test @DisplayName("extend и extendBefore меняют длительность у концов")
+    void extend() {
+        assertEdit("8:1.0 4:0.0 6:F 14:1.5", WITH_FILLER, c -> c.extend(28 * HOUR, 4 * HOUR));
+        assertEdit("8:1.0 4:0.0 6:F 10:1.5", WITH_FILLER, c -> c.extend(12 * HOUR, -2 * HOUR));
+        assertEdit("12:0.5", SINGLE, c -> c.extend(16 * HOUR, -4 * HOUR));
+        assertEdit("3:0.0 5:1.0 4:0.0 6:F 10:1.5", WITH_FILLER, c -> c.extendBefore(0, 3 * HOUR));
+        assertEdit("8:1.0 4:0.0 6:F 10:1.5", WITH_FILLER, c -> c.extendBefore(8 * HOUR, -4 * HOUR));
+        assertEdit("8:1.0 2:0.0 7:0.5", WITH_DELAY, c -> c.extendBefore(3 * HOUR, -3 * HOUR));
+    }
+
+    @Test @DisplayName("adjustDuration обрезает или удлиняет последнюю корзину, removeFillerAfter оставляет внутренний заполнитель")
+    void adjustDuration() {
+        assertEdit("8:1.0 4:0.0 6:F 2:1.5", WITH_FILLER, c -> c.adjustDuration(20 * HOUR, 0));
+        assertEdit("8:1.0 4:0.0 6:F 22:1.5", WITH_FILLER, c -> c.adjustDuration(40 * HOUR, 0));
+        assertEdit("3:0.0 5:1.0", WITH_DELAY, c -> c.adjustDuration(10 * HOUR, 0));
+        assertEdit("16:0.5", SINGLE, c -> c.adjustDuration(16 * HOUR, 0));
+        for (long at : new long[] {0, 18 * HOUR, 28 * HOUR})
+            assertEdit(WITH_FILLER, WITH_FILLER, c -> c.removeFillerAfter(at));
+    }
+
+    @Test @DisplayName("adjustUnits и contourAdjustWork пересчитывают единицы и работу")
+    void adjustUnitsAndWork() {
+        assertEdit("8:2.0 10:0.0 10:3.0", WITH_FILLER, c -> c.adjustUnits(2.0, 0));
+        assertEdit("8:1.0 10:0.0 10:0.75", WITH_FILLER, c -> c.adjustUnits(0.5, 12 * HOUR));
+        assertEdit("3:0.0 1:1.0 4:1.5 2:0.0 7:0.75", WITH_DELAY, c -> c.adjustUnits(1.5, 4 * HOUR));
+        assertEdit("16:0.5 4:0.0 6:F 20:0.75", WITH_FILLER, c -> c.contourAdjustWork(2.0, 0));
+        assertEdit("8:1.0 4:0.0 6:F 5:3.0", WITH_FILLER, c -> c.contourAdjustWork(0.5, 8 * HOUR));
+        assertEdit("3:0.0 7.5:0.6666666666666666 2:0.0 10.5:0.3333333333333333", WITH_DELAY,
+            c -> c.contourAdjustWork(1.5, 0));
+    }
+
+    @Test @DisplayName("Пустые корзины удаляются, добавляются и выделяются в задержку")
+    void emptyBuckets() {
+        assertEdit("8:1.0 6:F 10:1.5", WITH_FILLER, c -> c.removeEmptyBucketAtDuration(8 * HOUR));
+        assertEdit(WITH_FILLER, WITH_FILLER, c -> c.removeEmptyBucketAtDuration(4 * HOUR));
+        assertEdit("5:1.0 2:0.0 7:0.5", WITH_DELAY, c -> c.removeEmptyBucketAtDuration(0));
+        assertEdit("3:0.0 5:1.0 7:0.5", WITH_DELAY, c -> c.removeEmptyBucketAtDuration(8 * HOUR));
+        assertEdit("8:1.0 4:0.0 6:F 10:1.5 3:0.0", WITH_FILLER, c -> PersonalContour.addEmptyBucket(c, 3 * HOUR, true));
+        assertEdit("3:0.0 8:1.0 4:0.0 6:F 10:1.5", WITH_FILLER, c -> PersonalContour.addEmptyBucket(c, 3 * HOUR, false));
+        assertEdit("1:0.0 16:0.5", SINGLE, c -> PersonalContour.addEmptyBucket(c, HOUR, false));
+
+        PersonalContour delayed = contour(WITH_DELAY);
+        assertEquals(3 * HOUR, delayed.extractDelay());
+        assertEquals("5:1.0 2:0.0 7:0.5", describe(delayed));
+        PersonalContour undelayed = contour(WITH_FILLER);
+        assertEquals(0, undelayed.extractDelay());
+        assertEquals(WITH_FILLER, describe(undelayed));
+    }
+
+    @Test @DisplayName("convertToFlatIfPossible делает плоским только контур из одной корзины")
+    void convertToFlat() {
+        assertEdit(WITH_FILLER, WITH_FILLER, c -> c.convertToFlatIfPossible());
+        assertSame(StandardContour.FLAT_CONTOUR, contour(SINGLE).convertToFlatIfPossible());
+    }
+
+    @Test @DisplayName("Цепочка правок даёт эталонные корзины после каждого шага")
+    void editChain() {
+        String[] expected = {
+            "2:1.0 4:0.5 2:1.0 4:0.0 6:F 10:1.5",
+            "2:1.0 4:0.5 2:1.0 2:0.0 2:F 2:0.0 6:F 10:1.5",
+            "2:1.0 2:0.5 2:0.0 2:0.5 2:1.0 4:0.0 6:F 10:1.5",
+            "2:2.0 2:1.0 2:0.0 2:1.0 2:2.0 10:0.0 10:3.0",
+            "2:2.0 2:1.0 2:0.0 2:1.0 2:2.0 10:0.0 10:3.0",
+            "2:2.0 2:1.0 2:0.0 2:1.0 2:2.0 2:0.0 10:3.0",
+            "2:2.0 2:1.0 2:0.0 1:2.0 1:4.0 2:0.0 5:6.0",
+            "2:2.0 2:1.0 2:0.0 1:2.0 1:4.0 2:0.0 14:6.0"
+        };
+        AbstractContour contour = contour(WITH_FILLER);
+        for (int step = 0; step < expected.length; step++) {
+            PersonalContour personal = (PersonalContour) contour;
+            switch (step) {
+            case 0: contour = personal.setInterval(2 * HOUR, 6 * HOUR, 0.5); break;
+            case 1: contour = personal.insertBucket(10 * HOUR, FillerContourBucket.getInstance(2 * HOUR)); break;
+            case 2: contour = personal.shift(4 * HOUR, 10 * HOUR, 2 * HOUR); break;
+            case 3: contour = personal.adjustUnits(2.0, 0); break;
+            case 4: contour = personal.extend(32 * HOUR, 3 * HOUR); break;
+            case 5: contour = personal.removeEmptyBucketAtDuration(12 * HOUR); break;
+            case 6: contour = personal.contourAdjustWork(0.5, 4 * HOUR); break;
+            default: contour = personal.adjustDuration(24 * HOUR, 0); break;
+            }
+            assertEquals(expected[step], describe(contour), "step " + step);
+        }
+    }
+
+    @Test @DisplayName("Запросы: работа, диапазон сдвига и единицы в точке")
+    void queries() {
+        PersonalContour withFiller = contour(WITH_FILLER);
+        assertEquals(23 * HOUR, withFiller.calcTotalWork(0));
+        assertRange(8, 18, withFiller, 8, 12);
+        assertRange(0, 3, withFiller, 0, 3);
+        assertRange(8, 18, withFiller, 12, 18);
+        assertRange(3, 12, withFiller, 3, 8);
+        assertEquals(Long.MAX_VALUE, withFiller.getRangeThatIntervalCanBeMoved(18 * HOUR, 28 * HOUR).getEnd());
+        assertEquals(12 * HOUR, withFiller.getRangeThatIntervalCanBeMoved(18 * HOUR, 28 * HOUR).getStart());
+
+        PersonalContour withDelay = contour(WITH_DELAY);
+        assertEquals(17 * HOUR / 2, withDelay.calcTotalWork(0));
+        assertRange(8, 12, withDelay, 8, 12);
+        assertRange(0, 10, withDelay, 3, 8);
+        assertEquals(Long.MAX_VALUE, withDelay.getRangeThatIntervalCanBeMoved(12 * HOUR, 18 * HOUR).getEnd());
+
+        double[] units = {1.0, 1.0, 0.0, 0.0, 1.5, 1.5, 0.0}; // filler counts as no work, and nothing after the end
+        long[] at = {0, 7 * HOUR, 8 * HOUR, 15 * HOUR, 18 * HOUR, 28 * HOUR - 1, 28 * HOUR};
+        for (int i = 0; i < at.length; i++)
+            assertEquals(units[i], withFiller.getUnitsAt(at[i]), "units at " + at[i]);
+    }
+
+    @Test @DisplayName("Максимальные единицы следуют за корзинами после addEmptyBucket и adjustDuration")
+    void maxUnitsFollowBuckets() {
+        PersonalContour withFiller = contour(WITH_FILLER);
+        assertEquals(1.5, withFiller.getMaxUnits());
+        // the bucket object implementation reported 0 for these two
+        assertEquals(1.5, PersonalContour.addEmptyBucket(withFiller, 3 * HOUR, true).getMaxUnits());
+        assertEquals(1.5, PersonalContour.addEmptyBucket(withFiller, 3 * HOUR, false).getMaxUnits());
+        assertEquals(1.0, PersonalContour.addEmptyBucket(contour(WITH_DELAY), HOUR, true).getMaxUnits());
+        assertEquals(1.5, withFiller.adjustDuration(40 * HOUR, 0).getMaxUnits());
+        assertEquals(1.0, withFiller.adjustDuration(6 * HOUR, 0).getMaxUnits());
+        assertEquals(0.0, PersonalContour.addEmptyBucket(contour("4:0.0"), HOUR, true).getMaxUnits());
+        assertEquals(3.0, withFiller.adjustUnits(2.0, 0).getMaxUnits());
+    }
+
+    private static void assertEdit(String expected, String initial, Function<PersonalContour, AbstractContour> edit) {
+        AbstractContour result = edit.apply(contour(initial));
+        assertTrue(result.isPersonal(), "edit of " + initial);
+        assertEquals(expected, describe(result), "edit of " + initial);
+        assertEquals(initial, describe(contour(initial)), "source changed");
+    }
+
+    private static void assertRange(long expectedStart, long expectedEnd, PersonalContour contour, long start, long end) {
+        MutableInterval range = contour.getRangeThatIntervalCanBeMoved(start * HOUR, end * HOUR);
+        assertEquals(expectedStart * HOUR, range.getStart(), "range start for " + start + "," + end);
+        assertEquals(expectedEnd * HOUR, range.getEnd(), "range end for " + start + "," + end);
+    }
+
+    private static PersonalContour contour(String buckets) {
+        String[] specs = buckets.split(" ");
+        AbstractContourBucket[] contourBuckets = new AbstractContourBucket[specs.length];
+        for (int i = 0; i < specs.length; i++) {
+            String[] spec = specs[i].split(":");
+            long duration = (long) (Double.parseDouble(spec[0]) * HOUR);
+            contourBuckets[i] = spec[1].equals("F") ? FillerContourBucket.getInstance(duration)
+                : PersonalContourBucket.getInstance(duration, Double.parseDouble(spec[1]));
+        }
+        return PersonalContour.getInstance(contourBuckets);
+    }
+
+    /**
+     * @return the buckets as hours:units, F for a filler
+     */
+    private static String describe(AbstractContour contour) {
+        StringBuilder description = new StringBuilder();
+        for (AbstractContourBucket bucket : contour.getContourBuckets()) {
+            long duration = bucket.getBucketDuration(0);
+            if (description.length() > 0)
+                description.append(' ');
+            description.append(duration % HOUR == 0 ? Long.toString(duration / HOUR) : Double.toString((double) duration / HOUR))
+                .append(':').append(bucket.isFiller() ? "F" : Double.toString(bucket.getUnits()));
+        }
+        return description.toString();
+    }
+}
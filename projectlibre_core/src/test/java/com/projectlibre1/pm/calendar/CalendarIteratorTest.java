@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Regression tests for the calendar iterator on epoch-day arithmetic: add(),
+ * compare() and getDayOfWeek() must give the values of the former
+ * GregorianCalendar based iterator, on a calendar with non-working, part-time
+ * and working weekend exception days, moving forward and backward, with dates
+ * carrying milliseconds and dates before 1970.
+ * The expected values were produced by the former implementation.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.calendar;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+
+/** Обход календаря по дням эпохи против значений прежней реализации. */
+class CalendarIteratorTest {
+
+    private static final long DAY = WorkCalendar.MILLIS_IN_DAY;
+    private static final long HOUR = 3600000L;
+    private static final long MINUTE = 60000L;
+    private static final long BASE = LocalDate.of(2026, 1, 5).toEpochDay() * DAY; // a monday
+
+    private static final long[] DATES = {
+        BASE + 9 * HOUR,
+        BASE + 2 * DAY + 11 * HOUR + 30 * MINUTE + 250,
+        BASE + 4 * DAY + 12 * HOUR + 999, // friday, after its short day
+        BASE + 9 * DAY + 10 * HOUR + 1, // holiday
+        BASE + 12 * DAY + 15 * HOUR, // working saturday, at its end
+        BASE + 16 * DAY + 7 * HOUR + 45 * MINUTE + 500, // afternoon only day, before its start
+        BASE + 30 * DAY + 17 * HOUR + 123 // after two holidays
+    };
+
+    private static final long[] DURATIONS = {30 * MINUTE + 7, 8 * HOUR, 50 * HOUR, 200 * HOUR};
+
+    /**
+     * Per date and duration, relative to BASE: forward, forward sooner, backward, backward sooner
+     */
+    private static final long[][] ADDED = {
+        {34200007L, 34200007L, 30599993L, 30599993L, 118800000L, 118800000L, -295200000L, -295200000L,
+            748800000L, 748800000L, -979200000L, -979200000L, 3686400000L, 3686400000L, -3423600000L, -3423600000L},
+        {219600257L, 219600257L, 212400243L, 212400243L, 300600250L, 300600250L, 127800250L, 127800250L,
+            1261800250L, 1261800250L, -552599750L, -552599750L, 3922200250L, 3922200250L, -3241799750L, -3241799750L},
+        {635401006L, 635401006L, 387000992L, 387000992L, 720000999L, 666000999L, 302400999L, 302400999L,
+            1411200999L, 1357200999L, -377999001L, -377999001L, 4287600999L, 4287600999L, -2822399001L, -2876399001L},
+        {815400008L, 815400008L, 811799994L, 811799994L, 900000001L, 900000001L, 727200001L, 727200001L,
+            1522800001L, 1522800001L, -230399999L, -284399999L, 4435200001L, 4381200001L, -2728799999L, -2728799999L},
+        {1240200007L, 1240200007L, 1088999993L, 1088999993L, 1324800000L, 1270800000L, 986400000L, 986400000L,
+            2023200000L, 2023200000L, 216000000L, 216000000L, 4885200000L, 4885200000L, -2278800000L, -2278800000L},
+        {1413000507L, 1413000507L, 1355400493L, 1355400493L, 1497600500L, 1443600500L, 1324800500L, 1270800500L,
+            2127600500L, 2127600500L, 374400500L, 320400500L, 5040000500L, 4986000500L, -2123999500L, -2123999500L},
+        {2709000130L, 2709000130L, 2651400116L, 2651400116L, 2793600123L, 2739600123L, 2620800123L, 2566800123L,
+            3664800123L, 3664800123L, 1522800123L, 1522800123L, 6163200123L, 6109200123L, -1000799877L, -1000799877L}
+    };
+
+    /**
+     * compare(DATES[j], DATES[i]) in row i, column j
+     */
+    private static final long[][] COMPARED = {
+        {0L, 66600000L, 126000000L, 183600000L, 248400000L, 306000000L, 522000000L},
+        {-66600000L, 0L, 59400000L, 95400000L, 160200000L, 217800000L, 484200000L},
+        {-126000000L, -59400000L, 0L, 36000000L, 129600000L, 151200000L, 424800000L},
+        {-183600000L, -95400000L, -36000000L, 0L, 64800000L, 122400000L, 417600000L},
+        {-248400000L, -160200000L, -129600000L, -64800000L, 0L, 57600000L, 273600000L},
+        {-306000000L, -217800000L, -151200000L, -122400000L, -57600000L, 0L, 259200000L},
+        {-522000000L, -484200000L, -424800000L, -417600000L, -273600000L, -259200000L, 0L}
+    };
+
+    private static CalendarDefinition calendar;
+
+    @BeforeAll
+    static void initCore() throws Exception {
+        TestEnvironmentInitializer.requireEnvironment();
+        calendar = createCalendar();
+    }
+
+    @Test @DisplayName("add вперёд и назад совпадает с прежней реализацией, в том числе с миллисекундами")
+    void addMatchesFormerIterator() {
+        for (int i = 0; i < DATES.length; i++) {
+            for (int j = 0; j < DURATIONS.length; j++) {
+                long date = DATES[i];
+                long duration = DURATIONS[j];
+                assertAdded(ADDED[i][4 * j], date, duration, false);
+                assertAdded(ADDED[i][4 * j + 1], date, duration, true);
+                assertAdded(ADDED[i][4 * j + 2], date, -duration, false);
+                assertAdded(ADDED[i][4 * j + 3], date, -duration, true);
+            }
+        }
+    }
+
+    @Test @DisplayName("compare совпадает с прежней реализацией для дат в любом порядке")
+    void compareMatchesFormerIterator() {
+        for (int i = 0; i < DATES.length; i++) {
+            for (int j = 0; j < DATES.length; j++) {
+                long later = DATES[j];
+                long earlier = DATES[i];
+                assertEquals(COMPARED[i][j], calendar.compare(later, earlier, false), "compare " + later + " and " + earlier);
+                if (later >= earlier)
+                    assertEquals(COMPARED[i][j], calendar.compareWithIterator(later, earlier),
+                        "iterator compare " + later + " and " + earlier);
+            }
+        }
+    }
+
+    @Test @DisplayName("Обратное планирование с отрицательными датами зеркально прямому")
+    void negativeDatesMirrorPositive() {
+        for (int i = 0; i < DATES.length; i++) {
+            long date = DATES[i];
+            // a negative date swaps the direction and the useSooner flag
+            assertEquals(BASE + ADDED[i][7], -calendar.add(-date, 8 * HOUR, false), "reverse add 8h to " + date);
+            assertEquals(BASE + ADDED[i][8], -calendar.add(-date, -50 * HOUR, true), "reverse add -50h to " + date);
+            assertEquals(-COMPARED[i][6], calendar.compare(-DATES[6], -date, false), "reverse compare " + date);
+        }
+    }
+
+    @Test @DisplayName("День недели по дню эпохи совпадает с прежним, в том числе до 1970 года")
+    void dayOfWeekMatchesFormerCalendar() {
+        long[] dates = {
+            -1L,
+            -DAY,
+            -DAY - 1,
+            -7 * DAY + 5,
+            LocalDate.of(1900, 1, 1).toEpochDay() * DAY + 1,
+            LocalDate.of(1969, 12, 31).toEpochDay() * DAY + DAY - 1,
+            1L,
+            BASE,
+            BASE + 5 * DAY + 999,
+            BASE + 6 * DAY - 1
+        };
+        int[] expected = {3, 3, 2, 4, 1, 3, 4, 1, 6, 6}; // 0 is sunday
+        for (int i = 0; i < dates.length; i++)
+            assertEquals(expected[i], CalendarDefinition.getDayOfWeek(dates[i]), "day of week of " + dates[i]);
+    }
+
+    private static void assertAdded(long expected, long date, long duration, boolean useSooner) {
+        String message = "add " + duration + " to " + date + " useSooner " + useSooner;
+        assertEquals(BASE + expected, calendar.add(date, duration, useSooner), message);
+        assertEquals(BASE + expected, calendar.addWithIterator(date, Math.abs(duration), duration > 0, useSooner),
+            "iterator " + message);
+    }
+
+    /**
+     * Standard calendar with short fridays, holidays, an afternoon only day and a working saturday
+     */
+    private static CalendarDefinition createCalendar() throws Exception {
+        WorkingCalendar calendar = WorkingCalendar.getStandardBasedInstance();
+        calendar.setWeekDayWorkingHours(6, hours(8, 12)); // friday, sunday is 1
+        calendar.setDayNonWorking(BASE + 9 * DAY);
+        calendar.setDayWorkingHours(BASE + 12 * DAY, hours(9, 15));
+        calendar.setDayWorkingHours(BASE + 16 * DAY, hours(13, 17));
+        calendar.setDayNonWorking(BASE + 28 * DAY);
+        calendar.setDayNonWorking(BASE + 29 * DAY);
+        return calendar.getConcreteInstance();
+    }
+
+    private static WorkingHours hours(int from, int to) throws WorkRangeException {
+        WorkingHours hours = new WorkingHours();
+        hours.setInterval(0, WorkingHours.hourTime(from), WorkingHours.hourTime(to));
+        return hours;
+    }
+}
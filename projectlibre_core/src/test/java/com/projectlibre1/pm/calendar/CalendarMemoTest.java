@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Tests for CalendarMemo: memoized date math must equal the calendar's own,
+ * and keys must identify calendars by id, without holding them.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.calendar;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+
+/** Мемо календарных вычислений: те же результаты и никаких сильных ссылок на календари. */
+class CalendarMemoTest {
+
+    private static final long HOUR = 3600000L;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @AfterEach
+    void disableMemo() {
+        CalendarMemo.setEnabled(false);
+    }
+
+    @Test @DisplayName("Мемо даёт те же даты, что календарь, и после его правки")
+    void memoMatchesCalendar() {
+        WorkingCalendar calendar = WorkingCalendar.getStandardInstance().makeScratchCopy();
+        long[] expected = math(calendar);
+        CalendarMemo.setEnabled(true);
+        assertArrayEquals(expected, math(calendar), "first calls");
+        assertArrayEquals(expected, math(calendar), "memoized calls");
+        assertTrue(CalendarMemo.getInstance().getHitCount() > 0);
+
+        calendar.invalidate(); // a new version: entries of the old one must not be used
+        CalendarMemo.setEnabled(false);
+        expected = math(calendar);
+        CalendarMemo.setEnabled(true);
+        assertArrayEquals(expected, math(calendar), "after invalidate");
+    }
+
+    @Test @DisplayName("Ключи мемо не ссылаются на календари, копии календаря не делят записи")
+    void memoKeysHoldNoCalendar() throws Exception {
+        // every calendar stays registered by its unique id, so reachability can't be tested with the collector
+        for (Field field : Class.forName(CalendarMemo.class.getName() + "$Key").getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers()))
+                assertTrue(field.getType().isPrimitive(), "CalendarMemo.Key." + field.getName() + " is a reference");
+        }
+        WorkingCalendar calendar = WorkingCalendar.getStandardInstance().makeScratchCopy();
+        WorkingCalendar copy = (WorkingCalendar) calendar.clone();
+        assertNotEquals(calendar.getMemoId(), copy.getMemoId(), "a clone shares the memo id of its original");
+    }
+
+    private static long[] math(WorkingCalendar calendar) {
+        long date = TestProjects.PROJECT_START + 9 * HOUR;
+        long later = calendar.add(date, 30 * HOUR, false);
+        return new long[] {
+            later,
+            calendar.add(date, 30 * HOUR, true),
+            calendar.compare(later, date, false),
+            calendar.adjustInsideCalendar(date - 9 * HOUR, false),
+            calendar.adjustInsideCalendar(date - 9 * HOUR, true)
+        };
+    }
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Tests for WorkingCalendar.getVersion(), the key of CalendarMemo and
+ * IntersectionCalendarCache entries: a change of a calendar or of its base
+ * chain must never give back a version seen before.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.calendar;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+
+/** Версия календаря не повторяется после правок и смены базового календаря. */
+class WorkingCalendarVersionTest {
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("Смена базы на календарь с меньшим числом правок даёт новую версию")
+    void versionNeverRepeatsWhenBaseIsReplaced() throws Exception {
+        WorkingCalendar first = WorkingCalendar.getStandardBasedInstance();
+        WorkingCalendar second = WorkingCalendar.getStandardBasedInstance();
+        first.invalidate();
+        first.invalidate();
+        second.invalidate();
+        WorkingCalendar derived = WorkingCalendar.getInstanceBasedOn(first);
+
+        Set<Long> seen = new HashSet<>();
+        assertTrue(seen.add(derived.getVersion()));
+        derived.setBaseCalendar(second); // one own change, one base change less: a sum of counters would repeat
+        assertTrue(seen.add(derived.getVersion()), "version repeated after replacing the base calendar");
+        second.invalidate();
+        assertTrue(seen.add(derived.getVersion()), "version repeated after a change of the base calendar");
+        derived.setBaseCalendar(first);
+        assertTrue(seen.add(derived.getVersion()), "version repeated after restoring the base calendar");
+        long version = derived.getVersion();
+        second.invalidate();
+        assertEquals(version, derived.getVersion(), "a calendar which is no longer the base changed the version");
+    }
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Equivalence tests for the working time index: CalendarDefinition.add() and
+ * compare(), which use the index, must give the same results as the iterator
+ * algorithm on a calendar with a short week day, holidays and part-time days,
+ * including dates far enough apart to grow the index.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.calendar;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+
+/** Сложение и сравнение дат по индексу рабочего времени против обхода календаря. */
+class WorkingTimeIndexTest {
+
+    private static final long DAY = WorkCalendar.MILLIS_IN_DAY;
+    private static final long MINUTE = 60000L;
+    private static final long FIRST_DAY = LocalDate.of(2026, 1, 5).toEpochDay();
+    private static final int DAYS = 1500;
+    private static final int SAMPLES = 3000;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("add и compare по индексу совпадают с обходом календаря")
+    void indexedMathMatchesIterator() throws Exception {
+        Random random = new Random(4L);
+        CalendarDefinition calendar = createCalendar(random);
+
+        for (int i = 0; i < SAMPLES; i++) {
+            long date = randomDate(random);
+            long duration = (1 + random.nextInt(80 * 8 * 60)) * MINUTE;
+            boolean forward = random.nextBoolean();
+            boolean useSooner = random.nextBoolean();
+            assertEquals(calendar.addWithIterator(date, duration, forward, useSooner),
+                calendar.add(date, forward ? duration : -duration, useSooner),
+                "add " + (forward ? "" : "-") + duration + " to " + date + " useSooner " + useSooner);
+
+            long other = randomDate(random);
+            long later = Math.max(date, other);
+            long earlier = Math.min(date, other);
+            assertEquals(calendar.compareWithIterator(later, earlier), calendar.compare(later, earlier, false),
+                "compare " + later + " and " + earlier);
+        }
+    }
+
+    /**
+     * Standard calendar with short fridays, holidays, part-time days and working saturdays
+     */
+    private static CalendarDefinition createCalendar(Random random) throws Exception {
+        WorkingCalendar calendar = WorkingCalendar.getStandardBasedInstance();
+        calendar.setWeekDayWorkingHours(6, hours(8, 12)); // friday, sunday is 1
+        for (int i = 0; i < 60; i++) {
+            long day = (FIRST_DAY + random.nextInt(DAYS)) * DAY;
+            switch (random.nextInt(3)) {
+            case 0:
+                calendar.setDayNonWorking(day);
+                break;
+            case 1:
+                calendar.setDayWorkingHours(day, hours(13, 17));
+                break;
+            default:
+                calendar.setDayWorkingHours(day, hours(9, 15));
+                break;
+            }
+        }
+        return calendar.getConcreteInstance();
+    }
+
+    private static WorkingHours hours(int from, int to) throws WorkRangeException {
+        WorkingHours hours = new WorkingHours();
+        hours.setInterval(0, WorkingHours.hourTime(from), WorkingHours.hourTime(to));
+        return hours;
+    }
+
+    /**
+     * @return a date in whole minutes, so that the index can be used
+     */
+    private static long randomDate(Random random) {
+        return (FIRST_DAY + random.nextInt(DAYS)) * DAY + random.nextInt(24 * 60) * MINUTE;
+    }
+}
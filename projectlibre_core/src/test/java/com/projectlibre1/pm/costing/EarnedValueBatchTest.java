@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Equivalence tests for EarnedValueBatch: every indicator of every task and of
+ * the project must equal EarnedValueCalculator evaluated one field at a time,
+ * and evaluating at a given date must equal moving the status date there.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.costing;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.field.FieldContext;
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.snapshot.Snapshottable;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+
+/** Пакетный расчёт освоенного объёма против расчёта по одному показателю. */
+class EarnedValueBatchTest {
+
+    private static final long DAY = 86400000L;
+    private static final long START = 0;
+    private static final long END = FieldContext.defaultEnd;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("Показатели пакета равны EarnedValueCalculator для задач и проекта")
+    void batchMatchesCalculator() {
+        TestProjects.Generated generated = progressed(60, 6, 7L);
+        Project project = generated.project;
+
+        EarnedValueBatch batch = EarnedValueBatch.evaluate(project);
+
+        assertEquals(project.getStatusDate(), batch.getStatusDate());
+        for (NormalTask task : generated.tasks) {
+            int row = batch.indexOf(task);
+            assertSame(task, batch.getTask(row));
+            assertRow(batch, row, task, task.getName());
+        }
+        int projectRow = batch.getProjectRow();
+        assertRow(batch, projectRow, project, "project");
+        assertNull(batch.getTask(projectRow));
+        assertTrue(batch.getBcws()[projectRow] > 0 && batch.getBcwp()[projectRow] > 0 && batch.getAcwp()[projectRow] > 0,
+            "no earned value to compare");
+    }
+
+    @Test @DisplayName("Расчёт на заданную дату равен расчёту после переноса даты отчёта")
+    void givenStatusDateMatchesProjectStatusDate() {
+        TestProjects.Generated generated = progressed(40, 4, 11L);
+        Project project = generated.project;
+        long date = generated.tasks.get(0).getStart() + 20 * DAY;
+
+        EarnedValueBatch atDate = EarnedValueBatch.evaluate(project, date);
+        project.setStatusDate(date);
+        EarnedValueBatch moved = EarnedValueBatch.evaluate(project);
+
+        assertArrayEquals(moved.getBcws(), atDate.getBcws(), 1e-6);
+        assertArrayEquals(moved.getBcwp(), atDate.getBcwp(), 1e-6);
+        assertArrayEquals(moved.getAcwp(), atDate.getAcwp(), 1e-6);
+        assertArrayEquals(moved.getEac(), atDate.getEac(), 1e-6);
+        assertArrayEquals(moved.getTcpi(), atDate.getTcpi(), 1e-6);
+        assertRow(atDate, atDate.getProjectRow(), project, "project");
+    }
+
+    @Test @DisplayName("Геттеры возвращают копии массивов")
+    void gettersReturnCopies() {
+        EarnedValueBatch batch = EarnedValueBatch.evaluate(progressed(10, 2, 3L).project);
+        double bac = batch.getBac()[batch.getProjectRow()];
+        batch.getBac()[batch.getProjectRow()] = bac + 1;
+        assertEquals(bac, batch.getBac()[batch.getProjectRow()]);
+    }
+
+    /**
+     * Baselined project whose schedule then slipped, with some progress reported
+     */
+    private static TestProjects.Generated progressed(int taskCount, int resourceCount, long seed) {
+        TestProjects.Generated generated = TestProjects.create(taskCount, resourceCount, seed);
+        Project project = generated.project;
+        long start = generated.tasks.get(0).getStart();
+        project.saveCurrentToSnapshot(Snapshottable.BASELINE, true, null, false);
+        generated.tasks.get(0).setDuration(6 * TestProjects.WORK_DAY);
+        project.recalculate();
+        for (int i = 0; i < generated.tasks.size(); i += 3) {
+            generated.tasks.get(i).setPercentComplete(i % 2 == 0 ? 1.0 : 0.5);
+        }
+        project.setStatusDate(start + 12 * DAY);
+        return generated;
+    }
+
+    private static void assertRow(EarnedValueBatch batch, int row, EarnedValueValues ev, String what) {
+        EarnedValueCalculator calculator = EarnedValueCalculator.getInstance();
+        assertEquals(ev.bcws(START, END), batch.getBcws()[row], 1e-6, what + " bcws");
+        assertEquals(ev.bcwp(START, END), batch.getBcwp()[row], 1e-6, what + " bcwp");
+        assertEquals(ev.acwp(START, END), batch.getAcwp()[row], 1e-6, what + " acwp");
+        assertEquals(ev.bac(START, END), batch.getBac()[row], 1e-6, what + " bac");
+        assertEquals(calculator.eac(ev), batch.getEac()[row], 1e-6, what + " eac");
+        assertEquals(calculator.cv(ev), batch.getCv()[row], 1e-6, what + " cv");
+        assertEquals(calculator.sv(ev), batch.getSv()[row], 1e-6, what + " sv");
+        assertEquals(calculator.cpi(ev), batch.getCpi()[row], 1e-6, what + " cpi");
+        assertEquals(calculator.spi(ev), batch.getSpi()[row], 1e-6, what + " spi");
+        assertEquals(calculator.vac(ev), batch.getVac()[row], 1e-6, what + " vac");
+        assertEquals(calculator.tcpi(ev), batch.getTcpi()[row], 1e-6, what + " tcpi");
+    }
+}
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Equivalence tests for the incremental critical path: after each random edit
+ * (duration, link added, link removed) the dates left by the incremental
+ * passes must equal those of a full recalculation, while far fewer tasks are
+ * treated than by passes walking the whole predecessor list. The same holds
+ * for each constraint type, lead and lag edits, summary tasks and the edits
+ * which change the tasks linked to the start and finish sentinels.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.criticalpath;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.association.InvalidAssociationException;
+import com.projectlibre1.configuration.Configuration;
+import com.projectlibre1.field.Field;
+import com.projectlibre1.grouping.core.model.NodeModel;
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.dependency.Dependency;
+import com.projectlibre1.pm.dependency.DependencyService;
+import com.projectlibre1.pm.dependency.DependencyType;
+import com.projectlibre1.pm.scheduling.ConstraintType;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+
+/** Инкрементальный расчёт критического пути против полного пересчёта. */
+class IncrementalCriticalPathTest {
+
+    private static final int TASK_COUNT = 60;
+    private static final int EDIT_COUNT = 40;
+    private static final int[] LINK_TYPES = {DependencyType.FS, DependencyType.FS, DependencyType.SS, DependencyType.FF};
+    private static final long DAY = 86400000L;
+    private static final int[] CONSTRAINT_TYPES = {ConstraintType.ALAP, ConstraintType.MSO, ConstraintType.MFO,
+        ConstraintType.SNET, ConstraintType.SNLT, ConstraintType.FNET, ConstraintType.FNLT};
+    private static Field DURATION;
+    private static Field LAG;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+        DURATION = Configuration.getFieldFromId("Field.duration");
+        LAG = Configuration.getFieldFromId("Field.lag");
+    }
+
+    /** The same edit applied to a project of each pair */
+    private interface Edit {
+        String apply(TestProjects.Generated generated);
+    }
+
+    /**
+     * Two identical projects receiving the same edits: one is scheduled by the incremental passes the edit events run, the
+     * other is recalculated in full after each edit
+     */
+    private static final class Pair {
+        final TestProjects.Generated incremental;
+        final TestProjects.Generated full;
+
+        Pair(int taskCount, long seed) {
+            incremental = TestProjects.create(taskCount, 2, seed);
+            full = TestProjects.create(taskCount, 2, seed);
+            ((CriticalPath) full.project.getSchedulingAlgorithm()).setIncremental(false);
+        }
+
+        void assertEdit(Edit edit) {
+            String what = edit.apply(incremental);
+            edit.apply(full);
+            full.project.recalculate();
+            assertEquals(full.project.getStart(), incremental.project.getStart(), what + ": project start");
+            assertEquals(full.project.getEnd(), incremental.project.getEnd(), what + ": project end");
+            for (int i = 0; i < full.tasks.size(); i++) {
+                assertArrayEquals(dates(full.tasks.get(i)), dates(incremental.tasks.get(i)), what + ": "
+                    + incremental.tasks.get(i).getName() + " early start/finish, late start/finish, start/end");
+            }
+        }
+    }
+
+    @Test @DisplayName("Ограничения каждого типа и их снятие дают те же даты, что полный пересчёт")
+    void constraintsMatchRecalculation() {
+        for (int c = 0; c < CONSTRAINT_TYPES.length; c++) {
+            int type = CONSTRAINT_TYPES[c];
+            Pair pair = new Pair(30, 23L + c);
+            for (int index = 4; index < 30; index += 12) {
+                int constrained = index;
+                long date = TestProjects.PROJECT_START + (index + 2) * DAY + 8 * 3600000L;
+                pair.assertEdit(generated -> {
+                    NormalTask task = generated.tasks.get(constrained);
+                    task.setScheduleConstraintAndUpdate(type, date);
+                    return "constraint " + type + " on " + task.getName();
+                });
+                pair.assertEdit(generated -> {
+                    NormalTask task = generated.tasks.get(constrained - 2);
+                    setDuration(task, task.getDuration() + 3 * TestProjects.WORK_DAY);
+                    return "duration before constraint " + type + " of " + task.getName();
+                });
+                pair.assertEdit(generated -> {
+                    NormalTask task = generated.tasks.get(constrained + 1);
+                    setDuration(task, task.getDuration() + 2 * TestProjects.WORK_DAY);
+                    return "duration after constraint " + type + " of " + task.getName();
+                });
+                pair.assertEdit(generated -> {
+                    NormalTask task = generated.tasks.get(constrained);
+                    task.setScheduleConstraintAndUpdate(ConstraintType.ASAP, 0L);
+                    return "constraint " + type + " removed from " + task.getName();
+                });
+            }
+        }
+    }
+
+    @Test @DisplayName("Правки задержки и опережения связей дают те же даты, что полный пересчёт")
+    void leadAndLagEditsMatchRecalculation() {
+        Pair pair = new Pair(30, 29L);
+        long[] lags = {2 * TestProjects.WORK_DAY, -TestProjects.WORK_DAY, 0L, 3 * TestProjects.WORK_DAY};
+        for (int i = 0; i < 12; i++) {
+            int index = 1 + (7 * i) % 29;
+            long lag = lags[i % lags.length];
+            pair.assertEdit(generated -> {
+                NormalTask task = generated.tasks.get(index);
+                Dependency dependency = (Dependency) task.getPredecessorList().get(0);
+                dependency.setLag(lag);
+                generated.project.getObjectEventManager().fireUpdateEvent(task, dependency, LAG);
+                return "lag " + lag + " before " + task.getName();
+            });
+        }
+    }
+
+    @Test @DisplayName("Суммарные задачи получают те же даты, что при полном пересчёте")
+    void summaryTasksMatchRecalculation() {
+        Pair pair = new Pair(30, 31L);
+        for (TestProjects.Generated generated : new TestProjects.Generated[] {pair.incremental, pair.full}) {
+            for (int parent = 2; parent < 26; parent += 6) {
+                indent(generated.project, generated.tasks.get(parent + 1));
+                indent(generated.project, generated.tasks.get(parent + 2));
+            }
+            generated.project.recalculate(); // the passes below start from the same hierarchy and dates
+        }
+        for (int i = 0; i < 10; i++) {
+            int index = 3 + (5 * i) % 24;
+            long duration = (1 + i % 4) * TestProjects.WORK_DAY;
+            pair.assertEdit(generated -> {
+                NormalTask task = generated.tasks.get(index);
+                if (task.isWbsParent())
+                    task = generated.tasks.get(index + 1);
+                setDuration(task, duration);
+                return "duration of " + task.getName() + " under " + task.getWbsParentTask();
+            });
+        }
+        pair.assertEdit(generated -> {
+            link(generated.tasks.get(0), generated.tasks.get(8), TestProjects.WORK_DAY);
+            return "link to summary " + generated.tasks.get(8).getName();
+        });
+        pair.assertEdit(generated -> {
+            NormalTask task = generated.tasks.get(10);
+            task.setScheduleConstraintAndUpdate(ConstraintType.SNET, TestProjects.PROJECT_START + 20 * DAY);
+            return "constraint on child " + task.getName();
+        });
+    }
+
+    @Test @DisplayName("Правки, меняющие связи со стартовым и финишным сентинелами, дают те же даты")
+    void sentinelChangesMatchRecalculation() {
+        Pair pair = new Pair(20, 37L);
+        pair.assertEdit(generated -> {
+            NormalTask task = generated.tasks.get(generated.tasks.size() - 1);
+            setDuration(task, task.getDuration() + 10 * TestProjects.WORK_DAY);
+            return "longer end task " + task.getName();
+        });
+        pair.assertEdit(generated -> {
+            NormalTask task = generated.tasks.get(5);
+            while (!task.getSuccessorList().isEmpty())
+                DependencyService.getInstance().remove((Dependency) task.getSuccessorList().get(0), task, false);
+            return "new end task " + task.getName();
+        });
+        pair.assertEdit(generated -> {
+            NormalTask task = generated.tasks.get(12);
+            while (!task.getPredecessorList().isEmpty())
+                DependencyService.getInstance().remove((Dependency) task.getPredecessorList().get(0), task, false);
+            return "new start task " + task.getName();
+        });
+        pair.assertEdit(generated -> {
+            link(generated.tasks.get(generated.tasks.size() - 1), generated.tasks.get(12), 0L);
+            return "start task linked after the end task";
+        });
+        pair.assertEdit(generated -> {
+            NormalTask task = generated.project.createScriptedTask();
+            task.setName("Added");
+            setDuration(task, 30 * TestProjects.WORK_DAY);
+            generated.tasks.add(task);
+            return "new unlinked task";
+        });
+        pair.assertEdit(generated -> {
+            NormalTask task = generated.tasks.get(generated.tasks.size() - 1);
+            setDuration(task, TestProjects.WORK_DAY);
+            return "shorter unlinked task";
+        });
+    }
+
+    @Test @DisplayName("После каждой правки даты равны полному пересчёту, задач обработано меньше, чем полным обходом")
+    void incrementalDatesMatchRecalculation() {
+        TestProjects.Generated incremental = TestProjects.create(TASK_COUNT, 3, 17L);
+        TestProjects.Generated full = TestProjects.create(TASK_COUNT, 3, 17L);
+        CriticalPath incrementalPath = (CriticalPath) incremental.project.getSchedulingAlgorithm();
+        CriticalPath fullPath = (CriticalPath) full.project.getSchedulingAlgorithm();
+        assertTrue(incrementalPath.isIncremental(), "incremental passes are on by default");
+        fullPath.setIncremental(false);
+        Random incrementalEdits = new Random(17L);
+        Random fullEdits = new Random(17L);
+
+        long incrementalTouched = incrementalPath.getTotalTasksTouched();
+        long fullTouched = fullPath.getTotalTasksTouched();
+        for (int edit = 0; edit < EDIT_COUNT; edit++) {
+            String what = edit(incrementalEdits, incremental.tasks);
+            edit(fullEdits, full.tasks);
+            fullTouched -= recalculate(full.project, fullPath);
+
+            assertEquals(full.project.getEnd(), incremental.project.getEnd(), what + ": project end");
+            for (int i = 0; i < TASK_COUNT; i++) {
+                assertArrayEquals(dates(full.tasks.get(i)), dates(incremental.tasks.get(i)), what + ": "
+                    + incremental.tasks.get(i).getName() + " early start/finish, late start/finish, start/end");
+            }
+        }
+        incrementalTouched = incrementalPath.getTotalTasksTouched() - incrementalTouched;
+        fullTouched = fullPath.getTotalTasksTouched() - fullTouched;
+        assertTrue(incrementalTouched < fullTouched / 2, "incremental passes treated " + incrementalTouched
+            + " tasks, full walks " + fullTouched);
+    }
+
+    /**
+     * Applies one random edit
+     * @return description of the edit
+     */
+    private static String edit(Random random, List<NormalTask> tasks) {
+        NormalTask task = tasks.get(random.nextInt(tasks.size()));
+        switch (random.nextInt(3)) {
+        case 0:
+            setDuration(task, (1 + random.nextInt(6)) * TestProjects.WORK_DAY);
+            return "duration of " + task.getName();
+        case 1:
+            int i = random.nextInt(tasks.size() - 1);
+            NormalTask successor = tasks.get(i + 1 + random.nextInt(tasks.size() - i - 1));
+            try {
+                DependencyService.getInstance().newDependency(tasks.get(i), successor, LINK_TYPES[random.nextInt(4)],
+                    random.nextInt(2) * TestProjects.WORK_DAY, successor);
+            } catch (InvalidAssociationException e) {
+                // already linked
+            }
+            return "link " + tasks.get(i).getName() + " -> " + successor.getName();
+        default:
+            if (task.getPredecessorList().isEmpty()) {
+                setDuration(task, task.getDuration() + TestProjects.WORK_DAY);
+                return "duration of " + task.getName();
+            }
+            Dependency dependency = (Dependency) task.getPredecessorList().get(0);
+            DependencyService.getInstance().remove(dependency, task, false);
+            return "unlink " + task.getName();
+        }
+    }
+
+    /**
+     * Recalculates the whole project
+     * @return number of tasks the recalculation treated
+     */
+    private static long recalculate(Project project, CriticalPath path) {
+        long touched = path.getTotalTasksTouched();
+        project.recalculate();
+        return path.getTotalTasksTouched() - touched;
+    }
+
+    /**
+     * Sets the duration and sends the update event a duration edit in the spreadsheet sends
+     */
+    private static void setDuration(NormalTask task, long duration) {
+        task.setDuration(duration);
+        task.getProject().getObjectEventManager().fireUpdateEvent(task, task, DURATION);
+    }
+
+    private static long[] dates(NormalTask task) {
+        return new long[] {task.getEarlyStart(), task.getEarlyFinish(), task.getLateStart(), task.getLateFinish(),
+            task.getStart(), task.getEnd()};
+    }
+
+    /**
+     * Adds a finish to start link, notifying the critical path as the link dialog does
+     */
+    private static void link(NormalTask predecessor, NormalTask successor, long lag) {
+        try {
+            DependencyService.getInstance().newDependency(predecessor, successor, DependencyType.FS, lag, successor);
+        } catch (InvalidAssociationException e) {
+            fail("link " + predecessor.getName() + " -> " + successor.getName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Makes the task a child of the task above it, as the indent action of the outline does
+     */
+    private static void indent(Project project, NormalTask task) {
+        NodeModel model = project.getTaskOutlines().getDefaultOutline();
+        model.getHierarchy().indent(Collections.singletonList(model.search(task)), 1, model, NodeModel.EVENT);
+    }
+}
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Equivalence tests for the parallel critical path: on a layered network whose
+ * waves are wide enough to be split between workers, the dates left by the
+ * parallel full passes must equal those of the sequential full passes, on the
+ * first schedule and after random duration edits.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.criticalpath;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.task.NormalTask;
+
+/** Параллельный расчёт критического пути против последовательного. */
+class ParallelCriticalPathTest {
+
+    private static final int LAYERS = 6;
+    private static final int WIDTH = 2 * CriticalPath.PARALLEL_WAVE_THRESHOLD;
+    private static final int EDIT_ROUNDS = 4;
+    private static final int EDITS_PER_ROUND = 25;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("Параллельные проходы дают те же ранние, поздние и текущие даты, что последовательные")
+    void parallelDatesMatchSequential() {
+        TestProjects.Generated sequential = TestProjects.createLayered(LAYERS, WIDTH, 6, 31L);
+        TestProjects.Generated parallel = TestProjects.createLayered(LAYERS, WIDTH, 6, 31L);
+        CriticalPath parallelPath = (CriticalPath) parallel.project.getSchedulingAlgorithm();
+        // incremental passes would bypass the parallel full passes
+        ((CriticalPath) sequential.project.getSchedulingAlgorithm()).setIncremental(false);
+        parallelPath.setIncremental(false);
+        assertWideWaves(parallelPath);
+        sequential.project.setParallelScheduling(false);
+        parallel.project.setParallelScheduling(true);
+        sequential.project.recalculate();
+        parallel.project.recalculate();
+        assertSameDates(sequential, parallel, "initial");
+
+        Random sequentialEdits = new Random(31L);
+        Random parallelEdits = new Random(31L);
+        for (int round = 0; round < EDIT_ROUNDS; round++) {
+            edit(sequentialEdits, sequential);
+            edit(parallelEdits, parallel);
+            assertSameDates(sequential, parallel, "round " + round);
+        }
+    }
+
+    /** The network must have waves the parallel pass splits between workers, in both directions. */
+    private static void assertWideWaves(CriticalPath path) {
+        PredecessorTaskList.TopologicalIndex index = path.predecessorTaskList.getTopologicalIndex();
+        for (boolean forward : new boolean[] {true, false}) {
+            Wavefront wavefront = index.getWavefront(forward);
+            int widest = 0;
+            for (int wave = 0; wave < wavefront.getWaveCount(); wave++)
+                widest = Math.max(widest, wavefront.getWaveEnd(wave) - wavefront.getWaveStart(wave));
+            assertTrue(widest >= CriticalPath.PARALLEL_WAVE_THRESHOLD, (forward ? "forward" : "backward")
+                + " widest wave " + widest);
+        }
+    }
+
+    private static void edit(Random random, TestProjects.Generated generated) {
+        for (int i = 0; i < EDITS_PER_ROUND; i++) {
+            NormalTask task = generated.tasks.get(random.nextInt(generated.tasks.size()));
+            task.setDuration((1 + random.nextInt(8)) * TestProjects.WORK_DAY);
+        }
+        generated.project.recalculate();
+    }
+
+    private static void assertSameDates(TestProjects.Generated expected, TestProjects.Generated actual, String phase) {
+        assertEquals(expected.project.getEnd(), actual.project.getEnd(), phase + ": project end");
+        for (int i = 0; i < expected.tasks.size(); i++) {
+            NormalTask task = actual.tasks.get(i);
+            assertArrayEquals(dates(expected.tasks.get(i)), dates(task), phase + ": " + task.getName()
+                + " early start/finish, late start/finish, start/end");
+        }
+    }
+
+    private static long[] dates(NormalTask task) {
+        return new long[] {task.getEarlyStart(), task.getEarlyFinish(), task.getLateStart(), task.getLateFinish(),
+            task.getStart(), task.getEnd()};
+    }
+}
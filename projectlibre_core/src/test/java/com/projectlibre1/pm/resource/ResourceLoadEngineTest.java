@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Equivalence tests for ResourceLoadEngine: the sweep must give the same peak
+ * units and overallocated periods as summing the assignment loads separately
+ * on every interval between two boundaries, and Field.overallocated must read
+ * the same flag.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.resource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.configuration.Configuration;
+import com.projectlibre1.field.Field;
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.assignment.Assignment;
+import com.projectlibre1.pm.assignment.AssignmentLoad;
+import com.projectlibre1.pm.availability.Availability;
+
+/** Нагрузка ресурсов: проход по отсортированным границам против расчёта по каждому интервалу. */
+class ResourceLoadEngineTest {
+
+    private static final double EPSILON = 1E-6;
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("Проход по границам равен расчёту по каждому интервалу")
+    void sweepMatchesPerIntervalSums() {
+        TestProjects.Generated generated = TestProjects.create(80, 4, 3L);
+        ((ResourceImpl) generated.resources.get(0)).setMaximumUnits(1.5);
+        generated.tasks.get(5).setDuration(9 * TestProjects.WORK_DAY);
+        generated.project.recalculate();
+
+        int overallocated = 0;
+        for (ResourceLoad load : ResourceLoadEngine.compute(generated.project.getResourcePool())) {
+            assertSameAsIntervals(load);
+            if (load.isOverallocated()) {
+                overallocated++;
+            }
+        }
+        assertTrue(overallocated > 0, "generated project is not overallocated");
+    }
+
+    @Test @DisplayName("Поле Field.overallocated читает флаг перегрузки ресурса")
+    void overallocatedFieldReadsLoad() {
+        TestProjects.Generated generated = TestProjects.create(40, 3, 5L);
+        Field field = Configuration.getFieldFromId("Field.overallocated");
+        assertNotNull(field);
+        for (Resource resource : generated.resources) {
+            assertEquals(Boolean.valueOf(((ResourceImpl) resource).isOverallocated()), field.getValue(resource), resource.getName());
+        }
+    }
+
+    private static void assertSameAsIntervals(ResourceLoad load) {
+        EnterpriseResource resource = load.getResource();
+        List<AssignmentLoad> loads = new ArrayList<>();
+        TreeSet<Long> boundaries = new TreeSet<>();
+        for (Object next : resource.getAssignments()) {
+            Assignment assignment = (Assignment) next;
+            if (assignment.isDefault() || assignment.getTask() == null) {
+                continue;
+            }
+            AssignmentLoad assignmentLoad = assignment.getLoad();
+            loads.add(assignmentLoad);
+            for (int i = 0; i < assignmentLoad.size(); i++) {
+                boundaries.add(assignmentLoad.getStart(i));
+                boundaries.add(assignmentLoad.getEnd(i));
+            }
+        }
+        List<?> availabilities = resource.getAvailabilityTable().getList();
+        for (Object next : availabilities) {
+            boundaries.add(((Availability) next).getStart());
+            boundaries.add(((Availability) next).getEnd());
+        }
+
+        List<long[]> periods = new ArrayList<>();
+        List<double[]> values = new ArrayList<>(); // peak units, maximum units of each period
+        double peak = 0;
+        Long previous = null;
+        for (Long time : boundaries) {
+            if (previous != null) {
+                double units = 0;
+                int active = 0;
+                for (AssignmentLoad assignmentLoad : loads) {
+                    for (int i = 0; i < assignmentLoad.size(); i++) {
+                        if (assignmentLoad.getStart(i) <= previous && assignmentLoad.getEnd(i) >= time) {
+                            units += assignmentLoad.getUnits(i);
+                            active++;
+                        }
+                    }
+                }
+                double maximum = maximumUnits(resource, availabilities, previous);
+                if (active > 0) {
+                    peak = Math.max(peak, units);
+                    if (units > maximum + EPSILON) {
+                        long[] last = periods.isEmpty() ? null : periods.get(periods.size() - 1);
+                        if (last != null && last[1] == previous) {
+                            last[1] = time;
+                            double[] lastValues = values.get(values.size() - 1);
+                            lastValues[0] = Math.max(lastValues[0], units);
+                            lastValues[1] = Math.min(lastValues[1], maximum);
+                        } else {
+                            periods.add(new long[] {previous, time});
+                            values.add(new double[] {units, maximum});
+                        }
+                    }
+                }
+            }
+            previous = time;
+        }
+
+        String name = resource.getName();
+        assertEquals(peak, load.getPeakUnits(), EPSILON, name + " peak units");
+        assertEquals(periods.size(), load.getPeriodCount(), name + " period count");
+        for (int p = 0; p < periods.size(); p++) {
+            assertEquals(periods.get(p)[0], load.getPeriodStart(p), name + " period start " + p);
+            assertEquals(periods.get(p)[1], load.getPeriodEnd(p), name + " period end " + p);
+            assertEquals(values.get(p)[0], load.getPeriodPeakUnits(p), EPSILON, name + " period peak " + p);
+            assertEquals(values.get(p)[1], load.getPeriodMaximumUnits(p), EPSILON, name + " period maximum " + p);
+        }
+    }
+
+    private static double maximumUnits(EnterpriseResource resource, List<?> availabilities, long time) {
+        if (availabilities.isEmpty()) {
+            return resource.getMaximumUnits();
+        }
+        for (Object next : availabilities) {
+            Availability availability = (Availability) next;
+            if (availability.getStart() <= time && time < availability.getEnd()) {
+                return availability.getMaximumUnits();
+            }
+        }
+        return 0;
+    }
+}
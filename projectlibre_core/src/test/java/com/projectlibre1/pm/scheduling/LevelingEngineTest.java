@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Tests for LevelingEngine: after leveling no work resource is overallocated,
+ * the dates left by the incremental critical path runs equal those of a full
+ * walk, leveling within slack keeps the project finish, the date range and
+ * resource options limit the delayed tasks, and the runs are counted.
+ * @version 1.0.0
+ *******************************************************************************/
+package com.projectlibre1.pm.scheduling;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.projectlibre1.pm.TestEnvironmentInitializer;
+import com.projectlibre1.pm.TestProjects;
+import com.projectlibre1.pm.criticalpath.CriticalPath;
+import com.projectlibre1.pm.resource.Resource;
+import com.projectlibre1.pm.resource.ResourceLoad;
+import com.projectlibre1.pm.resource.ResourceLoadEngine;
+import com.projectlibre1.pm.task.NormalTask;
+import com.projectlibre1.pm.task.Project;
+
+/** Выравнивание ресурсов задержками задач. */
+class LevelingEngineTest {
+
+    @BeforeAll
+    static void initCore() {
+        TestEnvironmentInitializer.requireEnvironment();
+    }
+
+    @Test @DisplayName("После выравнивания нет перегрузок, даты равны полному обходу")
+    void levelingRemovesOverallocations() {
+        TestProjects.Generated generated = TestProjects.create(40, 3, 5L);
+        Project project = generated.project;
+        CriticalPath path = (CriticalPath) project.getSchedulingAlgorithm();
+        path.setIncremental(false);
+        assertTrue(overallocatedCount(project) > 0, "generated project is not overallocated");
+
+        LevelingResult result = LevelingEngine.level(project, new LevelingOptions());
+
+        assertFalse(path.isIncremental(), "the full walks setting is restored");
+        assertTrue(result.getUnresolvedTasks().isEmpty(), "unresolved " + result.getUnresolvedTasks());
+        assertTrue(result.getDelayedTaskCount() > 0);
+        assertEquals(0, result.getOverallocatedResourceCount());
+        assertEquals(0, overallocatedCount(project));
+
+        Map<NormalTask, long[]> leveled = dates(generated);
+        project.recalculate(); // a full walk, the incremental passes are off again
+        for (NormalTask task : generated.tasks) {
+            long[] expected = dates(generated).get(task);
+            assertArrayEquals(expected, leveled.get(task), task.getName() + " start/end");
+        }
+    }
+
+    @Test @DisplayName("Число прогонов критического пути и пересчитанных задач")
+    void levelingCountsCpmRuns() {
+        TestProjects.Generated generated = TestProjects.create(40, 3, 5L);
+        Project project = generated.project;
+        CriticalPath path = (CriticalPath) project.getSchedulingAlgorithm();
+        long before = path.getTotalTasksTouched();
+        project.recalculate();
+        long fullWalk = path.getTotalTasksTouched() - before;
+
+        LevelingResult result = LevelingEngine.level(project, new LevelingOptions());
+
+        assertTrue(path.isIncremental());
+        assertTrue(result.getCpmRunCount() > 0, "runs " + result.getCpmRunCount());
+        assertTrue(result.getTasksRecalculated() > 0);
+        assertTrue(result.getTasksRecalculated() < result.getCpmRunCount() * fullWalk,
+            result.getTasksRecalculated() + " tasks in " + result.getCpmRunCount() + " runs of " + fullWalk);
+
+        LevelingOptions keep = new LevelingOptions();
+        keep.setClearLevelingDelays(false);
+        LevelingResult again = LevelingEngine.level(project, keep);
+        assertEquals(0, again.getCpmRunCount(), "nothing left to level");
+        assertEquals(0, again.getDelayedTaskCount());
+        assertEquals(0, again.getTasksRecalculated());
+    }
+
+    @Test @DisplayName("Задачи, начинающиеся вне диапазона дат, не задерживаются")
+    void levelingKeepsTasksOutsideRange() {
+        TestProjects.Generated generated = TestProjects.create(40, 3, 5L);
+        Project project = generated.project;
+        long end = project.getStart() + (project.getEnd() - project.getStart()) / 2;
+        Map<NormalTask, long[]> before = dates(generated);
+
+        LevelingOptions options = new LevelingOptions();
+        options.setEnd(end);
+        LevelingResult result = LevelingEngine.level(project, options);
+
+        assertTrue(result.getDelayedTaskCount() > 0);
+        for (NormalTask task : generated.tasks) {
+            if (before.get(task)[0] >= end) // tasks only move later, so they never entered the range
+                assertEquals(0, task.getLevelingDelay(), task.getName() + " leveling delay");
+        }
+    }
+
+    @Test @DisplayName("Выравниваются только выбранные ресурсы")
+    void levelingOnlyGivenResources() {
+        TestProjects.Generated generated = TestProjects.create(40, 3, 5L);
+        Project project = generated.project;
+        Resource resource = generated.resources.get(0);
+
+        LevelingOptions options = new LevelingOptions();
+        options.setResources(Collections.singletonList(resource));
+        LevelingResult result = LevelingEngine.level(project, options);
+
+        assertTrue(result.getDelayedTaskCount() > 0);
+        assertEquals(0, result.getOverallocatedResourceCount());
+        for (ResourceLoad load : ResourceLoadEngine.compute(Collections.singletonList(resource)))
+            assertFalse(load.isOverallocated(), "leveled resource still overallocated");
+        for (NormalTask task : generated.tasks) {
+            if (task.getLevelingDelay() != 0)
+                assertNotNull(task.findAssignment(resource), task.getName() + " delayed without the resource");
+        }
+    }
+
+    @Test @DisplayName("Выравнивание в пределах резерва не сдвигает окончание проекта")
+    void levelingWithinSlackKeepsFinish() {
+        TestProjects.Generated generated = TestProjects.create(40, 3, 5L);
+        Project project = generated.project;
+        long finish = project.getEnd();
+        int before = overallocatedCount(project);
+
+        LevelingOptions options = new LevelingOptions();
+        options.setWithinSlack(true);
+        LevelingResult result = LevelingEngine.level(project, options);
+
+        assertEquals(finish, project.getEnd());
+        assertTrue(result.getOverallocatedResourceCount() <= before);
+        for (NormalTask task : result.getUnresolvedTasks()) {
+            assertTrue(generated.tasks.contains(task));
+        }
+    }
+
+    private static int overallocatedCount(Project project) {
+        int count = 0;
+        for (ResourceLoad load : ResourceLoadEngine.compute(project.getResourcePool())) {
+            if (load.isOverallocated()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static Map<NormalTask, long[]> dates(TestProjects.Generated generated) {
+        Map<NormalTask, long[]> dates = new HashMap<>();
+        for (NormalTask task : generated.tasks) {
+            dates.put(task, new long[] {task.getStart(), task.getEnd()});
+        }
+        return dates;
+    }
+}
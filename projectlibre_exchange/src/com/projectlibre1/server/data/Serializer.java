@@ -462,6 +462,21 @@ public class Serializer {
     	return serializeProject(project,null,null,false,null);
     }
     public ProjectData serializeProject(Project project,Collection flatAssignments,Collection flatLinks,boolean incremental,SerializeOptions options) throws Exception{
+    	SerializerEvent event=new SerializerEvent();
+    	event.begin();
+    	try{
+    		return doSerializeProject(project,flatAssignments,flatLinks,incremental,options);
+    	}finally{
+    		if (event.shouldCommit()){
+    			event.operation="serialize";
+    			event.project=project.getName();
+    			event.taskCount=project.getTasks().size();
+    			event.incremental=incremental;
+    			event.commit();
+    		}
+    	}
+    }
+    private ProjectData doSerializeProject(Project project,Collection<?> flatAssignments,Collection<?> flatLinks,boolean incremental,SerializeOptions options) throws Exception{
     	if (TMP_FILES) initTmpDir();
     	if (project.isForceNonIncremental()) incremental=false;
     	boolean incrementalDistributions=incremental&&!project.isForceNonIncrementalDistributions();
@@ -797,6 +812,22 @@ public class Serializer {
 //    	_localResourceMap = localResourceMap;
 //    }
     public Project deserializeProject(ProjectData projectData, final boolean subproject, final Session reindex, Map enterpriseResources,Closure loadResources,boolean updateDistribution) throws IOException, ClassNotFoundException {
+    	SerializerEvent event=new SerializerEvent();
+    	event.begin();
+    	Project project=null;
+    	try{
+    		project=doDeserializeProject(projectData,subproject,reindex,enterpriseResources,loadResources,updateDistribution);
+    		return project;
+    	}finally{
+    		if (event.shouldCommit()){
+    			event.operation="deserialize";
+    			event.project=projectData.getName();
+    			event.taskCount=project==null?0:project.getTasks().size();
+    			event.commit();
+    		}
+    	}
+    }
+    private Project doDeserializeProject(ProjectData projectData, final boolean subproject, final Session reindex, Map<?,?> enterpriseResources,Closure loadResources,boolean updateDistribution) throws IOException, ClassNotFoundException {
     	DataFactoryUndoController undoController=new DataFactoryUndoController();
     	Project project=(Project)deserialize(projectData,reindex);
     	project.setUndoController(undoController);
@@ -11,6 +11,9 @@ import type {
   TaskSyncResponse,
   ProjectSyncRequest,
   ProjectSyncResponse,
+  ProjectDeltaSyncRequest,
+  ProjectDeltaSyncResponse,
+  ChangeBatch,
 } from '@/types/api'
 import type { FileAPI } from '@/types/api/file-api.types'
 import { type CaughtError, toCaughtError } from '@/errors/CaughtError'
@@ -196,6 +199,70 @@ export class FileAPIClient extends BaseAPIClient implements FileAPI {
     }
   }
 
+  /**
+   * Дельта-синхронизация: отправляет только изменённые задачи, связи, назначения и ресурсы.
+   * При конфликте версий (409) возвращает отклонённые изменения вместо исключения:
+   * клиенту нужно перечитать проект и повторить изменения на новой scheduleVersion.
+   *
+   * @param request - Изменения с baseVersion
+   * @returns Новая scheduleVersion и маппинг ID ресурсов или список конфликтов
+   */
+  async syncProjectDelta(request: ProjectDeltaSyncRequest): Promise<ProjectDeltaSyncResponse> {
+    try {
+      const response = await this.post<ProjectDeltaSyncResponse>(
+        '/files/sync-delta',
+        request as StrictData,
+      )
+      return response.data
+    } catch (error) {
+      const apiErr = error instanceof APIError ? error : null
+      if (apiErr?.status === 409 && apiErr.details && typeof apiErr.details === 'object' && 'data' in apiErr.details) {
+        return apiErr.details.data as unknown as ProjectDeltaSyncResponse
+      }
+      if (apiErr?.status === 400 && apiErr.details && typeof apiErr.details === 'object' && 'message' in apiErr.details) {
+        throw new Error(String(apiErr.details.message))
+      }
+      throw this.handleFileError(toCaughtError(error), 'Failed to sync project changes')
+    }
+  }
+
+  /**
+   * Изменения проекта после fromSequence (для опроса без server-sent events).
+   * Следующий запрос — с fromSequence = toSequence ответа; при resyncRequired проект нужно перезагрузить.
+   */
+  async getProjectChanges(projectId: number, fromSequence: number, limit?: number): Promise<ChangeBatch> {
+    try {
+      const response = await this.get<ChangeBatch>(`/projects/${projectId}/changes`, { fromSequence, limit })
+      return response.data
+    } catch (error) {
+      throw this.handleFileError(toCaughtError(error), 'Failed to get project changes')
+    }
+  }
+
+  /**
+   * Подписка на изменения проекта после загрузки его данных с scheduleVersion.
+   * EventSource сам переподключается и продолжает с последнего id (Last-Event-ID).
+   * После onResync поток закрыт: нужно перезагрузить проект и подписаться заново.
+   *
+   * @returns Функция отписки
+   */
+  subscribeProjectChanges(
+    projectId: number,
+    fromVersion: number,
+    onChanges: (batch: ChangeBatch) => void,
+    onResync: () => void,
+  ): () => void {
+    const source = new EventSource(`${this.baseURL}/projects/${projectId}/changes/stream?fromVersion=${fromVersion}`)
+    source.addEventListener('changes', (event) => {
+      onChanges(JSON.parse((event as MessageEvent<string>).data) as ChangeBatch)
+    })
+    source.addEventListener('resync', () => {
+      source.close()
+      onResync()
+    })
+    return () => source.close()
+  }
+
   /**
    * Get format version.
    */
@@ -8,6 +8,9 @@ import type {
   ProjectResponse,
   ProjectsListResponse,
   ProjectDataResponse,
+  RecalculationTicketResponse,
+  ResourceLevelingResponse,
+  EarnedValueReportResponse,
   ExportResponse,
   ImportResponse,
 } from '@/types/api/response-types'
@@ -42,6 +45,27 @@ export class ProjectJavaService extends BaseJavaService {
     return await this.executeApiCommand<ProjectDataResponse>('project.recalculate', [id])
   }
 
+  /** Ставит перерасчёт в очередь; частые запросы сливаются в один прогон CPM. */
+  public async requestRecalculation(id: string): Promise<RecalculationTicketResponse | undefined> {
+    return await this.executeApiCommand<RecalculationTicketResponse>('project.requestRecalculation', [id])
+  }
+
+  /** Ждёт перерасчёт с номером sequence и возвращает данные с его scheduleVersion. */
+  public async awaitRecalculation(id: string, sequence: number): Promise<ProjectDataResponse | undefined> {
+    return await this.executeApiCommand<ProjectDataResponse>('project.awaitRecalculation', [id, sequence])
+  }
+
+  /** Выравнивает ресурсы задержками задач; withinSlack — не сдвигать окончание проекта. */
+  public async levelResources(id: string, withinSlack = false): Promise<ResourceLevelingResponse | undefined> {
+    return await this.executeApiCommand<ResourceLevelingResponse>('project.levelResources', [id, withinSlack])
+  }
+
+  /** Отчёт по освоенному объёму всех задач; statusDate (мс) по умолчанию — дата отчёта проекта. */
+  public async getEarnedValue(id: string, statusDate?: number): Promise<EarnedValueReportResponse | undefined> {
+    const args = statusDate === undefined ? [id] : [id, statusDate]
+    return await this.executeApiCommand<EarnedValueReportResponse>('project.earnedValue', args)
+  }
+
   public async exportProject(id: string, format: string): Promise<DataResponse<ExportResponse>> {
     return await this.executeApiCommand('project.export', [id, format])
   }
@@ -357,3 +357,56 @@ export interface ProjectSyncRequest extends BaseRequest {
   /** VB.5: Жёсткий дедлайн проекта для передачи при синхронизации */
   imposedFinishDate?: Date | null
 }
+
+export type DeltaChangeOperation = 'CREATE' | 'UPDATE' | 'DELETE'
+
+/**
+ * Изменение задачи для дельта-синхронизации.
+ * parentId: не указан — родитель не меняется, '' — задача верхнего уровня.
+ */
+export interface TaskDeltaChange {
+  op: DeltaChangeOperation
+  id: string
+  baseVersion?: number
+  parentId?: string
+  task?: FrontendTaskData
+}
+
+/** Связь FS; версия проверяется по задаче-последователю. */
+export interface DependencyDeltaChange {
+  op: Exclude<DeltaChangeOperation, 'UPDATE'>
+  predecessorId: string
+  successorId: string
+  baseVersion?: number
+}
+
+export interface AssignmentDeltaChange {
+  op: DeltaChangeOperation
+  taskId: string
+  resourceId: string
+  units?: number  // 0.0-1.0
+  baseVersion?: number
+}
+
+/** id — Core ID для UPDATE/DELETE, временный ID при CREATE (маппинг в ответе). */
+export interface ResourceDeltaChange {
+  op: DeltaChangeOperation
+  id: string
+  baseVersion?: number
+  resource?: FrontendResourceData
+}
+
+/**
+ * Дельта-синхронизация проекта: только изменённые сущности.
+ * baseVersion — scheduleVersion снимка, на котором сделаны изменения (по умолчанию для всех изменений).
+ */
+export interface ProjectDeltaSyncRequest extends BaseRequest {
+  projectId: number
+  baseVersion?: number
+  /** Поставить пересчёт CPM в очередь после применения */
+  recalculate?: boolean
+  tasks?: TaskDeltaChange[]
+  dependencies?: DependencyDeltaChange[]
+  assignments?: AssignmentDeltaChange[]
+  resources?: ResourceDeltaChange[]
+}
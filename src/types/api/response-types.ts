@@ -412,6 +412,11 @@ export interface ProjectDataResponse extends BaseResponse {
   endDate?: string
   taskCount?: number
   resourceCount?: number
+  /**
+   * Версия опубликованного снимка проекта. Растёт с каждым изменением,
+   * одинаковая версия означает одинаковые данные.
+   */
+  scheduleVersion?: number
   error?: string
   /**
    * Маппинг временных Frontend ID → постоянных Core ID.
@@ -421,6 +426,55 @@ export interface ProjectDataResponse extends BaseResponse {
   resourceIdMapping?: Record<string, string>
 }
 
+/**
+ * Квитанция асинхронного перерасчёта (project.requestRecalculation).
+ * sequence передаётся в project.awaitRecalculation.
+ */
+export interface RecalculationTicketResponse {
+  projectId: number
+  sequence: number
+  scheduleVersion?: number | null
+}
+
+/**
+ * Итоги выравнивания ресурсов (project.levelResources).
+ * unresolvedTaskIds — задачи, которые не удалось задержать достаточно (ограничения, факт, приоритет 1000).
+ */
+export interface ResourceLevelingResponse {
+  projectId: number
+  delayedTaskCount: number
+  unresolvedTaskIds: string[]
+  cpmRunCount: number
+  overallocatedResourceCount: number
+  scheduleVersion: number
+}
+
+/** Показатели освоенного объёма одной строки отчёта (задачи или проекта). */
+export interface EarnedValueRow {
+  bcws: number
+  bcwp: number
+  acwp: number
+  bac: number
+  eac: number
+  cv: number
+  sv: number
+  cpi: number
+  spi: number
+  vac: number
+  tcpi: number
+}
+
+/**
+ * Отчёт по освоенному объёму (project.earnedValue) на дату statusDate (мс).
+ * tasks — строки задач в порядке проекта, project — итоги проекта.
+ */
+export interface EarnedValueReportResponse {
+  projectId: number
+  statusDate: number
+  project: EarnedValueRow
+  tasks: Array<EarnedValueRow & { taskId: string }>
+}
+
 // Ответ синхронизации задач
 export interface TaskSyncResponse {
   success: boolean
@@ -444,3 +498,49 @@ export interface ProjectSyncResponse {
   error?: string
 }
 
+/** Изменение, отклонённое дельта-синхронизацией (currentVersion null — чужое изменение ещё не опубликовано). */
+export interface DeltaSyncConflict {
+  entity: 'task' | 'resource'
+  id: string
+  baseVersion: number | null
+  currentVersion: number | null
+  reason: string
+}
+
+/**
+ * Ответ дельта-синхронизации. При успехе scheduleVersion — база для следующих изменений,
+ * при конфликте (HTTP 409) ничего не применено.
+ */
+export interface ProjectDeltaSyncResponse {
+  success: boolean
+  scheduleVersion: number | null
+  appliedCount: number
+  recalculationSequence: number | null
+  resourceIdMapping: Record<string, string>
+  conflicts: DeltaSyncConflict[]
+}
+
+
+/** Изменение из журнала проекта: INSERT несёт сущность целиком в value, UPDATE — новое значение поля. */
+export interface ChangeLogEntry {
+  sequence: number
+  scheduleVersion: number | null
+  entityType: 'project' | 'task' | 'resource' | 'calendar'
+  entityId: string
+  field: string | null
+  value: unknown
+  operation: 'INSERT' | 'UPDATE' | 'DELETE'
+}
+
+/**
+ * Изменения проекта после fromSequence. Следующий запрос — после toSequence;
+ * при resyncRequired изменения потеряны и проект нужно перезагрузить.
+ */
+export interface ChangeBatch {
+  projectId: number
+  fromSequence: number
+  toSequence: number
+  latestSequence: number
+  resyncRequired: boolean
+  changes: ChangeLogEntry[]
+}